@@ -0,0 +1,120 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.MarginType;
+import com.pblinov.binance.futures.api.dto.PositionSide;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable view of balances and open positions as of one ACCOUNT_UPDATE or REST snapshot, see {@link AccountStore}.
+ * It can be read from any thread without locking.
+ */
+public class AccountSnapshot {
+    static final AccountSnapshot EMPTY = new AccountSnapshot(Map.of(), Map.of(), 0);
+
+    private final Map<String, Balance> balances;
+    /**
+     * Positions of a symbol indexed by {@link PositionSide} ordinal.
+     */
+    private final Map<String, Position[]> positions;
+    private final long updateTime;
+
+    AccountSnapshot(Map<String, Balance> balances, Map<String, Position[]> positions, long updateTime) {
+        this.balances = balances;
+        this.positions = positions;
+        this.updateTime = updateTime;
+    }
+
+    /**
+     * @return balance of the asset or null when it's unknown
+     */
+    public Balance getBalance(String asset) {
+        return balances.get(asset);
+    }
+
+    public Collection<Balance> getBalances() {
+        return Collections.unmodifiableCollection(balances.values());
+    }
+
+    /**
+     * @return open position or null when it's flat
+     */
+    public Position getPosition(String symbol, PositionSide side) {
+        var sides = positions.get(symbol);
+        return sides != null ? sides[side.ordinal()] : null;
+    }
+
+    /**
+     * @return net signed amount over all position sides, 0 when flat
+     */
+    public double getPositionAmount(String symbol) {
+        var sides = positions.get(symbol);
+        if (sides == null) {
+            return 0;
+        }
+        double amount = 0;
+        for (var position : sides) {
+            if (position != null) {
+                amount += position.getAmount();
+            }
+        }
+        return amount;
+    }
+
+    public List<Position> getPositions() {
+        var result = new ArrayList<Position>();
+        for (var sides : positions.values()) {
+            for (var position : sides) {
+                if (position != null) {
+                    result.add(position);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return transaction time of the last applied update or REST snapshot, 0 before the first one
+     */
+    public long getUpdateTime() {
+        return updateTime;
+    }
+
+    Map<String, Balance> balances() {
+        return balances;
+    }
+
+    Map<String, Position[]> positions() {
+        return positions;
+    }
+
+    @Value
+    public static class Balance {
+        String asset;
+        double walletBalance;
+        double crossWalletBalance;
+    }
+
+    @Value
+    public static class Position {
+        String symbol;
+        PositionSide side;
+        /**
+         * Signed, negative for short positions.
+         */
+        double amount;
+        double entryPrice;
+        /**
+         * 0 when the position is loaded over REST, until its next ACCOUNT_UPDATE.
+         */
+        double accumulatedRealized;
+        double unrealizedPnl;
+        MarginType marginType;
+        double isolatedWallet;
+    }
+}
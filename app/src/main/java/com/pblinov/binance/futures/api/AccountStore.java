@@ -0,0 +1,147 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.AccountUpdateEvent;
+import com.pblinov.binance.futures.api.dto.AssetBalance;
+import com.pblinov.binance.futures.api.dto.PositionRisk;
+import com.pblinov.binance.futures.api.dto.PositionSide;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Balances and positions maintained from ACCOUNT_UPDATE events of the user data stream.
+ * Events carry only changed entries, so each of them is merged into the previous state.
+ * <p>
+ * Updates are applied copy-on-write into a new {@link AccountSnapshot} which is then published with a volatile write:
+ * readers (e.g. risk checks on order placement) take the current snapshot without locking and see a consistent state.
+ * Updates are rare compared to reads, only maps and position arrays are copied.
+ * <p>
+ * Initial state is loaded over REST on start and after each user data stream gap, when updates could be lost.
+ * Events applied while the REST snapshot is being loaded are kept and applied again on top of it
+ * unless the snapshot already covers them.
+ */
+class AccountStore {
+    private final List<AccountUpdateEvent> pending = new ArrayList<>();
+    private volatile AccountSnapshot snapshot = AccountSnapshot.EMPTY;
+    private boolean loading;
+
+    AccountSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return false when the event is older than the applied state, e.g. redelivered by an overlapping session
+     */
+    synchronized boolean apply(AccountUpdateEvent event) {
+        var current = snapshot;
+        if (event.getTransactionTime() < current.getUpdateTime()) {
+            return false;
+        }
+        if (loading) {
+            pending.add(event);
+        }
+        snapshot = merge(current, event, event.getTransactionTime());
+        return true;
+    }
+
+    private static AccountSnapshot merge(AccountSnapshot current, AccountUpdateEvent event, long updateTime) {
+        var update = event.getPayload();
+
+        var balances = current.balances();
+        if (!update.getBalances().isEmpty()) {
+            balances = new HashMap<>(balances);
+            for (var balance : update.getBalances()) {
+                balances.put(balance.getAsset(), new AccountSnapshot.Balance(balance.getAsset(),
+                        balance.getWalletBalance(), balance.getCrossWalletBalance()));
+            }
+        }
+
+        var positions = current.positions();
+        if (!update.getPositions().isEmpty()) {
+            positions = new HashMap<>(positions);
+            for (var position : update.getPositions()) {
+                var side = position.getPositionSide() != null ? position.getPositionSide() : PositionSide.BOTH;
+                var sides = positions.get(position.getSymbol());
+                sides = sides != null ? sides.clone() : new AccountSnapshot.Position[PositionSide.values().length];
+                // Closed positions are sent with zero amount
+                sides[side.ordinal()] = position.getPositionAmount() == 0 ? null : new AccountSnapshot.Position(
+                        position.getSymbol(), side, position.getPositionAmount(), position.getEntryPrice(),
+                        position.getAccumulatedRealized(), position.getUnrealizedPnl(), position.getMarginType(),
+                        position.getIsolatedWallet());
+                if (isFlat(sides)) {
+                    positions.remove(position.getSymbol());
+                } else {
+                    positions.put(position.getSymbol(), sides);
+                }
+            }
+        }
+
+        return new AccountSnapshot(balances, positions, updateTime);
+    }
+
+    /**
+     * Must be called before REST requests of the snapshot, so updates which they may miss are kept.
+     */
+    synchronized void beginLoad() {
+        loading = true;
+        pending.clear();
+    }
+
+    /**
+     * Replaces the state with REST snapshot, then applies events received since {@link #beginLoad()}
+     * which are newer than the snapshot. Snapshot time is the latest update time of its entries.
+     */
+    synchronized void load(List<AssetBalance> assetBalances, List<PositionRisk> positionRisks) {
+        long updateTime = 0;
+        var balances = new HashMap<String, AccountSnapshot.Balance>();
+        for (var balance : assetBalances) {
+            balances.put(balance.getAsset(), new AccountSnapshot.Balance(balance.getAsset(),
+                    balance.getBalance(), balance.getCrossWalletBalance()));
+            updateTime = Math.max(updateTime, balance.getUpdateTime());
+        }
+        var positions = new HashMap<String, AccountSnapshot.Position[]>();
+        for (var position : positionRisks) {
+            updateTime = Math.max(updateTime, position.getUpdateTime());
+            if (position.getPositionAmt() == 0) {
+                continue;
+            }
+            var side = position.getPositionSide() != null ? position.getPositionSide() : PositionSide.BOTH;
+            // Accumulated realized PnL is not returned by REST API, it's known from the next ACCOUNT_UPDATE
+            var sides = positions.computeIfAbsent(position.getSymbol(), symbol -> new AccountSnapshot.Position[PositionSide.values().length]);
+            sides[side.ordinal()] = new AccountSnapshot.Position(position.getSymbol(), side, position.getPositionAmt(),
+                    position.getEntryPrice(), 0, position.getUnRealizedProfit(), position.getMarginType(),
+                    position.getIsolatedWallet());
+        }
+
+        // Events applied before are either covered by the snapshot or kept as pending,
+        // applied time is not moved back, so redelivered events are still dropped
+        long appliedTime = snapshot.getUpdateTime();
+        var loaded = new AccountSnapshot(balances, positions, updateTime);
+        for (var event : pending) {
+            if (event.getTransactionTime() > updateTime) {
+                loaded = merge(loaded, event, event.getTransactionTime());
+            }
+        }
+        snapshot = new AccountSnapshot(loaded.balances(), loaded.positions(), Math.max(loaded.getUpdateTime(), appliedTime));
+        loading = false;
+        pending.clear();
+    }
+
+    /**
+     * Keeps the stream state when the snapshot couldn't be loaded.
+     */
+    synchronized void cancelLoad() {
+        loading = false;
+        pending.clear();
+    }
+
+    private static boolean isFlat(AccountSnapshot.Position[] sides) {
+        for (var position : sides) {
+            if (position != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
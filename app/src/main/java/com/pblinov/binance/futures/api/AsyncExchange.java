@@ -0,0 +1,27 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.BatchOrderResult;
+import com.pblinov.binance.futures.api.dto.NewOrder;
+import com.pblinov.binance.futures.api.dto.Order;
+import com.pblinov.binance.futures.api.dto.OrderType;
+import com.pblinov.binance.futures.api.dto.Side;
+import com.pblinov.binance.futures.api.dto.TimeInForce;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link Exchange}.
+ * Futures are completed on HTTP client threads, so callbacks should not block.
+ */
+public interface AsyncExchange {
+    CompletableFuture<Order> placeOrderAsync(String symbol, String clientOrderId, OrderType type, Side side, double qty, double price, TimeInForce tif);
+
+    CompletableFuture<Order> queryOrderAsync(String symbol, String clientOrderId);
+
+    CompletableFuture<Order> cancelOrderAsync(String symbol, String clientOrderId);
+
+    CompletableFuture<List<BatchOrderResult>> placeOrdersAsync(List<NewOrder> orders);
+
+    CompletableFuture<List<BatchOrderResult>> cancelOrdersAsync(String symbol, List<String> clientOrderIds);
+}
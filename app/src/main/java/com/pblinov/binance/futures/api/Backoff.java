@@ -0,0 +1,38 @@
+package com.pblinov.binance.futures.api;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter, not thread-safe.
+ */
+class Backoff {
+    private final long initialNanos;
+    private final long maxNanos;
+    private final double multiplier;
+    private final double jitter;
+    private int attempts;
+
+    Backoff(ReconnectConfig config) {
+        this.initialNanos = config.getInitialDelay().toNanos();
+        this.maxNanos = config.getMaxDelay().toNanos();
+        this.multiplier = config.getMultiplier();
+        this.jitter = config.getJitter();
+    }
+
+    /**
+     * @return delay before the next attempt, in nanos
+     */
+    long nextDelay() {
+        double delay = Math.min(maxNanos, initialNanos * Math.pow(multiplier, attempts));
+        attempts++;
+        return (long) (delay * (1 - jitter * ThreadLocalRandom.current().nextDouble()));
+    }
+
+    int getAttempts() {
+        return attempts;
+    }
+
+    void reset() {
+        attempts = 0;
+    }
+}
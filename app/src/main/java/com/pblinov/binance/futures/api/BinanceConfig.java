@@ -3,12 +3,80 @@ package com.pblinov.binance.futures.api;
 import lombok.Builder;
 import lombok.Getter;
 
+import java.time.Duration;
+import java.util.List;
+
 @Builder
 @Getter
 public class BinanceConfig {
     private final String exchangeName;
     private final String httpUrl;
     private final String wsUrl;
+    /**
+     * WebSocket API endpoint used by {@link WebSocketTradingExchange}, e.g. wss://testnet.binancefuture.com/ws-fapi/v1
+     */
+    private final String wsApiUrl;
     private final String apiKey;
     private final String apiSecret;
+    /**
+     * Window to coalesce {@link AsyncExchange#placeOrderAsync} calls into batch requests, disabled when null.
+     */
+    private final Duration orderBatchWindow;
+    /**
+     * Parse WebSocket text frames straight from network buffers instead of decoding them into strings first.
+     */
+    private final boolean directFrameDecoding;
+    @Builder.Default
+    private final DispatchConfig dispatch = DispatchConfig.INLINE;
+    @Builder.Default
+    private final TransportConfig transport = TransportConfig.DEFAULT;
+    @Builder.Default
+    private final ReconnectConfig reconnect = ReconnectConfig.DEFAULT;
+    @Builder.Default
+    private final HeartbeatConfig heartbeat = HeartbeatConfig.DEFAULT;
+    @Builder.Default
+    private final MetricsConfig metrics = MetricsConfig.DEFAULT;
+    @Builder.Default
+    private final JournalConfig journal = JournalConfig.DEFAULT;
+    @Builder.Default
+    private final RateLimitConfig rateLimit = RateLimitConfig.DEFAULT;
+    @Builder.Default
+    private final RiskConfig risk = RiskConfig.DEFAULT;
+    /**
+     * How long after its timestamp a signed request is valid on the exchange.
+     */
+    @Builder.Default
+    private final Duration recvWindow = Duration.ofSeconds(5);
+    /**
+     * Symbols with local order book, see {@link BinanceExchange#getOrderBook}.
+     */
+    @Builder.Default
+    private final List<String> orderBookSymbols = List.of();
+    /**
+     * Binance limits combined stream connection to 200 streams.
+     */
+    @Builder.Default
+    private final int maxStreamsPerConnection = 200;
+    /**
+     * Number of levels in REST snapshot the order book starts from: 5, 10, 20, 50, 100, 500 or 1000.
+     */
+    @Builder.Default
+    private final int orderBookDepth = 1000;
+    /**
+     * How long {@link WebSocketTradingExchange} waits for a response before falling back to REST API.
+     */
+    @Builder.Default
+    private final Duration wsApiTimeout = Duration.ofSeconds(2);
+    @Builder.Default
+    private final Duration clockSyncInterval = Duration.ofMinutes(1);
+    /**
+     * Number of orders in a final state kept in the local order cache.
+     */
+    @Builder.Default
+    private final int orderCacheCapacity = 4096;
+    /**
+     * How long cached order state is served without REST query while user data stream is down.
+     */
+    @Builder.Default
+    private final Duration orderCacheTtl = Duration.ofSeconds(1);
 }
@@ -1,20 +1,36 @@
 package com.pblinov.binance.futures.api;
 
+import com.google.common.collect.Lists;
+import com.pblinov.binance.futures.api.dto.AccountUpdateEvent;
+import com.pblinov.binance.futures.api.dto.BatchOrderResult;
+import com.pblinov.binance.futures.api.dto.ErrorResponse;
+import com.pblinov.binance.futures.api.dto.NewOrder;
 import com.pblinov.binance.futures.api.dto.Order;
 import com.pblinov.binance.futures.api.dto.OrderType;
+import com.pblinov.binance.futures.api.dto.OrderUpdateEvent;
 import com.pblinov.binance.futures.api.dto.Side;
 import com.pblinov.binance.futures.api.dto.TimeInForce;
 import io.github.resilience4j.retry.Retry;
 import io.github.resilience4j.retry.RetryConfig;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import static com.pblinov.binance.futures.api.BinanceRest.MAX_BATCH_CANCEL;
+import static com.pblinov.binance.futures.api.BinanceRest.MAX_BATCH_PLACE;
+
 @Slf4j
-public class BinanceExchange implements Exchange {
+public class BinanceExchange implements Exchange, AsyncExchange {
     public static final RetryConfig RETRY_CONFIG = RetryConfig.custom()
             .maxAttempts(3)
             .waitDuration(Duration.ofMillis(100))
@@ -24,19 +40,132 @@ public class BinanceExchange implements Exchange {
             .build();
     private final BinanceRest rest;
     private final BinanceWebSocket webSocket;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final OrderBatcher batcher;
+    private final OrderCache orderCache;
+    private final AccountStore accountStore = new AccountStore();
+    private final ClockSync clockSync;
+    private final SubscriptionManager subscriptions;
+    private final OrderBookManager orderBooks;
+    private final RiskEngine risk;
+    private final String exchangeName;
+    private final TransportConfig transport;
+    private final HttpClient httpClient;
+    private final HdrMetrics metricsStats;
+    private final JmxMetrics jmxMetrics;
+    private final Journal journal;
+    private final Retry queryRetry;
+    private final Retry cancelRetry;
 
     public BinanceExchange(BinanceConfig config, EventListener eventListener) {
-        var httpClient = new HttpClient();
-        this.rest = new BinanceRest(config, httpClient);
-        this.webSocket = new BinanceWebSocket(httpClient, config, rest, eventListener);
+        this.exchangeName = config.getExchangeName();
+        this.transport = config.getTransport();
+        var metricsConfig = config.getMetrics();
+        this.metricsStats = new HdrMetrics(metricsConfig);
+        var metrics = metricsConfig.getListener() != null ? Metrics.of(metricsStats, metricsConfig.getListener()) : metricsStats;
+        this.jmxMetrics = metricsConfig.isJmx() ? new JmxMetrics(exchangeName, metricsStats) : null;
+        this.queryRetry = retry("query", metrics);
+        this.cancelRetry = retry("cancel", metrics);
+        this.journal = config.getJournal().getDirectory() != null ? new Journal(exchangeName, config.getJournal()) : null;
+        this.httpClient = HttpClients.create(exchangeName + "-http", transport, transport.isHttp2());
+        // Jetty 11 doesn't run WebSockets over HTTP/2 connections, so they get own HTTP/1.1 client
+        var webSocketHttpClient = transport.isHttp2() ? HttpClients.create(exchangeName + "-ws", transport, false) : httpClient;
+        this.rest = new BinanceRest(config, httpClient, metrics, journal);
+        this.clockSync = new ClockSync(config, rest, rest.getClock());
+        this.orderCache = new OrderCache(config.getOrderCacheCapacity(), config.getOrderCacheTtl(), this::isStreamLive);
+        this.webSocket = new BinanceWebSocket(webSocketHttpClient, config, rest, orderCache, accountStore, new EventListener() {
+            @Override
+            public void onOrderUpdate(OrderUpdateEvent orderUpdate) {
+                orderCache.update(orderUpdate.getPayload());
+                eventListener.onOrderUpdate(orderUpdate);
+            }
+
+            @Override
+            public void onAccountUpdate(AccountUpdateEvent accountUpdate) {
+                if (accountStore.apply(accountUpdate)) {
+                    eventListener.onAccountUpdate(accountUpdate);
+                }
+            }
+        }, metrics, journal);
+        this.subscriptions = new SubscriptionManager(config, webSocket.getWebSocketClient(),
+                config.getJournal().isMarketData() ? journal : null);
+        this.orderBooks = new OrderBookManager(config, rest, subscriptions);
+        this.risk = new RiskEngine(exchangeName, config.getRisk(), orderCache, accountStore, orderBooks::getOrderBook, metrics);
+        this.batcher = config.getOrderBatchWindow() != null ? new OrderBatcher(rest, scheduler, config.getOrderBatchWindow()) : null;
+    }
+
+    private static Retry retry(String name, Metrics metrics) {
+        var retry = Retry.of(name, RETRY_CONFIG);
+        retry.getEventPublisher().onRetry(event -> metrics.onEvent(Metrics.Counter.RETRY));
+        return retry;
     }
 
     public void start() throws Exception {
+        if (jmxMetrics != null) {
+            jmxMetrics.register();
+        }
+        if (journal != null) {
+            journal.open();
+        }
+        httpClient.start();
         webSocket.start();
+        warmUp();
+        clockSync.start();
+        try {
+            rest.loadExchangeInfo();
+        } catch (Exception e) {
+            log.warn("[{}] Cannot load trading rules, prices and quantities are sent without rounding: {}", exchangeName, e.getMessage());
+        }
+        // Books need trading rules to convert prices into ticks
+        orderBooks.start();
+        var keepAliveInterval = transport.getKeepAliveInterval();
+        if (keepAliveInterval != null) {
+            scheduler.scheduleAtFixedRate(this::keepAlive, keepAliveInterval.toMillis(), keepAliveInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
     }
 
     public void stop() throws Exception {
+        clockSync.stop();
+        subscriptions.stop();
+        orderBooks.stop();
         webSocket.stop();
+        scheduler.shutdown();
+        httpClient.stop();
+        if (journal != null) {
+            journal.close();
+        }
+        if (jmxMetrics != null) {
+            jmxMetrics.unregister();
+        }
+    }
+
+    /**
+     * Opens pooled connections (TCP, TLS and HTTP/2 preface) or keeps them from being closed as idle.
+     */
+    private void warmUp() {
+        try {
+            rest.warmUp(transport.getPrewarmConnections()).get(transport.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("[{}] Cannot warm up connections: {}", exchangeName, e.toString());
+        }
+    }
+
+    /**
+     * Same as {@link #warmUp()} without waiting for the pings, the scheduler is shared with order batching.
+     */
+    private void keepAlive() {
+        try {
+            rest.warmUp(transport.getPrewarmConnections())
+                    .orTimeout(transport.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                    .whenComplete((ignored, e) -> {
+                        if (e != null) {
+                            log.warn("[{}] Cannot keep connections alive: {}", exchangeName, e.toString());
+                        }
+                    });
+        } catch (Exception e) {
+            // Periodic task is cancelled once it throws
+            log.warn("[{}] Cannot keep connections alive: {}", exchangeName, e.toString());
+        }
     }
 
     @Override
@@ -50,43 +179,347 @@ public class BinanceExchange implements Exchange {
     }
 
     /**
-     * POST /fapi/v1/order (HMAC SHA256)
+     * POST /fapi/v1/order (HMAC SHA256), unless the order is rejected by risk checks
+     *
+     * @throws RiskRejectedException when the order is rejected by risk checks, see {@link BinanceConfig#getRisk()}
+     * @throws ProcessingException     when the price is off the tick or the quantity is less than the lot step
      */
     @Override
     public void placeOrder(String symbol, String clientOrderId, OrderType type, Side side, double qty, double price, TimeInForce tif) {
-        rest.placeOrder(symbol, clientOrderId, type, side, qty, price, tif);
+        checkRisk(symbol, type, side, qty, price);
+        sendOrder(symbol, clientOrderId, type, side, qty, price, tif);
+    }
+
+    /**
+     * Places an order which already passed risk checks.
+     */
+    void sendOrder(String symbol, String clientOrderId, OrderType type, Side side, double qty, double price, TimeInForce tif) {
+        cached(rest.placeOrder(symbol, clientOrderId, type, side, qty, price, tif));
+    }
+
+    /**
+     * Symbol filters are checked before risk limits, so the order is not counted by the order rate limit.
+     */
+    void checkRisk(String symbol, OrderType type, Side side, double qty, double price) {
+        rest.getSymbolFilters(symbol).check(qty, price);
+        risk.check(symbol, type, side, qty, price);
     }
 
     /**
-     * GET /fapi/v1/order (HMAC SHA256)
+     * GET /fapi/v1/order (HMAC SHA256), unless the order state is known locally
      */
     @Override
     public Order queryOrder(String symbol, String clientOrderId) {
-        return Retry.of("query", RETRY_CONFIG)
-                .executeSupplier(() -> rest.queryOrder(symbol, clientOrderId));
+        var order = orderCache.get(symbol, clientOrderId);
+        if (order != null) {
+            return order;
+        }
+        return cached(queryRetry
+                .executeSupplier(() -> rest.queryOrder(symbol, clientOrderId)));
     }
 
     /**
-     * DELETE /fapi/v1/order (HMAC SHA256)
+     * DELETE /fapi/v1/order (HMAC SHA256), unless the order is known to be in a final state
      */
     @Override
     public Order cancelOrder(String symbol, String clientOrderId) {
-        return Retry.of("cancel", RETRY_CONFIG)
+        var order = finalOrder(symbol, clientOrderId);
+        if (order != null) {
+            return order;
+        }
+        return cached(cancelRetry
                 .executeSupplier(() -> {
                     try {
                         return rest.cancelOrder(symbol, clientOrderId);
                     } catch (Exception e) {
-                        var order = queryOrder(symbol, clientOrderId);
-                        if (order.getStatus().isFinal()) {
+                        var queried = queryOrder(symbol, clientOrderId);
+                        if (queried.getStatus().isFinal()) {
                             log.debug("Order already has a final state");
-                            return order;
+                            return queried;
                         }
                         throw e;
                     }
+                }));
+    }
+
+    /**
+     * POST /fapi/v1/batchOrders (HMAC SHA256), orders rejected by symbol filters or risk checks get an error result and are not sent
+     */
+    @Override
+    public List<BatchOrderResult> placeOrders(List<NewOrder> orders) {
+        var rejected = checkRisk(orders);
+        var results = new ArrayList<BatchOrderResult>(orders.size());
+        for (var batch : Lists.partition(accepted(orders, rejected), MAX_BATCH_PLACE)) {
+            results.addAll(rest.placeOrders(batch));
+        }
+        return cached(merge(results, rejected));
+    }
+
+    /**
+     * DELETE /fapi/v1/batchOrders (HMAC SHA256)
+     */
+    @Override
+    public List<BatchOrderResult> cancelOrders(String symbol, List<String> clientOrderIds) {
+        var results = new ArrayList<BatchOrderResult>(clientOrderIds.size());
+        for (var batch : Lists.partition(clientOrderIds, MAX_BATCH_CANCEL)) {
+            results.addAll(rest.cancelOrders(symbol, batch));
+        }
+        return cached(results);
+    }
+
+    /**
+     * POST /fapi/v1/order (HMAC SHA256) or POST /fapi/v1/batchOrders when batch window is configured.
+     * Completes with {@link RiskRejectedException} when the order is rejected by risk checks
+     * or with {@link ProcessingException} when it's rejected by symbol filters.
+     */
+    @Override
+    public CompletableFuture<Order> placeOrderAsync(String symbol, String clientOrderId, OrderType type, Side side, double qty, double price, TimeInForce tif) {
+        try {
+            checkRisk(symbol, type, side, qty, price);
+        } catch (ProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (batcher != null) {
+            return batcher.placeOrder(NewOrder.builder()
+                    .symbol(symbol)
+                    .clientOrderId(clientOrderId)
+                    .type(type)
+                    .side(side)
+                    .qty(qty)
+                    .price(price)
+                    .tif(tif)
+                    .build())
+                    .thenApply(this::cached);
+        }
+        return rest.placeOrderAsync(symbol, clientOrderId, type, side, qty, price, tif)
+                .thenApply(this::cached);
+    }
+
+    /**
+     * GET /fapi/v1/order (HMAC SHA256), unless the order state is known locally
+     */
+    @Override
+    public CompletableFuture<Order> queryOrderAsync(String symbol, String clientOrderId) {
+        var order = orderCache.get(symbol, clientOrderId);
+        if (order != null) {
+            return CompletableFuture.completedFuture(order);
+        }
+        return queryRetry
+                .executeCompletionStage(scheduler, () -> rest.queryOrderAsync(symbol, clientOrderId))
+                .toCompletableFuture()
+                .thenApply(this::cached);
+    }
+
+    /**
+     * DELETE /fapi/v1/order (HMAC SHA256), unless the order is known to be in a final state
+     */
+    @Override
+    public CompletableFuture<Order> cancelOrderAsync(String symbol, String clientOrderId) {
+        var order = finalOrder(symbol, clientOrderId);
+        if (order != null) {
+            return CompletableFuture.completedFuture(order);
+        }
+        return cancelRetry
+                .executeCompletionStage(scheduler, () -> rest.cancelOrderAsync(symbol, clientOrderId)
+                        .exceptionallyCompose(e -> queryOrderAsync(symbol, clientOrderId)
+                                .thenCompose(queried -> {
+                                    if (queried.getStatus().isFinal()) {
+                                        log.debug("Order already has a final state");
+                                        return CompletableFuture.completedFuture(queried);
+                                    }
+                                    return CompletableFuture.failedFuture(e);
+                                })))
+                .toCompletableFuture()
+                .thenApply(this::cached);
+    }
+
+    /**
+     * POST /fapi/v1/batchOrders (HMAC SHA256), orders rejected by symbol filters or risk checks get an error result and are not sent
+     */
+    @Override
+    public CompletableFuture<List<BatchOrderResult>> placeOrdersAsync(List<NewOrder> orders) {
+        var rejected = checkRisk(orders);
+        return allOf(Lists.transform(Lists.partition(accepted(orders, rejected), MAX_BATCH_PLACE), rest::placeOrdersAsync))
+                .thenApply(results -> cached(merge(results, rejected)));
+    }
+
+    /**
+     * DELETE /fapi/v1/batchOrders (HMAC SHA256)
+     */
+    @Override
+    public CompletableFuture<List<BatchOrderResult>> cancelOrdersAsync(String symbol, List<String> clientOrderIds) {
+        return allOf(Lists.transform(Lists.partition(clientOrderIds, MAX_BATCH_CANCEL), batch -> rest.cancelOrdersAsync(symbol, batch)))
+                .thenApply(this::cached);
+    }
+
+    private static CompletableFuture<List<BatchOrderResult>> allOf(List<CompletableFuture<List<BatchOrderResult>>> batches) {
+        var futures = new ArrayList<>(batches);
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    var results = new ArrayList<BatchOrderResult>();
+                    for (var future : futures) {
+                        results.addAll(future.join());
+                    }
+                    return results;
                 });
     }
 
+    /**
+     * Orders accepted earlier in the batch count towards position and open order limits of the next ones.
+     *
+     * @return results of rejected orders at their positions, or null when all orders pass
+     */
+    private BatchOrderResult[] checkRisk(List<NewOrder> orders) {
+        BatchOrderResult[] rejected = null;
+        for (int i = 0; i < orders.size(); i++) {
+            var order = orders.get(i);
+            double batchQty = 0;
+            int batchOrders = 0;
+            for (int j = 0; j < i; j++) {
+                var accepted = orders.get(j);
+                if (rejected == null || rejected[j] == null) {
+                    batchOrders++;
+                    if (accepted.getSide() == order.getSide() && accepted.getSymbol().equals(order.getSymbol())) {
+                        batchQty += accepted.getQty();
+                    }
+                }
+            }
+            try {
+                rest.getSymbolFilters(order.getSymbol()).check(order.getQty(), order.getPrice());
+                risk.check(order.getSymbol(), order.getType(), order.getSide(), order.getQty(), order.getPrice(), batchQty, batchOrders);
+            } catch (ProcessingException e) {
+                if (rejected == null) {
+                    rejected = new BatchOrderResult[orders.size()];
+                }
+                var error = new ErrorResponse();
+                error.setCode(e.getCode());
+                error.setMsg(e.getMessage());
+                rejected[i] = new BatchOrderResult(null, error);
+            }
+        }
+        return rejected;
+    }
+
+    private static List<NewOrder> accepted(List<NewOrder> orders, BatchOrderResult[] rejected) {
+        if (rejected == null) {
+            return orders;
+        }
+        var accepted = new ArrayList<NewOrder>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            if (rejected[i] == null) {
+                accepted.add(orders.get(i));
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Puts results of rejected orders back at their positions, so results match the requested orders.
+     */
+    private static List<BatchOrderResult> merge(List<BatchOrderResult> results, BatchOrderResult[] rejected) {
+        if (rejected == null) {
+            return results;
+        }
+        var merged = new ArrayList<BatchOrderResult>(rejected.length);
+        var sent = results.iterator();
+        for (var result : rejected) {
+            merged.add(result != null ? result : sent.next());
+        }
+        return merged;
+    }
+
+    private boolean isStreamLive() {
+        return webSocket.isLive();
+    }
+
+    private Order finalOrder(String symbol, String clientOrderId) {
+        var order = orderCache.get(symbol, clientOrderId);
+        return order != null && order.getStatus().isFinal() ? order : null;
+    }
+
+    private Order cached(Order order) {
+        orderCache.update(order);
+        return order;
+    }
+
+    private List<BatchOrderResult> cached(List<BatchOrderResult> results) {
+        for (var result : results) {
+            if (result.isSuccess()) {
+                orderCache.update(result.getOrder());
+            }
+        }
+        return results;
+    }
+
+    BinanceRest getRest() {
+        return rest;
+    }
+
+    OrderCache getOrderCache() {
+        return orderCache;
+    }
+
+    AccountStore getAccountStore() {
+        return accountStore;
+    }
+
+    /**
+     * Balances and positions as of the last ACCOUNT_UPDATE or REST snapshot, read without locking.
+     */
+    public AccountSnapshot getAccount() {
+        return accountStore.getSnapshot();
+    }
+
+    WebSocketClient getWebSocketClient() {
+        return webSocket.getWebSocketClient();
+    }
+
+    public DispatchStats getDispatchStats() {
+        return webSocket.getDispatchStats();
+    }
+
+    public HeartbeatStats getHeartbeatStats() {
+        return webSocket.getHeartbeatStats();
+    }
+
+    /**
+     * Latencies of signing, sending and parsing REST requests, user data stream dispatch, retries and reconnects.
+     */
+    public MetricsStats getMetricsStats() {
+        return metricsStats;
+    }
+
     public void connect() {
         webSocket.connect();
+        subscriptions.connect();
+    }
+
+    /**
+     * @return local order book of one of {@link BinanceConfig#getOrderBookSymbols()} or {@link #subscribeOrderBook} symbols,
+     * null for other symbols
+     */
+    public OrderBook getOrderBook(String symbol) {
+        return orderBooks.getOrderBook(symbol);
+    }
+
+    /**
+     * Order book of the symbol, it's synced after depth stream is connected.
+     */
+    public OrderBook subscribeOrderBook(String symbol) {
+        return orderBooks.subscribe(symbol);
+    }
+
+    /**
+     * Subscribes market data stream of the symbol, {@link StreamType#DEPTH} is available via {@link #subscribeOrderBook}.
+     */
+    public Subscription subscribe(String symbol, StreamType type, MarketDataListener listener) {
+        if (type == StreamType.DEPTH) {
+            throw new IllegalArgumentException("Use subscribeOrderBook for depth stream");
+        }
+        return subscriptions.subscribe(new Subscription(symbol, type, listener, null));
+    }
+
+    public void unsubscribe(Subscription subscription) {
+        subscriptions.unsubscribe(subscription);
     }
 }
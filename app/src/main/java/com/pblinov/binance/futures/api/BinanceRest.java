@@ -1,41 +1,86 @@
 package com.pblinov.binance.futures.api;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pblinov.binance.futures.api.dto.*;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpContentResponse;
 import org.eclipse.jetty.client.api.ContentResponse;
 import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
+import org.eclipse.jetty.client.util.ByteBufferRequestContent;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpMethod;
 
 import java.io.IOException;
 import java.net.URI;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 @Slf4j
 class BinanceRest {
     public static final String BASE_PATH = "/fapi/v1";
+    public static final String BASE_PATH_V2 = "/fapi/v2";
     public static final String API_KEY_HEADER = "X-MBX-APIKEY";
+    public static final int MAX_BATCH_PLACE = 5;
+    public static final int MAX_BATCH_CANCEL = 10;
+    private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
     private final BinanceConfig config;
     private final HttpClient httpClient;
     private final ObjectMapper mapper = new ObjectMapper();
+    private final RateLimiter rateLimiter;
+    private final ServerClock clock = new ServerClock();
+    private final HmacSigner signer;
+    private final ThreadLocal<QueryBuilder> queryBuilders = ThreadLocal.withInitial(QueryBuilder::new);
+    private final Map<String, SymbolFilters> symbolFilters = new ConcurrentHashMap<>();
+    private final URI orderUri;
+    private final Metrics metrics;
+    private final Journal journal;
 
     BinanceRest(BinanceConfig config, HttpClient httpClient) {
+        this(config, httpClient, Metrics.NOOP, null);
+    }
+
+    /**
+     * @param journal receives responses of signed requests, optional
+     */
+    BinanceRest(BinanceConfig config, HttpClient httpClient, Metrics metrics, Journal journal) {
         this.config = config;
         this.httpClient = httpClient;
+        this.metrics = metrics;
+        this.journal = journal;
+        this.rateLimiter = new RateLimiter(config.getExchangeName(), config.getRateLimit());
+        this.signer = new HmacSigner(config.getApiSecret());
+        this.orderUri = createUri("/order");
+    }
+
+    ServerClock getClock() {
+        return clock;
+    }
+
+    RateLimiter getRateLimiter() {
+        return rateLimiter;
     }
 
     @SneakyThrows
     ListenKeyResponse getListenKey() {
-        var response = httpClient.POST(createUri("/listenKey"))
+        sleep(rateLimiter.acquire(1, 0));
+        var response = limited(httpClient.POST(createUri("/listenKey"))
                 .headers(this::authHeaders)
-                .send();
+                .send());
         if (response.getStatus() != 200) {
             throw new IllegalStateException("Cannot retrieve listenKey");
         }
@@ -45,10 +90,11 @@ class BinanceRest {
 
     @SneakyThrows
     void extendListenKey(String listenKey) {
-        var response = httpClient.newRequest(createUri("/listenKey"))
+        sleep(rateLimiter.acquire(1, 0));
+        var response = limited(httpClient.newRequest(createUri("/listenKey"))
                 .method(HttpMethod.PUT)
                 .headers(this::authHeaders)
-                .send();
+                .send());
         if (response.getStatus() != 200) {
             log.warn("[{}] Cannot extend listenKey={}: {}", config.getExchangeName(), listenKey, response.getContentAsString());
             throw new IllegalStateException("Cannot retrieve listenKey");
@@ -61,6 +107,19 @@ class BinanceRest {
         return get("/ping").getStatus() == 200;
     }
 
+    /**
+     * Sends concurrent GET /fapi/v1/ping requests, so each of them takes own pooled connection
+     * (or opens it) unless requests are multiplexed over HTTP/2.
+     */
+    CompletableFuture<Void> warmUp(int connections) {
+        log.debug("[{}] Warm up {} connections", config.getExchangeName(), connections);
+        var pings = new CompletableFuture<?>[connections];
+        for (int i = 0; i < connections; i++) {
+            pings[i] = sendAsync(1, 0, () -> httpClient.newRequest(createUri("/ping")));
+        }
+        return CompletableFuture.allOf(pings);
+    }
+
     @SneakyThrows
     long timestamp() {
         log.debug("[{}] Timestamp", config.getExchangeName());
@@ -72,97 +131,453 @@ class BinanceRest {
         }
     }
 
+    /**
+     * GET /fapi/v1/exchangeInfo, loads trading rules used to format prices and quantities.
+     */
     @SneakyThrows
-    void placeOrder(String symbol, String clientOrderId, OrderType type, Side side, double qty, double price, TimeInForce tif) {
-        log.info("[{}] Place order with ID: {}", config.getExchangeName(), clientOrderId);
+    void loadExchangeInfo() {
+        var response = get("/exchangeInfo");
+        if (response.getStatus() != 200) {
+            throw new IllegalStateException("Cannot retrieve exchange info");
+        }
+        var info = mapper.readValue(response.getContent(), ExchangeInfo.class);
+        for (var symbol : info.getSymbols()) {
+            symbolFilters.put(symbol.getSymbol(), SymbolFilters.of(symbol));
+        }
+        log.info("[{}] Loaded trading rules of {} symbols", config.getExchangeName(), symbolFilters.size());
+    }
 
-        var response = sendWithTimestamp(httpClient.newRequest(createUri("/order"))
-                .method(HttpMethod.POST)
+    /**
+     * GET /fapi/v1/depth
+     */
+    @SneakyThrows
+    DepthSnapshot depth(String symbol, int limit) {
+        log.debug("[{}] Depth of {}", config.getExchangeName(), symbol);
+        sleep(rateLimiter.acquire(depthWeight(limit), 0));
+        var response = limited(httpClient.newRequest(createUri("/depth"))
                 .param("symbol", symbol)
-                .param("newClientOrderId", clientOrderId)
-                .param("side", Objects.toString(side))
-                .param("type", Objects.toString(type))
-                .param("quantity", Objects.toString(qty))
-                .param("price", Objects.toString(price))
-                .param("timeInForce", Objects.toString(tif)));
+                .param("limit", Integer.toString(limit))
+                .send());
+        if (response.getStatus() != 200) {
+            throw new IllegalStateException("Cannot retrieve depth of " + symbol + ": " + response.getContentAsString());
+        }
+        return mapper.readValue(response.getContent(), DepthSnapshot.class);
+    }
+
+    private static int depthWeight(int limit) {
+        if (limit <= 50) {
+            return 2;
+        } else if (limit <= 100) {
+            return 5;
+        } else if (limit <= 500) {
+            return 10;
+        }
+        return 20;
+    }
+
+    SymbolFilters getSymbolFilters(String symbol) {
+        return symbolFilters.getOrDefault(symbol, SymbolFilters.DEFAULT);
+    }
+
+    @SneakyThrows
+    Order placeOrder(String symbol, String clientOrderId, OrderType type, Side side, double qty, double price, TimeInForce tif) {
+        log.debug("[{}] Place order with ID: {}", config.getExchangeName(), clientOrderId);
+
+        var response = sendWithTimestamp(HttpMethod.POST, orderUri, placeOrderParams(symbol, clientOrderId, type, side, qty, price, tif), 0, 1);
 
         if (response.getStatus() != 200) {
             log.warn("[{}] Place order response: {}", config.getExchangeName(), response.getContentAsString());
             throw new IllegalStateException("Cannot place order");
         } else {
-            log.debug("[{}] Place order response: {}", config.getExchangeName(), response.getContentAsString());
+            if (log.isDebugEnabled()) {
+                log.debug("[{}] Place order response: {}", config.getExchangeName(), response.getContentAsString());
+            }
+            return mapper.readValue(response.getContent(), Order.class);
         }
     }
 
+    /**
+     * Unlike {@link #placeOrder} the new order acknowledgement is parsed and exchange errors are reported
+     * as {@link ProcessingException}, so the caller can decide on retries.
+     */
+    CompletableFuture<Order> placeOrderAsync(String symbol, String clientOrderId, OrderType type, Side side, double qty, double price, TimeInForce tif) {
+        log.debug("[{}] Place order with ID: {}", config.getExchangeName(), clientOrderId);
+        return sendAsync(HttpMethod.POST, orderUri, placeOrderParams(symbol, clientOrderId, type, side, qty, price, tif), 0, 1)
+                .thenApply(response -> readOrder(response, "place order"));
+    }
+
     @SneakyThrows
     Order queryOrder(String symbol, String clientOrderId) {
-        log.info("[{}] Query order with ID: {}", config.getExchangeName(), clientOrderId);
+        log.debug("[{}] Query order with ID: {}", config.getExchangeName(), clientOrderId);
+        return readOrder(sendWithTimestamp(queryOrderRequest(symbol, clientOrderId), 1, 0), "query order");
+    }
+
+    CompletableFuture<Order> queryOrderAsync(String symbol, String clientOrderId) {
+        log.debug("[{}] Query order with ID: {}", config.getExchangeName(), clientOrderId);
+        return sendAsync(queryOrderRequest(symbol, clientOrderId), 1, 0)
+                .thenApply(response -> readOrder(response, "query order"));
+    }
+
+    @SneakyThrows
+    Order cancelOrder(String symbol, String clientOrderId) {
+        log.debug("[{}] Cancel order with ID: {}", config.getExchangeName(), clientOrderId);
+        return readOrder(sendWithTimestamp(HttpMethod.DELETE, orderUri, cancelOrderParams(symbol, clientOrderId), 1, 0), "cancel order");
+    }
+
+    CompletableFuture<Order> cancelOrderAsync(String symbol, String clientOrderId) {
+        log.debug("[{}] Cancel order with ID: {}", config.getExchangeName(), clientOrderId);
+        return sendAsync(HttpMethod.DELETE, orderUri, cancelOrderParams(symbol, clientOrderId), 1, 0)
+                .thenApply(response -> readOrder(response, "cancel order"));
+    }
+
+    /**
+     * GET /fapi/v1/openOrders of all symbols
+     */
+    @SneakyThrows
+    List<Order> openOrders() {
+        log.info("[{}] Query open orders", config.getExchangeName());
+        var response = sendWithTimestamp(httpClient.newRequest(createUri("/openOrders")).method(HttpMethod.GET), 40, 0);
+        if (response.getStatus() != 200) {
+            throw readError(response, "query open orders");
+        }
+        return mapper.readValue(response.getContent(), new TypeReference<List<Order>>() {
+        });
+    }
 
-        var response = sendWithTimestamp(httpClient.newRequest(createUri("/order"))
+    /**
+     * GET /fapi/v2/positionRisk of all symbols
+     */
+    @SneakyThrows
+    List<PositionRisk> positionRisk() {
+        log.info("[{}] Query positions", config.getExchangeName());
+        var response = sendWithTimestamp(httpClient.newRequest(createUri(BASE_PATH_V2, "/positionRisk")).method(HttpMethod.GET), 5, 0);
+        if (response.getStatus() != 200) {
+            throw readError(response, "query positions");
+        }
+        return mapper.readValue(response.getContent(), new TypeReference<List<PositionRisk>>() {
+        });
+    }
+
+    /**
+     * GET /fapi/v2/balance
+     */
+    @SneakyThrows
+    List<AssetBalance> balances() {
+        log.info("[{}] Query balances", config.getExchangeName());
+        var response = sendWithTimestamp(httpClient.newRequest(createUri(BASE_PATH_V2, "/balance")).method(HttpMethod.GET), 5, 0);
+        if (response.getStatus() != 200) {
+            throw readError(response, "query balances");
+        }
+        return mapper.readValue(response.getContent(), new TypeReference<List<AssetBalance>>() {
+        });
+    }
+
+    /**
+     * POST /fapi/v1/batchOrders, up to {@link #MAX_BATCH_PLACE} orders per call.
+     */
+    @SneakyThrows
+    List<BatchOrderResult> placeOrders(List<NewOrder> orders) {
+        log.debug("[{}] Place {} orders", config.getExchangeName(), orders.size());
+        return readBatch(sendWithTimestamp(placeOrdersRequest(orders), 5, orders.size()), "place orders");
+    }
+
+    CompletableFuture<List<BatchOrderResult>> placeOrdersAsync(List<NewOrder> orders) {
+        log.debug("[{}] Place {} orders", config.getExchangeName(), orders.size());
+        return sendAsync(placeOrdersRequest(orders), 5, orders.size())
+                .thenApply(response -> readBatch(response, "place orders"));
+    }
+
+    /**
+     * DELETE /fapi/v1/batchOrders, up to {@link #MAX_BATCH_CANCEL} orders per call.
+     */
+    @SneakyThrows
+    List<BatchOrderResult> cancelOrders(String symbol, List<String> clientOrderIds) {
+        log.debug("[{}] Cancel orders with IDs: {}", config.getExchangeName(), clientOrderIds);
+        return readBatch(sendWithTimestamp(cancelOrdersRequest(symbol, clientOrderIds), 1, 0), "cancel orders");
+    }
+
+    CompletableFuture<List<BatchOrderResult>> cancelOrdersAsync(String symbol, List<String> clientOrderIds) {
+        log.debug("[{}] Cancel orders with IDs: {}", config.getExchangeName(), clientOrderIds);
+        return sendAsync(cancelOrdersRequest(symbol, clientOrderIds), 1, 0)
+                .thenApply(response -> readBatch(response, "cancel orders"));
+    }
+
+    /**
+     * Parameters are written into the thread's {@link QueryBuilder}, which stays valid until the next request on the thread.
+     */
+    QueryBuilder placeOrderParams(String symbol, String clientOrderId, OrderType type, Side side, double qty, double price, TimeInForce tif) {
+        var filters = getSymbolFilters(symbol);
+        return params()
+                .add("symbol", symbol)
+                .add("newClientOrderId", clientOrderId)
+                .add("side", side.name())
+                .add("type", type.name())
+                .addDecimal("quantity", filters.orderQtyUnits(qty), filters.getQtyScale())
+                .addDecimal("price", filters.orderPriceUnits(price), filters.getPriceScale())
+                .add("timeInForce", tif.name());
+    }
+
+    private Request queryOrderRequest(String symbol, String clientOrderId) {
+        return httpClient.newRequest(createUri("/order"))
                 .method(HttpMethod.GET)
                 .param("symbol", symbol)
-                .param("origClientOrderId", clientOrderId));
+                .param("origClientOrderId", clientOrderId);
+    }
 
-        switch (response.getStatus()) {
-            case 200:
-                log.debug("[{}] Query order response: {}", config.getExchangeName(), response.getContentAsString());
-                // {"orderId":3046231366,"symbol":"BTCUSDT","status":"NEW","clientOrderId":"Lt2LC3grCRzxJfc6MZf1IF","price":"28700","avgPrice":"0.00000","origQty":"0.010","executedQty":"0","cumQuote":"0","timeInForce":"GTC","type":"LIMIT","reduceOnly":false,"closePosition":false,"side":"SELL","positionSide":"BOTH","stopPrice":"0","workingType":"CONTRACT_PRICE","priceProtect":false,"origType":"LIMIT","time":1654987000652,"updateTime":1654987000652}
-                return mapper.readValue(response.getContent(), Order.class);
-            case 400:
-                try {
-                    var error = mapper.readValue(response.getContent(), ErrorResponse.class);
-                    throw ProcessingException.of(error.getCode(), error.getMsg());
-                } catch (IOException e) {
-                    log.error("[{}] Cannot parse order query response: {}", config.getExchangeName(), response.getContentAsString());
-                    throw new RuntimeException(e);
-                }
-            default:
-                log.error("[{}] Query order response: {}", config.getExchangeName(), response.getContentAsString());
-                throw new IllegalStateException("Cannot query order");
+    private QueryBuilder cancelOrderParams(String symbol, String clientOrderId) {
+        return params()
+                .add("symbol", symbol)
+                .add("origClientOrderId", clientOrderId);
+    }
+
+    private QueryBuilder params() {
+        return queryBuilders.get().reset();
+    }
+
+    @SneakyThrows
+    private Request placeOrdersRequest(List<NewOrder> orders) {
+        var batch = mapper.createArrayNode();
+        for (var order : orders) {
+            var filters = getSymbolFilters(order.getSymbol());
+            batch.addObject()
+                    .put("symbol", order.getSymbol())
+                    .put("newClientOrderId", order.getClientOrderId())
+                    .put("side", Objects.toString(order.getSide()))
+                    .put("type", Objects.toString(order.getType()))
+                    .put("quantity", filters.formatQty(order.getQty()))
+                    .put("price", filters.formatPrice(order.getPrice()))
+                    .put("timeInForce", Objects.toString(order.getTif()));
         }
+        return httpClient.newRequest(createUri("/batchOrders"))
+                .method(HttpMethod.POST)
+                .param("batchOrders", mapper.writeValueAsString(batch));
     }
 
     @SneakyThrows
-    Order cancelOrder(String symbol, String clientOrderId) {
-        log.info("[{}] Cancel order with ID: {}", config.getExchangeName(), clientOrderId);
-        var response = sendWithTimestamp(httpClient.newRequest(createUri("/order"))
+    private Request cancelOrdersRequest(String symbol, List<String> clientOrderIds) {
+        return httpClient.newRequest(createUri("/batchOrders"))
                 .method(HttpMethod.DELETE)
                 .param("symbol", symbol)
-                .param("origClientOrderId", clientOrderId));
+                .param("origClientOrderIdList", mapper.writeValueAsString(clientOrderIds));
+    }
 
+    @SneakyThrows
+    private Order readOrder(ContentResponse response, String operation) {
+        if (response.getStatus() != 200) {
+            throw readError(response, operation);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("[{}] {} response: {}", config.getExchangeName(), operation, response.getContentAsString());
+        }
+        // {"orderId":3046231366,"symbol":"BTCUSDT","status":"NEW","clientOrderId":"Lt2LC3grCRzxJfc6MZf1IF","price":"28700","avgPrice":"0.00000","origQty":"0.010","executedQty":"0","cumQuote":"0","timeInForce":"GTC","type":"LIMIT","reduceOnly":false,"closePosition":false,"side":"SELL","positionSide":"BOTH","stopPrice":"0","workingType":"CONTRACT_PRICE","priceProtect":false,"origType":"LIMIT","time":1654987000652,"updateTime":1654987000652}
+        long start = System.nanoTime();
+        var order = mapper.readValue(response.getContent(), Order.class);
+        metrics.onLatency(Metrics.Timer.PARSE, System.nanoTime() - start);
+        return order;
+    }
+
+    /**
+     * Error of an unsuccessful response, to be thrown by the caller: {@link ProcessingException} with the exchange code
+     * for rejected requests (400, 418, 429), {@link IllegalStateException} otherwise.
+     */
+    private RuntimeException readError(ContentResponse response, String operation) {
         switch (response.getStatus()) {
-            case 200:
-                log.debug("[{}] Cancel order response: {}", config.getExchangeName(), response.getContentAsString());
-                return mapper.readValue(response.getContent(), Order.class);
             case 400:
+            case 418:
+            case 429:
                 try {
                     var error = mapper.readValue(response.getContent(), ErrorResponse.class);
-                    throw ProcessingException.of(error.getCode(), error.getMsg());
+                    return ProcessingException.of(error.getCode(), error.getMsg());
                 } catch (IOException e) {
-                    log.error("[{}] Cannot parse cancel order response: {}", config.getExchangeName(), response.getContentAsString());
-                    throw new RuntimeException(e);
+                    log.error("[{}] Cannot parse {} response: {}", config.getExchangeName(), operation, response.getContentAsString());
+                    return new RuntimeException(e);
                 }
             default:
-                log.error("[{}] Cancel order response: {}", config.getExchangeName(), response.getContentAsString());
-                throw new IllegalStateException("Cannot cancel order");
+                log.error("[{}] {} response: {}", config.getExchangeName(), operation, response.getContentAsString());
+                return new IllegalStateException("Cannot " + operation);
+        }
+    }
+
+    @SneakyThrows
+    List<BatchOrderResult> readBatch(ContentResponse response, String operation) {
+        if (response.getStatus() == 200) {
+            if (log.isDebugEnabled()) {
+                log.debug("[{}] {} response: {}", config.getExchangeName(), operation, response.getContentAsString());
+            }
+            long start = System.nanoTime();
+            var results = new ArrayList<BatchOrderResult>();
+            for (var entry : mapper.readTree(response.getContent())) {
+                if (entry.has("code")) {
+                    results.add(new BatchOrderResult(null, mapper.treeToValue(entry, ErrorResponse.class)));
+                } else {
+                    results.add(new BatchOrderResult(mapper.treeToValue(entry, Order.class), null));
+                }
+            }
+            metrics.onLatency(Metrics.Timer.PARSE, System.nanoTime() - start);
+            return results;
         }
+        // Whole batch is rejected in the same way as a single order
+        throw readError(response, operation);
+    }
+
+    /**
+     * Request weight and number of orders follow "Weight" section of the endpoint in API docs.
+     */
+    private ContentResponse sendWithTimestamp(Request request, int weight, int orders) throws InterruptedException, TimeoutException, ExecutionException {
+        sleep(rateLimiter.acquire(weight, orders));
+        return sendAsync(signedWithTimestamp(request)).get();
+    }
+
+    /**
+     * Sends signed parameters as form body, the same bytes are signed and sent.
+     */
+    private ContentResponse sendWithTimestamp(HttpMethod method, URI uri, QueryBuilder params, int weight, int orders) throws InterruptedException, TimeoutException, ExecutionException {
+        sleep(rateLimiter.acquire(weight, orders));
+        var body = signedWithTimestamp(params);
+        // Blocking send completes only after the request is written, so the buffer can be reused afterwards
+        return sendAsync(formRequest(method, uri, ByteBuffer.wrap(body.array(), 0, body.length()))).get();
     }
 
-    private ContentResponse sendWithTimestamp(Request request) throws InterruptedException, TimeoutException, ExecutionException, NoSuchAlgorithmException, InvalidKeyException {
-        return sendWithSignature(withTimestamp(request));
+    private void sleep(long delay) throws InterruptedException {
+        if (delay > 0) {
+            metrics.onEvent(Metrics.Counter.RATE_LIMITED);
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+    }
+
+    private CompletableFuture<ContentResponse> sendAsync(HttpMethod method, URI uri, QueryBuilder params, int weight, int orders) {
+        long delay;
+        try {
+            delay = rateLimiter.acquire(weight, orders);
+        } catch (ProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (delay > 0) {
+            metrics.onEvent(Metrics.Counter.RATE_LIMITED);
+            var delayed = params.copy();
+            return CompletableFuture.runAsync(() -> {
+                    }, CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS))
+                    .thenCompose(ignored -> sendAsync(formRequest(method, uri, ByteBuffer.wrap(signedWithTimestamp(delayed).toArray()))));
+        }
+        // Request is written after this method returns, so the body can't share the thread's buffer
+        return sendAsync(formRequest(method, uri, ByteBuffer.wrap(signedWithTimestamp(params).toArray())));
+    }
+
+    private QueryBuilder signedWithTimestamp(QueryBuilder params) {
+        long start = System.nanoTime();
+        withTimestamp(params).sign(signer);
+        metrics.onLatency(Metrics.Timer.SIGN, System.nanoTime() - start);
+        return params;
+    }
+
+    QueryBuilder withTimestamp(QueryBuilder params) {
+        return params
+                .add("recvWindow", config.getRecvWindow().toMillis())
+                .add("timestamp", clock.currentTimeMillis());
+    }
+
+    private Request formRequest(HttpMethod method, URI uri, ByteBuffer body) {
+        return httpClient.newRequest(uri)
+                .method(method)
+                .headers(this::authHeaders)
+                .body(new ByteBufferRequestContent(FORM_CONTENT_TYPE, body));
     }
 
     private Request withTimestamp(Request request) {
         return request
-                .param("recvWindow", Objects.toString(30_000))
-                .param("timestamp", Objects.toString(System.currentTimeMillis() - 15_000)); //TODO: Add timestamp correction to settings
+                .param("recvWindow", Long.toString(config.getRecvWindow().toMillis()))
+                .param("timestamp", Long.toString(clock.currentTimeMillis()));
     }
 
-    private ContentResponse sendWithSignature(Request request) throws InterruptedException, TimeoutException, ExecutionException, NoSuchAlgorithmException, InvalidKeyException {
-        return request
-                .param("signature", SignatureUtils.sign(request.getQuery(), config.getApiSecret()))
-                .headers(this::authHeaders)
-                .send();
+    private Request signedWithTimestamp(Request request) {
+        long start = System.nanoTime();
+        withTimestamp(request).param("signature", signer.sign(request.getQuery()));
+        metrics.onLatency(Metrics.Timer.SIGN, System.nanoTime() - start);
+        return request.headers(this::authHeaders);
+    }
+
+    /**
+     * Signs and sends request without blocking the caller, the future is completed on Jetty's client thread.
+     * When rate limiter holds the request back, it's timestamped and signed only after the delay.
+     */
+    private CompletableFuture<ContentResponse> sendAsync(Request request, int weight, int orders) {
+        return sendAsync(weight, orders, () -> signedWithTimestamp(request));
+    }
+
+    /**
+     * Request is prepared and sent once the rate limiter lets it through, the caller is not blocked by the delay.
+     */
+    private CompletableFuture<ContentResponse> sendAsync(int weight, int orders, Supplier<Request> request) {
+        long delay;
+        try {
+            delay = rateLimiter.acquire(weight, orders);
+        } catch (ProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (delay > 0) {
+            metrics.onEvent(Metrics.Counter.RATE_LIMITED);
+            return CompletableFuture.runAsync(() -> {
+                    }, CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS))
+                    .thenCompose(ignored -> sendAsync(request.get()));
+        }
+        return sendAsync(request.get());
+    }
+
+    /**
+     * Both blocking and non-blocking calls go through here, so every request is timed in the same way.
+     */
+    private CompletableFuture<ContentResponse> sendAsync(Request request) {
+        var listener = new TimedListener();
+        request.onRequestSuccess(listener).send(listener);
+        return listener.future;
+    }
+
+    /**
+     * Buffers the response and records {@link Metrics.Timer#SEND}, {@link Metrics.Timer#FIRST_BYTE}
+     * and {@link Metrics.Timer#RESPONSE} of one request.
+     */
+    private class TimedListener extends BufferingResponseListener implements Request.SuccessListener {
+        private final CompletableFuture<ContentResponse> future = new CompletableFuture<>();
+        private final long start = System.nanoTime();
+
+        @Override
+        public void onSuccess(Request request) {
+            metrics.onLatency(Metrics.Timer.SEND, System.nanoTime() - start);
+        }
+
+        @Override
+        public void onBegin(Response response) {
+            metrics.onLatency(Metrics.Timer.FIRST_BYTE, System.nanoTime() - start);
+        }
+
+        /**
+         * Future is always completed, otherwise a blocking caller would wait forever.
+         */
+        @Override
+        public void onComplete(Result result) {
+            if (result.isFailed()) {
+                metrics.onEvent(Metrics.Counter.REQUEST_FAILURE);
+                future.completeExceptionally(result.getFailure());
+                return;
+            }
+            try {
+                long received = System.nanoTime();
+                metrics.onLatency(Metrics.Timer.RESPONSE, received - start);
+                var content = getContent();
+                if (journal != null) {
+                    journal.append(JournalRecordType.REST_RESPONSE, received, content, 0, content.length);
+                }
+                future.complete(limited(new HttpContentResponse(result.getResponse(), content, getMediaType(), getEncoding())));
+            } catch (Throwable e) {
+                log.error("[{}] Cannot handle response", config.getExchangeName(), e);
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private ContentResponse limited(ContentResponse response) {
+        rateLimiter.onResponse(response.getStatus(), response.getHeaders());
+        return response;
     }
 
     private void authHeaders(HttpFields.Mutable headers) {
@@ -170,10 +585,15 @@ class BinanceRest {
     }
 
     private ContentResponse get(String path) throws ExecutionException, InterruptedException, TimeoutException {
-        return httpClient.GET(createUri(path));
+        sleep(rateLimiter.acquire(1, 0));
+        return limited(httpClient.GET(createUri(path)));
     }
 
     private URI createUri(String path) {
-        return URI.create(config.getHttpUrl() + BASE_PATH + path);
+        return createUri(BASE_PATH, path);
+    }
+
+    private URI createUri(String basePath, String path) {
+        return URI.create(config.getHttpUrl() + basePath + path);
     }
 }
@@ -1,70 +1,127 @@
 package com.pblinov.binance.futures.api;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.pblinov.binance.futures.api.dto.Event;
-import com.pblinov.binance.futures.api.dto.OrderUpdateEvent;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
 import org.eclipse.jetty.websocket.api.WebSocketListener;
 import org.eclipse.jetty.websocket.api.WebSocketPingPongListener;
 import org.eclipse.jetty.websocket.client.WebSocketClient;
 
+import java.io.IOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static com.pblinov.binance.futures.api.SocketState.Status.CLOSED;
+import static com.pblinov.binance.futures.api.SocketState.Status.CONNECTING;
+import static com.pblinov.binance.futures.api.SocketState.Status.DRAINING;
+import static com.pblinov.binance.futures.api.SocketState.Status.OPEN;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.commons.codec.binary.Hex.encodeHex;
 import static org.apache.commons.codec.binary.Hex.encodeHexString;
 
+/**
+ * User data stream. Lost connection is restored with exponential backoff, then missed order updates are reconciled
+ * and account state is loaded again.
+ * With overlap enabled the session is rotated before Binance closes it: the new one is opened first
+ * and both deliver updates for a while, duplicates are dropped by the dispatcher.
+ * <p>
+ * Half-open connections are detected by heartbeat: the session is pinged and replaced as a lost one
+ * when nothing is received within the stale timeout.
+ */
 @Slf4j
-class BinanceWebSocket implements WebSocketListener, WebSocketPingPongListener {
+class BinanceWebSocket {
+    private static final int MAX_TEXT_MESSAGE_SIZE = 8 * 1024; // TODO: Move to settings
     private final BinanceConfig config;
+    private final ReconnectConfig reconnectConfig;
+    private final HeartbeatConfig heartbeatConfig;
     private final BinanceRest rest;
+    private final OrderCache orderCache;
+    private final AccountStore accountStore;
     private final WebSocketClient webSocketClient;
-    private final EventListener eventListener;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final EventDispatcher dispatcher;
+    private final OrderReconciler reconciler;
+    private final Backoff backoff;
+    private final Metrics metrics;
+    private final Journal journal;
+    private final Heartbeat heartbeat = new Heartbeat();
     private final ScheduledExecutorService extendListenKeyExecutor = Executors.newSingleThreadScheduledExecutor();
     private final ScheduledExecutorService keepAliveExecutor = Executors.newSingleThreadScheduledExecutor();
-    private final SocketState state = new SocketState();
+    private final ScheduledExecutorService reconnectExecutor = Executors.newSingleThreadScheduledExecutor();
     private final AtomicBoolean connected = new AtomicBoolean(false);
+    private volatile Connection current;
+    /**
+     * Set when updates could be lost since the last open session, accessed on reconnect executor and WS threads.
+     */
+    private volatile boolean gap;
 
-    BinanceWebSocket(HttpClient httpClient, BinanceConfig config, BinanceRest rest, EventListener eventListener) {
+    BinanceWebSocket(HttpClient httpClient, BinanceConfig config, BinanceRest rest, OrderCache orderCache,
+                     AccountStore accountStore, EventListener eventListener, Metrics metrics, Journal journal) {
         this.config = config;
+        this.metrics = metrics;
+        this.journal = journal;
+        this.reconnectConfig = config.getReconnect();
+        this.heartbeatConfig = config.getHeartbeat();
         this.rest = rest;
-        this.eventListener = eventListener;
+        this.orderCache = orderCache;
+        this.accountStore = accountStore;
+        // Overlapping sessions and reconciliation publish messages from other threads
+        this.dispatcher = EventDispatcher.create(config.getExchangeName(), config.getDispatch(), eventListener,
+                reconnectConfig.isOverlap() || reconnectConfig.isReconcile(), reconnectConfig.isOverlap(), metrics);
+        this.reconciler = new OrderReconciler(config.getExchangeName(), rest, orderCache, dispatcher::dispatch);
+        this.backoff = new Backoff(reconnectConfig);
         webSocketClient = new WebSocketClient(httpClient);
-        webSocketClient.setMaxTextMessageSize(8 * 1024); // TODO: Move to settings
+        webSocketClient.setMaxTextMessageSize(MAX_TEXT_MESSAGE_SIZE);
     }
 
     public void start() throws Exception {
+        dispatcher.start();
         webSocketClient.start();
     }
 
     public void stop() throws Exception {
         disconnect();
         webSocketClient.stop();
+        dispatcher.stop();
+    }
+
+    DispatchStats getDispatchStats() {
+        return dispatcher;
+    }
+
+    HeartbeatStats getHeartbeatStats() {
+        return heartbeat;
+    }
+
+    WebSocketClient getWebSocketClient() {
+        return webSocketClient;
     }
 
     @SneakyThrows
     public void connect() {
         connected.set(true);
-        reconnect();
+        open();
 
         // Schedule WS session refresh
         extendListenKeyExecutor.scheduleAtFixedRate(this::extendListenKey, 50, 50, TimeUnit.MINUTES);
-        keepAliveExecutor.scheduleAtFixedRate(this::keepAlive, 5, 5, TimeUnit.MINUTES);
+        long pingInterval = heartbeatConfig.getPingInterval().toMillis();
+        keepAliveExecutor.scheduleAtFixedRate(this::keepAlive, pingInterval, pingInterval, TimeUnit.MILLISECONDS);
+        if (reconnectConfig.isOverlap()) {
+            long rotation = reconnectConfig.getSessionRotationInterval().toMillis();
+            reconnectExecutor.scheduleAtFixedRate(this::rotate, rotation, rotation, TimeUnit.MILLISECONDS);
+        }
     }
 
     private void extendListenKey() {
         log.debug("[{}] Extend key", config.getExchangeName());
-        var listenKey = state.getListenKey();
+        var listenKey = current.state.getListenKey();
         try {
             rest.extendListenKey(listenKey);
         } catch (Exception e) {
@@ -74,79 +131,299 @@ class BinanceWebSocket implements WebSocketListener, WebSocketPingPongListener {
     }
 
     private void keepAlive() {
-        log.debug("[{}] Keep alive", config.getExchangeName());
-        //TODO: Implement (send ping, check SocketState.timestamp, ...)
+        var connection = current;
+        if (!connected.get() || connection == null || !connection.isOpen()) {
+            return;
+        }
+        if (connection.state.isStale(heartbeatConfig.getStaleTimeout().toNanos())) {
+            reconnectExecutor.execute(() -> onStale(connection));
+            return;
+        }
+        try {
+            connection.state.getSession().join().getRemote().sendPing(heartbeat.ping());
+        } catch (IOException e) {
+            log.warn("[{}] Cannot send ping: {}", config.getExchangeName(), e.toString());
+        }
     }
 
-    @SneakyThrows
-    private void reconnect() {
-        if (connected.get()) {
-            var key = rest.getListenKey();
-            var serverURI = URI.create(config.getWsUrl() + "/ws/" + key.getListenKey());
-            log.info("[{}] Connecting to {}", config.getExchangeName(), serverURI);
+    /**
+     * Nothing was received for too long, so TCP connection could be half-open and updates lost.
+     * New session is opened before the stale one is dropped, the stale one's close is ignored.
+     */
+    private void onStale(Connection connection) {
+        if (connection != current || !connected.get() || !connection.state.transition(OPEN, DRAINING)) {
+            return;
+        }
+        log.warn("[{}] Nothing received for {}ms, reconnect", config.getExchangeName(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connection.state.getTimestamp()));
+        heartbeat.onStale();
+        gap = true;
+        reconnect();
+        if (!reconnectConfig.isOverlap()) {
+            connection.abort();
+        }
+    }
 
-            // Start session
-            var session = webSocketClient.connect(this, serverURI);
+    /**
+     * Opens a new session, the current one (if any) stays open until the new one is connected.
+     */
+    private void open() throws Exception {
+        var key = rest.getListenKey();
+        var serverURI = URI.create(config.getWsUrl() + "/ws/" + key.getListenKey());
+        log.info("[{}] Connecting to {}", config.getExchangeName(), serverURI);
+
+        var connection = new Connection(current);
+        current = connection;
+        var endpoint = config.isDirectFrameDecoding() ? new FrameEndpoint(connection, MAX_TEXT_MESSAGE_SIZE) : connection;
+        var session = webSocketClient.connect(endpoint, serverURI);
+        connection.state.update(key.getListenKey(), session);
+        session.whenComplete((ignored, e) -> {
+            if (e != null) {
+                log.warn("[{}] Cannot connect: {}", config.getExchangeName(), e.toString());
+                onClose(connection);
+            }
+        });
+    }
+
+    private void rotate() {
+        log.info("[{}] Rotate session", config.getExchangeName());
+        try {
+            open();
+        } catch (Exception e) {
+            log.warn("[{}] Cannot rotate session: {}", config.getExchangeName(), e.toString());
+        }
+    }
 
-            state.update(key.getListenKey(), session);
+    private void reconnect() {
+        if (!connected.get()) {
+            return;
+        }
+        try {
+            open();
+        } catch (Exception e) {
+            log.warn("[{}] Cannot reconnect: {}", config.getExchangeName(), e.toString());
+            scheduleReconnect();
         }
     }
 
-    public void disconnect() {
-        connected.set(false);
-        extendListenKeyExecutor.shutdown();
-        keepAliveExecutor.shutdown();
+    private void scheduleReconnect() {
+        long delay = backoff.nextDelay();
+        metrics.onEvent(Metrics.Counter.RECONNECT);
+        log.info("[{}] Reconnect attempt #{} in {}ms", config.getExchangeName(), backoff.getAttempts(), TimeUnit.NANOSECONDS.toMillis(delay));
+        try {
+            reconnectExecutor.schedule(this::reconnect, delay, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("[{}] Reconnect is cancelled by stop", config.getExchangeName());
+        }
     }
 
-    @Override
-    public void onWebSocketConnect(Session session) {
-        log.info("[{}] WS connect", config.getExchangeName());
-        state.ping();
-        session.setIdleTimeout(Duration.ofMinutes(10)); // TODO: Move to settings
+    /**
+     * Session is closed or couldn't be opened. Only unexpected loss of the current session leads to reconnect,
+     * DRAINING sessions are closed on purpose.
+     */
+    private void onClose(Connection connection) {
+        var from = connection.state.close();
+        if (from == DRAINING || from == CLOSED || connection != current || !connected.get()) {
+            return;
+        }
+        reconnectExecutor.execute(() -> {
+            var previous = connection.previous;
+            if (previous != null && previous.isOpen()) {
+                // Rotation failed, the previous session is still fine
+                log.warn("[{}] Keep previous session", config.getExchangeName());
+                connection.previous = null;
+                current = previous;
+                return;
+            }
+            gap = true;
+            scheduleReconnect();
+        });
     }
 
-    @Override
-    public void onWebSocketClose(int statusCode, String reason) {
-        log.info("[{}] WS close", config.getExchangeName());
-        //TODO: Reconnect only when WS is not closed explicitly (see disconnect)
-        reconnect();
-        //TODO: Reconcile order states if required
+    private void onTransition(SocketState state, SocketState.Status from, SocketState.Status to) {
+        log.debug("[{}] Session {} -> {}", config.getExchangeName(), from, to);
     }
 
-    @Override
-    public void onWebSocketError(Throwable cause) {
-        log.error("[{}] WS error", config.getExchangeName(), cause);
+    private void onOpen(Connection connection, Session session) {
+        connection.state.ping();
+        session.setIdleTimeout(Duration.ofMinutes(10)); // TODO: Move to settings
+        if (!connection.state.transition(CONNECTING, OPEN)) {
+            // Disconnected while connecting
+            session.close(StatusCode.NORMAL, "Disconnected");
+            return;
+        }
+        reconnectExecutor.execute(() -> {
+            backoff.reset();
+            var previous = connection.previous;
+            connection.previous = null;
+            // Stale session is DRAINING already, but it's kept until the new one is open when overlap is enabled
+            var overlap = previous != null && (previous.state.transition(OPEN, DRAINING) || previous.state.getStatus() == DRAINING);
+            if (overlap) {
+                // Both sessions deliver updates until the old one is closed
+                reconnectExecutor.schedule(() -> previous.close("Rotated"),
+                        reconnectConfig.getOverlapWindow().toMillis(), TimeUnit.MILLISECONDS);
+            }
+            if (!overlap || gap) {
+                // Updates could be missed before this session, so cached states are not trusted anymore
+                orderCache.invalidate();
+                loadAccount();
+                if (gap && reconnectConfig.isReconcile()) {
+                    reconcile();
+                }
+            }
+            gap = false;
+        });
     }
 
-    @Override
-    public void onWebSocketText(String message) {
-        log.debug("[{}] WS message: {}", config.getExchangeName(), message);
-        state.ping();
+    /**
+     * Account updates are not replayed by Binance, so the state is loaded over REST on the first session and after each gap.
+     */
+    private void loadAccount() {
+        accountStore.beginLoad();
         try {
-            var event = mapper.readValue(message, Event.class);
-            if (event instanceof OrderUpdateEvent) {
-                eventListener.onOrderUpdate((OrderUpdateEvent) event);
-            }
-        } catch (JsonProcessingException e) {
-            log.error("[{}] Cannot parse message: {}", config.getExchangeName(), message, e);
+            accountStore.load(rest.balances(), rest.positionRisk());
+        } catch (Exception e) {
+            accountStore.cancelLoad();
+            log.error("[{}] Cannot load account state", config.getExchangeName(), e);
         }
     }
 
-    @Override
-    public void onWebSocketBinary(byte[] payload, int offset, int len) {
-        log.warn("[{}] Unexpected binary message received from WS: {}", config.getExchangeName(), new String(encodeHex(payload, offset, len, false)));
-        state.ping();
+    private void reconcile() {
+        try {
+            reconciler.reconcile();
+        } catch (Exception e) {
+            log.error("[{}] Cannot reconcile orders", config.getExchangeName(), e);
+        }
     }
 
-    @Override
-    public void onWebSocketPing(ByteBuffer payload) {
-        log.debug("Ping: {}", encodeHexString(payload, false));
-        state.ping();
+    /**
+     * @return true when user data stream session is open, so order updates are being received
+     */
+    boolean isLive() {
+        var connection = current;
+        return connected.get() && connection != null && connection.isOpen();
+    }
+
+    public void disconnect() {
+        connected.set(false);
+        extendListenKeyExecutor.shutdown();
+        keepAliveExecutor.shutdown();
+        reconnectExecutor.shutdownNow();
+        var connection = current;
+        if (connection != null) {
+            connection.state.transition(OPEN, DRAINING);
+            connection.close("Disconnected");
+        }
     }
 
-    @Override
-    public void onWebSocketPong(ByteBuffer payload) {
-        log.debug("Pong: {}", encodeHex(payload));
-        state.ping();
+    /**
+     * Listener of one session, so events of a replaced session are told apart from the current one.
+     */
+    class Connection implements WebSocketListener, WebSocketPingPongListener {
+        private final SocketState state = new SocketState(BinanceWebSocket.this::onTransition);
+        private volatile Connection previous;
+
+        Connection(Connection previous) {
+            this.previous = previous;
+        }
+
+        boolean isOpen() {
+            return state.getStatus() == OPEN;
+        }
+
+        void close(String reason) {
+            var session = state.getSession();
+            if (session != null && session.isDone() && !session.isCompletedExceptionally()) {
+                session.join().close(StatusCode.NORMAL, reason);
+            } else {
+                state.close();
+            }
+        }
+
+        /**
+         * Drops the connection without close handshake, which would never complete on a half-open connection.
+         */
+        void abort() {
+            var session = state.getSession();
+            if (session != null && session.isDone() && !session.isCompletedExceptionally()) {
+                session.join().disconnect();
+            }
+        }
+
+        @Override
+        public void onWebSocketConnect(Session session) {
+            log.info("[{}] WS connect", config.getExchangeName());
+            onOpen(this, session);
+        }
+
+        @Override
+        public void onWebSocketClose(int statusCode, String reason) {
+            log.info("[{}] WS close: {} {}", config.getExchangeName(), statusCode, reason);
+            onClose(this);
+        }
+
+        @Override
+        public void onWebSocketError(Throwable cause) {
+            log.error("[{}] WS error", config.getExchangeName(), cause);
+        }
+
+        @Override
+        public void onWebSocketText(String message) {
+            log.debug("[{}] WS message: {}", config.getExchangeName(), message);
+            state.ping();
+            if (journal != null) {
+                journal.append(JournalRecordType.USER_STREAM, System.nanoTime(), message);
+            }
+            dispatcher.dispatch(message);
+        }
+
+        /**
+         * Text message received by {@link FrameEndpoint}, the buffer is valid only during the call.
+         */
+        void onWebSocketText(ByteBuffer message) {
+            if (log.isDebugEnabled()) {
+                log.debug("[{}] WS message: {}", config.getExchangeName(), UTF_8.decode(message.duplicate()));
+            }
+            state.ping();
+            if (journal != null) {
+                journal.append(JournalRecordType.USER_STREAM, System.nanoTime(), message);
+            }
+            dispatcher.dispatch(message);
+        }
+
+        @Override
+        public void onWebSocketBinary(byte[] payload, int offset, int len) {
+            if (log.isWarnEnabled()) {
+                log.warn("[{}] Unexpected binary message received from WS: {}", config.getExchangeName(), new String(encodeHex(payload, offset, len, false)));
+            }
+            state.ping();
+        }
+
+        void onWebSocketBinary(ByteBuffer payload) {
+            if (log.isWarnEnabled()) {
+                log.warn("[{}] Unexpected binary message received from WS: {}", config.getExchangeName(), encodeHexString(payload.duplicate(), false));
+            }
+            state.ping();
+        }
+
+        @Override
+        public void onWebSocketPing(ByteBuffer payload) {
+            if (log.isDebugEnabled()) {
+                log.debug("[{}] Ping: {}", config.getExchangeName(), encodeHexString(payload.duplicate(), false));
+            }
+            state.ping();
+        }
+
+        @Override
+        public void onWebSocketPong(ByteBuffer payload) {
+            long rtt = heartbeat.onPong(payload);
+            if (rtt >= 0) {
+                metrics.onLatency(Metrics.Timer.PING_RTT, rtt);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("[{}] Pong: {}, RTT {}us", config.getExchangeName(), encodeHexString(payload.duplicate(), false), TimeUnit.NANOSECONDS.toMicros(rtt));
+            }
+            state.ping();
+        }
     }
 }
@@ -0,0 +1,44 @@
+package com.pblinov.binance.futures.api;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Reusable stream over a {@link ByteBuffer}, e.g. direct network buffer, which can't be accessed as an array.
+ */
+class ByteBufferInputStream extends InputStream {
+    private ByteBuffer buffer;
+
+    ByteBufferInputStream reset(ByteBuffer buffer) {
+        this.buffer = buffer;
+        return this;
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        int count = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public void close() {
+        buffer = null;
+    }
+}
@@ -0,0 +1,93 @@
+package com.pblinov.binance.futures.api;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Periodically estimates exchange clock offset NTP-style: server time is assumed to be taken
+ * in the middle of GET /fapi/v1/time round trip, so the estimate error is bounded by half of RTT.
+ * Of the recent samples the one with the smallest RTT wins (NTP clock filter),
+ * which drops samples delayed by queuing or GC. Samples older than {@link #MAX_AGE_SYNCS} sync intervals
+ * are not considered, otherwise an old fast sample would pin the offset while local clock drifts away.
+ */
+@Slf4j
+class ClockSync {
+    private static final int SAMPLES_PER_SYNC = 4;
+    private static final int WINDOW = 16;
+    private static final int MAX_AGE_SYNCS = 2;
+
+    private final BinanceConfig config;
+    private final BinanceRest rest;
+    private final ServerClock clock;
+    private final LongSupplier nanoTime;
+    private final long maxAgeNanos;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final long[] offsets = new long[WINDOW];
+    private final long[] rtts = new long[WINDOW];
+    private final long[] times = new long[WINDOW];
+    private int count;
+    private int next;
+
+    ClockSync(BinanceConfig config, BinanceRest rest, ServerClock clock) {
+        this(config, rest, clock, System::nanoTime);
+    }
+
+    ClockSync(BinanceConfig config, BinanceRest rest, ServerClock clock, LongSupplier nanoTime) {
+        this.config = config;
+        this.rest = rest;
+        this.clock = clock;
+        this.nanoTime = nanoTime;
+        this.maxAgeNanos = MAX_AGE_SYNCS * config.getClockSyncInterval().toNanos();
+    }
+
+    void start() {
+        sync();
+        var interval = config.getClockSyncInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::sync, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        executor.shutdown();
+    }
+
+    synchronized void sync() {
+        try {
+            for (int i = 0; i < SAMPLES_PER_SYNC; i++) {
+                sample();
+            }
+        } catch (Exception e) {
+            log.warn("[{}] Cannot synchronize clock: {}", config.getExchangeName(), e.getMessage());
+        }
+
+        long now = nanoTime.getAsLong();
+        int best = -1;
+        for (int i = 0; i < count; i++) {
+            if (now - times[i] <= maxAgeNanos && (best < 0 || rtts[i] < rtts[best])) {
+                best = i;
+            }
+        }
+        if (best < 0) {
+            return;
+        }
+        clock.update(offsets[best], rtts[best]);
+        log.debug("[{}] Clock offset: {}us, RTT: {}us", config.getExchangeName(), offsets[best] / 1000, rtts[best] / 1000);
+    }
+
+    private void sample() {
+        long sent = nanoTime.getAsLong();
+        long serverTime = rest.timestamp();
+        long received = nanoTime.getAsLong();
+
+        // Server time has millisecond resolution, so it's taken as the middle of its millisecond
+        long serverNanos = serverTime * 1_000_000L + 500_000L;
+        offsets[next] = serverNanos - clock.localEpochNanos(sent + (received - sent) / 2);
+        rtts[next] = received - sent;
+        times[next] = received;
+        next = (next + 1) % WINDOW;
+        count = Math.min(count + 1, WINDOW);
+    }
+}
@@ -0,0 +1,106 @@
+package com.pblinov.binance.futures.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+import static com.pblinov.binance.futures.api.EventParser.doubleValue;
+
+/**
+ * Streaming parser of {@code <symbol>@depth} events, raw or wrapped by combined stream ({"stream":...,"data":{...}}).
+ * Like {@link EventParser} it fills an update owned by the parser and is not thread-safe.
+ */
+class DepthParser {
+    private static final String DEPTH_UPDATE = "depthUpdate";
+
+    private final JsonFactory factory = new JsonFactory();
+    private final TextCache symbols = new TextCache(256);
+    private final DepthUpdate update = new DepthUpdate();
+
+    /**
+     * @return parsed update or null for other events
+     */
+    DepthUpdate parse(String message) throws IOException {
+        try (var parser = factory.createParser(message)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Event should be an object");
+            }
+            update.reset();
+            return parseFields(parser) ? update : null;
+        }
+    }
+
+    /**
+     * Parses {@code data} object of combined stream message, the parser is at its START_OBJECT.
+     */
+    DepthUpdate parse(JsonParser parser) throws IOException {
+        update.reset();
+        parseFields(parser);
+        return update;
+    }
+
+    /**
+     * @return true when the object (or nested combined stream data) is a depth update
+     */
+    private boolean parseFields(JsonParser parser) throws IOException {
+        boolean depthUpdate = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "data":
+                    depthUpdate = parseFields(parser);
+                    break;
+                case "e":
+                    depthUpdate = ParserUtils.equals(DEPTH_UPDATE, parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                    break;
+                case "E":
+                    update.setEventTime(parser.getLongValue());
+                    break;
+                case "T":
+                    update.setTransactionTime(parser.getLongValue());
+                    break;
+                case "s":
+                    update.setSymbol(symbols.get(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
+                    break;
+                case "U":
+                    update.setFirstUpdateId(parser.getLongValue());
+                    break;
+                case "u":
+                    update.setFinalUpdateId(parser.getLongValue());
+                    break;
+                case "pu":
+                    update.setPreviousUpdateId(parser.getLongValue());
+                    break;
+                case "b":
+                    parseLevels(parser, update.getBids());
+                    break;
+                case "a":
+                    parseLevels(parser, update.getAsks());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return depthUpdate;
+    }
+
+    /**
+     * [["28501.20","0.015"],...]
+     */
+    private static void parseLevels(JsonParser parser, DepthUpdate.PriceLevels levels) throws IOException {
+        while (parser.nextToken() == JsonToken.START_ARRAY) {
+            parser.nextToken();
+            double price = doubleValue(parser);
+            parser.nextToken();
+            double qty = doubleValue(parser);
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                parser.skipChildren();
+            }
+            levels.add(price, qty);
+        }
+    }
+}
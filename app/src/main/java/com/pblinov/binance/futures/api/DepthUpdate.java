@@ -0,0 +1,94 @@
+package com.pblinov.binance.futures.api;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Arrays;
+
+/**
+ * Diff of order book levels ({@code depthUpdate} event), a quantity of zero removes the level.
+ * Instances are reused by {@link DepthParser}, {@link #copy()} is taken only while the book is being synced.
+ */
+@Getter
+@Setter
+class DepthUpdate {
+    private String symbol;
+    private long eventTime;
+    private long transactionTime;
+    /**
+     * U
+     */
+    private long firstUpdateId;
+    /**
+     * u
+     */
+    private long finalUpdateId;
+    /**
+     * pu, equals to {@link #finalUpdateId} of the previous update of the symbol
+     */
+    private long previousUpdateId;
+    private final PriceLevels bids = new PriceLevels();
+    private final PriceLevels asks = new PriceLevels();
+
+    void reset() {
+        symbol = null;
+        eventTime = 0;
+        transactionTime = 0;
+        firstUpdateId = 0;
+        finalUpdateId = 0;
+        previousUpdateId = 0;
+        bids.clear();
+        asks.clear();
+    }
+
+    DepthUpdate copy() {
+        var copy = new DepthUpdate();
+        copy.symbol = symbol;
+        copy.eventTime = eventTime;
+        copy.transactionTime = transactionTime;
+        copy.firstUpdateId = firstUpdateId;
+        copy.finalUpdateId = finalUpdateId;
+        copy.previousUpdateId = previousUpdateId;
+        copy.bids.copyFrom(bids);
+        copy.asks.copyFrom(asks);
+        return copy;
+    }
+
+    static class PriceLevels {
+        private double[] prices = new double[64];
+        private double[] qtys = new double[64];
+        private int size;
+
+        void add(double price, double qty) {
+            if (size == prices.length) {
+                prices = Arrays.copyOf(prices, size * 2);
+                qtys = Arrays.copyOf(qtys, size * 2);
+            }
+            prices[size] = price;
+            qtys[size] = qty;
+            size++;
+        }
+
+        double getPrice(int index) {
+            return prices[index];
+        }
+
+        double getQty(int index) {
+            return qtys[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        private void copyFrom(PriceLevels other) {
+            prices = Arrays.copyOf(other.prices, Math.max(other.size, 1));
+            qtys = Arrays.copyOf(other.qtys, Math.max(other.size, 1));
+            size = other.size;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.pblinov.binance.futures.api;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * How WebSocket messages are handed over to {@link EventListener}.
+ */
+@Builder
+@Getter
+public class DispatchConfig {
+    public static final DispatchConfig INLINE = DispatchConfig.builder().build();
+
+    /**
+     * Parse and deliver events on the WebSocket thread or on a dedicated dispatch thread.
+     */
+    @Builder.Default
+    private final Mode mode = Mode.INLINE;
+    /**
+     * Ring buffer size, should be a power of two.
+     */
+    @Builder.Default
+    private final int bufferSize = 4096;
+    @Builder.Default
+    private final WaitStrategy waitStrategy = WaitStrategy.BLOCKING;
+    @Builder.Default
+    private final OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+    /**
+     * Name of the dispatch thread, e.g. to pin it to a core with external tools (taskset, isolcpus).
+     */
+    @Builder.Default
+    private final String threadName = "binance-dispatch";
+
+    public enum Mode {
+        INLINE,
+        RING
+    }
+
+    public enum WaitStrategy {
+        /**
+         * Lowest latency, occupies a core.
+         */
+        BUSY_SPIN,
+        /**
+         * Spins and yields, low latency while leaving the core to other threads.
+         */
+        YIELDING,
+        /**
+         * Parks dispatch thread when idle, highest latency.
+         */
+        BLOCKING
+    }
+
+    public enum OverflowPolicy {
+        /**
+         * WebSocket thread waits for a free slot.
+         */
+        BLOCK,
+        /**
+         * Message is dropped and counted.
+         */
+        DROP
+    }
+}
@@ -0,0 +1,20 @@
+package com.pblinov.binance.futures.api;
+
+public interface DispatchStats {
+    /**
+     * Messages handed over to the dispatcher.
+     */
+    long getPublished();
+
+    /**
+     * Messages dropped because the ring buffer was full.
+     */
+    long getOverflows();
+
+    /**
+     * Times the WebSocket thread had to wait for a free slot.
+     */
+    long getBackpressureStalls();
+
+    long getRemainingCapacity();
+}
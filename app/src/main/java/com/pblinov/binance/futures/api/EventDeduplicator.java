@@ -0,0 +1,57 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.OrderUpdateEvent;
+
+/**
+ * Detects order updates which were already delivered, e.g. received by both sessions while they overlap.
+ * Update is identified by order ID, event time, trade ID, execution type and order status.
+ * <p>
+ * Recent updates are kept in a direct-mapped table without allocation, an entry is overwritten by a newer update
+ * with the same slot, so only duplicates which arrive shortly after the original are detected.
+ */
+class EventDeduplicator {
+    private final long[] orderIds;
+    private final long[] times;
+    private final long[] tradeIds;
+    private final int[] kinds;
+    private final int mask;
+
+    EventDeduplicator(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity should be a power of two: " + capacity);
+        }
+        orderIds = new long[capacity];
+        times = new long[capacity];
+        tradeIds = new long[capacity];
+        kinds = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Remembers the update when it's new.
+     */
+    boolean isDuplicate(OrderUpdateEvent event) {
+        var update = event.getPayload();
+        long orderId = update.getOrderId();
+        long time = event.getTransactionTime();
+        long tradeId = update.getTradeId();
+        int kind = ordinal(update.getExecutionType()) << 8 | ordinal(update.getOrderStatus());
+
+        long hash = orderId * 31 + time;
+        hash = hash * 31 + tradeId;
+        hash = hash * 31 + kind;
+        int index = (int) (hash ^ (hash >>> 32)) & mask;
+        if (orderIds[index] == orderId && times[index] == time && tradeIds[index] == tradeId && kinds[index] == kind) {
+            return true;
+        }
+        orderIds[index] = orderId;
+        times[index] = time;
+        tradeIds[index] = tradeId;
+        kinds[index] = kind;
+        return false;
+    }
+
+    private static int ordinal(Enum<?> value) {
+        return value != null ? value.ordinal() + 1 : 0;
+    }
+}
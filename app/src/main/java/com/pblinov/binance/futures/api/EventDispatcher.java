@@ -0,0 +1,106 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.AccountUpdateEvent;
+import com.pblinov.binance.futures.api.dto.Event;
+import com.pblinov.binance.futures.api.dto.OrderUpdateEvent;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Parses received messages and delivers them to {@link EventListener}.
+ */
+@Slf4j
+abstract class EventDispatcher implements DispatchStats {
+    private static final int DEDUPLICATION_CAPACITY = 1024;
+
+    private final String exchangeName;
+    private final EventParser parser = new EventParser();
+    private final EventListener eventListener;
+    private final EventDeduplicator deduplicator;
+    private final Metrics metrics;
+
+    EventDispatcher(String exchangeName, EventListener eventListener, EventDeduplicator deduplicator, Metrics metrics) {
+        this.exchangeName = exchangeName;
+        this.eventListener = eventListener;
+        this.deduplicator = deduplicator;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param multiProducer messages are dispatched from several threads, e.g. by overlapping sessions
+     * @param deduplicate   skip order updates which were already delivered
+     */
+    static EventDispatcher create(String exchangeName, DispatchConfig config, EventListener eventListener,
+                                  boolean multiProducer, boolean deduplicate, Metrics metrics) {
+        var deduplicator = deduplicate ? new EventDeduplicator(DEDUPLICATION_CAPACITY) : null;
+        switch (config.getMode()) {
+            case RING:
+                return new RingEventDispatcher(exchangeName, config, eventListener, multiProducer, deduplicator, metrics);
+            case INLINE:
+            default:
+                return new InlineEventDispatcher(exchangeName, eventListener, multiProducer, deduplicator, metrics);
+        }
+    }
+
+    void start() {
+    }
+
+    void stop() {
+    }
+
+    abstract void dispatch(String message);
+
+    /**
+     * The buffer is valid only during the call.
+     */
+    abstract void dispatch(ByteBuffer message);
+
+    /**
+     * @param received {@link System#nanoTime()} when the message was handed over to the dispatcher
+     */
+    void process(String message, long received) {
+        try {
+            deliver(parser.parse(message), received);
+        } catch (IOException e) {
+            log.error("[{}] Cannot parse message: {}", exchangeName, message, e);
+        }
+    }
+
+    void process(ByteBuffer message, long received) {
+        try {
+            deliver(parser.parse(message), received);
+        } catch (IOException e) {
+            log.error("[{}] Cannot parse message: {}", exchangeName, UTF_8.decode(message.duplicate()), e);
+        }
+    }
+
+    void process(byte[] message, int offset, int length, long received) {
+        try {
+            deliver(parser.parse(message, offset, length), received);
+        } catch (IOException e) {
+            log.error("[{}] Cannot parse message: {}", exchangeName, new String(message, offset, length, UTF_8), e);
+        }
+    }
+
+    private void deliver(Event event, long received) {
+        metrics.onLatency(Metrics.Timer.DISPATCH, System.nanoTime() - received);
+        try {
+            if (event instanceof OrderUpdateEvent) {
+                var orderUpdate = (OrderUpdateEvent) event;
+                if (deduplicator != null && deduplicator.isDuplicate(orderUpdate)) {
+                    log.debug("[{}] Duplicate order update: {}", exchangeName, orderUpdate);
+                    return;
+                }
+                eventListener.onOrderUpdate(orderUpdate);
+            } else if (event instanceof AccountUpdateEvent) {
+                eventListener.onAccountUpdate((AccountUpdateEvent) event);
+            }
+        } catch (Exception e) {
+            log.error("[{}] Event listener failed", exchangeName, e);
+        }
+    }
+}
@@ -1,7 +1,19 @@
 package com.pblinov.binance.futures.api;
 
+import com.pblinov.binance.futures.api.dto.AccountUpdateEvent;
 import com.pblinov.binance.futures.api.dto.OrderUpdateEvent;
 
+/**
+ * Callbacks are invoked on the WebSocket thread in {@link DispatchConfig.Mode#INLINE} mode or on the dispatch thread
+ * in {@link DispatchConfig.Mode#RING} mode. Event instances are reused for the next messages, so values should be
+ * copied if they are required after the callback returns.
+ */
 public interface EventListener {
     void onOrderUpdate(OrderUpdateEvent orderUpdate);
+
+    /**
+     * Balances and positions which were changed, the whole state is available from {@link BinanceExchange#getAccount()}.
+     */
+    default void onAccountUpdate(AccountUpdateEvent accountUpdate) {
+    }
 }
@@ -0,0 +1,293 @@
+package com.pblinov.binance.futures.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.pblinov.binance.futures.api.dto.AccountUpdateEvent;
+import com.pblinov.binance.futures.api.dto.Event;
+import com.pblinov.binance.futures.api.dto.ExecutionType;
+import com.pblinov.binance.futures.api.dto.MarginType;
+import com.pblinov.binance.futures.api.dto.OrderStatus;
+import com.pblinov.binance.futures.api.dto.OrderType;
+import com.pblinov.binance.futures.api.dto.OrderUpdateEvent;
+import com.pblinov.binance.futures.api.dto.PositionSide;
+import com.pblinov.binance.futures.api.dto.Side;
+import com.pblinov.binance.futures.api.dto.TimeInForce;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Streaming parser of user data stream events.
+ * Unlike {@code ObjectMapper.readValue(message, Event.class)} it doesn't build a new object tree per message:
+ * events are filled into instances owned by the parser, numbers are read from the token characters
+ * and enums are resolved without creating strings.
+ * <p>
+ * Returned events are reused by the next {@link #parse} call and the parser is not thread-safe.
+ */
+class EventParser {
+    private static final EventType[] EVENT_TYPES = EventType.values();
+    private static final Side[] SIDES = Side.values();
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+    private static final TimeInForce[] TIME_IN_FORCES = TimeInForce.values();
+    private static final ExecutionType[] EXECUTION_TYPES = ExecutionType.values();
+    private static final OrderStatus[] ORDER_STATUSES = OrderStatus.values();
+    private static final PositionSide[] POSITION_SIDES = PositionSide.values();
+
+    private final JsonFactory factory = new JsonFactory();
+    private final ByteBufferInputStream bufferStream = new ByteBufferInputStream();
+    private final TextCache symbols = new TextCache(256);
+    private final OrderUpdateEvent orderUpdate = new OrderUpdateEvent();
+    private final AccountUpdateEvent accountUpdate = new AccountUpdateEvent();
+    private final List<AccountUpdateEvent.Balance> balances = new ArrayList<>();
+    private final List<AccountUpdateEvent.Position> positions = new ArrayList<>();
+
+    /**
+     * @return parsed event or null for event types which are not supported
+     */
+    Event parse(String message) throws IOException {
+        try (var parser = factory.createParser(message)) {
+            return parse(parser);
+        }
+    }
+
+    Event parse(byte[] data, int offset, int length) throws IOException {
+        try (var parser = factory.createParser(data, offset, length)) {
+            return parse(parser);
+        }
+    }
+
+    /**
+     * Heap buffers are parsed in place, others (e.g. direct network buffers) are streamed into Jackson's recycled buffer.
+     * Position of the buffer is not changed.
+     */
+    Event parse(ByteBuffer buffer) throws IOException {
+        if (buffer.hasArray()) {
+            return parse(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+        try (var parser = factory.createParser(bufferStream.reset(buffer.duplicate()))) {
+            return parse(parser);
+        }
+    }
+
+    Event parse(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Event should be an object");
+        }
+
+        EventType type = null;
+        long eventTime = 0;
+        long transactionTime = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "e":
+                    type = enumValue(parser, EVENT_TYPES);
+                    break;
+                case "T":
+                    eventTime = parser.getLongValue();
+                    break;
+                case "E":
+                    transactionTime = parser.getLongValue();
+                    break;
+                case "o":
+                    parseOrderTradeUpdate(parser, orderUpdate.getPayload());
+                    break;
+                case "a":
+                    parseAccountUpdate(parser, accountUpdate.getPayload());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        Event event;
+        if (type == EventType.ORDER_TRADE_UPDATE) {
+            event = orderUpdate;
+        } else if (type == EventType.ACCOUNT_UPDATE) {
+            event = accountUpdate;
+        } else {
+            return null;
+        }
+        event.setEventTime(eventTime);
+        event.setTransactionTime(transactionTime);
+        return event;
+    }
+
+    private void parseOrderTradeUpdate(JsonParser parser, OrderUpdateEvent.OrderTradeUpdate update) throws IOException {
+        update.reset();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "s":
+                    update.setSymbol(symbols.get(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
+                    break;
+                case "c":
+                    update.setClientOrderId(parser.getText());
+                    break;
+                case "i":
+                    update.setOrderId(parser.getLongValue());
+                    break;
+                case "S":
+                    update.setSide(enumValue(parser, SIDES));
+                    break;
+                case "o":
+                    update.setOrderType(enumValue(parser, ORDER_TYPES));
+                    break;
+                case "f":
+                    update.setTimeInForce(enumValue(parser, TIME_IN_FORCES));
+                    break;
+                case "x":
+                    update.setExecutionType(enumValue(parser, EXECUTION_TYPES));
+                    break;
+                case "X":
+                    update.setOrderStatus(enumValue(parser, ORDER_STATUSES));
+                    break;
+                case "p":
+                    update.setPrice(doubleValue(parser));
+                    break;
+                case "q":
+                    update.setQty(doubleValue(parser));
+                    break;
+                case "L":
+                    update.setLastFilledPrice(doubleValue(parser));
+                    break;
+                case "l":
+                    update.setLastFilledQty(doubleValue(parser));
+                    break;
+                case "z":
+                    update.setFilledQty(doubleValue(parser));
+                    break;
+                case "t":
+                    update.setTradeId(parser.getLongValue());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Balance and position entries come from pools which grow to the largest update seen.
+     */
+    private void parseAccountUpdate(JsonParser parser, AccountUpdateEvent.AccountUpdate update) throws IOException {
+        update.reset();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "m":
+                    update.setReason(symbols.get(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
+                    break;
+                case "B":
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        update.getBalances().add(parseBalance(parser, next(balances, update.getBalances().size(), AccountUpdateEvent.Balance::new)));
+                    }
+                    break;
+                case "P":
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        update.getPositions().add(parsePosition(parser, next(positions, update.getPositions().size(), AccountUpdateEvent.Position::new)));
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    private AccountUpdateEvent.Balance parseBalance(JsonParser parser, AccountUpdateEvent.Balance balance) throws IOException {
+        balance.reset();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "a":
+                    balance.setAsset(symbols.get(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
+                    break;
+                case "wb":
+                    balance.setWalletBalance(doubleValue(parser));
+                    break;
+                case "cw":
+                    balance.setCrossWalletBalance(doubleValue(parser));
+                    break;
+                case "bc":
+                    balance.setBalanceChange(doubleValue(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return balance;
+    }
+
+    private AccountUpdateEvent.Position parsePosition(JsonParser parser, AccountUpdateEvent.Position position) throws IOException {
+        position.reset();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "s":
+                    position.setSymbol(symbols.get(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
+                    break;
+                case "pa":
+                    position.setPositionAmount(doubleValue(parser));
+                    break;
+                case "ep":
+                    position.setEntryPrice(doubleValue(parser));
+                    break;
+                case "cr":
+                    position.setAccumulatedRealized(doubleValue(parser));
+                    break;
+                case "up":
+                    position.setUnrealizedPnl(doubleValue(parser));
+                    break;
+                case "mt":
+                    // Sent in lower case
+                    position.setMarginType(ParserUtils.equals("isolated", parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength())
+                            ? MarginType.ISOLATED : MarginType.CROSS);
+                    break;
+                case "iw":
+                    position.setIsolatedWallet(doubleValue(parser));
+                    break;
+                case "ps":
+                    position.setPositionSide(enumValue(parser, POSITION_SIDES));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return position;
+    }
+
+    private static <T> T next(List<T> pool, int index, Supplier<T> factory) {
+        if (index == pool.size()) {
+            pool.add(factory.get());
+        }
+        return pool.get(index);
+    }
+
+    /**
+     * Decimals are sent as strings to keep precision, e.g. "q":"0.012".
+     */
+    static double doubleValue(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            return ParserUtils.parseDouble(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        }
+        return parser.getDoubleValue();
+    }
+
+    static <E extends Enum<E>> E enumValue(JsonParser parser, E[] values) throws IOException {
+        return ParserUtils.lookup(values, parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+
+    private enum EventType {
+        ORDER_TRADE_UPDATE,
+        ACCOUNT_UPDATE
+    }
+}
@@ -1,10 +1,14 @@
 package com.pblinov.binance.futures.api;
 
+import com.pblinov.binance.futures.api.dto.BatchOrderResult;
+import com.pblinov.binance.futures.api.dto.NewOrder;
 import com.pblinov.binance.futures.api.dto.Order;
 import com.pblinov.binance.futures.api.dto.OrderType;
 import com.pblinov.binance.futures.api.dto.Side;
 import com.pblinov.binance.futures.api.dto.TimeInForce;
 
+import java.util.List;
+
 public interface Exchange {
     boolean ping();
 
@@ -15,4 +19,8 @@ public interface Exchange {
     Order queryOrder(String symbol, String clientOrderId);
 
     Order cancelOrder(String symbol, String clientOrderId);
+
+    List<BatchOrderResult> placeOrders(List<NewOrder> orders);
+
+    List<BatchOrderResult> cancelOrders(String symbol, List<String> clientOrderIds);
 }
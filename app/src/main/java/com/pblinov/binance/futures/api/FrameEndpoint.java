@@ -0,0 +1,96 @@
+package com.pblinov.binance.futures.api;
+
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jetty.websocket.api.Frame;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WebSocketFrameListener;
+
+import java.nio.ByteBuffer;
+
+/**
+ * WebSocket endpoint which receives raw frames, so text messages are parsed directly from the network buffer
+ * instead of being decoded into a {@link String} first.
+ * Jetty creates message sinks only for the listener interfaces implemented by the endpoint,
+ * that's why this endpoint is separate from {@link BinanceWebSocket}.
+ * <p>
+ * Fragmented messages are collected into a pre-allocated buffer limited by max text message size.
+ */
+@Slf4j
+class FrameEndpoint implements WebSocketFrameListener {
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final BinanceWebSocket.Connection socket;
+    private final ByteBuffer fragments;
+    private Session session;
+    private boolean fragmented;
+
+    FrameEndpoint(BinanceWebSocket.Connection socket, int maxMessageSize) {
+        this.socket = socket;
+        this.fragments = ByteBuffer.allocate(maxMessageSize);
+    }
+
+    @Override
+    public void onWebSocketConnect(Session session) {
+        this.session = session;
+        fragmented = false;
+        socket.onWebSocketConnect(session);
+    }
+
+    @Override
+    public void onWebSocketClose(int statusCode, String reason) {
+        socket.onWebSocketClose(statusCode, reason);
+    }
+
+    @Override
+    public void onWebSocketError(Throwable cause) {
+        socket.onWebSocketError(cause);
+    }
+
+    @Override
+    public void onWebSocketFrame(Frame frame) {
+        switch (frame.getType()) {
+            case TEXT:
+                if (frame.isFin()) {
+                    socket.onWebSocketText(payload(frame));
+                } else {
+                    fragmented = true;
+                    fragments.clear();
+                    append(payload(frame));
+                }
+                break;
+            case CONTINUATION:
+                if (fragmented && append(payload(frame)) && frame.isFin()) {
+                    fragmented = false;
+                    socket.onWebSocketText(fragments.flip());
+                }
+                break;
+            case BINARY:
+                socket.onWebSocketBinary(payload(frame));
+                break;
+            case PING:
+                socket.onWebSocketPing(payload(frame));
+                break;
+            case PONG:
+                socket.onWebSocketPong(payload(frame));
+                break;
+            default:
+                // Close frames are reported via onWebSocketClose
+        }
+    }
+
+    private boolean append(ByteBuffer payload) {
+        if (payload.remaining() > fragments.remaining()) {
+            log.error("Message exceeds {} bytes, closing session", fragments.capacity());
+            fragmented = false;
+            session.close(StatusCode.MESSAGE_TOO_LARGE, "Message too large");
+            return false;
+        }
+        fragments.put(payload.duplicate());
+        return true;
+    }
+
+    private static ByteBuffer payload(Frame frame) {
+        return frame.hasPayload() ? frame.getPayload() : EMPTY;
+    }
+}
@@ -0,0 +1,54 @@
+package com.pblinov.binance.futures.api;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records into one {@link Recorder} per timer, which is wait-free and doesn't allocate.
+ * Readers accumulate interval histograms, so a snapshot doesn't stop recording threads.
+ */
+class HdrMetrics implements Metrics, MetricsStats {
+    private static final Metrics.Timer[] TIMERS = Metrics.Timer.values();
+
+    private final long highestLatency;
+    private final Recorder[] recorders = new Recorder[TIMERS.length];
+    private final Histogram[] totals = new Histogram[TIMERS.length];
+    /**
+     * Recycled by the recorder of the same index.
+     */
+    private final Histogram[] intervals = new Histogram[TIMERS.length];
+    private final AtomicLongArray counters = new AtomicLongArray(Metrics.Counter.values().length);
+
+    HdrMetrics(MetricsConfig config) {
+        this.highestLatency = config.getHighestLatency().toNanos();
+        for (int i = 0; i < TIMERS.length; i++) {
+            recorders[i] = new Recorder(highestLatency, 3);
+            totals[i] = new Histogram(highestLatency, 3);
+        }
+    }
+
+    @Override
+    public void onLatency(Timer timer, long nanos) {
+        recorders[timer.ordinal()].recordValue(Math.max(0, Math.min(nanos, highestLatency)));
+    }
+
+    @Override
+    public void onEvent(Counter counter) {
+        counters.incrementAndGet(counter.ordinal());
+    }
+
+    @Override
+    public synchronized Histogram getHistogram(Timer timer) {
+        int index = timer.ordinal();
+        intervals[index] = recorders[index].getIntervalHistogram(intervals[index]);
+        totals[index].add(intervals[index]);
+        return totals[index].copy();
+    }
+
+    @Override
+    public long getCount(Counter counter) {
+        return counters.get(counter.ordinal());
+    }
+}
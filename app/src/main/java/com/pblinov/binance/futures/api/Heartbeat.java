@@ -0,0 +1,78 @@
+package com.pblinov.binance.futures.api;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ping payload carries {@link System#nanoTime()} of sending, so round trip time is measured from the echoed pong
+ * without keeping outstanding pings. Pongs with other payloads (unsolicited or sent by someone else) are ignored.
+ */
+class Heartbeat implements HeartbeatStats {
+    private static final long MAX_RTT = TimeUnit.MINUTES.toNanos(1);
+
+    private final Recorder rtt = new Recorder(MAX_RTT, 3);
+    private final AtomicLong pingsSent = new AtomicLong();
+    private final AtomicLong pongsReceived = new AtomicLong();
+    private final AtomicLong staleSessions = new AtomicLong();
+    private volatile long lastRtt = -1;
+    private Histogram interval;
+
+    /**
+     * @return payload of the next ping
+     */
+    ByteBuffer ping() {
+        pingsSent.incrementAndGet();
+        return ByteBuffer.allocate(Long.BYTES).putLong(0, System.nanoTime());
+    }
+
+    /**
+     * @return round trip time in nanos, or -1 when the pong doesn't answer own ping
+     */
+    long onPong(ByteBuffer payload) {
+        if (payload == null || payload.remaining() != Long.BYTES) {
+            return -1;
+        }
+        long value = System.nanoTime() - payload.getLong(payload.position());
+        if (value < 0 || value > MAX_RTT) {
+            return -1;
+        }
+        pongsReceived.incrementAndGet();
+        rtt.recordValue(value);
+        lastRtt = value;
+        return value;
+    }
+
+    void onStale() {
+        staleSessions.incrementAndGet();
+    }
+
+    @Override
+    public long getPingsSent() {
+        return pingsSent.get();
+    }
+
+    @Override
+    public long getPongsReceived() {
+        return pongsReceived.get();
+    }
+
+    @Override
+    public long getStaleSessions() {
+        return staleSessions.get();
+    }
+
+    @Override
+    public long getLastRtt() {
+        return lastRtt;
+    }
+
+    @Override
+    public synchronized Histogram getRttHistogram() {
+        interval = rtt.getIntervalHistogram(interval);
+        return interval.copy();
+    }
+}
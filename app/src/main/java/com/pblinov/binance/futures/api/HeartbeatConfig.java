@@ -0,0 +1,24 @@
+package com.pblinov.binance.futures.api;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Liveness check of user data stream: the session is pinged periodically and replaced
+ * when nothing (neither pong nor event) is received within the stale timeout.
+ */
+@Builder
+@Getter
+public class HeartbeatConfig {
+    public static final HeartbeatConfig DEFAULT = HeartbeatConfig.builder().build();
+
+    @Builder.Default
+    private final Duration pingInterval = Duration.ofSeconds(5);
+    /**
+     * Should cover a few ping intervals, so a single delayed pong doesn't cause reconnect.
+     */
+    @Builder.Default
+    private final Duration staleTimeout = Duration.ofSeconds(15);
+}
@@ -0,0 +1,24 @@
+package com.pblinov.binance.futures.api;
+
+import org.HdrHistogram.Histogram;
+
+public interface HeartbeatStats {
+    long getPingsSent();
+
+    long getPongsReceived();
+
+    /**
+     * Sessions replaced because nothing was received within stale timeout.
+     */
+    long getStaleSessions();
+
+    /**
+     * @return round trip time of the last pong in nanos, or -1 before the first one
+     */
+    long getLastRtt();
+
+    /**
+     * @return round trip times in nanos recorded since the previous call
+     */
+    Histogram getRttHistogram();
+}
@@ -0,0 +1,100 @@
+package com.pblinov.binance.futures.api;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * HMAC SHA256 signer bound to an API secret.
+ * Unlike {@link SignatureUtils#sign} the key is set up once: every thread signs with its own clone
+ * of the initialized {@link Mac} and reuses digest, input and hex buffers.
+ */
+class HmacSigner {
+    static final String ALGORITHM = "HmacSHA256";
+    static final int SIGNATURE_LENGTH = 64;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Mac prototype;
+    private final ThreadLocal<State> states = ThreadLocal.withInitial(this::newState);
+
+    HmacSigner(String secret) {
+        try {
+            prototype = Mac.getInstance(ALGORITHM);
+            prototype.init(new SecretKeySpec(secret.getBytes(UTF_8), ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize " + ALGORITHM, e);
+        }
+    }
+
+    /**
+     * Signs ASCII text, e.g. URL-encoded query string.
+     */
+    String sign(CharSequence query) {
+        var state = states.get();
+        int length = query.length();
+        var input = state.input(length);
+        for (int i = 0; i < length; i++) {
+            input[i] = (byte) query.charAt(i);
+        }
+        sign(input, 0, length, state.hex, 0);
+        return new String(state.hex);
+    }
+
+    /**
+     * Writes hex encoded signature ({@link #SIGNATURE_LENGTH} chars) of the data into {@code output}.
+     */
+    void sign(byte[] data, int offset, int length, char[] output, int outputOffset) {
+        var state = states.get();
+        try {
+            state.mac.update(data, offset, length);
+            state.mac.doFinal(state.digest, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign", e);
+        }
+        for (int i = 0; i < state.digest.length; i++) {
+            int value = state.digest[i] & 0xFF;
+            output[outputOffset + 2 * i] = HEX[value >>> 4];
+            output[outputOffset + 2 * i + 1] = HEX[value & 0x0F];
+        }
+    }
+
+    /**
+     * Writes hex encoded signature ({@link #SIGNATURE_LENGTH} ASCII bytes) of the data into {@code output}.
+     */
+    void sign(byte[] data, int offset, int length, byte[] output, int outputOffset) {
+        var state = states.get();
+        sign(data, offset, length, state.hex, 0);
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            output[outputOffset + i] = (byte) state.hex[i];
+        }
+    }
+
+    private State newState() {
+        try {
+            return new State((Mac) prototype.clone());
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(ALGORITHM + " provider doesn't support cloning", e);
+        }
+    }
+
+    private static class State {
+        private final Mac mac;
+        private final byte[] digest;
+        private final char[] hex = new char[SIGNATURE_LENGTH];
+        private byte[] input = new byte[512];
+
+        private State(Mac mac) {
+            this.mac = mac;
+            this.digest = new byte[mac.getMacLength()];
+        }
+
+        private byte[] input(int length) {
+            if (input.length < length) {
+                input = new byte[Math.max(length, input.length * 2)];
+            }
+            return input;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.pblinov.binance.futures.api;
+
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpClientTransport;
+import org.eclipse.jetty.client.dynamic.HttpClientTransportDynamic;
+import org.eclipse.jetty.client.http.HttpClientConnectionFactory;
+import org.eclipse.jetty.http2.client.HTTP2Client;
+import org.eclipse.jetty.http2.client.http.ClientConnectionFactoryOverHTTP2;
+import org.eclipse.jetty.io.ClientConnector;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+@Slf4j
+class HttpClients {
+    private HttpClients() {
+    }
+
+    static HttpClient create(String name, TransportConfig config, boolean http2) {
+        var executor = executor(name, config);
+        var connector = new ClientConnector();
+        connector.setExecutor(executor);
+        connector.setTCPNoDelay(config.isTcpNoDelay());
+        connector.setConnectTimeout(config.getConnectTimeout());
+        connector.setIdleTimeout(config.getIdleTimeout());
+
+        HttpClientTransport transport;
+        if (http2) {
+            var http2Client = new HTTP2Client(connector);
+            transport = new HttpClientTransportDynamic(connector, new ClientConnectionFactoryOverHTTP2.HTTP2(http2Client), HttpClientConnectionFactory.HTTP11);
+        } else {
+            transport = new HttpClientTransportDynamic(connector, HttpClientConnectionFactory.HTTP11);
+        }
+
+        var httpClient = new HttpClient(transport);
+        httpClient.setExecutor(executor);
+        httpClient.setMaxConnectionsPerDestination(config.getMaxConnectionsPerDestination());
+        httpClient.setIdleTimeout(config.getIdleTimeout().toMillis());
+        return httpClient;
+    }
+
+    private static Executor executor(String name, TransportConfig config) {
+        if (config.isVirtualThreads()) {
+            try {
+                return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.warn("Virtual threads are not available in Java {}, use thread pool", Runtime.version().feature());
+            }
+        }
+        var threadPool = new QueuedThreadPool();
+        threadPool.setName(name);
+        return threadPool;
+    }
+}
@@ -0,0 +1,66 @@
+package com.pblinov.binance.futures.api;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Parses and delivers events on the WebSocket thread.
+ * With several producers the calls are serialized, as the parser and the listener are single-threaded.
+ */
+class InlineEventDispatcher extends EventDispatcher {
+    private final boolean multiProducer;
+    private volatile long published;
+
+    InlineEventDispatcher(String exchangeName, EventListener eventListener, boolean multiProducer,
+                          EventDeduplicator deduplicator, Metrics metrics) {
+        super(exchangeName, eventListener, deduplicator, metrics);
+        this.multiProducer = multiProducer;
+    }
+
+    @Override
+    void dispatch(String message) {
+        long received = System.nanoTime();
+        if (multiProducer) {
+            synchronized (this) {
+                published++;
+                process(message, received);
+            }
+        } else {
+            published++;
+            process(message, received);
+        }
+    }
+
+    @Override
+    void dispatch(ByteBuffer message) {
+        long received = System.nanoTime();
+        if (multiProducer) {
+            synchronized (this) {
+                published++;
+                process(message, received);
+            }
+        } else {
+            published++;
+            process(message, received);
+        }
+    }
+
+    @Override
+    public long getPublished() {
+        return published;
+    }
+
+    @Override
+    public long getOverflows() {
+        return 0;
+    }
+
+    @Override
+    public long getBackpressureStalls() {
+        return 0;
+    }
+
+    @Override
+    public long getRemainingCapacity() {
+        return 0;
+    }
+}
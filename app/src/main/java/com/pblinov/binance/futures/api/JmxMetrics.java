@@ -0,0 +1,137 @@
+package com.pblinov.binance.futures.api;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Exposes {@link MetricsStats} as read-only MBean attributes, e.g. {@code SendP99} in micros or {@code RetryCount}.
+ * Percentiles are calculated from everything recorded since start on each read.
+ */
+@Slf4j
+class JmxMetrics implements DynamicMBean {
+    private static final String DOMAIN = "com.pblinov.binance.futures";
+
+    private final String exchangeName;
+    private final Map<String, ToLongFunction<MetricsStats>> attributes = new LinkedHashMap<>();
+    private final MetricsStats stats;
+    private final MBeanInfo info;
+    private ObjectName name;
+
+    JmxMetrics(String exchangeName, MetricsStats stats) {
+        this.exchangeName = exchangeName;
+        this.stats = stats;
+        for (var timer : Metrics.Timer.values()) {
+            var prefix = camelCase(timer.name());
+            attributes.put(prefix + "Count", s -> s.getHistogram(timer).getTotalCount());
+            attributes.put(prefix + "Mean", s -> micros((long) s.getHistogram(timer).getMean()));
+            attributes.put(prefix + "P50", s -> micros(s.getHistogram(timer).getValueAtPercentile(50)));
+            attributes.put(prefix + "P99", s -> micros(s.getHistogram(timer).getValueAtPercentile(99)));
+            attributes.put(prefix + "P999", s -> micros(s.getHistogram(timer).getValueAtPercentile(99.9)));
+            attributes.put(prefix + "Max", s -> micros(s.getHistogram(timer).getMaxValue()));
+        }
+        for (var counter : Metrics.Counter.values()) {
+            attributes.put(camelCase(counter.name()) + "Count", s -> s.getCount(counter));
+        }
+        var attributeInfos = new ArrayList<MBeanAttributeInfo>();
+        for (var attribute : attributes.keySet()) {
+            attributeInfos.add(new MBeanAttributeInfo(attribute, "long", attribute.endsWith("Count") ? attribute : attribute + " (us)",
+                    true, false, false));
+        }
+        this.info = new MBeanInfo(getClass().getName(), "Latencies and counters of " + exchangeName,
+                attributeInfos.toArray(MBeanAttributeInfo[]::new), null, null, null);
+    }
+
+    void register() {
+        try {
+            name = new ObjectName(DOMAIN + ":type=Metrics,name=" + ObjectName.quote(exchangeName));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        } catch (Exception e) {
+            log.warn("[{}] Cannot register metrics MBean: {}", exchangeName, e.toString());
+            name = null;
+        }
+    }
+
+    void unregister() {
+        if (name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            } catch (Exception e) {
+                log.warn("[{}] Cannot unregister metrics MBean: {}", exchangeName, e.toString());
+            }
+            name = null;
+        }
+    }
+
+    ObjectName getName() {
+        return name;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        var value = attributes.get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return value.applyAsLong(stats);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] names) {
+        var list = new AttributeList();
+        for (var attribute : names) {
+            var value = attributes.get(attribute);
+            if (value != null) {
+                list.add(new Attribute(attribute, value.applyAsLong(stats)));
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Read-only attribute: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) {
+        throw new UnsupportedOperationException(actionName);
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        return info;
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    /**
+     * FIRST_BYTE -> FirstByte
+     */
+    static String camelCase(String name) {
+        var result = new StringBuilder(name.length());
+        for (var word : name.split("_")) {
+            result.append(word.charAt(0)).append(word.substring(1).toLowerCase());
+        }
+        return result.toString();
+    }
+}
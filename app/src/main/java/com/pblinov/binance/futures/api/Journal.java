@@ -0,0 +1,344 @@
+package com.pblinov.binance.futures.api;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Append-only journal in memory-mapped segment files of a fixed size. Record layout (big-endian):
+ * <pre>
+ * int  length      whole record including this header
+ * byte type        {@link JournalRecordType} ordinal
+ * long received    {@link System#nanoTime()} of receiving
+ * long timestamp   {@link System#currentTimeMillis()} of receiving
+ * ...  payload     raw bytes as received
+ * </pre>
+ * Length is written after the rest of the record, so a record torn by a crash reads as zero length,
+ * which is also the end of a partially filled segment.
+ * <p>
+ * Each record type is written into own segments under own lock, so the WebSocket thread appending stream frames
+ * doesn't wait for HTTP client threads appending responses. Segment indexes are shared, {@link JournalReader}
+ * merges the types back by receive time.
+ * <p>
+ * Appending is a copy into the page cache. Each next segment is created, mapped and pre-faulted
+ * in background, so rolling over only swaps buffers. A new journal never appends to existing segments,
+ * it starts with the next index.
+ */
+@Slf4j
+class Journal {
+    static final int HEADER_SIZE = Integer.BYTES + Byte.BYTES + Long.BYTES + Long.BYTES;
+    static final String SUFFIX = ".journal";
+    private static final int PAGE_SIZE = 4096;
+    private static final int INDEX_DIGITS = 19;
+
+    private final String exchangeName;
+    private final Path directory;
+    private final int segmentSize;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong index = new AtomicLong();
+    private final Writer[] writers = new Writer[JournalRecordType.values().length];
+    private ExecutorService roller;
+
+    Journal(String exchangeName, JournalConfig config) {
+        this.exchangeName = exchangeName;
+        this.directory = config.getDirectory();
+        this.segmentSize = config.getSegmentSize();
+        for (var type : JournalRecordType.values()) {
+            writers[type.ordinal()] = new Writer(type);
+        }
+    }
+
+    synchronized void open() {
+        try {
+            Files.createDirectories(directory);
+            index.set(lastIndex(directory));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        roller = Executors.newSingleThreadExecutor(runnable -> {
+            var thread = new Thread(runnable, exchangeName + "-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (var writer : writers) {
+            writer.open();
+        }
+        log.info("[{}] Journal is written to {}", exchangeName, directory);
+    }
+
+    synchronized void close() {
+        if (roller == null || roller.isShutdown()) {
+            return;
+        }
+        for (var writer : writers) {
+            writer.close();
+        }
+        roller.shutdown();
+        try {
+            if (!roller.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("[{}] Journal segments aren't flushed in time", exchangeName);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dropped.get() > 0) {
+            log.warn("[{}] {} records didn't fit into journal segment", exchangeName, dropped.get());
+        }
+    }
+
+    void append(JournalRecordType type, long received, ByteBuffer payload) {
+        writers[type.ordinal()].append(received, payload);
+    }
+
+    void append(JournalRecordType type, long received, byte[] payload, int offset, int length) {
+        writers[type.ordinal()].append(received, payload, offset, length);
+    }
+
+    /**
+     * ASCII text (Binance JSON) is copied without the encoder.
+     */
+    void append(JournalRecordType type, long received, String payload) {
+        writers[type.ordinal()].append(received, payload);
+    }
+
+    long getDropped() {
+        return dropped.get();
+    }
+
+    private CompletableFuture<Segment> prepare(JournalRecordType type) {
+        var file = directory.resolve(segmentName(index.incrementAndGet(), type));
+        return CompletableFuture.supplyAsync(() -> Segment.create(file, segmentSize), roller);
+    }
+
+    static String segmentName(long index, JournalRecordType type) {
+        return String.format("%0" + INDEX_DIGITS + "d", index) + "-" + type.name().toLowerCase() + SUFFIX;
+    }
+
+    /**
+     * @return type of records in the segment, null when the name is not a segment name
+     */
+    static JournalRecordType segmentType(String name) {
+        int start = INDEX_DIGITS + 1;
+        if (!name.endsWith(SUFFIX) || name.length() <= start + SUFFIX.length() || name.charAt(INDEX_DIGITS) != '-') {
+            return null;
+        }
+        for (int i = 0; i < INDEX_DIGITS; i++) {
+            if (name.charAt(i) < '0' || name.charAt(i) > '9') {
+                return null;
+            }
+        }
+        var type = name.substring(start, name.length() - SUFFIX.length()).toUpperCase();
+        for (var value : JournalRecordType.values()) {
+            if (value.name().equals(type)) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Segments of one record type. The first segment is taken on the first record,
+     * so types which are never written leave no files.
+     */
+    private class Writer {
+        private final JournalRecordType type;
+        private byte[] scratch = new byte[1024];
+        private MappedByteBuffer current;
+        private FileChannel currentChannel;
+        private CompletableFuture<Segment> next;
+
+        Writer(JournalRecordType type) {
+            this.type = type;
+        }
+
+        synchronized void open() {
+            next = prepare(type);
+        }
+
+        synchronized void close() {
+            if (current != null) {
+                var segment = new Segment(null, current, currentChannel);
+                current = null;
+                currentChannel = null;
+                roller.execute(segment::close);
+            }
+            if (next != null) {
+                next.thenAccept(Segment::delete);
+                next = null;
+            }
+        }
+
+        synchronized void append(long received, ByteBuffer payload) {
+            int length = HEADER_SIZE + payload.remaining();
+            var buffer = reserve(length);
+            if (buffer != null) {
+                int start = buffer.position();
+                writeHeader(buffer, start, received);
+                buffer.put(payload.duplicate());
+                buffer.putInt(start, length);
+            }
+        }
+
+        synchronized void append(long received, byte[] payload, int offset, int length) {
+            var buffer = reserve(HEADER_SIZE + length);
+            if (buffer != null) {
+                int start = buffer.position();
+                writeHeader(buffer, start, received);
+                buffer.put(payload, offset, length);
+                buffer.putInt(start, HEADER_SIZE + length);
+            }
+        }
+
+        synchronized void append(long received, String payload) {
+            if (toAscii(payload)) {
+                append(received, scratch, 0, payload.length());
+            } else {
+                var bytes = payload.getBytes(UTF_8);
+                append(received, bytes, 0, bytes.length);
+            }
+        }
+
+        /**
+         * Chars are collected into an array first, bulk copy is much faster than putting single bytes into mapped buffer.
+         *
+         * @return false when the text is not ASCII, then the scratch array content is undefined
+         */
+        private boolean toAscii(String payload) {
+            int length = payload.length();
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            for (int i = 0; i < length; i++) {
+                char c = payload.charAt(i);
+                if (c >= 0x80) {
+                    return false;
+                }
+                scratch[i] = (byte) c;
+            }
+            return true;
+        }
+
+        private void writeHeader(ByteBuffer buffer, int start, long received) {
+            buffer.position(start + Integer.BYTES);
+            buffer.put((byte) type.ordinal())
+                    .putLong(received)
+                    .putLong(System.currentTimeMillis());
+        }
+
+        /**
+         * @return current segment with enough space, or null when the record is dropped
+         */
+        private ByteBuffer reserve(int length) {
+            if (length > segmentSize) {
+                if (dropped.getAndIncrement() == 0) {
+                    log.warn("[{}] Record of {} bytes is bigger than journal segment", exchangeName, length);
+                }
+                return null;
+            }
+            // Zero length after the last record marks the end, it's there unless the segment is full
+            if (current == null || current.remaining() < length) {
+                roll();
+            }
+            if (current == null) {
+                dropped.incrementAndGet();
+            }
+            return current;
+        }
+
+        private void roll() {
+            if (current != null) {
+                var segment = new Segment(null, current, currentChannel);
+                roller.execute(segment::close);
+                current = null;
+                currentChannel = null;
+            }
+            if (next == null) {
+                // Closed or stopped
+                return;
+            }
+            Segment segment;
+            try {
+                segment = next.join();
+            } catch (CompletionException e) {
+                log.error("[{}] Cannot create journal segment, {} journal is stopped", exchangeName, type, e.getCause());
+                next = null;
+                return;
+            }
+            current = segment.buffer;
+            currentChannel = segment.channel;
+            next = prepare(type);
+        }
+    }
+
+    private static long lastIndex(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> segmentType(name) != null)
+                    .mapToLong(name -> Long.parseLong(name.substring(0, INDEX_DIGITS)))
+                    .max()
+                    .orElse(0);
+        }
+    }
+
+    private static class Segment {
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private final FileChannel channel;
+
+        Segment(Path file, MappedByteBuffer buffer, FileChannel channel) {
+            this.file = file;
+            this.buffer = buffer;
+            this.channel = channel;
+        }
+
+        static Segment create(Path file, int size) {
+            try {
+                var channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                // Page faults are taken here instead of on the first write to each page
+                for (int i = 0; i < size; i += PAGE_SIZE) {
+                    buffer.put(i, (byte) 0);
+                }
+                return new Segment(file, buffer, channel);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void close() {
+            try {
+                buffer.force();
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Cannot close journal segment: {}", e.toString());
+            }
+        }
+
+        /**
+         * Prepared segment which was never written.
+         */
+        void delete() {
+            try {
+                channel.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Cannot delete journal segment {}: {}", file, e.toString());
+            }
+        }
+    }
+}
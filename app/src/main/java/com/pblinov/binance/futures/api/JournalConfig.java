@@ -0,0 +1,29 @@
+package com.pblinov.binance.futures.api;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+/**
+ * Journal of received user data stream frames, REST responses and optionally market data, see {@link JournalReader}.
+ */
+@Builder
+@Getter
+public class JournalConfig {
+    public static final JournalConfig DEFAULT = JournalConfig.builder().build();
+
+    /**
+     * Directory of segment files, journal is disabled when null.
+     */
+    private final Path directory;
+    /**
+     * Size of one memory-mapped segment, records bigger than a segment are dropped.
+     */
+    @Builder.Default
+    private final int segmentSize = 64 * 1024 * 1024;
+    /**
+     * Market data stream messages are journaled too, they outnumber everything else by far.
+     */
+    private final boolean marketData;
+}
@@ -0,0 +1,157 @@
+package com.pblinov.binance.futures.api;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Reads records written by the journal (see {@link JournalConfig}) in the order they were appended.
+ * Segments are memory-mapped read-only, payloads are passed without copying.
+ * <p>
+ * Record types are written into separate segments, each type is read in its own order and types are merged
+ * by wall clock time, then by receive time. That's exact within one run unless the wall clock is adjusted.
+ */
+public class JournalReader {
+    private final Path directory;
+
+    public JournalReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return segment files in the order they were created, other files are skipped
+     */
+    public List<Path> segments() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(file -> Journal.segmentType(file.getFileName().toString()) != null)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * @return number of records passed to the handler
+     */
+    public long read(RecordHandler handler) throws IOException {
+        Map<JournalRecordType, List<Path>> types = new EnumMap<>(JournalRecordType.class);
+        for (var segment : segments()) {
+            types.computeIfAbsent(Journal.segmentType(segment.getFileName().toString()), type -> new ArrayList<>()).add(segment);
+        }
+        var cursors = new ArrayList<Cursor>(types.size());
+        for (var segments : types.values()) {
+            var cursor = new Cursor(segments.iterator());
+            if (cursor.next()) {
+                cursors.add(cursor);
+            }
+        }
+
+        long count = 0;
+        while (!cursors.isEmpty()) {
+            var first = cursors.get(0);
+            for (int i = 1; i < cursors.size(); i++) {
+                if (cursors.get(i).isBefore(first)) {
+                    first = cursors.get(i);
+                }
+            }
+            first.publish(handler);
+            count++;
+            if (!first.next()) {
+                cursors.remove(first);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads one segment up to its end or the first incomplete record.
+     */
+    public static long read(Path segment, RecordHandler handler) throws IOException {
+        var cursor = new Cursor(List.of(segment).iterator());
+        long count = 0;
+        while (cursor.next()) {
+            cursor.publish(handler);
+            count++;
+        }
+        return count;
+    }
+
+    public interface RecordHandler {
+        /**
+         * @param received  {@link System#nanoTime()} of the writing process, only comparable within one run
+         * @param timestamp wall clock time in millis
+         * @param payload   raw message, valid only during the call
+         */
+        void onRecord(JournalRecordType type, long received, long timestamp, ByteBuffer payload);
+    }
+
+    /**
+     * Position in a sequence of segments, records of unknown types are skipped.
+     */
+    private static class Cursor {
+        private final Iterator<Path> segments;
+        private ByteBuffer buffer;
+        private int position;
+        private int length;
+        private JournalRecordType type;
+        private long received;
+        private long timestamp;
+
+        Cursor(Iterator<Path> segments) {
+            this.segments = segments;
+        }
+
+        /**
+         * @return false when there are no more records
+         */
+        boolean next() throws IOException {
+            position += length;
+            length = 0;
+            while (true) {
+                while (buffer != null && position + Journal.HEADER_SIZE <= buffer.limit()) {
+                    int recordLength = buffer.getInt(position);
+                    if (recordLength < Journal.HEADER_SIZE || position + recordLength > buffer.limit()) {
+                        // End of the segment or a torn record
+                        break;
+                    }
+                    type = JournalRecordType.of(buffer.get(position + Integer.BYTES));
+                    if (type != null) {
+                        received = buffer.getLong(position + Integer.BYTES + Byte.BYTES);
+                        timestamp = buffer.getLong(position + Integer.BYTES + Byte.BYTES + Long.BYTES);
+                        length = recordLength;
+                        return true;
+                    }
+                    position += recordLength;
+                }
+                if (!segments.hasNext()) {
+                    return false;
+                }
+                buffer = map(segments.next());
+                position = 0;
+            }
+        }
+
+        boolean isBefore(Cursor other) {
+            return timestamp < other.timestamp || (timestamp == other.timestamp && received - other.received < 0);
+        }
+
+        void publish(RecordHandler handler) {
+            handler.onRecord(type, received, timestamp,
+                    buffer.slice(position + Journal.HEADER_SIZE, length - Journal.HEADER_SIZE));
+        }
+
+        private static ByteBuffer map(Path segment) throws IOException {
+            try (var channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.pblinov.binance.futures.api;
+
+/**
+ * Source of a journal record, stored as its ordinal, so new types are only appended.
+ */
+public enum JournalRecordType {
+    /**
+     * Text frame of user data stream.
+     */
+    USER_STREAM,
+    /**
+     * Body of REST API response.
+     */
+    REST_RESPONSE,
+    /**
+     * Combined market data stream message, {"stream":"btcusdt@bookTicker","data":{...}}.
+     * Written only when enabled by {@link JournalConfig#isMarketData()}.
+     */
+    MARKET_DATA;
+
+    private static final JournalRecordType[] VALUES = values();
+
+    static JournalRecordType of(int code) {
+        return code >= 0 && code < VALUES.length ? VALUES[code] : null;
+    }
+}
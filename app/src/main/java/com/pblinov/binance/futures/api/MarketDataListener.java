@@ -0,0 +1,20 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.AggTradeEvent;
+import com.pblinov.binance.futures.api.dto.BookTickerEvent;
+import com.pblinov.binance.futures.api.dto.MarkPriceEvent;
+
+/**
+ * Market data callbacks, only methods of subscribed stream types are called.
+ * As with {@link EventListener} events are reused, callbacks of one connection are invoked on its WebSocket thread.
+ */
+public interface MarketDataListener {
+    default void onAggTrade(AggTradeEvent aggTrade) {
+    }
+
+    default void onBookTicker(BookTickerEvent bookTicker) {
+    }
+
+    default void onMarkPrice(MarkPriceEvent markPrice) {
+    }
+}
@@ -0,0 +1,197 @@
+package com.pblinov.binance.futures.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.pblinov.binance.futures.api.dto.AggTradeEvent;
+import com.pblinov.binance.futures.api.dto.BookTickerEvent;
+import com.pblinov.binance.futures.api.dto.MarkPriceEvent;
+
+import java.io.IOException;
+
+import static com.pblinov.binance.futures.api.EventParser.doubleValue;
+
+/**
+ * Streaming parser of combined stream messages ({"stream":"btcusdt@aggTrade","data":{...}}).
+ * The subscription is resolved from the characters of {@code stream} field, so {@code data} is parsed
+ * straight into the event of its type and delivered without intermediate objects.
+ * Events are reused and the parser is not thread-safe, each connection has own parser.
+ */
+class MarketDataParser {
+    private final JsonFactory factory = new JsonFactory();
+    private final TextCache symbols = new TextCache(256);
+    private final DepthParser depthParser = new DepthParser();
+    private final AggTradeEvent aggTrade = new AggTradeEvent();
+    private final BookTickerEvent bookTicker = new BookTickerEvent();
+    private final MarkPriceEvent markPrice = new MarkPriceEvent();
+
+    /**
+     * @return true when the message is stream data, false for other messages (e.g. SUBSCRIBE response)
+     */
+    boolean parse(String message, StreamTable streams) throws IOException {
+        try (var parser = factory.createParser(message)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Message should be an object");
+            }
+
+            Subscription subscription = null;
+            boolean data = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var name = parser.currentName();
+                parser.nextToken();
+                switch (name) {
+                    case "stream":
+                        subscription = streams.get(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                        break;
+                    case "data":
+                        data = true;
+                        if (subscription != null) {
+                            deliver(parser, subscription);
+                        } else {
+                            // Unsubscribed stream or "data" before "stream", which Binance doesn't send
+                            parser.skipChildren();
+                        }
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            return data;
+        }
+    }
+
+    private void deliver(JsonParser parser, Subscription subscription) throws IOException {
+        switch (subscription.getType()) {
+            case AGG_TRADE:
+                parseAggTrade(parser);
+                subscription.getListener().onAggTrade(aggTrade);
+                break;
+            case BOOK_TICKER:
+                parseBookTicker(parser);
+                subscription.getListener().onBookTicker(bookTicker);
+                break;
+            case MARK_PRICE:
+                parseMarkPrice(parser);
+                subscription.getListener().onMarkPrice(markPrice);
+                break;
+            case DEPTH:
+                subscription.getBook().onUpdate(depthParser.parse(parser));
+                break;
+            default:
+                parser.skipChildren();
+        }
+    }
+
+    // {"e":"aggTrade","E":123456789,"s":"BTCUSDT","a":5933014,"p":"0.001","q":"100","f":100,"l":105,"T":123456785,"m":true}
+    private void parseAggTrade(JsonParser parser) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "E":
+                    aggTrade.setEventTime(parser.getLongValue());
+                    break;
+                case "s":
+                    aggTrade.setSymbol(symbol(parser));
+                    break;
+                case "a":
+                    aggTrade.setAggTradeId(parser.getLongValue());
+                    break;
+                case "p":
+                    aggTrade.setPrice(doubleValue(parser));
+                    break;
+                case "q":
+                    aggTrade.setQty(doubleValue(parser));
+                    break;
+                case "f":
+                    aggTrade.setFirstTradeId(parser.getLongValue());
+                    break;
+                case "l":
+                    aggTrade.setLastTradeId(parser.getLongValue());
+                    break;
+                case "T":
+                    aggTrade.setTradeTime(parser.getLongValue());
+                    break;
+                case "m":
+                    aggTrade.setBuyerMaker(parser.getBooleanValue());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    // {"e":"bookTicker","u":400900217,"E":1568014460893,"T":1568014460891,"s":"BNBUSDT","b":"25.35190000","B":"31.21000000","a":"25.36520000","A":"40.66000000"}
+    private void parseBookTicker(JsonParser parser) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "E":
+                    bookTicker.setEventTime(parser.getLongValue());
+                    break;
+                case "T":
+                    bookTicker.setTransactionTime(parser.getLongValue());
+                    break;
+                case "s":
+                    bookTicker.setSymbol(symbol(parser));
+                    break;
+                case "u":
+                    bookTicker.setUpdateId(parser.getLongValue());
+                    break;
+                case "b":
+                    bookTicker.setBidPrice(doubleValue(parser));
+                    break;
+                case "B":
+                    bookTicker.setBidQty(doubleValue(parser));
+                    break;
+                case "a":
+                    bookTicker.setAskPrice(doubleValue(parser));
+                    break;
+                case "A":
+                    bookTicker.setAskQty(doubleValue(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    // {"e":"markPriceUpdate","E":1562305380000,"s":"BTCUSDT","p":"11794.15000000","i":"11784.62659091","P":"11784.25641265","r":"0.00038167","T":1562306400000}
+    private void parseMarkPrice(JsonParser parser) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            var name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "E":
+                    markPrice.setEventTime(parser.getLongValue());
+                    break;
+                case "s":
+                    markPrice.setSymbol(symbol(parser));
+                    break;
+                case "p":
+                    markPrice.setMarkPrice(doubleValue(parser));
+                    break;
+                case "i":
+                    markPrice.setIndexPrice(doubleValue(parser));
+                    break;
+                case "P":
+                    markPrice.setEstimatedSettlePrice(doubleValue(parser));
+                    break;
+                case "r":
+                    markPrice.setFundingRate(doubleValue(parser));
+                    break;
+                case "T":
+                    markPrice.setNextFundingTime(parser.getLongValue());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    private String symbol(JsonParser parser) throws IOException {
+        return symbols.get(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+}
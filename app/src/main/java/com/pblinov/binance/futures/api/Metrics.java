@@ -0,0 +1,96 @@
+package com.pblinov.binance.futures.api;
+
+/**
+ * Receives latencies of the request lifecycle and user data stream, plus counts of retries and reconnects.
+ * <p>
+ * Methods are called on hot paths (caller, HTTP client, WebSocket and dispatch threads), so an implementation
+ * must be thread-safe, must not block and shouldn't allocate, e.g. an adapter to HdrHistogram recorders
+ * or to pre-registered Micrometer timers. See {@link MetricsConfig#getListener()}.
+ */
+public interface Metrics {
+    Metrics NOOP = new Metrics() {
+        @Override
+        public void onLatency(Timer timer, long nanos) {
+        }
+
+        @Override
+        public void onEvent(Counter counter) {
+        }
+    };
+
+    void onLatency(Timer timer, long nanos);
+
+    void onEvent(Counter counter);
+
+    static Metrics of(Metrics first, Metrics second) {
+        return new Metrics() {
+            @Override
+            public void onLatency(Timer timer, long nanos) {
+                first.onLatency(timer, nanos);
+                second.onLatency(timer, nanos);
+            }
+
+            @Override
+            public void onEvent(Counter counter) {
+                first.onEvent(counter);
+                second.onEvent(counter);
+            }
+        };
+    }
+
+    enum Timer {
+        /**
+         * Adding timestamp to the query and calculating its signature.
+         */
+        SIGN,
+        /**
+         * From sending a request until it's written, including wait for a pooled connection.
+         */
+        SEND,
+        /**
+         * From sending a request until the response starts (time to first byte).
+         * Jetty may report the response before the request is written, so it's not measured from {@link #SEND}.
+         */
+        FIRST_BYTE,
+        /**
+         * From sending a request until its response is fully received.
+         */
+        RESPONSE,
+        /**
+         * Parsing a successful REST response.
+         */
+        PARSE,
+        /**
+         * From receiving a user data stream message until it's parsed and handed over to {@link EventListener},
+         * including the time in the ring buffer.
+         */
+        DISPATCH,
+        /**
+         * Round trip of a user data stream ping, see {@link HeartbeatStats#getRttHistogram()}.
+         */
+        PING_RTT
+    }
+
+    enum Counter {
+        /**
+         * Request is delayed by the client-side rate limiter.
+         */
+        RATE_LIMITED,
+        /**
+         * Request failed without a response (connection, timeout).
+         */
+        REQUEST_FAILURE,
+        /**
+         * Query or cancel is retried.
+         */
+        RETRY,
+        /**
+         * Reconnect attempt of user data stream is scheduled.
+         */
+        RECONNECT,
+        /**
+         * Order is rejected by pre-trade risk checks and not sent.
+         */
+        RISK_REJECTED
+    }
+}
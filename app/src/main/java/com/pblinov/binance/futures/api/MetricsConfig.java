@@ -0,0 +1,29 @@
+package com.pblinov.binance.futures.api;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Latencies and counters are always recorded into HdrHistograms, see {@link BinanceExchange#getMetricsStats()}.
+ */
+@Builder
+@Getter
+public class MetricsConfig {
+    public static final MetricsConfig DEFAULT = MetricsConfig.builder().build();
+
+    /**
+     * Registers {@code com.pblinov.binance.futures:type=Metrics,name=<exchange name>} MBean with percentiles in micros.
+     */
+    private final boolean jmx;
+    /**
+     * Additional sink of the same measurements, e.g. an adapter to the application's metrics registry.
+     */
+    private final Metrics listener;
+    /**
+     * Longer latencies are recorded as this value.
+     */
+    @Builder.Default
+    private final Duration highestLatency = Duration.ofMinutes(1);
+}
@@ -0,0 +1,12 @@
+package com.pblinov.binance.futures.api;
+
+import org.HdrHistogram.Histogram;
+
+public interface MetricsStats {
+    /**
+     * @return latencies in nanos recorded since start
+     */
+    Histogram getHistogram(Metrics.Timer timer);
+
+    long getCount(Metrics.Counter counter);
+}
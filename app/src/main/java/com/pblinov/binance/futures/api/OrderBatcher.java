@@ -0,0 +1,133 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.BatchOrderResult;
+import com.pblinov.binance.futures.api.dto.NewOrder;
+import com.pblinov.binance.futures.api.dto.Order;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.pblinov.binance.futures.api.BinanceRest.MAX_BATCH_PLACE;
+
+/**
+ * Coalesces order placements made within a short window into /batchOrders requests.
+ * A batch is sent as soon as it is full or when the window, started by its first order, is over.
+ */
+class OrderBatcher {
+    private final BinanceRest rest;
+    private final ScheduledExecutorService scheduler;
+    private final long windowNanos;
+    private List<PendingOrder> pending = new ArrayList<>(MAX_BATCH_PLACE);
+    /**
+     * Window timer of the pending batch, null until its first order.
+     */
+    private ScheduledFuture<?> flushTask;
+    /**
+     * Incremented on each drain, so a timer which fired for an already sent batch doesn't cut the next window short.
+     */
+    private long batchId;
+
+    OrderBatcher(BinanceRest rest, ScheduledExecutorService scheduler, Duration window) {
+        this.rest = rest;
+        this.scheduler = scheduler;
+        this.windowNanos = window.toNanos();
+    }
+
+    CompletableFuture<Order> placeOrder(NewOrder order) {
+        var pendingOrder = new PendingOrder(order, new CompletableFuture<>());
+        List<PendingOrder> batch = null;
+        synchronized (this) {
+            pending.add(pendingOrder);
+            if (pending.size() >= MAX_BATCH_PLACE) {
+                batch = drain();
+            } else if (flushTask == null) {
+                long id = batchId;
+                flushTask = scheduler.schedule(() -> flush(id), windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (batch != null) {
+            send(batch);
+        }
+        return pendingOrder.result;
+    }
+
+    private void flush(long id) {
+        List<PendingOrder> batch;
+        synchronized (this) {
+            if (id != batchId || pending.isEmpty()) {
+                return;
+            }
+            batch = drain();
+        }
+        send(batch);
+    }
+
+    private List<PendingOrder> drain() {
+        if (flushTask != null) {
+            // Full batch is sent before its window is over
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        batchId++;
+        var batch = pending;
+        pending = new ArrayList<>(MAX_BATCH_PLACE);
+        return batch;
+    }
+
+    private void send(List<PendingOrder> batch) {
+        if (batch.size() == 1) {
+            // Single order endpoint has a lower request weight
+            var order = batch.get(0);
+            rest.placeOrderAsync(order.order.getSymbol(), order.order.getClientOrderId(), order.order.getType(),
+                            order.order.getSide(), order.order.getQty(), order.order.getPrice(), order.order.getTif())
+                    .whenComplete((result, e) -> complete(order, result, e));
+            return;
+        }
+
+        var orders = new ArrayList<NewOrder>(batch.size());
+        for (var order : batch) {
+            orders.add(order.order);
+        }
+        rest.placeOrdersAsync(orders).whenComplete((results, e) -> {
+            for (int i = 0; i < batch.size(); i++) {
+                if (e != null) {
+                    complete(batch.get(i), null, e);
+                } else {
+                    complete(batch.get(i), results.get(i));
+                }
+            }
+        });
+    }
+
+    private static void complete(PendingOrder order, BatchOrderResult result) {
+        if (result.isSuccess()) {
+            order.result.complete(result.getOrder());
+        } else {
+            var error = result.getError();
+            order.result.completeExceptionally(ProcessingException.of(error.getCode(), error.getMsg()));
+        }
+    }
+
+    private static void complete(PendingOrder order, Order result, Throwable e) {
+        if (e != null) {
+            order.result.completeExceptionally(e);
+        } else {
+            order.result.complete(result);
+        }
+    }
+
+    private static class PendingOrder {
+        private final NewOrder order;
+        private final CompletableFuture<Order> result;
+
+        private PendingOrder(NewOrder order, CompletableFuture<Order> result) {
+            this.order = order;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.pblinov.binance.futures.api;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Local L2 order book of a symbol, maintained from {@code <symbol>@depth} stream on top of REST snapshot.
+ * <p>
+ * Price levels are kept in sorted primitive arrays keyed by price in units of the symbol's price scale,
+ * best level is the last one, so the most frequent updates near the top move few elements.
+ * Updates come from the stream thread and snapshots from the snapshot executor, {@link OrderBookSync} serializes them
+ * and each one is applied under the write lock. The book can be read from any thread without allocation,
+ * readers never see a half-applied update.
+ */
+public class OrderBook {
+    private final String symbol;
+    private final SymbolFilters filters;
+    private final double priceFactor;
+    private final StampedLock lock = new StampedLock();
+    private final Levels bids = new Levels(false);
+    private final Levels asks = new Levels(true);
+    private long lastUpdateId;
+    private long eventTime;
+    private volatile boolean synced;
+
+    OrderBook(String symbol, SymbolFilters filters) {
+        this.symbol = symbol;
+        this.filters = filters;
+        this.priceFactor = Math.pow(10, filters.getPriceScale());
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * @return false while the book is (re)loaded from snapshot, levels shouldn't be used then
+     */
+    public boolean isSynced() {
+        return synced;
+    }
+
+    public long getLastUpdateId() {
+        long stamp = lock.readLock();
+        try {
+            return lastUpdateId;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long getEventTime() {
+        long stamp = lock.readLock();
+        try {
+            return eventTime;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return best bid price or NaN when there are no bids
+     */
+    public double getBestBidPrice() {
+        return bestPrice(bids);
+    }
+
+    public double getBestBidQty() {
+        return bestQty(bids);
+    }
+
+    /**
+     * @return best ask price or NaN when there are no asks
+     */
+    public double getBestAskPrice() {
+        return bestPrice(asks);
+    }
+
+    public double getBestAskQty() {
+        return bestQty(asks);
+    }
+
+    /**
+     * Copies up to {@code prices.length} best bids, from the best one.
+     *
+     * @return number of copied levels
+     */
+    public int getBids(double[] prices, double[] qtys) {
+        return top(bids, prices, qtys);
+    }
+
+    /**
+     * Copies up to {@code prices.length} best asks, from the best one.
+     *
+     * @return number of copied levels
+     */
+    public int getAsks(double[] prices, double[] qtys) {
+        return top(asks, prices, qtys);
+    }
+
+    void reset(long lastUpdateId, double[][] bids, double[][] asks) {
+        long stamp = lock.writeLock();
+        try {
+            this.bids.clear();
+            this.asks.clear();
+            for (var level : bids) {
+                this.bids.set(filters.priceUnits(level[0]), level[1]);
+            }
+            for (var level : asks) {
+                this.asks.set(filters.priceUnits(level[0]), level[1]);
+            }
+            this.lastUpdateId = lastUpdateId;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void apply(DepthUpdate update) {
+        long stamp = lock.writeLock();
+        try {
+            apply(bids, update.getBids());
+            apply(asks, update.getAsks());
+            lastUpdateId = update.getFinalUpdateId();
+            eventTime = update.getEventTime();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void setSynced(boolean synced) {
+        this.synced = synced;
+    }
+
+    private void apply(Levels levels, DepthUpdate.PriceLevels update) {
+        for (int i = 0; i < update.size(); i++) {
+            levels.set(filters.priceUnits(update.getPrice(i)), update.getQty(i));
+        }
+    }
+
+    private double bestPrice(Levels levels) {
+        long stamp = lock.tryOptimisticRead();
+        long units = levels.bestUnits();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                units = levels.bestUnits();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return units == Long.MIN_VALUE ? Double.NaN : units / priceFactor;
+    }
+
+    private double bestQty(Levels levels) {
+        long stamp = lock.tryOptimisticRead();
+        double qty = levels.bestQty();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                qty = levels.bestQty();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return qty;
+    }
+
+    private int top(Levels levels, double[] prices, double[] qtys) {
+        long stamp = lock.readLock();
+        try {
+            int count = Math.min(Math.min(prices.length, qtys.length), levels.size);
+            for (int i = 0; i < count; i++) {
+                int index = levels.size - 1 - i;
+                prices[i] = levels.units(index) / priceFactor;
+                qtys[i] = levels.qtys[index];
+            }
+            return count;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Levels sorted by key ascending, the best one is the last.
+     * Key is the price for bids and negated price for asks.
+     */
+    private static class Levels {
+        private final boolean ask;
+        private long[] keys = new long[256];
+        private double[] qtys = new double[256];
+        private int size;
+
+        Levels(boolean ask) {
+            this.ask = ask;
+        }
+
+        void set(long priceUnits, double qty) {
+            long key = ask ? -priceUnits : priceUnits;
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            if (index >= 0) {
+                if (qty == 0) {
+                    System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+                    System.arraycopy(qtys, index + 1, qtys, index, size - index - 1);
+                    size--;
+                } else {
+                    qtys[index] = qty;
+                }
+            } else if (qty != 0) {
+                int insertion = -index - 1;
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, size * 2);
+                    qtys = Arrays.copyOf(qtys, size * 2);
+                }
+                System.arraycopy(keys, insertion, keys, insertion + 1, size - insertion);
+                System.arraycopy(qtys, insertion, qtys, insertion + 1, size - insertion);
+                keys[insertion] = key;
+                qtys[insertion] = qty;
+                size++;
+            }
+        }
+
+        long units(int index) {
+            return ask ? -keys[index] : keys[index];
+        }
+
+        /**
+         * Safe under optimistic read: a size read together with a stale array is bounds-checked and
+         * the value is discarded by failed validation anyway.
+         *
+         * @return price units of the best level or {@link Long#MIN_VALUE} when empty
+         */
+        long bestUnits() {
+            var current = keys;
+            int n = size;
+            if (n == 0 || n > current.length) {
+                return Long.MIN_VALUE;
+            }
+            return ask ? -current[n - 1] : current[n - 1];
+        }
+
+        double bestQty() {
+            var current = qtys;
+            int n = size;
+            return n == 0 || n > current.length ? 0 : current[n - 1];
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.DepthSnapshot;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderBook} per symbol maintained from {@code <symbol>@depth@100ms} streams of {@link SubscriptionManager}.
+ * Snapshots are loaded on a separate thread, so streams are not blocked by REST calls.
+ */
+class OrderBookManager {
+    private final BinanceConfig config;
+    private final BinanceRest rest;
+    private final SubscriptionManager subscriptions;
+    private final Map<String, OrderBook> books = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService snapshotExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    OrderBookManager(BinanceConfig config, BinanceRest rest, SubscriptionManager subscriptions) {
+        this.config = config;
+        this.rest = rest;
+        this.subscriptions = subscriptions;
+    }
+
+    /**
+     * Creates books of configured symbols.
+     */
+    void start() {
+        config.getOrderBookSymbols().forEach(this::subscribe);
+    }
+
+    void stop() {
+        snapshotExecutor.shutdown();
+    }
+
+    /**
+     * Symbols are in upper case as in events. Book is synced after the stream is connected.
+     */
+    OrderBook subscribe(String symbol) {
+        return books.computeIfAbsent(symbol.toUpperCase(), key -> {
+            var book = new OrderBook(key, rest.getSymbolFilters(key));
+            subscriptions.subscribe(new Subscription(key, StreamType.DEPTH, null,
+                    new OrderBookSync(config.getExchangeName(), book, this::loadSnapshot, config.getReconnect())));
+            return book;
+        });
+    }
+
+    OrderBook getOrderBook(String symbol) {
+        return books.get(symbol.toUpperCase());
+    }
+
+    private void loadSnapshot(OrderBookSync sync, long delayNanos) {
+        try {
+            snapshotExecutor.schedule(() -> loadSnapshot(sync), delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // Stopped
+        }
+    }
+
+    private void loadSnapshot(OrderBookSync sync) {
+        DepthSnapshot snapshot;
+        try {
+            snapshot = rest.depth(sync.getBook().getSymbol(), config.getOrderBookDepth());
+        } catch (Exception e) {
+            sync.onSnapshotFailure(e);
+            return;
+        }
+        sync.onSnapshot(snapshot);
+    }
+}
@@ -0,0 +1,159 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.DepthSnapshot;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps {@link OrderBook} in sync with depth stream as described in "How to manage a local order book correctly":
+ * <ol>
+ *     <li>updates are buffered while REST snapshot is loaded</li>
+ *     <li>updates with {@code u} < {@code lastUpdateId} of the snapshot are dropped</li>
+ *     <li>the first applied update should have {@code U} <= {@code lastUpdateId} <= {@code u}</li>
+ *     <li>every next update should have {@code pu} equal to {@code u} of the previous one</li>
+ * </ol>
+ * Any gap invalidates the book and requests a new snapshot.
+ * <p>
+ * Failed snapshot is requested again with exponential backoff, as it costs a lot of request weight.
+ * After an unrecoverable error (e.g. unknown symbol) the book stays unsynced until the stream is reconnected,
+ * a rate limit error is retried after the longest delay.
+ */
+@Slf4j
+class OrderBookSync {
+    private final String exchangeName;
+    private final OrderBook book;
+    private final SnapshotRequester snapshotRequester;
+    private final Backoff backoff;
+    private final long maxDelayNanos;
+    private final ArrayDeque<DepthUpdate> pending = new ArrayDeque<>();
+    private boolean loading;
+    private boolean bridged;
+    private boolean suspended;
+
+    /**
+     * @param snapshotRequester loads snapshot asynchronously and passes it to {@link #onSnapshot}
+     * @param retry             backoff of snapshot requests after a failure
+     */
+    OrderBookSync(String exchangeName, OrderBook book, SnapshotRequester snapshotRequester, ReconnectConfig retry) {
+        this.exchangeName = exchangeName;
+        this.book = book;
+        this.snapshotRequester = snapshotRequester;
+        this.backoff = new Backoff(retry);
+        this.maxDelayNanos = retry.getMaxDelay().toNanos();
+    }
+
+    OrderBook getBook() {
+        return book;
+    }
+
+    /**
+     * Update is owned by the caller and copied when it has to be buffered.
+     */
+    synchronized void onUpdate(DepthUpdate update) {
+        if (suspended) {
+            return;
+        }
+        if (loading) {
+            pending.add(update.copy());
+            return;
+        }
+        if (!apply(update)) {
+            resync(update);
+        }
+    }
+
+    synchronized void onSnapshot(DepthSnapshot snapshot) {
+        book.reset(snapshot.getLastUpdateId(), snapshot.getBids(), snapshot.getAsks());
+        loading = false;
+        bridged = false;
+        backoff.reset();
+        log.debug("[{}] {} snapshot {} loaded, {} updates buffered", exchangeName, book.getSymbol(), snapshot.getLastUpdateId(), pending.size());
+        while (!pending.isEmpty()) {
+            var update = pending.poll();
+            if (!apply(update)) {
+                resync(null);
+                return;
+            }
+        }
+    }
+
+    synchronized void onSnapshotFailure(Throwable cause) {
+        var error = cause instanceof CompletionException && cause.getCause() != null ? cause.getCause() : cause;
+        book.setSynced(false);
+        bridged = false;
+        pending.clear();
+        if (error instanceof UnrecoverableProcessingException
+                && ((ProcessingException) error).getCode() != ProcessingException.TOO_MANY_REQUESTS) {
+            log.error("[{}] Cannot load {} snapshot, the book is stopped until reconnect: {}", exchangeName, book.getSymbol(), error.toString());
+            loading = false;
+            suspended = true;
+            return;
+        }
+        long delay = error instanceof ProcessingException && ((ProcessingException) error).getCode() == ProcessingException.TOO_MANY_REQUESTS
+                ? maxDelayNanos : backoff.nextDelay();
+        log.warn("[{}] Cannot load {} snapshot, retry in {}ms: {}", exchangeName, book.getSymbol(), TimeUnit.NANOSECONDS.toMillis(delay), error.toString());
+        // Updates are buffered until the retried snapshot arrives
+        loading = true;
+        snapshotRequester.request(this, delay);
+    }
+
+    /**
+     * Stream was interrupted, the book is reloaded with the next update.
+     */
+    synchronized void invalidate() {
+        book.setSynced(false);
+        bridged = false;
+        pending.clear();
+        suspended = false;
+        if (!loading) {
+            loading = true;
+            snapshotRequester.request(this, 0);
+        }
+    }
+
+    /**
+     * @return false on sequence gap
+     */
+    private boolean apply(DepthUpdate update) {
+        if (!bridged) {
+            if (update.getFinalUpdateId() < book.getLastUpdateId()) {
+                return true;
+            }
+            if (update.getFirstUpdateId() > book.getLastUpdateId()) {
+                return false;
+            }
+            bridged = true;
+            book.apply(update);
+            book.setSynced(true);
+            log.info("[{}] {} order book is synced at {}", exchangeName, book.getSymbol(), update.getFinalUpdateId());
+            return true;
+        }
+        if (update.getPreviousUpdateId() != book.getLastUpdateId()) {
+            log.warn("[{}] {} order book gap: pu={}, last u={}", exchangeName, book.getSymbol(), update.getPreviousUpdateId(), book.getLastUpdateId());
+            return false;
+        }
+        book.apply(update);
+        return true;
+    }
+
+    private void resync(DepthUpdate update) {
+        book.setSynced(false);
+        bridged = false;
+        pending.clear();
+        if (update != null) {
+            pending.add(update.copy());
+        }
+        loading = true;
+        snapshotRequester.request(this, 0);
+    }
+
+    interface SnapshotRequester {
+        /**
+         * @param delayNanos how long to wait before the request
+         */
+        void request(OrderBookSync sync, long delayNanos);
+    }
+}
@@ -0,0 +1,333 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.Order;
+import com.pblinov.binance.futures.api.dto.OrderStatus;
+import com.pblinov.binance.futures.api.dto.OrderType;
+import com.pblinov.binance.futures.api.dto.OrderUpdateEvent;
+import com.pblinov.binance.futures.api.dto.Side;
+import com.pblinov.binance.futures.api.dto.TimeInForce;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Latest known state of own orders, keyed by clientOrderId.
+ * Updated from the user data stream and from REST responses.
+ * <p>
+ * Orders are kept in an open-addressing table with linear probing. Open orders are never evicted,
+ * orders in a final state are evicted in FIFO order once there are more than {@code terminalCapacity} of them.
+ * <p>
+ * State is considered fresh when it was received after the last stream gap ({@link #invalidate()})
+ * and either it is final, or the user data stream is live (so any change would have been received),
+ * or it is younger than TTL.
+ */
+class OrderCache {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final long ttlNanos;
+    private final BooleanSupplier streamLive;
+    private final String[] terminalIds;
+    private final ArrayDeque<OrderState> pool = new ArrayDeque<>();
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private OrderState[] states = new OrderState[INITIAL_CAPACITY];
+    private int size;
+    private int openCount;
+    private int terminalHead;
+    private int terminalCount;
+    private volatile long validSinceNanos = System.nanoTime();
+
+    OrderCache(int terminalCapacity, Duration ttl, BooleanSupplier streamLive) {
+        if (terminalCapacity < 1) {
+            throw new IllegalArgumentException("Capacity should be positive: " + terminalCapacity);
+        }
+        this.terminalIds = new String[terminalCapacity];
+        this.ttlNanos = ttl.toNanos();
+        this.streamLive = streamLive;
+    }
+
+    /**
+     * @return copy of the order state when it's fresh, otherwise null
+     */
+    synchronized Order get(String symbol, String clientOrderId) {
+        int index = indexOf(clientOrderId);
+        if (index < 0) {
+            return null;
+        }
+        var state = states[index];
+        if (!state.symbol.equals(symbol) || !isFresh(state)) {
+            return null;
+        }
+        return state.toOrder();
+    }
+
+    /**
+     * @return copy of the last known order state, fresh or not
+     */
+    synchronized Order peek(String clientOrderId) {
+        int index = indexOf(clientOrderId);
+        return index >= 0 ? states[index].toOrder() : null;
+    }
+
+    /**
+     * @return copies of orders which are open as far as known
+     */
+    synchronized List<Order> openOrders() {
+        var orders = new ArrayList<Order>(openCount);
+        for (var state : states) {
+            if (state != null && isOpen(state.status)) {
+                orders.add(state.toOrder());
+            }
+        }
+        return orders;
+    }
+
+    /**
+     * @return remaining quantity of open orders with the given symbol and side
+     */
+    synchronized double openQty(String symbol, Side side) {
+        double qty = 0;
+        if (openCount == 0) {
+            return qty;
+        }
+        for (var state : states) {
+            if (state != null && state.side == side && isOpen(state.status) && symbol.equals(state.symbol)) {
+                qty += state.origQty - state.executedQty;
+            }
+        }
+        return qty;
+    }
+
+    synchronized void update(Order order) {
+        var state = getOrCreate(order.getClientOrderId());
+        if (state.accepts(order.getStatus(), order.getExecutedQty())) {
+            state.symbol = order.getSymbol();
+            state.orderId = order.getOrderId();
+            state.side = order.getSide();
+            state.type = order.getType();
+            state.timeInForce = order.getTimeInForce();
+            state.price = order.getPrice();
+            state.origQty = order.getOrigQty();
+            setStatus(state, order.getStatus(), order.getExecutedQty());
+        }
+    }
+
+    synchronized void update(OrderUpdateEvent.OrderTradeUpdate update) {
+        var state = getOrCreate(update.getClientOrderId());
+        if (state.accepts(update.getOrderStatus(), update.getFilledQty())) {
+            state.symbol = update.getSymbol();
+            state.orderId = update.getOrderId();
+            state.side = update.getSide();
+            state.type = update.getOrderType();
+            state.timeInForce = update.getTimeInForce();
+            state.price = update.getPrice();
+            state.origQty = update.getQty();
+            setStatus(state, update.getOrderStatus(), update.getFilledQty());
+        }
+    }
+
+    /**
+     * Marks all known states as stale, e.g. when user data stream was interrupted and updates could be lost.
+     */
+    void invalidate() {
+        validSinceNanos = System.nanoTime();
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized int openOrderCount() {
+        return openCount;
+    }
+
+    private boolean isFresh(OrderState state) {
+        if (state.updatedNanos - validSinceNanos < 0) {
+            return false;
+        }
+        return state.status.isFinal()
+                || streamLive.getAsBoolean()
+                || System.nanoTime() - state.updatedNanos <= ttlNanos;
+    }
+
+    private void setStatus(OrderState state, OrderStatus status, double executedQty) {
+        var wasOpen = isOpen(state.status);
+        state.status = status;
+        state.executedQty = executedQty;
+        state.updatedNanos = System.nanoTime();
+        var open = isOpen(status);
+        if (wasOpen != open) {
+            openCount += open ? 1 : -1;
+        }
+        if (status != null && status.isFinal()) {
+            addTerminal(state);
+        }
+    }
+
+    private void addTerminal(OrderState state) {
+        if (state.terminal) {
+            return;
+        }
+        state.terminal = true;
+        if (terminalCount == terminalIds.length) {
+            remove(terminalIds[terminalHead]);
+            terminalIds[terminalHead] = state.clientOrderId;
+            terminalHead = (terminalHead + 1) % terminalIds.length;
+        } else {
+            terminalIds[(terminalHead + terminalCount) % terminalIds.length] = state.clientOrderId;
+            terminalCount++;
+        }
+    }
+
+    private static boolean isOpen(OrderStatus status) {
+        return status != null && !status.isFinal();
+    }
+
+    private OrderState getOrCreate(String clientOrderId) {
+        int index = indexOf(clientOrderId);
+        if (index >= 0) {
+            return states[index];
+        }
+
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        index = slot(clientOrderId, keys.length);
+        while (keys[index] != null) {
+            index = (index + 1) & (keys.length - 1);
+        }
+        var state = pool.isEmpty() ? new OrderState() : pool.poll();
+        state.reset(clientOrderId);
+        keys[index] = clientOrderId;
+        states[index] = state;
+        size++;
+        return state;
+    }
+
+    private int indexOf(String clientOrderId) {
+        int mask = keys.length - 1;
+        int index = slot(clientOrderId, keys.length);
+        while (keys[index] != null) {
+            if (keys[index].equals(clientOrderId)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Backward shift deletion keeps probe sequences intact without tombstones.
+     */
+    private void remove(String clientOrderId) {
+        int index = indexOf(clientOrderId);
+        if (index < 0) {
+            return;
+        }
+        var removed = states[index];
+        if (isOpen(removed.status)) {
+            openCount--;
+        }
+        pool.push(removed);
+        size--;
+
+        int mask = keys.length - 1;
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (keys[next] != null) {
+            int home = slot(keys[next], keys.length);
+            // Move entry into the gap if its home slot is not between the gap and its current position
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                states[gap] = states[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = null;
+        states[gap] = null;
+    }
+
+    private void resize(int capacity) {
+        var oldKeys = keys;
+        var oldStates = states;
+        keys = new String[capacity];
+        states = new OrderState[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int index = slot(oldKeys[i], capacity);
+                while (keys[index] != null) {
+                    index = (index + 1) & (capacity - 1);
+                }
+                keys[index] = oldKeys[i];
+                states[index] = oldStates[i];
+            }
+        }
+    }
+
+    private static int slot(String key, int capacity) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (capacity - 1);
+    }
+
+    private static class OrderState {
+        private String clientOrderId;
+        private String symbol;
+        private long orderId;
+        private OrderStatus status;
+        private Side side;
+        private OrderType type;
+        private TimeInForce timeInForce;
+        private double price;
+        private double origQty;
+        private double executedQty;
+        private long updatedNanos;
+        private boolean terminal;
+
+        void reset(String clientOrderId) {
+            this.clientOrderId = clientOrderId;
+            symbol = null;
+            orderId = 0;
+            status = null;
+            side = null;
+            type = null;
+            timeInForce = null;
+            price = 0;
+            origQty = 0;
+            executedQty = 0;
+            updatedNanos = 0;
+            terminal = false;
+        }
+
+        /**
+         * Updates may arrive out of order (REST response vs stream), so a final state is never replaced
+         * by an open one and executed quantity never goes back.
+         */
+        boolean accepts(OrderStatus newStatus, double newExecutedQty) {
+            if (status == null) {
+                return true;
+            }
+            if (status.isFinal() && (newStatus == null || !newStatus.isFinal())) {
+                return false;
+            }
+            return newExecutedQty >= executedQty;
+        }
+
+        Order toOrder() {
+            var order = new Order();
+            order.setOrderId(orderId);
+            order.setSymbol(symbol);
+            order.setStatus(status);
+            order.setClientOrderId(clientOrderId);
+            order.setPrice(price);
+            order.setOrigQty(origQty);
+            order.setExecutedQty(executedQty);
+            order.setTimeInForce(timeInForce);
+            order.setType(type);
+            order.setSide(side);
+            return order;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.pblinov.binance.futures.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pblinov.binance.futures.api.dto.ExecutionType;
+import com.pblinov.binance.futures.api.dto.Order;
+import com.pblinov.binance.futures.api.dto.OrderStatus;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashSet;
+import java.util.function.Consumer;
+
+/**
+ * Restores order states after user data stream gap: open orders are queried in bulk and compared with
+ * {@link OrderCache}, orders which are not open anymore are queried one by one.
+ * Each difference is published as a synthetic ORDER_TRADE_UPDATE message, so it's parsed, deduplicated
+ * and delivered to {@link EventListener} in the same way and on the same thread as stream events.
+ * <p>
+ * Synthetic updates carry cumulative state: {@code l} is the quantity filled during the gap,
+ * {@code L} is the average price of the order and trade ID is 0.
+ */
+@Slf4j
+class OrderReconciler {
+    private final String exchangeName;
+    private final BinanceRest rest;
+    private final OrderCache orderCache;
+    private final Consumer<String> publisher;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    OrderReconciler(String exchangeName, BinanceRest rest, OrderCache orderCache, Consumer<String> publisher) {
+        this.exchangeName = exchangeName;
+        this.rest = rest;
+        this.orderCache = orderCache;
+        this.publisher = publisher;
+    }
+
+    /**
+     * @return number of published updates
+     */
+    int reconcile() {
+        int published = 0;
+        var openIds = new HashSet<String>();
+        for (var order : rest.openOrders()) {
+            openIds.add(order.getClientOrderId());
+            if (publishIfChanged(order, orderCache.peek(order.getClientOrderId()))) {
+                published++;
+            }
+        }
+        for (var known : orderCache.openOrders()) {
+            if (!openIds.contains(known.getClientOrderId())) {
+                // Filled, canceled or expired during the gap
+                if (publishIfChanged(rest.queryOrder(known.getSymbol(), known.getClientOrderId()), known)) {
+                    published++;
+                }
+            }
+        }
+        log.info("[{}] Reconciled {} open orders, {} updates were missed", exchangeName, openIds.size(), published);
+        return published;
+    }
+
+    private boolean publishIfChanged(Order order, Order known) {
+        if (known != null && known.getStatus() == order.getStatus() && known.getExecutedQty() == order.getExecutedQty()) {
+            return false;
+        }
+        publisher.accept(message(order, known != null ? known.getExecutedQty() : 0));
+        return true;
+    }
+
+    @SneakyThrows
+    String message(Order order, double knownQty) {
+        long now = rest.getClock().currentTimeMillis();
+        var message = mapper.createObjectNode()
+                .put("e", "ORDER_TRADE_UPDATE")
+                .put("E", now)
+                .put("T", now);
+        message.putObject("o")
+                .put("s", order.getSymbol())
+                .put("c", order.getClientOrderId())
+                .put("i", order.getOrderId())
+                .put("S", String.valueOf(order.getSide()))
+                .put("o", String.valueOf(order.getType()))
+                .put("f", String.valueOf(order.getTimeInForce()))
+                .put("x", String.valueOf(executionType(order.getStatus(), order.getExecutedQty() > knownQty)))
+                .put("X", String.valueOf(order.getStatus()))
+                .put("p", Double.toString(order.getPrice()))
+                .put("q", Double.toString(order.getOrigQty()))
+                .put("L", Double.toString(order.getAvgPrice()))
+                .put("l", Double.toString(Math.max(0, order.getExecutedQty() - knownQty)))
+                .put("z", Double.toString(order.getExecutedQty()))
+                .put("t", 0);
+        return mapper.writeValueAsString(message);
+    }
+
+    private static ExecutionType executionType(OrderStatus status, boolean filled) {
+        if (status == OrderStatus.CANCELED) {
+            return ExecutionType.CANCELED;
+        } else if (status == OrderStatus.EXPIRED) {
+            return ExecutionType.EXPIRED;
+        } else if (filled) {
+            return ExecutionType.TRADE;
+        }
+        return ExecutionType.NEW;
+    }
+}
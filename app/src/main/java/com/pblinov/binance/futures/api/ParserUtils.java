@@ -0,0 +1,92 @@
+package com.pblinov.binance.futures.api;
+
+/**
+ * Helpers to read values from character ranges without materialising {@link String}s.
+ */
+class ParserUtils {
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private ParserUtils() {
+    }
+
+    /**
+     * Parses plain decimal ("-123.456") as {@link Double#parseDouble} does.
+     * Mantissa and scale which are exactly representable are divided directly (the result is correctly rounded),
+     * anything else (exponents, long mantissas) falls back to {@link Double#parseDouble}.
+     */
+    static double parseDouble(char[] chars, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        boolean negative = false;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException("Empty number");
+        }
+
+        long mantissa = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa >= MAX_EXACT_MANTISSA) {
+                    return Double.parseDouble(new String(chars, offset, length));
+                }
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (c == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                return Double.parseDouble(new String(chars, offset, length));
+            }
+        }
+
+        if (scale >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(new String(chars, offset, length));
+        }
+        double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Finds enum constant by name, without allocation. Enums used in events are small, so linear scan is fine.
+     *
+     * @return constant or null when name is unknown
+     */
+    static <E extends Enum<E>> E lookup(E[] values, char[] chars, int offset, int length) {
+        for (var value : values) {
+            if (equals(value.name(), chars, offset, length)) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    static boolean equals(String text, char[] chars, int offset, int length) {
+        if (text.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int hash(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[offset + i];
+        }
+        return hash;
+    }
+}
@@ -1,7 +1,11 @@
 package com.pblinov.binance.futures.api;
 
 public class ProcessingException extends RuntimeException {
+    public static final long TOO_MANY_REQUESTS = -1003;
     public static final long BAD_SYMBOL = -1121;
+    public static final long NO_SUCH_ORDER = -2013;
+    public static final long QTY_LESS_THAN_MIN_QTY = -4004;
+    public static final long PRICE_NOT_INCREASED_BY_TICK_SIZE = -4014;
 
     private final long code;
 
@@ -25,6 +29,7 @@ public class ProcessingException extends RuntimeException {
     private static boolean isUnrecoverable(long code) {
         // Only BAD_SYMBOL is used here to demonstrate unrecoverable issue processing
         // TODO: All codes should re-viewed to distinct recoverable & unrecoverable issues
-        return code == BAD_SYMBOL;
+        // Retrying TOO_MANY_REQUESTS right away only makes the ban longer
+        return code == BAD_SYMBOL || code == TOO_MANY_REQUESTS;
     }
 }
@@ -0,0 +1,162 @@
+package com.pblinov.binance.futures.api;
+
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Reusable builder of URL-encoded parameters ({@code name=value&...}) written straight into a byte buffer.
+ * Decimals are written from fixed-scale integers (see {@link SymbolFilters}), so there is no
+ * intermediate {@link String} and no scientific notation. The same bytes are signed and sent.
+ */
+class QueryBuilder {
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(US_ASCII);
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    private byte[] buffer;
+    private int length;
+
+    QueryBuilder() {
+        this(256);
+    }
+
+    QueryBuilder(int capacity) {
+        buffer = new byte[capacity];
+    }
+
+    QueryBuilder reset() {
+        length = 0;
+        return this;
+    }
+
+    QueryBuilder add(String name, CharSequence value) {
+        appendName(name);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (isUnreserved(c)) {
+                put((byte) c);
+            } else if (c < 0x80) {
+                ensure(3);
+                buffer[length++] = '%';
+                buffer[length++] = HEX[c >>> 4];
+                buffer[length++] = HEX[c & 0x0F];
+            } else {
+                // Parameters are ASCII (symbols, enums, client order IDs), anything else is not expected
+                throw new IllegalArgumentException("Non-ASCII value of " + name);
+            }
+        }
+        return this;
+    }
+
+    QueryBuilder add(String name, long value) {
+        return addDecimal(name, value, 0);
+    }
+
+    /**
+     * Writes {@code units * 10^-scale} as a plain decimal without trailing zeros, e.g. 2850120 with scale 2 is "28501.2".
+     */
+    QueryBuilder addDecimal(String name, long units, int scale) {
+        appendName(name);
+        if (units < 0) {
+            put((byte) '-');
+            units = -units;
+        }
+        while (scale > 0 && units % 10 == 0) {
+            units /= 10;
+            scale--;
+        }
+
+        int integerDigits = digits(units / POWERS_OF_TEN[scale]);
+        int size = integerDigits + (scale > 0 ? scale + 1 : 0);
+        ensure(size);
+        int position = length + size;
+        for (int i = 0; i < scale; i++) {
+            buffer[--position] = (byte) ('0' + units % 10);
+            units /= 10;
+        }
+        if (scale > 0) {
+            buffer[--position] = '.';
+        }
+        do {
+            buffer[--position] = (byte) ('0' + units % 10);
+            units /= 10;
+        } while (units > 0);
+        length += size;
+        return this;
+    }
+
+    /**
+     * Appends {@code signature} parameter calculated over the current content.
+     */
+    QueryBuilder sign(HmacSigner signer) {
+        int dataLength = length;
+        appendName("signature");
+        ensure(HmacSigner.SIGNATURE_LENGTH);
+        signer.sign(buffer, 0, dataLength, buffer, length);
+        length += HmacSigner.SIGNATURE_LENGTH;
+        return this;
+    }
+
+    byte[] array() {
+        return buffer;
+    }
+
+    int length() {
+        return length;
+    }
+
+    byte[] toArray() {
+        return Arrays.copyOf(buffer, length);
+    }
+
+    QueryBuilder copy() {
+        var copy = new QueryBuilder(buffer.length);
+        System.arraycopy(buffer, 0, copy.buffer, 0, length);
+        copy.length = length;
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, length, US_ASCII);
+    }
+
+    private void appendName(String name) {
+        ensure(name.length() + 2);
+        if (length > 0) {
+            buffer[length++] = '&';
+        }
+        for (int i = 0; i < name.length(); i++) {
+            buffer[length++] = (byte) name.charAt(i);
+        }
+        buffer[length++] = '=';
+    }
+
+    private void put(byte value) {
+        ensure(1);
+        buffer[length++] = value;
+    }
+
+    private void ensure(int size) {
+        if (length + size > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(length + size, buffer.length * 2));
+        }
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (digits < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[digits]) {
+            digits++;
+        }
+        return digits;
+    }
+
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '_' || c == '.' || c == '~';
+    }
+}
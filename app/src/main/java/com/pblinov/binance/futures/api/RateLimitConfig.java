@@ -0,0 +1,28 @@
+package com.pblinov.binance.futures.api;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Client-side view of Binance futures rate limits (see GET /fapi/v1/exchangeInfo, "rateLimits").
+ */
+@Builder
+@Getter
+public class RateLimitConfig {
+    public static final RateLimitConfig DEFAULT = RateLimitConfig.builder().build();
+
+    @Builder.Default
+    private final int weightPerMinute = 2400;
+    @Builder.Default
+    private final int ordersPer10Seconds = 300;
+    @Builder.Default
+    private final int ordersPerMinute = 1200;
+    /**
+     * How long a request may be held back until the limit allows it, rejected when longer.
+     * {@link Duration#ZERO} rejects requests immediately.
+     */
+    @Builder.Default
+    private final Duration maxWait = Duration.ofSeconds(1);
+}
@@ -0,0 +1,169 @@
+package com.pblinov.binance.futures.api;
+
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jetty.http.HttpFields;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.pblinov.binance.futures.api.ProcessingException.TOO_MANY_REQUESTS;
+
+/**
+ * Lock-free limiter of request weight and order rate.
+ * Every limit is a token bucket implemented as GCRA (generic cell rate algorithm): the bucket state
+ * is a single "theoretical arrival time" updated with CAS.
+ * <p>
+ * Buckets are synchronized with the usage reported by the exchange in REST response headers and WS API {@code rateLimits},
+ * and the client stops sending requests while the exchange asks to back off (status 429/418 with Retry-After).
+ */
+@Slf4j
+class RateLimiter {
+    static final String USED_WEIGHT_1M = "X-MBX-USED-WEIGHT-1M";
+    static final String ORDER_COUNT_10S = "X-MBX-ORDER-COUNT-10S";
+    static final String ORDER_COUNT_1M = "X-MBX-ORDER-COUNT-1M";
+    static final String RETRY_AFTER = "Retry-After";
+    private static final long DEFAULT_RETRY_AFTER_SECONDS = 60;
+
+    private final String exchangeName;
+    private final Bucket weight;
+    private final Bucket orders10s;
+    private final Bucket orders1m;
+    private final long maxWaitNanos;
+    private final AtomicLong bannedUntil = new AtomicLong(System.nanoTime());
+
+    RateLimiter(String exchangeName, RateLimitConfig config) {
+        this.exchangeName = exchangeName;
+        this.weight = new Bucket(config.getWeightPerMinute(), Duration.ofMinutes(1));
+        this.orders10s = new Bucket(config.getOrdersPer10Seconds(), Duration.ofSeconds(10));
+        this.orders1m = new Bucket(config.getOrdersPerMinute(), Duration.ofMinutes(1));
+        this.maxWaitNanos = config.getMaxWait().toNanos();
+    }
+
+    /**
+     * Reserves capacity for a request.
+     *
+     * @return nanoseconds to wait before the request may be sent
+     * @throws ProcessingException when capacity is not available within max wait
+     */
+    long acquire(int requestWeight, int orders) {
+        long now = System.nanoTime();
+        long banned = bannedUntil.get() - now;
+        if (banned > 0) {
+            throw ProcessingException.of(TOO_MANY_REQUESTS, "Requests are suspended for " + TimeUnit.NANOSECONDS.toMillis(banned) + "ms");
+        }
+
+        // Capacity reserved in a bucket is not returned when the next bucket rejects, which errs on the safe side
+        long delay = weight.reserve(requestWeight, now, maxWaitNanos);
+        if (delay < 0) {
+            throw ProcessingException.of(TOO_MANY_REQUESTS, "Request weight limit exceeded");
+        }
+        if (orders > 0) {
+            long delay10s = orders10s.reserve(orders, now, maxWaitNanos);
+            long delay1m = delay10s < 0 ? -1 : orders1m.reserve(orders, now, maxWaitNanos);
+            if (delay1m < 0) {
+                throw ProcessingException.of(TOO_MANY_REQUESTS, "Order rate limit exceeded");
+            }
+            delay = Math.max(delay, Math.max(delay10s, delay1m));
+        }
+        return delay;
+    }
+
+    /**
+     * Synchronizes buckets with the usage reported by the exchange.
+     * Malformed headers are skipped, it's called for every response and must not fail it.
+     */
+    void onResponse(int status, HttpFields headers) {
+        onUsage(parse(headers, USED_WEIGHT_1M, -1), parse(headers, ORDER_COUNT_10S, -1), parse(headers, ORDER_COUNT_1M, -1));
+        if (status == 429 || status == 418) {
+            // Retry-After may be an HTTP date, then the default is used
+            onBan(status, parse(headers, RETRY_AFTER, -1));
+        }
+    }
+
+    /**
+     * Synchronizes buckets with the usage reported by the exchange, negative values are not reported and skipped.
+     */
+    void onUsage(long usedWeight1m, long orderCount10s, long orderCount1m) {
+        long now = System.nanoTime();
+        sync(weight, usedWeight1m, now);
+        sync(orders10s, orderCount10s, now);
+        sync(orders1m, orderCount1m, now);
+    }
+
+    /**
+     * Suspends all requests after the exchange responded with status 429 or 418.
+     *
+     * @param retryAfterSeconds how long to back off, negative when not reported
+     */
+    void onBan(int status, long retryAfterSeconds) {
+        long seconds = retryAfterSeconds >= 0 ? retryAfterSeconds : DEFAULT_RETRY_AFTER_SECONDS;
+        long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        bannedUntil.accumulateAndGet(until, (current, next) -> next - current > 0 ? next : current);
+        log.error("[{}] Exchange rate limit hit (status {}), requests are suspended for {}s", exchangeName, status, seconds);
+    }
+
+    private static void sync(Bucket bucket, long used, long now) {
+        if (used >= 0) {
+            bucket.sync(used, now);
+        }
+    }
+
+    /**
+     * @return non-negative value of the header or {@code defaultValue} when it's missing or malformed
+     */
+    private long parse(HttpFields headers, String header, long defaultValue) {
+        var value = headers.get(header);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            long parsed = Long.parseLong(value.trim());
+            if (parsed >= 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // Logged below
+        }
+        log.warn("[{}] Malformed {} header: {}", exchangeName, header, value);
+        return defaultValue;
+    }
+
+    static class Bucket {
+        private final long intervalNanos;
+        private final long emissionNanos;
+        private final AtomicLong theoreticalArrival;
+
+        Bucket(int limit, Duration interval) {
+            this.intervalNanos = interval.toNanos();
+            this.emissionNanos = intervalNanos / limit;
+            this.theoreticalArrival = new AtomicLong(System.nanoTime());
+        }
+
+        /**
+         * @return delay before the reserved capacity is available or -1 when it exceeds {@code maxDelay}
+         */
+        long reserve(int count, long now, long maxDelay) {
+            while (true) {
+                long current = theoreticalArrival.get();
+                long next = (current - now > 0 ? current : now) + count * emissionNanos;
+                long delay = next - now - intervalNanos;
+                if (delay > maxDelay) {
+                    return -1;
+                }
+                if (theoreticalArrival.compareAndSet(current, next)) {
+                    return Math.max(delay, 0);
+                }
+            }
+        }
+
+        /**
+         * Exchange reports how much of the limit is used in the current window,
+         * so the bucket can't have more capacity left than {@code limit - used}.
+         */
+        void sync(long used, long now) {
+            long target = now + used * emissionNanos;
+            theoreticalArrival.accumulateAndGet(target, (current, next) -> next - current > 0 ? next : current);
+        }
+    }
+}
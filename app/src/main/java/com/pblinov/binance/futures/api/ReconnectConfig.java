@@ -0,0 +1,46 @@
+package com.pblinov.binance.futures.api;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * How user data stream is restored after the connection is lost or rotated.
+ */
+@Builder
+@Getter
+public class ReconnectConfig {
+    public static final ReconnectConfig DEFAULT = ReconnectConfig.builder().build();
+
+    @Builder.Default
+    private final Duration initialDelay = Duration.ofMillis(100);
+    @Builder.Default
+    private final Duration maxDelay = Duration.ofSeconds(30);
+    @Builder.Default
+    private final double multiplier = 2;
+    /**
+     * Part of the delay which is randomized, so clients don't reconnect all at once.
+     */
+    @Builder.Default
+    private final double jitter = 0.5;
+    /**
+     * Open a new session before the current one is closed on rotation, updates received by both are delivered once.
+     */
+    private final boolean overlap;
+    /**
+     * How long both sessions are kept open.
+     */
+    @Builder.Default
+    private final Duration overlapWindow = Duration.ofSeconds(1);
+    /**
+     * Binance closes connections after 24 hours, so they are replaced in advance when overlap is enabled.
+     */
+    @Builder.Default
+    private final Duration sessionRotationInterval = Duration.ofHours(23);
+    /**
+     * Query open orders after reconnect and deliver updates which were missed while the stream was down.
+     */
+    @Builder.Default
+    private final boolean reconcile = true;
+}
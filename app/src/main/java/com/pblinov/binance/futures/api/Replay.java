@@ -0,0 +1,184 @@
+package com.pblinov.binance.futures.api;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Feeds recorded messages through the parsing and dispatch of live streams: user data stream messages go to
+ * {@link EventDispatcher} as from {@code BinanceWebSocket}, market data messages to {@link MarketDataParser}
+ * as from {@code StreamShard}. Used to benchmark the stack and to test strategies against real traffic.
+ * <p>
+ * Messages are loaded before the run, so reading the recording isn't measured.
+ * Depth streams aren't replayed, they need a synced order book.
+ */
+@Slf4j
+public class Replay {
+    private static final long MAX_LATENCY = TimeUnit.MINUTES.toNanos(1);
+    private static final String STREAM_FIELD = "\"stream\":\"";
+    private static final String EVENT_TIME_FIELD = "\"E\":";
+
+    private final ReplayConfig config;
+    private final EventListener eventListener;
+    private final MarketDataListener marketDataListener;
+
+    public Replay(ReplayConfig config, EventListener eventListener, MarketDataListener marketDataListener) {
+        this.config = config;
+        this.eventListener = eventListener;
+        this.marketDataListener = marketDataListener;
+    }
+
+    public ReplayResult replay(List<ReplayMessage> messages) {
+        var metrics = new HdrMetrics(MetricsConfig.DEFAULT);
+        var dispatcher = EventDispatcher.create("replay", config.getDispatch(), eventListener, false, false, metrics);
+        var parser = new MarketDataParser();
+        var streams = new StreamTable(subscriptions(messages));
+        var marketDataLatency = new Histogram(MAX_LATENCY, 3);
+
+        long first = messages.isEmpty() ? 0 : messages.get(0).getTime();
+        long span = messages.isEmpty() ? 0 : messages.get(messages.size() - 1).getTime() - first;
+        // Next cycle starts after the mean interval between messages
+        long cycle = span + (messages.size() > 1 ? span / (messages.size() - 1) : 0);
+        long count = 0;
+        dispatcher.start();
+        long start = System.nanoTime();
+        for (int i = 0; i < config.getRepeat(); i++) {
+            for (var message : messages) {
+                if (config.getSpeed() > 0) {
+                    awaitUntil(start + (long) ((i * cycle + message.getTime() - first) / config.getSpeed()));
+                }
+                switch (message.getType()) {
+                    case USER_STREAM:
+                        dispatcher.dispatch(message.getText());
+                        break;
+                    case MARKET_DATA:
+                        long received = System.nanoTime();
+                        try {
+                            parser.parse(message.getText(), streams);
+                        } catch (Exception e) {
+                            log.error("[replay] Cannot process market data message: {}", message.getText(), e);
+                        }
+                        marketDataLatency.recordValue(Math.min(System.nanoTime() - received, MAX_LATENCY));
+                        break;
+                    default:
+                        // REST responses are not events
+                        continue;
+                }
+                count++;
+            }
+        }
+        // Ring buffer is drained before the dispatcher stops
+        dispatcher.stop();
+        long elapsed = System.nanoTime() - start;
+
+        return ReplayResult.builder()
+                .messages(count)
+                .elapsedNanos(elapsed)
+                .userStreamLatency(metrics.getHistogram(Metrics.Timer.DISPATCH))
+                .marketDataLatency(marketDataLatency)
+                .build();
+    }
+
+    private static void awaitUntil(long due) {
+        long wait;
+        while ((wait = due - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    /**
+     * Subscriptions of all streams in the recording, delivering to the market data listener.
+     */
+    private List<Subscription> subscriptions(List<ReplayMessage> messages) {
+        Map<String, Subscription> subscriptions = new LinkedHashMap<>();
+        for (var message : messages) {
+            if (message.getType() != JournalRecordType.MARKET_DATA) {
+                continue;
+            }
+            var stream = streamName(message.getText());
+            if (stream == null || subscriptions.containsKey(stream)) {
+                continue;
+            }
+            for (var type : StreamType.values()) {
+                var suffix = type.streamName("");
+                if (type != StreamType.DEPTH && stream.endsWith(suffix)) {
+                    var symbol = stream.substring(0, stream.length() - suffix.length());
+                    subscriptions.put(stream, new Subscription(symbol, type, marketDataListener, null));
+                }
+            }
+        }
+        return new ArrayList<>(subscriptions.values());
+    }
+
+    private static String streamName(String message) {
+        int start = message.indexOf(STREAM_FIELD);
+        if (start < 0) {
+            return null;
+        }
+        start += STREAM_FIELD.length();
+        int end = message.indexOf('"', start);
+        return end > start ? message.substring(start, end) : null;
+    }
+
+    /**
+     * User data stream and market data records of the journal, timed by their receiving.
+     */
+    public static List<ReplayMessage> readJournal(Path directory) throws IOException {
+        var messages = new ArrayList<ReplayMessage>();
+        new JournalReader(directory).read((type, received, timestamp, payload) -> {
+            if (type != JournalRecordType.REST_RESPONSE) {
+                messages.add(new ReplayMessage(type, received, UTF_8.decode(payload).toString()));
+            }
+        });
+        return messages;
+    }
+
+    /**
+     * Capture with one JSON message per line: combined stream messages are market data, others are user data stream.
+     * Messages are timed by their event time ("E"), a message without it takes the time of the previous one.
+     */
+    public static List<ReplayMessage> readLines(Path file) throws IOException {
+        var messages = new ArrayList<ReplayMessage>();
+        long time = 0;
+        for (var line : Files.readAllLines(file, UTF_8)) {
+            var text = line.trim();
+            if (text.isEmpty()) {
+                continue;
+            }
+            long eventTime = eventTime(text);
+            if (eventTime > 0) {
+                time = TimeUnit.MILLISECONDS.toNanos(eventTime);
+            }
+            var type = text.contains(STREAM_FIELD) ? JournalRecordType.MARKET_DATA : JournalRecordType.USER_STREAM;
+            messages.add(new ReplayMessage(type, time, text));
+        }
+        return messages;
+    }
+
+    /**
+     * @return the first "E" value, or 0 when there is none
+     */
+    static long eventTime(String message) {
+        int index = message.indexOf(EVENT_TIME_FIELD);
+        if (index < 0) {
+            return 0;
+        }
+        index += EVENT_TIME_FIELD.length();
+        long value = 0;
+        while (index < message.length() && Character.isDigit(message.charAt(index))) {
+            value = value * 10 + (message.charAt(index++) - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,29 @@
+package com.pblinov.binance.futures.api;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * How {@link Replay} feeds recorded messages.
+ */
+@Builder
+@Getter
+public class ReplayConfig {
+    public static final ReplayConfig DEFAULT = ReplayConfig.builder().build();
+
+    /**
+     * Dispatch of user data stream messages, the same as of live stream.
+     */
+    @Builder.Default
+    private final DispatchConfig dispatch = DispatchConfig.INLINE;
+    /**
+     * Multiplier of recorded pace, e.g. 1 for recorded speed or 10 for ten times faster.
+     * Messages are fed as fast as possible when it's 0.
+     */
+    private final double speed;
+    /**
+     * The recording is fed this number of times, so a short capture makes a long run.
+     */
+    @Builder.Default
+    private final int repeat = 1;
+}
@@ -0,0 +1,22 @@
+package com.pblinov.binance.futures.api;
+
+import lombok.Getter;
+
+/**
+ * Recorded message with time of receiving.
+ */
+@Getter
+public class ReplayMessage {
+    private final JournalRecordType type;
+    /**
+     * Time in nanos of any origin, only differences between messages are used for pacing.
+     */
+    private final long time;
+    private final String text;
+
+    public ReplayMessage(JournalRecordType type, long time, String text) {
+        this.type = type;
+        this.time = time;
+        this.text = text;
+    }
+}
@@ -0,0 +1,30 @@
+package com.pblinov.binance.futures.api;
+
+import lombok.Builder;
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+
+@Builder
+@Getter
+public class ReplayResult {
+    /**
+     * Messages fed into dispatch and parsing.
+     */
+    private final long messages;
+    private final long elapsedNanos;
+    /**
+     * User data stream: from handing a message over to the dispatcher until {@link EventListener} is called,
+     * including the time in the ring buffer.
+     */
+    private final Histogram userStreamLatency;
+    /**
+     * Market data: parsing and {@link MarketDataListener} callback of one message.
+     */
+    private final Histogram marketDataLatency;
+
+    public long getMessagesPerSecond() {
+        return elapsedNanos > 0 ? messages * TimeUnit.SECONDS.toNanos(1) / elapsedNanos : 0;
+    }
+}
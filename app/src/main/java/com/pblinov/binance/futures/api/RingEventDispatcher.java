@@ -0,0 +1,198 @@
+package com.pblinov.binance.futures.api;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.BusySpinWaitStrategy;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.ExceptionHandler;
+import com.lmax.disruptor.InsufficientCapacityException;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.YieldingWaitStrategy;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands raw messages over to a dedicated thread through a pre-allocated ring buffer,
+ * so WebSocket thread only copies bytes and returns to reading the socket.
+ * Parsing and {@link EventListener} callbacks run on the dispatch thread.
+ * <p>
+ * Single producer sequencing is used unless messages are published from several threads
+ * (overlapping sessions, reconciliation).
+ */
+@Slf4j
+class RingEventDispatcher extends EventDispatcher implements EventHandler<RingEventDispatcher.Slot>, ExceptionHandler<RingEventDispatcher.Slot> {
+    private static final int INITIAL_SLOT_SIZE = 1024;
+
+    private final String exchangeName;
+    private final DispatchConfig config;
+    private final Disruptor<Slot> disruptor;
+    private final RingBuffer<Slot> ringBuffer;
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+    private final AtomicLong backpressureStalls = new AtomicLong();
+
+    RingEventDispatcher(String exchangeName, DispatchConfig config, EventListener eventListener) {
+        this(exchangeName, config, eventListener, false, null, Metrics.NOOP);
+    }
+
+    RingEventDispatcher(String exchangeName, DispatchConfig config, EventListener eventListener,
+                        boolean multiProducer, EventDeduplicator deduplicator, Metrics metrics) {
+        super(exchangeName, eventListener, deduplicator, metrics);
+        this.exchangeName = exchangeName;
+        this.config = config;
+        disruptor = new Disruptor<>(Slot::new, config.getBufferSize(), runnable -> {
+            var thread = new Thread(runnable, config.getThreadName());
+            thread.setDaemon(true);
+            return thread;
+        }, multiProducer ? ProducerType.MULTI : ProducerType.SINGLE, waitStrategy(config.getWaitStrategy()));
+        disruptor.handleEventsWith(this);
+        disruptor.setDefaultExceptionHandler(this);
+        ringBuffer = disruptor.getRingBuffer();
+    }
+
+    private static WaitStrategy waitStrategy(DispatchConfig.WaitStrategy strategy) {
+        switch (strategy) {
+            case BUSY_SPIN:
+                return new BusySpinWaitStrategy();
+            case YIELDING:
+                return new YieldingWaitStrategy();
+            case BLOCKING:
+            default:
+                return new BlockingWaitStrategy();
+        }
+    }
+
+    @Override
+    void start() {
+        disruptor.start();
+    }
+
+    @Override
+    void stop() {
+        try {
+            disruptor.shutdown(1, TimeUnit.SECONDS);
+        } catch (com.lmax.disruptor.TimeoutException e) {
+            log.warn("[{}] Dispatcher hasn't drained in time, {} messages are lost", exchangeName,
+                    config.getBufferSize() - ringBuffer.remainingCapacity());
+            disruptor.halt();
+        }
+    }
+
+    @Override
+    void dispatch(String message) {
+        long sequence = claim();
+        if (sequence >= 0) {
+            try {
+                ringBuffer.get(sequence).set(message);
+            } finally {
+                ringBuffer.publish(sequence);
+            }
+        }
+    }
+
+    @Override
+    void dispatch(ByteBuffer message) {
+        long sequence = claim();
+        if (sequence >= 0) {
+            try {
+                ringBuffer.get(sequence).set(message);
+            } finally {
+                ringBuffer.publish(sequence);
+            }
+        }
+    }
+
+    /**
+     * @return claimed sequence or -1 when message should be dropped
+     */
+    private long claim() {
+        published.incrementAndGet();
+        try {
+            return ringBuffer.tryNext();
+        } catch (InsufficientCapacityException e) {
+            if (config.getOverflowPolicy() == DispatchConfig.OverflowPolicy.DROP) {
+                if (overflows.getAndIncrement() == 0) {
+                    log.error("[{}] Dispatch buffer is full, messages are dropped", exchangeName);
+                }
+                return -1;
+            }
+            backpressureStalls.incrementAndGet();
+            return ringBuffer.next();
+        }
+    }
+
+    @Override
+    public void onEvent(Slot slot, long sequence, boolean endOfBatch) {
+        if (slot.text != null) {
+            process(slot.text, slot.received);
+            slot.text = null;
+        } else {
+            process(slot.data, 0, slot.length, slot.received);
+        }
+    }
+
+    @Override
+    public void handleEventException(Throwable e, long sequence, Slot slot) {
+        log.error("[{}] Cannot dispatch message #{}", exchangeName, sequence, e);
+    }
+
+    @Override
+    public void handleOnStartException(Throwable e) {
+        log.error("[{}] Cannot start dispatcher", exchangeName, e);
+    }
+
+    @Override
+    public void handleOnShutdownException(Throwable e) {
+        log.error("[{}] Cannot stop dispatcher", exchangeName, e);
+    }
+
+    @Override
+    public long getPublished() {
+        return published.get();
+    }
+
+    @Override
+    public long getOverflows() {
+        return overflows.get();
+    }
+
+    @Override
+    public long getBackpressureStalls() {
+        return backpressureStalls.get();
+    }
+
+    @Override
+    public long getRemainingCapacity() {
+        return ringBuffer.remainingCapacity();
+    }
+
+    /**
+     * Message is kept either as a string received from Jetty or as a copy of the network buffer.
+     */
+    static class Slot {
+        private String text;
+        private byte[] data = new byte[INITIAL_SLOT_SIZE];
+        private int length;
+        private long received;
+
+        void set(String message) {
+            received = System.nanoTime();
+            text = message;
+        }
+
+        void set(ByteBuffer message) {
+            received = System.nanoTime();
+            text = null;
+            length = message.remaining();
+            if (data.length < length) {
+                data = new byte[Math.max(length, data.length * 2)];
+            }
+            message.duplicate().get(data, 0, length);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.OrderType;
+import com.pblinov.binance.futures.api.dto.Side;
+
+/**
+ * Pre-trade check of a new order, runs on the caller thread before the order is signed and sent.
+ * It's called for every order, so it should only read local state and shouldn't allocate unless it rejects.
+ */
+public interface RiskCheck {
+    /**
+     * @param price limit price, 0 for MARKET orders
+     * @throws RiskRejectedException when the order must not be sent
+     */
+    void check(String symbol, OrderType type, Side side, double qty, double price);
+}
@@ -0,0 +1,45 @@
+package com.pblinov.binance.futures.api;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pre-trade limits checked locally before an order is signed and sent. Zero disables a limit, all are disabled by default.
+ */
+@Builder
+@Getter
+public class RiskConfig {
+    public static final RiskConfig DEFAULT = RiskConfig.builder().build();
+
+    private final double maxOrderQty;
+    /**
+     * Price times quantity in quote asset, MARKET orders are valued at the reference price.
+     */
+    private final double maxOrderNotional;
+    /**
+     * Max absolute net position by symbol. Orders which reduce the position are always allowed.
+     */
+    @Builder.Default
+    private final Map<String, Double> maxPositions = Map.of();
+    /**
+     * Max distance of a limit price from the reference price (mid of the local order book) as a fraction,
+     * e.g. 0.05 is 5%. Symbols without a synced order book are not checked.
+     */
+    private final double priceBand;
+    /**
+     * Max number of open orders as known from the order cache, including the new one.
+     */
+    private final int maxOpenOrders;
+    /**
+     * Own limit of order placement, unlike {@link RateLimitConfig} orders over it are rejected without waiting.
+     */
+    private final int maxOrdersPerSecond;
+    /**
+     * Additional checks which run after the limits above.
+     */
+    @Builder.Default
+    private final List<RiskCheck> checks = List.of();
+}
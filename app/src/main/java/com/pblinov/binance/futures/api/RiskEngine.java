@@ -0,0 +1,129 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.OrderType;
+import com.pblinov.binance.futures.api.dto.Side;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static com.pblinov.binance.futures.api.RiskRejectedException.Reason.MAX_NOTIONAL;
+import static com.pblinov.binance.futures.api.RiskRejectedException.Reason.MAX_QTY;
+import static com.pblinov.binance.futures.api.RiskRejectedException.Reason.OPEN_ORDERS;
+import static com.pblinov.binance.futures.api.RiskRejectedException.Reason.ORDER_RATE;
+import static com.pblinov.binance.futures.api.RiskRejectedException.Reason.POSITION_LIMIT;
+import static com.pblinov.binance.futures.api.RiskRejectedException.Reason.PRICE_BAND;
+
+/**
+ * Limits of {@link RiskConfig} followed by its custom checks. State is read from memory only:
+ * positions from the {@link AccountSnapshot}, open orders from the order cache, prices from local order books.
+ * Nothing is allocated unless the order is rejected.
+ * <p>
+ * Order rate is checked last, so rejected orders don't take its capacity.
+ */
+@Slf4j
+class RiskEngine implements RiskCheck {
+    private final String exchangeName;
+    private final RiskConfig config;
+    private final OrderCache orderCache;
+    private final AccountStore accountStore;
+    private final Function<String, OrderBook> orderBooks;
+    private final Metrics metrics;
+    private final Map<String, Double> maxPositions;
+    private final List<RiskCheck> checks;
+    private final RateLimiter.Bucket orderRate;
+
+    RiskEngine(String exchangeName, RiskConfig config, OrderCache orderCache, AccountStore accountStore,
+               Function<String, OrderBook> orderBooks, Metrics metrics) {
+        this.exchangeName = exchangeName;
+        this.config = config;
+        this.orderCache = orderCache;
+        this.accountStore = accountStore;
+        this.orderBooks = orderBooks;
+        this.metrics = metrics;
+        this.maxPositions = config.getMaxPositions();
+        this.checks = config.getChecks();
+        this.orderRate = config.getMaxOrdersPerSecond() > 0 ? new RateLimiter.Bucket(config.getMaxOrdersPerSecond(), Duration.ofSeconds(1)) : null;
+    }
+
+    @Override
+    public void check(String symbol, OrderType type, Side side, double qty, double price) {
+        check(symbol, type, side, qty, price, 0, 0);
+    }
+
+    /**
+     * Check of an order in a batch, orders accepted earlier in the same batch are not in the order cache yet.
+     *
+     * @param batchQty    quantity of orders with the same symbol and side accepted earlier in the batch
+     * @param batchOrders number of orders accepted earlier in the batch
+     */
+    void check(String symbol, OrderType type, Side side, double qty, double price, double batchQty, int batchOrders) {
+        try {
+            checkLimits(symbol, type, side, qty, price, batchQty, batchOrders);
+            for (int i = 0; i < checks.size(); i++) {
+                checks.get(i).check(symbol, type, side, qty, price);
+            }
+            if (orderRate != null && orderRate.reserve(1, System.nanoTime(), 0) < 0) {
+                throw new RiskRejectedException(ORDER_RATE, "Order rate is over " + config.getMaxOrdersPerSecond() + "/s");
+            }
+        } catch (RiskRejectedException e) {
+            metrics.onEvent(Metrics.Counter.RISK_REJECTED);
+            log.warn("[{}] {} {} {}@{} order is rejected: {}", exchangeName, side, symbol, qty, price, e.getMessage());
+            throw e;
+        }
+    }
+
+    private void checkLimits(String symbol, OrderType type, Side side, double qty, double price, double batchQty, int batchOrders) {
+        if (config.getMaxOrderQty() > 0 && qty > config.getMaxOrderQty()) {
+            throw new RiskRejectedException(MAX_QTY, "Quantity " + qty + " is over " + config.getMaxOrderQty());
+        }
+
+        boolean market = type == OrderType.MARKET || price <= 0;
+        if (config.getPriceBand() > 0 && !market) {
+            double reference = referencePrice(symbol);
+            if (Math.abs(price - reference) > reference * config.getPriceBand()) {
+                throw new RiskRejectedException(PRICE_BAND, "Price " + price + " is out of " + config.getPriceBand() + " band around " + reference);
+            }
+        }
+
+        if (config.getMaxOrderNotional() > 0) {
+            double notional = qty * (market ? referencePrice(symbol) : price);
+            // Notional of a MARKET order is unknown without a book, it's not rejected
+            if (notional > config.getMaxOrderNotional()) {
+                throw new RiskRejectedException(MAX_NOTIONAL, "Notional " + notional + " is over " + config.getMaxOrderNotional());
+            }
+        }
+
+        var maxPosition = maxPositions.get(symbol);
+        if (maxPosition != null) {
+            double position = accountStore.getSnapshot().getPositionAmount(symbol);
+            double pending = orderCache.openQty(symbol, side) + batchQty + qty;
+            double projected = position + (side == Side.BUY ? pending : -pending);
+            if (Math.abs(projected) > maxPosition && Math.abs(projected) > Math.abs(position)) {
+                throw new RiskRejectedException(POSITION_LIMIT, "Position " + projected + " would be over " + maxPosition);
+            }
+        }
+
+        if (config.getMaxOpenOrders() > 0 && orderCache.openOrderCount() + batchOrders >= config.getMaxOpenOrders()) {
+            throw new RiskRejectedException(OPEN_ORDERS, "There are " + config.getMaxOpenOrders() + " open orders");
+        }
+    }
+
+    /**
+     * @return mid price of the synced local order book, the best price when one side is empty, otherwise NaN
+     */
+    private double referencePrice(String symbol) {
+        var book = orderBooks.apply(symbol);
+        if (book == null || !book.isSynced()) {
+            return Double.NaN;
+        }
+        double bid = book.getBestBidPrice();
+        double ask = book.getBestAskPrice();
+        if (Double.isNaN(bid)) {
+            return ask;
+        }
+        return Double.isNaN(ask) ? bid : (bid + ask) / 2;
+    }
+}
@@ -0,0 +1,35 @@
+package com.pblinov.binance.futures.api;
+
+/**
+ * Order is rejected by a {@link RiskCheck} and was not sent to the exchange.
+ */
+public class RiskRejectedException extends UnrecoverableProcessingException {
+    /**
+     * Local code, it's not used by Binance.
+     */
+    public static final long RISK_REJECTED = -20000;
+
+    private final Reason reason;
+
+    public RiskRejectedException(Reason reason, String message) {
+        super(RISK_REJECTED, message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public enum Reason {
+        MAX_QTY,
+        MAX_NOTIONAL,
+        POSITION_LIMIT,
+        PRICE_BAND,
+        OPEN_ORDERS,
+        ORDER_RATE,
+        /**
+         * Rejected by a check from {@link RiskConfig#getChecks()}.
+         */
+        CUSTOM
+    }
+}
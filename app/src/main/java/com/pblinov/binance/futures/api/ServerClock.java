@@ -0,0 +1,45 @@
+package com.pblinov.binance.futures.api;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estimated exchange time used to timestamp signed requests.
+ * Local time is derived from {@link System#nanoTime()}, so wall clock adjustments don't affect it,
+ * and corrected by the offset measured by {@link ClockSync}. Returned time never goes back,
+ * even when a new offset estimate is smaller than the previous one.
+ */
+class ServerClock {
+    private final long baseEpochNanos = System.currentTimeMillis() * 1_000_000L;
+    private final long baseNanoTime = System.nanoTime();
+    private final AtomicLong lastMillis = new AtomicLong();
+    private volatile long offsetNanos;
+    private volatile long rttNanos = -1;
+
+    long currentTimeMillis() {
+        long millis = (localEpochNanos(System.nanoTime()) + offsetNanos) / 1_000_000L;
+        return lastMillis.accumulateAndGet(millis, Math::max);
+    }
+
+    /**
+     * Local monotonic clock expressed as epoch time.
+     */
+    long localEpochNanos(long nanoTime) {
+        return baseEpochNanos + (nanoTime - baseNanoTime);
+    }
+
+    void update(long offsetNanos, long rttNanos) {
+        this.offsetNanos = offsetNanos;
+        this.rttNanos = rttNanos;
+    }
+
+    long getOffsetNanos() {
+        return offsetNanos;
+    }
+
+    /**
+     * @return round trip time of the sample the offset is based on, -1 when clock is not synchronized yet
+     */
+    long getRttNanos() {
+        return rttNanos;
+    }
+}
@@ -2,33 +2,119 @@ package com.pblinov.binance.futures.api;
 
 import org.eclipse.jetty.websocket.api.Session;
 
-import java.time.Instant;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.concurrent.CompletableFuture;
 
+/**
+ * State of one user data stream session: CONNECTING -> OPEN -> DRAINING -> CLOSED, where CLOSED can be reached
+ * from any state. DRAINING session is replaced by another one (rotation, stale connection or disconnect)
+ * and may still deliver updates until it's closed.
+ * <p>
+ * Transitions are compare-and-set, so the thread which wins a transition owns its side effects,
+ * e.g. only an unexpected close of OPEN or CONNECTING session leads to reconnect.
+ * Activity is stamped by {@link System#nanoTime()} on every received frame without locking or allocation.
+ */
 class SocketState {
-    private String listenKey;
-    private CompletableFuture<Session> session;
-    private Instant timestamp;
+    private static final VarHandle STATUS;
 
-    synchronized void update(String listenKey, CompletableFuture<Session> session) {
+    static {
+        try {
+            STATUS = MethodHandles.lookup().findVarHandle(SocketState.class, "status", Status.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Listener listener;
+    private volatile Status status = Status.CONNECTING;
+    private volatile long statusTimestamp = System.nanoTime();
+    private volatile String listenKey;
+    private volatile CompletableFuture<Session> session;
+    private volatile long timestamp = System.nanoTime();
+
+    SocketState(Listener listener) {
+        this.listener = listener;
+    }
+
+    void update(String listenKey, CompletableFuture<Session> session) {
         this.listenKey = listenKey;
         this.session = session;
         ping();
     }
 
-    synchronized void ping() {
-        this.timestamp = Instant.now();
+    void ping() {
+        this.timestamp = System.nanoTime();
+    }
+
+    /**
+     * @return false when the state is not {@code from} anymore
+     */
+    boolean transition(Status from, Status to) {
+        if (STATUS.compareAndSet(this, from, to)) {
+            onTransition(from, to);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return state before closing, CLOSED when it's already closed
+     */
+    Status close() {
+        var from = (Status) STATUS.getAndSet(this, Status.CLOSED);
+        if (from != Status.CLOSED) {
+            onTransition(from, Status.CLOSED);
+        }
+        return from;
+    }
+
+    private void onTransition(Status from, Status to) {
+        statusTimestamp = System.nanoTime();
+        listener.onTransition(this, from, to);
     }
 
-    synchronized String getListenKey() {
+    Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return {@link System#nanoTime()} of the last transition
+     */
+    long getStatusTimestamp() {
+        return statusTimestamp;
+    }
+
+    String getListenKey() {
         return listenKey;
     }
 
-    synchronized CompletableFuture<Session> getSession() {
+    CompletableFuture<Session> getSession() {
         return session;
     }
 
-    synchronized Instant getTimestamp() {
+    /**
+     * @return {@link System#nanoTime()} of the last received frame
+     */
+    long getTimestamp() {
         return timestamp;
     }
+
+    /**
+     * @return true when nothing was received for longer than the threshold, including pongs
+     */
+    boolean isStale(long thresholdNanos) {
+        return System.nanoTime() - timestamp > thresholdNanos;
+    }
+
+    enum Status {
+        CONNECTING, OPEN, DRAINING, CLOSED
+    }
+
+    /**
+     * Called on the thread which made the transition.
+     */
+    interface Listener {
+        void onTransition(SocketState state, Status from, Status to);
+    }
 }
@@ -0,0 +1,304 @@
+package com.pblinov.binance.futures.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WebSocketListener;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One combined stream connection ({@code /stream?streams=...}) of {@link SubscriptionManager}.
+ * Streams added to or removed from an open connection are collected for {@link #FLUSH_DELAY_MILLIS} and sent as one
+ * SUBSCRIBE / UNSUBSCRIBE message, Binance drops connections which send more than 10 messages per second.
+ * Lost connection is restored with exponential backoff.
+ */
+@Slf4j
+class StreamShard implements WebSocketListener {
+    static final long FLUSH_DELAY_MILLIS = 250;
+
+    private final String name;
+    private final BinanceConfig config;
+    private final WebSocketClient webSocketClient;
+    private final ScheduledExecutorService scheduler;
+    private final int maxStreams;
+    private final Journal journal;
+    private final Backoff backoff;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final MarketDataParser parser = new MarketDataParser();
+    private final AtomicLong ids = new AtomicLong();
+    private final Map<String, Subscription> subscriptions = new LinkedHashMap<>();
+    private final Set<String> connectedStreams = new HashSet<>();
+    private final Set<String> pendingSubscribe = new LinkedHashSet<>();
+    private final Set<String> pendingUnsubscribe = new LinkedHashSet<>();
+    private volatile StreamTable table = StreamTable.EMPTY;
+    private CompletableFuture<Session> session;
+    private boolean connected;
+    private boolean reconnectScheduled;
+    private boolean flushScheduled;
+
+    StreamShard(String name, BinanceConfig config, WebSocketClient webSocketClient, ScheduledExecutorService scheduler, int maxStreams) {
+        this(name, config, webSocketClient, scheduler, maxStreams, null);
+    }
+
+    /**
+     * @param journal receives every message of the combined stream, optional
+     */
+    StreamShard(String name, BinanceConfig config, WebSocketClient webSocketClient, ScheduledExecutorService scheduler,
+                int maxStreams, Journal journal) {
+        this.name = name;
+        this.config = config;
+        this.webSocketClient = webSocketClient;
+        this.scheduler = scheduler;
+        this.maxStreams = maxStreams;
+        this.journal = journal;
+        this.backoff = new Backoff(config.getReconnect());
+    }
+
+    /**
+     * @return false when the connection has no room for another stream
+     */
+    synchronized boolean add(Subscription subscription) {
+        if (subscriptions.size() >= maxStreams) {
+            return false;
+        }
+        var stream = subscription.getStream();
+        subscriptions.put(stream, subscription);
+        subscription.setShard(this);
+        table = new StreamTable(subscriptions.values());
+        if (openSession() != null) {
+            if (connectedStreams.add(stream) && !pendingUnsubscribe.remove(stream)) {
+                pendingSubscribe.add(stream);
+            }
+            scheduleFlush();
+        } else if (connected && session == null && !reconnectScheduled) {
+            reconnect();
+        }
+        return true;
+    }
+
+    synchronized void remove(Subscription subscription) {
+        var stream = subscription.getStream();
+        if (subscriptions.remove(stream) == null) {
+            return;
+        }
+        table = new StreamTable(subscriptions.values());
+        if (openSession() != null && connectedStreams.remove(stream)) {
+            if (!pendingSubscribe.remove(stream)) {
+                pendingUnsubscribe.add(stream);
+            }
+            scheduleFlush();
+        }
+    }
+
+    synchronized boolean contains(String stream) {
+        return subscriptions.containsKey(stream);
+    }
+
+    synchronized int size() {
+        return subscriptions.size();
+    }
+
+    synchronized void connect() {
+        connected = true;
+        if (session == null && !reconnectScheduled && !subscriptions.isEmpty()) {
+            reconnect();
+        }
+    }
+
+    synchronized void disconnect() {
+        connected = false;
+        var open = openSession();
+        if (open != null) {
+            open.close();
+        }
+        session = null;
+    }
+
+    private void reconnect() {
+        connectedStreams.clear();
+        connectedStreams.addAll(subscriptions.keySet());
+        pendingSubscribe.clear();
+        pendingUnsubscribe.clear();
+        var serverURI = URI.create(config.getWsUrl() + "/stream?streams=" + String.join("/", connectedStreams));
+        log.info("[{}] Connecting {} with {} streams", config.getExchangeName(), name, connectedStreams.size());
+        CompletableFuture<Session> connecting;
+        try {
+            connecting = webSocketClient.connect(this, serverURI);
+        } catch (Exception e) {
+            connecting = CompletableFuture.failedFuture(e);
+        }
+        session = connecting;
+        var attempt = connecting;
+        connecting.whenComplete((ignored, e) -> {
+            if (e != null) {
+                onConnectFailure(attempt, e);
+            }
+        });
+    }
+
+    private synchronized void onConnectFailure(CompletableFuture<Session> attempt, Throwable cause) {
+        if (session != attempt) {
+            return;
+        }
+        log.warn("[{}] Cannot connect {}: {}", config.getExchangeName(), name, cause.toString());
+        scheduleReconnect();
+    }
+
+    /**
+     * Clears the lost session, a new one is opened after backoff delay.
+     */
+    private void scheduleReconnect() {
+        session = null;
+        if (!connected || subscriptions.isEmpty() || reconnectScheduled) {
+            return;
+        }
+        long delay = backoff.nextDelay();
+        log.info("[{}] {} reconnect attempt #{} in {}ms", config.getExchangeName(), name, backoff.getAttempts(), TimeUnit.NANOSECONDS.toMillis(delay));
+        try {
+            scheduler.schedule(this::onReconnectDue, delay, TimeUnit.NANOSECONDS);
+            reconnectScheduled = true;
+        } catch (RejectedExecutionException e) {
+            log.debug("[{}] {} reconnect is cancelled by stop", config.getExchangeName(), name);
+        }
+    }
+
+    private synchronized void onReconnectDue() {
+        reconnectScheduled = false;
+        if (connected && session == null && !subscriptions.isEmpty()) {
+            reconnect();
+        }
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled) {
+            return;
+        }
+        try {
+            scheduler.schedule(this::flush, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            flushScheduled = true;
+        } catch (RejectedExecutionException e) {
+            log.debug("[{}] {} flush is cancelled by stop", config.getExchangeName(), name);
+        }
+    }
+
+    /**
+     * Sends streams changed since the last flush, at most one message per method.
+     */
+    synchronized void flush() {
+        flushScheduled = false;
+        var open = openSession();
+        if (open != null) {
+            if (!pendingUnsubscribe.isEmpty()) {
+                send(open, "UNSUBSCRIBE", new ArrayList<>(pendingUnsubscribe));
+            }
+            if (!pendingSubscribe.isEmpty()) {
+                send(open, "SUBSCRIBE", new ArrayList<>(pendingSubscribe));
+            }
+        }
+        // Without open session the streams are sent on connect
+        pendingUnsubscribe.clear();
+        pendingSubscribe.clear();
+    }
+    private Session openSession() {
+        var current = session;
+        if (current != null && current.isDone() && !current.isCompletedExceptionally() && current.join().isOpen()) {
+            return current.join();
+        }
+        return null;
+    }
+
+    @SneakyThrows
+    private void send(Session session, String method, List<String> streams) {
+        var request = mapper.createObjectNode()
+                .put("method", method)
+                .put("id", ids.incrementAndGet());
+        var params = request.putArray("params");
+        streams.forEach(params::add);
+        log.debug("[{}] {} {}: {}", config.getExchangeName(), name, method, streams);
+        session.getRemote().sendString(mapper.writeValueAsString(request), WriteCallback.NOOP);
+    }
+
+    @Override
+    public void onWebSocketConnect(Session session) {
+        log.info("[{}] {} connect", config.getExchangeName(), name);
+        List<Subscription> connectedSubscriptions;
+        synchronized (this) {
+            backoff.reset();
+            // Streams removed while connecting are in the URL, streams added while connecting are not
+            var removed = new ArrayList<String>();
+            for (var stream : connectedStreams) {
+                if (!subscriptions.containsKey(stream)) {
+                    removed.add(stream);
+                }
+            }
+            if (!removed.isEmpty()) {
+                removed.forEach(connectedStreams::remove);
+                send(session, "UNSUBSCRIBE", removed);
+            }
+            var missing = new ArrayList<String>();
+            for (var stream : subscriptions.keySet()) {
+                if (connectedStreams.add(stream)) {
+                    missing.add(stream);
+                }
+            }
+            if (!missing.isEmpty()) {
+                send(session, "SUBSCRIBE", missing);
+            }
+            connectedSubscriptions = new ArrayList<>(subscriptions.values());
+        }
+        connectedSubscriptions.forEach(Subscription::onConnect);
+    }
+
+    @Override
+    public void onWebSocketClose(int statusCode, String reason) {
+        log.info("[{}] {} close: {} {}", config.getExchangeName(), name, statusCode, reason);
+        synchronized (this) {
+            // Late close of the previous session, failure of the connecting one comes with its future
+            if (session != null && !session.isDone()) {
+                return;
+            }
+            scheduleReconnect();
+        }
+    }
+
+    @Override
+    public void onWebSocketError(Throwable cause) {
+        log.error("[{}] {} error", config.getExchangeName(), name, cause);
+    }
+
+    @Override
+    public void onWebSocketText(String message) {
+        if (journal != null) {
+            journal.append(JournalRecordType.MARKET_DATA, System.nanoTime(), message);
+        }
+        try {
+            if (!parser.parse(message, table)) {
+                // {"result":null,"id":1} or {"error":{"code":2,"msg":"Invalid request"},"id":1}
+                log.debug("[{}] {} message: {}", config.getExchangeName(), name, message);
+            }
+        } catch (Exception e) {
+            log.error("[{}] Cannot process {} message: {}", config.getExchangeName(), name, message, e);
+        }
+    }
+
+    @Override
+    public void onWebSocketBinary(byte[] payload, int offset, int len) {
+        log.warn("[{}] Unexpected binary message received from {}", config.getExchangeName(), name);
+    }
+}
@@ -0,0 +1,52 @@
+package com.pblinov.binance.futures.api;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable open-addressing table of subscriptions by stream name, looked up by the characters of the
+ * {@code "stream"} field without creating a string. A new table is built when subscriptions change.
+ */
+class StreamTable {
+    static final StreamTable EMPTY = new StreamTable(List.of());
+
+    private final String[] streams;
+    private final Subscription[] subscriptions;
+    private final int mask;
+
+    StreamTable(Collection<Subscription> values) {
+        int capacity = Integer.highestOneBit(Math.max(4, values.size() * 2) - 1) << 1;
+        streams = new String[capacity];
+        subscriptions = new Subscription[capacity];
+        mask = capacity - 1;
+        for (var subscription : values) {
+            var stream = subscription.getStream();
+            // String.hashCode() is the same as ParserUtils.hash()
+            int index = index(stream.hashCode());
+            while (streams[index] != null) {
+                index = (index + 1) & mask;
+            }
+            streams[index] = stream;
+            subscriptions[index] = subscription;
+        }
+    }
+
+    /**
+     * @return subscription or null when the stream is unknown (e.g. just unsubscribed)
+     */
+    Subscription get(char[] chars, int offset, int length) {
+        int index = index(ParserUtils.hash(chars, offset, length));
+        String stream;
+        while ((stream = streams[index]) != null) {
+            if (ParserUtils.equals(stream, chars, offset, length)) {
+                return subscriptions[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    private int index(int hash) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,21 @@
+package com.pblinov.binance.futures.api;
+
+/**
+ * Market data streams, names are {@code <lowercase symbol><suffix>}.
+ */
+public enum StreamType {
+    AGG_TRADE("@aggTrade"),
+    BOOK_TICKER("@bookTicker"),
+    MARK_PRICE("@markPrice@1s"),
+    DEPTH("@depth@100ms");
+
+    private final String suffix;
+
+    StreamType(String suffix) {
+        this.suffix = suffix;
+    }
+
+    String streamName(String symbol) {
+        return symbol.toLowerCase() + suffix;
+    }
+}
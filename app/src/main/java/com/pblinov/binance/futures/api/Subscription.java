@@ -0,0 +1,52 @@
+package com.pblinov.binance.futures.api;
+
+/**
+ * Stream subscribed by {@link SubscriptionManager}, used to unsubscribe.
+ */
+public class Subscription {
+    private final String stream;
+    private final StreamType type;
+    private final MarketDataListener listener;
+    private final OrderBookSync book;
+    private volatile StreamShard shard;
+
+    Subscription(String symbol, StreamType type, MarketDataListener listener, OrderBookSync book) {
+        this.stream = type.streamName(symbol);
+        this.type = type;
+        this.listener = listener;
+        this.book = book;
+    }
+
+    public String getStream() {
+        return stream;
+    }
+
+    public StreamType getType() {
+        return type;
+    }
+
+    MarketDataListener getListener() {
+        return listener;
+    }
+
+    OrderBookSync getBook() {
+        return book;
+    }
+
+    StreamShard getShard() {
+        return shard;
+    }
+
+    void setShard(StreamShard shard) {
+        this.shard = shard;
+    }
+
+    /**
+     * Connection of the stream is (re)opened, events could be missed before.
+     */
+    void onConnect() {
+        if (book != null) {
+            book.invalidate();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.pblinov.binance.futures.api;
+
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Packs market data streams into combined stream connections, up to {@link BinanceConfig#getMaxStreamsPerConnection()}
+ * streams each, and opens another connection when all of them are full.
+ * Streams can be added and removed at any time, connections are opened by {@link #connect()}.
+ */
+class SubscriptionManager {
+    private final BinanceConfig config;
+    private final WebSocketClient webSocketClient;
+    private final Journal journal;
+    private final List<StreamShard> shards = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "market-data-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean connected;
+
+    SubscriptionManager(BinanceConfig config, WebSocketClient webSocketClient) {
+        this(config, webSocketClient, null);
+    }
+
+    /**
+     * @param journal receives market data messages, optional
+     */
+    SubscriptionManager(BinanceConfig config, WebSocketClient webSocketClient, Journal journal) {
+        this.config = config;
+        this.webSocketClient = webSocketClient;
+        this.journal = journal;
+    }
+
+    synchronized Subscription subscribe(Subscription subscription) {
+        for (var shard : shards) {
+            if (shard.contains(subscription.getStream())) {
+                throw new IllegalArgumentException("Stream is already subscribed: " + subscription.getStream());
+            }
+        }
+        for (var shard : shards) {
+            if (shard.add(subscription)) {
+                return subscription;
+            }
+        }
+        var shard = new StreamShard("market data #" + shards.size(), config, webSocketClient, scheduler,
+                config.getMaxStreamsPerConnection(), journal);
+        shards.add(shard);
+        shard.add(subscription);
+        if (connected) {
+            shard.connect();
+        }
+        return subscription;
+    }
+
+    void unsubscribe(Subscription subscription) {
+        var shard = subscription.getShard();
+        if (shard != null) {
+            shard.remove(subscription);
+        }
+    }
+
+    synchronized void connect() {
+        connected = true;
+        shards.forEach(StreamShard::connect);
+    }
+
+    synchronized void disconnect() {
+        connected = false;
+        shards.forEach(StreamShard::disconnect);
+    }
+
+    /**
+     * Disconnects all streams, pending reconnects and subscription changes are dropped.
+     */
+    synchronized void stop() {
+        disconnect();
+        scheduler.shutdownNow();
+    }
+
+    int getConnectionCount() {
+        return shards.size();
+    }
+}
@@ -0,0 +1,152 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.ExchangeInfo;
+
+import java.math.BigDecimal;
+
+/**
+ * Trading rules of a symbol (PRICE_FILTER, LOT_SIZE, MIN_NOTIONAL) as fixed-scale integers:
+ * a price of {@code units} means {@code units * 10^-priceScale}.
+ * Market data prices are rounded to the nearest tick. Order prices off the tick are rejected rather than moved,
+ * so an order never gets a worse price than requested, order quantities are rounded down to the lot step
+ * and rejected when less than the step or the minimal quantity.
+ */
+class SymbolFilters {
+    /**
+     * Used for symbols without known filters: 8 decimals, no rounding to ticks or lots.
+     */
+    static final SymbolFilters DEFAULT = new SymbolFilters(8, 1, 8, 1, 0, Double.MAX_VALUE, 0);
+
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12};
+    // Absorbs binary representation error, e.g. 0.012 / 0.001 = 11.999999999999998
+    private static final double EPSILON = 1e-6;
+
+    private final int priceScale;
+    private final long tickUnits;
+    private final int qtyScale;
+    private final long stepUnits;
+    private final double minQty;
+    private final double maxQty;
+    private final double minNotional;
+
+    SymbolFilters(int priceScale, long tickUnits, int qtyScale, long stepUnits, double minQty, double maxQty, double minNotional) {
+        this.priceScale = priceScale;
+        this.tickUnits = tickUnits;
+        this.qtyScale = qtyScale;
+        this.stepUnits = stepUnits;
+        this.minQty = minQty;
+        this.maxQty = maxQty;
+        this.minNotional = minNotional;
+    }
+
+    static SymbolFilters of(ExchangeInfo.SymbolInfo symbol) {
+        var tickSize = BigDecimal.valueOf(1, DEFAULT.priceScale);
+        var stepSize = BigDecimal.valueOf(1, DEFAULT.qtyScale);
+        double minQty = DEFAULT.minQty;
+        double maxQty = DEFAULT.maxQty;
+        double minNotional = DEFAULT.minNotional;
+        for (var filter : symbol.getFilters()) {
+            switch (filter.getFilterType()) {
+                case "PRICE_FILTER":
+                    tickSize = new BigDecimal(filter.getTickSize());
+                    break;
+                case "LOT_SIZE":
+                    stepSize = new BigDecimal(filter.getStepSize());
+                    minQty = Double.parseDouble(filter.getMinQty());
+                    maxQty = Double.parseDouble(filter.getMaxQty());
+                    break;
+                case "MIN_NOTIONAL":
+                    minNotional = Double.parseDouble(filter.getNotional());
+                    break;
+                default:
+            }
+        }
+        tickSize = normalize(tickSize);
+        stepSize = normalize(stepSize);
+        return new SymbolFilters(tickSize.scale(), tickSize.unscaledValue().longValueExact(),
+                stepSize.scale(), stepSize.unscaledValue().longValueExact(), minQty, maxQty, minNotional);
+    }
+
+    private static BigDecimal normalize(BigDecimal value) {
+        var stripped = value.stripTrailingZeros();
+        return stripped.scale() < 0 ? stripped.setScale(0) : stripped;
+    }
+
+    long priceUnits(double price) {
+        return Math.round(price * POWERS_OF_TEN[priceScale] / tickUnits) * tickUnits;
+    }
+
+    long qtyUnits(double qty) {
+        return (long) Math.floor(qty * POWERS_OF_TEN[qtyScale] / stepUnits + EPSILON) * stepUnits;
+    }
+
+    /**
+     * @throws ProcessingException when the price is not a multiple of the tick size
+     */
+    long orderPriceUnits(double price) {
+        double ticks = price * POWERS_OF_TEN[priceScale] / tickUnits;
+        long rounded = Math.round(ticks);
+        if (Math.abs(ticks - rounded) > EPSILON) {
+            throw new ProcessingException(ProcessingException.PRICE_NOT_INCREASED_BY_TICK_SIZE,
+                    "Price " + price + " is not a multiple of tick size " + BigDecimal.valueOf(tickUnits, priceScale).toPlainString());
+        }
+        return rounded * tickUnits;
+    }
+
+    /**
+     * @throws ProcessingException when the quantity rounded down to the lot step is zero or less than the minimal quantity
+     */
+    long orderQtyUnits(double qty) {
+        long units = qtyUnits(qty);
+        if (units <= 0 || units / POWERS_OF_TEN[qtyScale] < minQty) {
+            throw new ProcessingException(ProcessingException.QTY_LESS_THAN_MIN_QTY,
+                    "Quantity " + qty + " is less than step size " + BigDecimal.valueOf(stepUnits, qtyScale).toPlainString()
+                            + " or min quantity " + minQty);
+        }
+        return units;
+    }
+
+    /**
+     * @throws ProcessingException when the order would be rejected by the exchange for its price or quantity
+     */
+    void check(double qty, double price) {
+        orderQtyUnits(qty);
+        orderPriceUnits(price);
+    }
+
+    double roundPrice(double price) {
+        return priceUnits(price) / POWERS_OF_TEN[priceScale];
+    }
+
+    double roundQty(double qty) {
+        return qtyUnits(qty) / POWERS_OF_TEN[qtyScale];
+    }
+
+    String formatPrice(double price) {
+        return BigDecimal.valueOf(orderPriceUnits(price), priceScale).stripTrailingZeros().toPlainString();
+    }
+
+    String formatQty(double qty) {
+        return BigDecimal.valueOf(orderQtyUnits(qty), qtyScale).stripTrailingZeros().toPlainString();
+    }
+
+    int getPriceScale() {
+        return priceScale;
+    }
+
+    int getQtyScale() {
+        return qtyScale;
+    }
+
+    double getMinQty() {
+        return minQty;
+    }
+
+    double getMaxQty() {
+        return maxQty;
+    }
+
+    double getMinNotional() {
+        return minNotional;
+    }
+}
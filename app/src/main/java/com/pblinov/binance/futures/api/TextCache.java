@@ -0,0 +1,29 @@
+package com.pblinov.binance.futures.api;
+
+/**
+ * Direct-mapped cache of strings which repeat in every message (symbols, assets),
+ * so they are allocated only once. On hash collision the newest value wins.
+ */
+class TextCache {
+    private final String[] values;
+    private final int mask;
+
+    TextCache(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity should be a power of two: " + capacity);
+        }
+        values = new String[capacity];
+        mask = capacity - 1;
+    }
+
+    String get(char[] chars, int offset, int length) {
+        int hash = ParserUtils.hash(chars, offset, length);
+        int index = (hash ^ (hash >>> 16)) & mask;
+        var value = values[index];
+        if (value == null || !ParserUtils.equals(value, chars, offset, length)) {
+            value = new String(chars, offset, length);
+            values[index] = value;
+        }
+        return value;
+    }
+}
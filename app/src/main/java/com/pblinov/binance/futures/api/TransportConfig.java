@@ -0,0 +1,43 @@
+package com.pblinov.binance.futures.api;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Jetty HTTP client settings for REST API.
+ */
+@Builder
+@Getter
+public class TransportConfig {
+    public static final TransportConfig DEFAULT = TransportConfig.builder().build();
+
+    @Builder.Default
+    private final int maxConnectionsPerDestination = 64;
+    /**
+     * Number of connections opened by {@link BinanceExchange#start()}, so the first orders don't pay TCP and TLS handshakes.
+     */
+    @Builder.Default
+    private final int prewarmConnections = 2;
+    @Builder.Default
+    private final boolean tcpNoDelay = true;
+    /**
+     * Negotiate HTTP/2 with ALPN and multiplex REST requests over a single connection, HTTP/1.1 is used when not supported.
+     * WebSockets always stay on HTTP/1.1.
+     */
+    private final boolean http2;
+    @Builder.Default
+    private final Duration connectTimeout = Duration.ofSeconds(5);
+    @Builder.Default
+    private final Duration idleTimeout = Duration.ofMinutes(5);
+    /**
+     * How often warm connections are pinged, so they are not closed as idle. Disabled when null.
+     */
+    @Builder.Default
+    private final Duration keepAliveInterval = Duration.ofSeconds(30);
+    /**
+     * Run client callbacks on virtual threads (Java 21+), Jetty's thread pool is used when they are not available.
+     */
+    private final boolean virtualThreads;
+}
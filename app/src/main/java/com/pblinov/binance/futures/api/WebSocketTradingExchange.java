@@ -0,0 +1,399 @@
+package com.pblinov.binance.futures.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pblinov.binance.futures.api.dto.BatchOrderResult;
+import com.pblinov.binance.futures.api.dto.NewOrder;
+import com.pblinov.binance.futures.api.dto.Order;
+import com.pblinov.binance.futures.api.dto.OrderType;
+import com.pblinov.binance.futures.api.dto.Side;
+import com.pblinov.binance.futures.api.dto.TimeInForce;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WebSocketListener;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Places, queries and cancels orders over Binance WebSocket API (order.place, order.status, order.cancel)
+ * on a persistent session, so there is no HTTP request setup per order. Responses are matched to requests by ID.
+ * <p>
+ * Calls fall back to REST API of the underlying {@link BinanceExchange} when the session is not open or doesn't respond
+ * in time. Placement without response is checked over REST first, so the order is not sent twice.
+ * Batches, ping and timestamp always go over REST API.
+ */
+@Slf4j
+public class WebSocketTradingExchange implements Exchange {
+    private final BinanceConfig config;
+    private final BinanceExchange exchange;
+    private final BinanceRest rest;
+    private final OrderCache orderCache;
+    private final HmacSigner signer;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Endpoint endpoint = new Endpoint();
+    private final AtomicLong ids = new AtomicLong();
+    private final ConcurrentHashMap<Long, CompletableFuture<JsonNode>> pending = new ConcurrentHashMap<>();
+    private volatile CompletableFuture<Session> session;
+    private volatile boolean running;
+
+    public WebSocketTradingExchange(BinanceConfig config, EventListener eventListener) {
+        this(config, new BinanceExchange(config, eventListener));
+    }
+
+    WebSocketTradingExchange(BinanceConfig config, BinanceExchange exchange) {
+        this.config = config;
+        this.exchange = exchange;
+        this.rest = exchange.getRest();
+        this.orderCache = exchange.getOrderCache();
+        this.signer = new HmacSigner(config.getApiSecret());
+    }
+
+    public void start() throws Exception {
+        exchange.start();
+        running = true;
+        openSession();
+    }
+
+    public void stop() throws Exception {
+        running = false;
+        var current = session;
+        if (current != null && current.isDone() && !current.isCompletedExceptionally()) {
+            current.join().close(StatusCode.NORMAL, "Stopped");
+        }
+        exchange.stop();
+    }
+
+    /**
+     * Connects user data stream, see {@link BinanceExchange#connect()}.
+     */
+    public void connect() {
+        exchange.connect();
+    }
+
+    @Override
+    public boolean ping() {
+        return exchange.ping();
+    }
+
+    @Override
+    public long timestamp() {
+        return exchange.timestamp();
+    }
+
+    /**
+     * order.place, or POST /fapi/v1/order when WebSocket API is not available
+     */
+    @Override
+    @SneakyThrows
+    public void placeOrder(String symbol, String clientOrderId, OrderType type, Side side, double qty, double price, TimeInForce tif) {
+        exchange.checkRisk(symbol, type, side, qty, price);
+        var session = openSession();
+        if (session == null) {
+            exchange.sendOrder(symbol, clientOrderId, type, side, qty, price, tif);
+            return;
+        }
+
+        var filters = rest.getSymbolFilters(symbol);
+        var params = new TreeMap<String, String>();
+        params.put("symbol", symbol);
+        params.put("newClientOrderId", clientOrderId);
+        params.put("side", side.name());
+        params.put("type", type.name());
+        params.put("quantity", filters.formatQty(qty));
+        params.put("price", filters.formatPrice(price));
+        params.put("timeInForce", tif.name());
+        try {
+            cached(call(session, "order.place", params, 0, 1));
+        } catch (NotSentException e) {
+            log.warn("[{}] Cannot send order with ID {} over WS API, use REST API: {}", config.getExchangeName(), clientOrderId, e.getMessage());
+            exchange.sendOrder(symbol, clientOrderId, type, side, qty, price, tif);
+        } catch (TimeoutException | IOException e) {
+            // Order could be accepted, so it's placed over REST only when the exchange doesn't know it
+            log.warn("[{}] No WS API response on order with ID {}, check it over REST API", config.getExchangeName(), clientOrderId);
+            try {
+                cached(rest.queryOrder(symbol, clientOrderId));
+            } catch (ProcessingException queryError) {
+                // Any other error (rate limit, ban) says nothing about the order, it may be live
+                if (queryError.getCode() != ProcessingException.NO_SUCH_ORDER) {
+                    throw queryError;
+                }
+                exchange.sendOrder(symbol, clientOrderId, type, side, qty, price, tif);
+            }
+        }
+    }
+
+    /**
+     * order.status unless the order state is known locally, or GET /fapi/v1/order when WebSocket API is not available
+     */
+    @Override
+    @SneakyThrows
+    public Order queryOrder(String symbol, String clientOrderId) {
+        var order = orderCache.get(symbol, clientOrderId);
+        if (order != null) {
+            return order;
+        }
+        var session = openSession();
+        if (session == null) {
+            return exchange.queryOrder(symbol, clientOrderId);
+        }
+
+        var params = new TreeMap<String, String>();
+        params.put("symbol", symbol);
+        params.put("origClientOrderId", clientOrderId);
+        try {
+            return cached(call(session, "order.status", params, 1, 0));
+        } catch (TimeoutException | IOException e) {
+            log.warn("[{}] Cannot query order with ID {} over WS API, use REST API: {}", config.getExchangeName(), clientOrderId, e.toString());
+            return exchange.queryOrder(symbol, clientOrderId);
+        }
+    }
+
+    /**
+     * order.cancel unless the order is known to be in a final state, or DELETE /fapi/v1/order when WebSocket API is not available
+     */
+    @Override
+    @SneakyThrows
+    public Order cancelOrder(String symbol, String clientOrderId) {
+        var order = orderCache.get(symbol, clientOrderId);
+        if (order != null && order.getStatus().isFinal()) {
+            return order;
+        }
+        var session = openSession();
+        if (session == null) {
+            return exchange.cancelOrder(symbol, clientOrderId);
+        }
+
+        var params = new TreeMap<String, String>();
+        params.put("symbol", symbol);
+        params.put("origClientOrderId", clientOrderId);
+        try {
+            return cached(call(session, "order.cancel", params, 1, 0));
+        } catch (TimeoutException | IOException e) {
+            log.warn("[{}] Cannot cancel order with ID {} over WS API, use REST API: {}", config.getExchangeName(), clientOrderId, e.toString());
+            return exchange.cancelOrder(symbol, clientOrderId);
+        } catch (ProcessingException e) {
+            var queried = queryOrder(symbol, clientOrderId);
+            if (queried.getStatus().isFinal()) {
+                log.debug("Order already has a final state");
+                return queried;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * POST /fapi/v1/batchOrders (HMAC SHA256)
+     */
+    @Override
+    public List<BatchOrderResult> placeOrders(List<NewOrder> orders) {
+        return exchange.placeOrders(orders);
+    }
+
+    /**
+     * DELETE /fapi/v1/batchOrders (HMAC SHA256)
+     */
+    @Override
+    public List<BatchOrderResult> cancelOrders(String symbol, List<String> clientOrderIds) {
+        return exchange.cancelOrders(symbol, clientOrderIds);
+    }
+
+    /**
+     * @return open session, or null while it's (re)connecting
+     */
+    private Session openSession() {
+        var current = session;
+        if (current != null && current.isDone() && !current.isCompletedExceptionally() && current.join().isOpen()) {
+            return current.join();
+        }
+        if (running) {
+            reconnect();
+        }
+        return null;
+    }
+
+    @SneakyThrows
+    private synchronized void reconnect() {
+        var current = session;
+        if (current == null || current.isDone() && (current.isCompletedExceptionally() || !current.join().isOpen())) {
+            var serverURI = URI.create(config.getWsApiUrl());
+            log.info("[{}] Connecting to {}", config.getExchangeName(), serverURI);
+            session = exchange.getWebSocketClient().connect(endpoint, serverURI);
+        }
+    }
+
+    private Order call(Session session, String method, SortedMap<String, String> params, int weight, int orders) throws Exception {
+        long delay = rest.getRateLimiter().acquire(weight, orders);
+        if (delay > 0) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+
+        params.put("apiKey", config.getApiKey());
+        params.put("recvWindow", Long.toString(config.getRecvWindow().toMillis()));
+        params.put("timestamp", Long.toString(rest.getClock().currentTimeMillis()));
+
+        long id = ids.incrementAndGet();
+        var response = new CompletableFuture<JsonNode>();
+        pending.put(id, response);
+        try {
+            session.getRemote().sendString(request(mapper, signer, id, method, params), new WriteCallback() {
+                @Override
+                public void writeFailed(Throwable cause) {
+                    response.completeExceptionally(new NotSentException(cause));
+                }
+            });
+            return read(response.get(config.getWsApiTimeout().toMillis(), TimeUnit.MILLISECONDS));
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } finally {
+            pending.remove(id);
+        }
+    }
+
+    /**
+     * Request signature is calculated over raw (not URL-encoded) {@code key=value} pairs sorted by name, including apiKey.
+     */
+    static String request(ObjectMapper mapper, HmacSigner signer, long id, String method, SortedMap<String, String> params) throws IOException {
+        var payload = new StringBuilder();
+        for (var param : params.entrySet()) {
+            if (payload.length() > 0) {
+                payload.append('&');
+            }
+            payload.append(param.getKey()).append('=').append(param.getValue());
+        }
+        var data = payload.toString().getBytes(UTF_8);
+        var signature = new char[HmacSigner.SIGNATURE_LENGTH];
+        signer.sign(data, 0, data.length, signature, 0);
+
+        var request = mapper.createObjectNode()
+                .put("id", id)
+                .put("method", method);
+        var requestParams = request.putObject("params");
+        params.forEach(requestParams::put);
+        requestParams.put("signature", new String(signature));
+        return mapper.writeValueAsString(request);
+    }
+
+    private Order read(JsonNode response) throws IOException {
+        // {"id":1,"status":200,"result":{"orderId":325078477,"symbol":"BTCUSDT","status":"NEW",...},"rateLimits":[...]}
+        int status = response.path("status").asInt();
+        syncRateLimits(status, response);
+        if (status == 200) {
+            return mapper.treeToValue(response.get("result"), Order.class);
+        }
+        var error = response.path("error");
+        throw ProcessingException.of(error.path("code").asLong(), error.path("msg").asText());
+    }
+
+    /**
+     * Shares WS API usage and bans with REST API, they have common limits.
+     * Usage is reported as {"rateLimitType":"REQUEST_WEIGHT","interval":"MINUTE","intervalNum":1,"limit":2400,"count":70},
+     * ban time of 429/418 as {"error":{"code":-1003,"msg":"...","data":{"retryAfter":1659606000000}}}.
+     */
+    private void syncRateLimits(int status, JsonNode response) {
+        long usedWeight1m = -1;
+        long orderCount10s = -1;
+        long orderCount1m = -1;
+        for (var limit : response.path("rateLimits")) {
+            long count = limit.path("count").asLong(-1);
+            var interval = limit.path("interval").asText();
+            int intervalNum = limit.path("intervalNum").asInt();
+            switch (limit.path("rateLimitType").asText()) {
+                case "REQUEST_WEIGHT":
+                    if ("MINUTE".equals(interval) && intervalNum == 1) {
+                        usedWeight1m = count;
+                    }
+                    break;
+                case "ORDERS":
+                    if ("SECOND".equals(interval) && intervalNum == 10) {
+                        orderCount10s = count;
+                    } else if ("MINUTE".equals(interval) && intervalNum == 1) {
+                        orderCount1m = count;
+                    }
+                    break;
+                default:
+            }
+        }
+        var rateLimiter = rest.getRateLimiter();
+        rateLimiter.onUsage(usedWeight1m, orderCount10s, orderCount1m);
+        if (status == 429 || status == 418) {
+            long retryAfter = response.path("error").path("data").path("retryAfter").asLong(-1);
+            long seconds = retryAfter < 0 ? -1 : Math.max(0, TimeUnit.MILLISECONDS.toSeconds(retryAfter - rest.getClock().currentTimeMillis() + 999));
+            rateLimiter.onBan(status, seconds);
+        }
+    }
+
+    private Order cached(Order order) {
+        orderCache.update(order);
+        return order;
+    }
+
+    private void failPending(IOException cause) {
+        for (var response : pending.values()) {
+            response.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Request is not written to the session, so it can be sent over REST API safely.
+     */
+    private static class NotSentException extends IOException {
+        NotSentException(Throwable cause) {
+            super(cause);
+        }
+    }
+
+    private class Endpoint implements WebSocketListener {
+        @Override
+        public void onWebSocketConnect(Session session) {
+            log.info("[{}] WS API connect", config.getExchangeName());
+        }
+
+        @Override
+        public void onWebSocketClose(int statusCode, String reason) {
+            log.info("[{}] WS API close: {} {}", config.getExchangeName(), statusCode, reason);
+            failPending(new IOException("WS API session closed"));
+        }
+
+        @Override
+        public void onWebSocketError(Throwable cause) {
+            log.error("[{}] WS API error", config.getExchangeName(), cause);
+        }
+
+        @Override
+        public void onWebSocketText(String message) {
+            log.debug("[{}] WS API message: {}", config.getExchangeName(), message);
+            try {
+                var response = mapper.readTree(message);
+                var id = response.path("id");
+                var future = id.canConvertToLong() ? pending.get(id.asLong()) : null;
+                if (future != null) {
+                    future.complete(response);
+                } else {
+                    log.warn("[{}] Unexpected WS API message: {}", config.getExchangeName(), message);
+                }
+            } catch (IOException e) {
+                log.error("[{}] Cannot parse WS API message: {}", config.getExchangeName(), message, e);
+            }
+        }
+
+        @Override
+        public void onWebSocketBinary(byte[] payload, int offset, int len) {
+            log.warn("[{}] Unexpected binary message received from WS API", config.getExchangeName());
+        }
+    }
+}
@@ -1,7 +1,105 @@
 package com.pblinov.binance.futures.api.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Balances and positions changed by a fill, funding fee, transfer etc. Only changed entries are sent.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class AccountUpdateEvent extends Event {
+    @JsonProperty("a")
+    private AccountUpdate payload = new AccountUpdate();
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class AccountUpdate {
+        /**
+         * Reason of the update, e.g. ORDER, FUNDING_FEE, DEPOSIT.
+         */
+        @JsonProperty("m")
+        private String reason;
+        @JsonProperty("B")
+        private List<Balance> balances = new ArrayList<>();
+        @JsonProperty("P")
+        private List<Position> positions = new ArrayList<>();
+
+        /**
+         * Clears all fields, so instance can be filled by next message.
+         * Entries are not cleared, they are owned (and reused) by the parser.
+         */
+        public void reset() {
+            reason = null;
+            balances.clear();
+            positions.clear();
+        }
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Balance {
+        @JsonProperty("a")
+        private String asset;
+        @JsonProperty("wb")
+        private double walletBalance;
+        @JsonProperty("cw")
+        private double crossWalletBalance;
+        /**
+         * Change except PnL and commission.
+         */
+        @JsonProperty("bc")
+        private double balanceChange;
+
+        public void reset() {
+            asset = null;
+            walletBalance = 0;
+            crossWalletBalance = 0;
+            balanceChange = 0;
+        }
+    }
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Position {
+        @JsonProperty("s")
+        private String symbol;
+        /**
+         * Signed amount, negative for short positions.
+         */
+        @JsonProperty("pa")
+        private double positionAmount;
+        @JsonProperty("ep")
+        private double entryPrice;
+        /**
+         * Pre-fee accumulated realized PnL.
+         */
+        @JsonProperty("cr")
+        private double accumulatedRealized;
+        @JsonProperty("up")
+        private double unrealizedPnl;
+        @JsonProperty("mt")
+        private MarginType marginType;
+        @JsonProperty("iw")
+        private double isolatedWallet;
+        @JsonProperty("ps")
+        private PositionSide positionSide;
+
+        public void reset() {
+            symbol = null;
+            positionAmount = 0;
+            entryPrice = 0;
+            accumulatedRealized = 0;
+            unrealizedPnl = 0;
+            marginType = null;
+            isolatedWallet = 0;
+            positionSide = null;
+        }
+    }
 }
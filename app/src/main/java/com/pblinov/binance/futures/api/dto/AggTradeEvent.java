@@ -0,0 +1,22 @@
+package com.pblinov.binance.futures.api.dto;
+
+import lombok.Data;
+
+/**
+ * {@code <symbol>@aggTrade}
+ */
+@Data
+public class AggTradeEvent {
+    private long eventTime;
+    private String symbol;
+    private long aggTradeId;
+    private double price;
+    private double qty;
+    private long firstTradeId;
+    private long lastTradeId;
+    private long tradeTime;
+    /**
+     * Buyer is the maker, so the trade was initiated by a seller.
+     */
+    private boolean buyerMaker;
+}
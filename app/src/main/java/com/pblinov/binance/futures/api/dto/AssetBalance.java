@@ -0,0 +1,19 @@
+package com.pblinov.binance.futures.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+/**
+ * Entry of GET /fapi/v2/balance.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class AssetBalance {
+    private String asset;
+    /**
+     * Wallet balance.
+     */
+    private double balance;
+    private double crossWalletBalance;
+    private long updateTime;
+}
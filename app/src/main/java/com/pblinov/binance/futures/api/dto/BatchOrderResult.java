@@ -0,0 +1,18 @@
+package com.pblinov.binance.futures.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Batch endpoints answer with an order or an error for every entry.
+ */
+@Data
+@AllArgsConstructor
+public class BatchOrderResult {
+    private Order order;
+    private ErrorResponse error;
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
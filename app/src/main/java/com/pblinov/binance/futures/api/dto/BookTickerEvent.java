@@ -0,0 +1,18 @@
+package com.pblinov.binance.futures.api.dto;
+
+import lombok.Data;
+
+/**
+ * {@code <symbol>@bookTicker}
+ */
+@Data
+public class BookTickerEvent {
+    private long eventTime;
+    private long transactionTime;
+    private String symbol;
+    private long updateId;
+    private double bidPrice;
+    private double bidQty;
+    private double askPrice;
+    private double askQty;
+}
@@ -0,0 +1,15 @@
+package com.pblinov.binance.futures.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+/**
+ * GET /fapi/v1/depth, levels are [price, qty] pairs.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class DepthSnapshot {
+    private long lastUpdateId;
+    private double[][] bids;
+    private double[][] asks;
+}
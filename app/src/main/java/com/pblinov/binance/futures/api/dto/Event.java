@@ -16,5 +16,5 @@ public class Event {
     @JsonProperty("T")
     private long eventTime;
     @JsonProperty("E")
-    private Long transactionTime;
+    private long transactionTime;
 }
@@ -0,0 +1,33 @@
+package com.pblinov.binance.futures.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ExchangeInfo {
+    private List<SymbolInfo> symbols;
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class SymbolInfo {
+        private String symbol;
+        private List<Filter> filters;
+    }
+
+    /**
+     * Decimals are kept as strings, their scale defines the precision.
+     */
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Filter {
+        private String filterType;
+        private String tickSize;
+        private String stepSize;
+        private String minQty;
+        private String maxQty;
+        private String notional;
+    }
+}
@@ -0,0 +1,10 @@
+package com.pblinov.binance.futures.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public enum MarginType {
+    @JsonProperty("cross")
+    CROSS,
+    @JsonProperty("isolated")
+    ISOLATED
+}
@@ -0,0 +1,17 @@
+package com.pblinov.binance.futures.api.dto;
+
+import lombok.Data;
+
+/**
+ * {@code <symbol>@markPrice@1s}
+ */
+@Data
+public class MarkPriceEvent {
+    private long eventTime;
+    private String symbol;
+    private double markPrice;
+    private double indexPrice;
+    private double estimatedSettlePrice;
+    private double fundingRate;
+    private long nextFundingTime;
+}
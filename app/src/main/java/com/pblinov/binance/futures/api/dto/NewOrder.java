@@ -0,0 +1,19 @@
+package com.pblinov.binance.futures.api.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Single entry of batch order placement.
+ */
+@Value
+@Builder
+public class NewOrder {
+    String symbol;
+    String clientOrderId;
+    OrderType type;
+    Side side;
+    double qty;
+    double price;
+    TimeInForce tif;
+}
@@ -17,6 +17,7 @@ public class Order {
     private double price;
     private double origQty;
     private double executedQty;
+    private double avgPrice;
     private TimeInForce timeInForce;
     private OrderType type;
     private Side side;
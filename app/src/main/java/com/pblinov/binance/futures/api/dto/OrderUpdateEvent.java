@@ -9,7 +9,7 @@ import lombok.EqualsAndHashCode;
 @EqualsAndHashCode(callSuper = true)
 public class OrderUpdateEvent extends Event {
     @JsonProperty("o")
-    private OrderTradeUpdate payload;
+    private OrderTradeUpdate payload = new OrderTradeUpdate();
 
     @Data
     @JsonIgnoreProperties(ignoreUnknown = true)
@@ -18,6 +18,8 @@ public class OrderUpdateEvent extends Event {
         private String symbol;
         @JsonProperty("c")
         private String clientOrderId;
+        @JsonProperty("i")
+        private long orderId;
         @JsonProperty("S")
         private Side side;
         @JsonProperty("o")
@@ -34,13 +36,42 @@ public class OrderUpdateEvent extends Event {
          * Alternatively we can use BigDecimal.
          */
         @JsonProperty("p")
-        private Double price;
+        private double price;
 
         /**
          * Original Quantity.
          * Alternatively we can use BigDecimal.
          */
         @JsonProperty("q")
-        private Double qty;
+        private double qty;
+
+        @JsonProperty("L")
+        private double lastFilledPrice;
+        @JsonProperty("l")
+        private double lastFilledQty;
+        @JsonProperty("z")
+        private double filledQty;
+        @JsonProperty("t")
+        private long tradeId;
+
+        /**
+         * Clears all fields, so instance can be filled by next message.
+         */
+        public void reset() {
+            symbol = null;
+            clientOrderId = null;
+            orderId = 0;
+            side = null;
+            orderType = null;
+            timeInForce = null;
+            executionType = null;
+            orderStatus = null;
+            price = 0;
+            qty = 0;
+            lastFilledPrice = 0;
+            lastFilledQty = 0;
+            filledQty = 0;
+            tradeId = 0;
+        }
     }
 }
@@ -0,0 +1,20 @@
+package com.pblinov.binance.futures.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+/**
+ * Entry of GET /fapi/v2/positionRisk, flat positions are returned too.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PositionRisk {
+    private String symbol;
+    private double positionAmt;
+    private double entryPrice;
+    private double unRealizedProfit;
+    private MarginType marginType;
+    private double isolatedWallet;
+    private PositionSide positionSide;
+    private long updateTime;
+}
@@ -0,0 +1,10 @@
+package com.pblinov.binance.futures.api.dto;
+
+/**
+ * BOTH in one-way mode, LONG or SHORT in hedge mode.
+ */
+public enum PositionSide {
+    BOTH,
+    LONG,
+    SHORT
+}
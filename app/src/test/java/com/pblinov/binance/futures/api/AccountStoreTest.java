@@ -0,0 +1,149 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.AccountUpdateEvent;
+import com.pblinov.binance.futures.api.dto.AssetBalance;
+import com.pblinov.binance.futures.api.dto.PositionRisk;
+import com.pblinov.binance.futures.api.dto.PositionSide;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+public class AccountStoreTest extends TestCase {
+    private final EventParser parser = new EventParser();
+    private final AccountStore store = new AccountStore();
+
+    public void testEmpty() {
+        var snapshot = store.getSnapshot();
+        assertThat(snapshot.getBalance("USDT"), nullValue());
+        assertThat(snapshot.getPosition("BTCUSDT", PositionSide.BOTH), nullValue());
+        assertThat(snapshot.getPositionAmount("BTCUSDT"), is(0.0));
+        assertThat(snapshot.getPositions().isEmpty(), is(true));
+    }
+
+    public void testUpdatesAreMerged() throws IOException {
+        assertTrue(store.apply(event(1, "[{\"a\":\"USDT\",\"wb\":\"100\",\"cw\":\"90\"},{\"a\":\"BNB\",\"wb\":\"1\",\"cw\":\"1\"}]",
+                "[{\"s\":\"BTCUSDT\",\"pa\":\"0.031\",\"ep\":\"28871.8871\",\"mt\":\"cross\",\"ps\":\"BOTH\"}]")));
+        assertTrue(store.apply(event(2, "[{\"a\":\"USDT\",\"wb\":\"95\",\"cw\":\"85\"}]",
+                "[{\"s\":\"ETHUSDT\",\"pa\":\"-2\",\"ep\":\"1500\",\"mt\":\"cross\",\"ps\":\"BOTH\"}]")));
+
+        var snapshot = store.getSnapshot();
+        assertThat(snapshot.getUpdateTime(), is(2L));
+        assertThat(snapshot.getBalance("USDT").getWalletBalance(), is(95.0));
+        assertThat(snapshot.getBalance("USDT").getCrossWalletBalance(), is(85.0));
+        assertThat(snapshot.getBalance("BNB").getWalletBalance(), is(1.0));
+        assertThat(snapshot.getPosition("BTCUSDT", PositionSide.BOTH).getEntryPrice(), is(28871.8871));
+        assertThat(snapshot.getPositionAmount("BTCUSDT"), is(0.031));
+        assertThat(snapshot.getPositionAmount("ETHUSDT"), is(-2.0));
+        assertThat(snapshot.getPositions().size(), is(2));
+    }
+
+    public void testHedgeModeSides() throws IOException {
+        store.apply(event(1, "[]", "[{\"s\":\"BTCUSDT\",\"pa\":\"0.5\",\"ps\":\"LONG\"},{\"s\":\"BTCUSDT\",\"pa\":\"-0.2\",\"ps\":\"SHORT\"}]"));
+
+        var snapshot = store.getSnapshot();
+        assertThat(snapshot.getPosition("BTCUSDT", PositionSide.LONG).getAmount(), is(0.5));
+        assertThat(snapshot.getPosition("BTCUSDT", PositionSide.SHORT).getAmount(), is(-0.2));
+        assertThat(snapshot.getPosition("BTCUSDT", PositionSide.BOTH), nullValue());
+        assertThat(snapshot.getPositionAmount("BTCUSDT"), is(0.5 - 0.2));
+    }
+
+    public void testClosedPositionIsRemoved() throws IOException {
+        store.apply(event(1, "[]", "[{\"s\":\"BTCUSDT\",\"pa\":\"0.5\",\"ps\":\"BOTH\"}]"));
+        store.apply(event(2, "[]", "[{\"s\":\"BTCUSDT\",\"pa\":\"0\",\"ps\":\"BOTH\"}]"));
+
+        var snapshot = store.getSnapshot();
+        assertThat(snapshot.getPosition("BTCUSDT", PositionSide.BOTH), nullValue());
+        assertThat(snapshot.getPositions().isEmpty(), is(true));
+    }
+
+    public void testSnapshotIsNotChangedByLaterUpdates() throws IOException {
+        store.apply(event(1, "[{\"a\":\"USDT\",\"wb\":\"100\"}]", "[{\"s\":\"BTCUSDT\",\"pa\":\"1\",\"ps\":\"BOTH\"}]"));
+        var before = store.getSnapshot();
+        store.apply(event(2, "[{\"a\":\"USDT\",\"wb\":\"50\"}]", "[{\"s\":\"BTCUSDT\",\"pa\":\"2\",\"ps\":\"BOTH\"}]"));
+
+        assertThat(before.getBalance("USDT").getWalletBalance(), is(100.0));
+        assertThat(before.getPositionAmount("BTCUSDT"), is(1.0));
+        assertThat(store.getSnapshot().getPositionAmount("BTCUSDT"), is(2.0));
+    }
+
+    public void testOlderUpdateIsIgnored() throws IOException {
+        store.apply(event(2, "[{\"a\":\"USDT\",\"wb\":\"100\"}]", "[]"));
+        var current = store.getSnapshot();
+
+        assertFalse(store.apply(event(1, "[{\"a\":\"USDT\",\"wb\":\"50\"}]", "[]")));
+        assertThat(store.getSnapshot(), sameInstance(current));
+    }
+
+    public void testRestSnapshotIsLoaded() throws IOException {
+        store.apply(event(1, "[{\"a\":\"BNB\",\"wb\":\"1\"}]", "[{\"s\":\"ETHUSDT\",\"pa\":\"1\",\"ps\":\"BOTH\"}]"));
+
+        store.beginLoad();
+        store.load(List.of(balance("USDT", 100, 5)),
+                List.of(position("BTCUSDT", 0.5, PositionSide.BOTH, 4), position("ETHUSDT", 0, PositionSide.BOTH, 3)));
+
+        // State is replaced, flat positions are skipped
+        var snapshot = store.getSnapshot();
+        assertThat(snapshot.getUpdateTime(), is(5L));
+        assertThat(snapshot.getBalance("USDT").getWalletBalance(), is(100.0));
+        assertThat(snapshot.getBalance("BNB"), nullValue());
+        assertThat(snapshot.getPosition("BTCUSDT", PositionSide.BOTH).getAmount(), is(0.5));
+        assertThat(snapshot.getPositions().size(), is(1));
+    }
+
+    public void testUpdatesDuringLoadAreAppliedOnTop() throws IOException {
+        store.beginLoad();
+        // Covered by the REST snapshot
+        store.apply(event(4, "[{\"a\":\"USDT\",\"wb\":\"90\"}]", "[]"));
+        // Happened after the REST snapshot
+        store.apply(event(7, "[]", "[{\"s\":\"BTCUSDT\",\"pa\":\"0.7\",\"ps\":\"BOTH\"}]"));
+        store.load(List.of(balance("USDT", 100, 5)), List.of(position("BTCUSDT", 0.5, PositionSide.BOTH, 5)));
+
+        var snapshot = store.getSnapshot();
+        assertThat(snapshot.getUpdateTime(), is(7L));
+        assertThat(snapshot.getBalance("USDT").getWalletBalance(), is(100.0));
+        assertThat(snapshot.getPositionAmount("BTCUSDT"), is(0.7));
+
+        // Redelivered update is still dropped
+        assertFalse(store.apply(event(6, "[{\"a\":\"USDT\",\"wb\":\"1\"}]", "[]")));
+    }
+
+    public void testCanceledLoadKeepsStreamState() throws IOException {
+        store.beginLoad();
+        store.apply(event(1, "[{\"a\":\"USDT\",\"wb\":\"90\"}]", "[]"));
+        store.cancelLoad();
+        store.apply(event(2, "[]", "[{\"s\":\"BTCUSDT\",\"pa\":\"1\",\"ps\":\"BOTH\"}]"));
+
+        var snapshot = store.getSnapshot();
+        assertThat(snapshot.getBalance("USDT").getWalletBalance(), is(90.0));
+        assertThat(snapshot.getPositionAmount("BTCUSDT"), is(1.0));
+    }
+
+    private static AssetBalance balance(String asset, double amount, long updateTime) {
+        var balance = new AssetBalance();
+        balance.setAsset(asset);
+        balance.setBalance(amount);
+        balance.setCrossWalletBalance(amount);
+        balance.setUpdateTime(updateTime);
+        return balance;
+    }
+
+    private static PositionRisk position(String symbol, double amount, PositionSide side, long updateTime) {
+        var position = new PositionRisk();
+        position.setSymbol(symbol);
+        position.setPositionAmt(amount);
+        position.setPositionSide(side);
+        position.setUpdateTime(updateTime);
+        return position;
+    }
+
+    private AccountUpdateEvent event(long time, String balances, String positions) throws IOException {
+        return (AccountUpdateEvent) parser.parse("{\"e\":\"ACCOUNT_UPDATE\",\"E\":" + time + ",\"T\":" + time
+                + ",\"a\":{\"m\":\"ORDER\",\"B\":" + balances + ",\"P\":" + positions + "}}");
+    }
+}
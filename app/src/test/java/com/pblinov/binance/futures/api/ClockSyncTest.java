@@ -0,0 +1,113 @@
+package com.pblinov.binance.futures.api;
+
+import junit.framework.TestCase;
+import org.eclipse.jetty.client.HttpClient;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class ClockSyncTest extends TestCase {
+    private static final long MS = 1_000_000L;
+    private static final Duration INTERVAL = Duration.ofMinutes(1);
+
+    private static final BinanceConfig CONFIG = BinanceConfig.builder()
+            .exchangeName("clock")
+            .httpUrl("http://localhost")
+            .apiKey("key")
+            .apiSecret("secret")
+            .clockSyncInterval(INTERVAL)
+            .build();
+
+    private final ServerClock clock = new ServerClock();
+    private final StubRest rest = new StubRest();
+    private final ClockSync clockSync = new ClockSync(CONFIG, rest, clock, () -> rest.now);
+
+    @Override
+    protected void tearDown() {
+        clockSync.stop();
+    }
+
+    public void testOffsetOfFastestSampleIsUsed() {
+        rest.offset = 100 * MS;
+        rest.rtts.addAll(List.of(5 * MS, MS, 3 * MS, 2 * MS));
+
+        clockSync.sync();
+
+        assertThat(clock.getRttNanos(), is(MS));
+        assertOffset(100 * MS, MS);
+    }
+
+    public void testRecentSamplesAreKept() {
+        rest.offset = 100 * MS;
+        rest.rtts.addAll(List.of(MS, MS, MS, MS));
+        clockSync.sync();
+
+        rest.now += INTERVAL.toNanos();
+        rest.offset = 101 * MS;
+        rest.rtts.addAll(List.of(4 * MS, 4 * MS, 4 * MS, 4 * MS));
+        clockSync.sync();
+
+        assertThat(clock.getRttNanos(), is(MS));
+        assertOffset(100 * MS, MS);
+    }
+
+    public void testOldSamplesExpireWhenClockDrifts() {
+        rest.offset = 100 * MS;
+        rest.rtts.addAll(List.of(MS, MS, MS, MS));
+        clockSync.sync();
+
+        // Local clock drifted away, the fast sample of the first sync must not pin the offset
+        rest.now += 3 * INTERVAL.toNanos();
+        rest.offset = 150 * MS;
+        rest.rtts.addAll(List.of(4 * MS, 4 * MS, 4 * MS, 4 * MS));
+        clockSync.sync();
+
+        assertThat(clock.getRttNanos(), is(4 * MS));
+        assertOffset(150 * MS, 4 * MS);
+    }
+
+    public void testOffsetIsKeptWhenSyncFails() {
+        rest.offset = 100 * MS;
+        rest.rtts.addAll(List.of(MS, MS, MS, MS));
+        clockSync.sync();
+
+        rest.now += 3 * INTERVAL.toNanos();
+        clockSync.sync();
+
+        assertThat(clock.getRttNanos(), is(MS));
+        assertOffset(100 * MS, MS);
+    }
+
+    private void assertOffset(long expected, long rtt) {
+        // Half of RTT plus server timestamp resolution
+        long error = Math.abs(clock.getOffsetNanos() - expected);
+        assertTrue("Offset error " + error, error <= rtt / 2 + MS / 2);
+    }
+
+    private class StubRest extends BinanceRest {
+        private final Queue<Long> rtts = new ArrayDeque<>();
+        private long now = 1_000 * MS;
+        private long offset;
+
+        StubRest() {
+            super(CONFIG, new HttpClient());
+        }
+
+        @Override
+        long timestamp() {
+            var rtt = rtts.poll();
+            if (rtt == null) {
+                throw new IllegalStateException("Cannot retrieve server timestamp");
+            }
+            // Server takes its time in the middle of the round trip
+            long serverNanos = clock.localEpochNanos(now + rtt / 2) + offset;
+            now += rtt;
+            return serverNanos / MS;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.OrderUpdateEvent;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class EventDeduplicatorTest extends TestCase {
+    private final EventParser parser = new EventParser();
+    private final EventDeduplicator deduplicator = new EventDeduplicator(16);
+
+    public void testSameUpdateIsDuplicate() throws IOException {
+        assertThat(deduplicator.isDuplicate(update(1, 1000, 0, "NEW")), is(false));
+        assertThat(deduplicator.isDuplicate(update(1, 1000, 0, "NEW")), is(true));
+    }
+
+    public void testDifferentUpdatesAreNotDuplicates() throws IOException {
+        assertThat(deduplicator.isDuplicate(update(1, 1000, 0, "NEW")), is(false));
+        assertThat(deduplicator.isDuplicate(update(1, 1001, 7, "PARTIALLY_FILLED")), is(false));
+        assertThat(deduplicator.isDuplicate(update(1, 1002, 8, "FILLED")), is(false));
+        assertThat(deduplicator.isDuplicate(update(2, 1000, 0, "NEW")), is(false));
+    }
+
+    public void testCapacityShouldBePowerOfTwo() {
+        try {
+            new EventDeduplicator(10);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    public void testBackoffIsBounded() {
+        var backoff = new Backoff(ReconnectConfig.builder()
+                .initialDelay(Duration.ofMillis(100))
+                .maxDelay(Duration.ofSeconds(1))
+                .build());
+        for (int i = 0; i < 10; i++) {
+            long max = Math.min(Duration.ofSeconds(1).toNanos(), Duration.ofMillis(100).toNanos() << i);
+            long delay = backoff.nextDelay();
+            assertTrue(delay <= max && delay >= max / 2);
+        }
+        assertThat(backoff.getAttempts(), is(10));
+        backoff.reset();
+        assertTrue(backoff.nextDelay() <= Duration.ofMillis(100).toNanos());
+    }
+
+    private OrderUpdateEvent update(long orderId, long time, long tradeId, String status) throws IOException {
+        var execution = status.equals("NEW") ? "NEW" : "TRADE";
+        return (OrderUpdateEvent) parser.parse("{\"e\":\"ORDER_TRADE_UPDATE\",\"E\":" + time + ",\"T\":" + time
+                + ",\"o\":{\"s\":\"BTCUSDT\",\"c\":\"id" + orderId + "\",\"i\":" + orderId + ",\"x\":\"" + execution
+                + "\",\"X\":\"" + status + "\",\"t\":" + tradeId + "}}");
+    }
+}
@@ -0,0 +1,127 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.AccountUpdateEvent;
+import com.pblinov.binance.futures.api.dto.MarginType;
+import com.pblinov.binance.futures.api.dto.OrderUpdateEvent;
+import com.pblinov.binance.futures.api.dto.PositionSide;
+import junit.framework.TestCase;
+import org.hamcrest.CoreMatchers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static com.pblinov.binance.futures.api.dto.ExecutionType.NEW;
+import static com.pblinov.binance.futures.api.dto.OrderType.LIMIT;
+import static com.pblinov.binance.futures.api.dto.Side.SELL;
+import static com.pblinov.binance.futures.api.dto.TimeInForce.GTC;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+
+public class EventParserTest extends TestCase {
+    private final EventParser parser = new EventParser();
+
+    public void testOrderTradeUpdate() throws IOException {
+        var result = parser.parse(resource("dto/orderTradeUpdateReal.json"));
+        assertThat(result, CoreMatchers.instanceOf(OrderUpdateEvent.class));
+        assertThat(result.getEventTime(), is(1654959626546L));
+        assertThat(result.getTransactionTime(), is(1654959626549L));
+
+        var payload = ((OrderUpdateEvent) result).getPayload();
+        assertThat(payload.getSymbol(), is("BTCUSDT"));
+        assertThat(payload.getClientOrderId(), is("web_3NqnbINGX7F0WcrGns2K"));
+        assertThat(payload.getOrderId(), is(3046183772L));
+        assertThat(payload.getSide(), is(SELL));
+        assertThat(payload.getOrderType(), is(LIMIT));
+        assertThat(payload.getTimeInForce(), is(GTC));
+        assertThat(payload.getExecutionType(), is(NEW));
+        assertThat(payload.getPrice(), is(28501.20));
+        assertThat(payload.getQty(), is(0.012));
+    }
+
+    public void testEventIsReused() throws IOException {
+        var first = parser.parse(resource("dto/orderTradeUpdateReal.json"));
+        var symbol = ((OrderUpdateEvent) first).getPayload().getSymbol();
+        var second = parser.parse("{\"e\":\"ORDER_TRADE_UPDATE\",\"o\":{\"s\":\"BTCUSDT\",\"c\":\"id\",\"X\":\"FILLED\"}}");
+        assertThat(second, sameInstance(first));
+
+        var payload = ((OrderUpdateEvent) second).getPayload();
+        assertThat(payload.getSymbol(), sameInstance(symbol));
+        assertThat(payload.getClientOrderId(), is("id"));
+        assertThat(payload.getPrice(), is(0.0));
+        assertThat(payload.getSide(), nullValue());
+    }
+
+    public void testDirectBuffer() throws IOException {
+        var bytes = resource("dto/orderTradeUpdateReal.json").getBytes(UTF_8);
+        var buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+
+        var result = parser.parse(buffer);
+        assertThat(((OrderUpdateEvent) result).getPayload().getQty(), is(0.012));
+        assertThat(buffer.remaining(), is(bytes.length));
+    }
+
+    public void testAccountUpdate() throws IOException {
+        var result = parser.parse(resource("dto/accountUpdate.json"));
+        assertThat(result, CoreMatchers.instanceOf(AccountUpdateEvent.class));
+        assertThat(result.getTransactionTime(), is(1654985957319L));
+
+        var payload = ((AccountUpdateEvent) result).getPayload();
+        assertThat(payload.getReason(), is("ORDER"));
+        assertThat(payload.getBalances().size(), is(1));
+        var balance = payload.getBalances().get(0);
+        assertThat(balance.getAsset(), is("USDT"));
+        assertThat(balance.getWalletBalance(), is(2988.48622509));
+        assertThat(balance.getCrossWalletBalance(), is(2988.48622509));
+        assertThat(balance.getBalanceChange(), is(0.0));
+
+        assertThat(payload.getPositions().size(), is(1));
+        var position = payload.getPositions().get(0);
+        assertThat(position.getSymbol(), is("BTCUSDT"));
+        assertThat(position.getPositionAmount(), is(0.031));
+        assertThat(position.getEntryPrice(), is(28871.88710));
+        assertThat(position.getAccumulatedRealized(), is(-10.7796));
+        assertThat(position.getUnrealizedPnl(), is(-9.33466733));
+        assertThat(position.getMarginType(), is(MarginType.CROSS));
+        assertThat(position.getIsolatedWallet(), is(0.0));
+        assertThat(position.getPositionSide(), is(PositionSide.BOTH));
+    }
+
+    public void testAccountUpdateEntriesAreReused() throws IOException {
+        var first = (AccountUpdateEvent) parser.parse(resource("dto/accountUpdate.json"));
+        var position = first.getPayload().getPositions().get(0);
+        var second = (AccountUpdateEvent) parser.parse("{\"e\":\"ACCOUNT_UPDATE\",\"a\":{\"m\":\"FUNDING_FEE\",\"B\":[],"
+                + "\"P\":[{\"s\":\"ETHUSDT\",\"pa\":\"-1.5\",\"mt\":\"isolated\",\"ps\":\"SHORT\"},{\"s\":\"BTCUSDT\",\"pa\":\"0\"}]}}");
+        assertThat(second, sameInstance(first));
+
+        var payload = second.getPayload();
+        assertThat(payload.getReason(), is("FUNDING_FEE"));
+        assertThat(payload.getBalances().size(), is(0));
+        assertThat(payload.getPositions().size(), is(2));
+        assertThat(payload.getPositions().get(0), sameInstance(position));
+        assertThat(position.getSymbol(), is("ETHUSDT"));
+        assertThat(position.getPositionAmount(), is(-1.5));
+        assertThat(position.getEntryPrice(), is(0.0));
+        assertThat(position.getMarginType(), is(MarginType.ISOLATED));
+        assertThat(position.getPositionSide(), is(PositionSide.SHORT));
+        assertThat(payload.getPositions().get(1).getPositionSide(), nullValue());
+    }
+
+    public void testUnknownEvent() throws IOException {
+        assertThat(parser.parse("{\"e\":\"MARGIN_CALL\",\"p\":[{\"s\":\"ETHUSDT\"}]}"), nullValue());
+    }
+
+    public void testParseDouble() {
+        for (var value : new String[]{"0", "0.012", "28501.20", "-10.77960000", "2988.48622509", "1e-8", "123456789012345678901.5"}) {
+            assertThat(value, ParserUtils.parseDouble(value.toCharArray(), 0, value.length()), is(Double.parseDouble(value)));
+        }
+    }
+
+    private String resource(String name) throws IOException {
+        try (var stream = getClass().getResourceAsStream(name)) {
+            return new String(stream.readAllBytes());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.pblinov.binance.futures.api;
+
+import junit.framework.TestCase;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class HdrMetricsTest extends TestCase {
+    private final HdrMetrics metrics = new HdrMetrics(MetricsConfig.builder()
+            .highestLatency(Duration.ofSeconds(1))
+            .build());
+
+    public void testLatenciesAreAccumulated() {
+        metrics.onLatency(Metrics.Timer.SEND, TimeUnit.MICROSECONDS.toNanos(100));
+        assertThat(metrics.getHistogram(Metrics.Timer.SEND).getTotalCount(), is(1L));
+
+        metrics.onLatency(Metrics.Timer.SEND, TimeUnit.MICROSECONDS.toNanos(200));
+        var histogram = metrics.getHistogram(Metrics.Timer.SEND);
+        assertThat(histogram.getTotalCount(), is(2L));
+        assertTrue(histogram.valuesAreEquivalent(histogram.getMaxValue(), TimeUnit.MICROSECONDS.toNanos(200)));
+        assertThat(metrics.getHistogram(Metrics.Timer.SIGN).getTotalCount(), is(0L));
+    }
+
+    public void testOutOfRangeLatenciesAreClamped() {
+        metrics.onLatency(Metrics.Timer.RESPONSE, TimeUnit.SECONDS.toNanos(5));
+        metrics.onLatency(Metrics.Timer.FIRST_BYTE, -1);
+
+        var response = metrics.getHistogram(Metrics.Timer.RESPONSE);
+        assertTrue(response.valuesAreEquivalent(response.getMaxValue(), TimeUnit.SECONDS.toNanos(1)));
+        assertThat(metrics.getHistogram(Metrics.Timer.FIRST_BYTE).getMaxValue(), is(0L));
+    }
+
+    public void testCounters() {
+        metrics.onEvent(Metrics.Counter.RETRY);
+        metrics.onEvent(Metrics.Counter.RETRY);
+        metrics.onEvent(Metrics.Counter.RECONNECT);
+
+        assertThat(metrics.getCount(Metrics.Counter.RETRY), is(2L));
+        assertThat(metrics.getCount(Metrics.Counter.RECONNECT), is(1L));
+        assertThat(metrics.getCount(Metrics.Counter.REQUEST_FAILURE), is(0L));
+    }
+
+    public void testJmxAttributes() throws Exception {
+        var jmx = new JmxMetrics("Test", metrics);
+        jmx.register();
+        try {
+            metrics.onLatency(Metrics.Timer.FIRST_BYTE, TimeUnit.MILLISECONDS.toNanos(3));
+            metrics.onEvent(Metrics.Counter.RATE_LIMITED);
+
+            var server = ManagementFactory.getPlatformMBeanServer();
+            var name = new ObjectName("com.pblinov.binance.futures:type=Metrics,name=\"Test\"");
+            assertThat(jmx.getName(), is(name));
+            assertThat(server.getAttribute(name, "FirstByteCount"), is(1L));
+            assertTrue(Math.abs((Long) server.getAttribute(name, "FirstByteMax") - 3000) <= 3);
+            assertThat(server.getAttribute(name, "RateLimitedCount"), is(1L));
+        } finally {
+            jmx.unregister();
+        }
+        assertThat(JmxMetrics.camelCase("REQUEST_FAILURE"), is("RequestFailure"));
+    }
+}
@@ -0,0 +1,32 @@
+package com.pblinov.binance.futures.api;
+
+import junit.framework.TestCase;
+
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class HeartbeatTest extends TestCase {
+    private final Heartbeat heartbeat = new Heartbeat();
+
+    public void testRttIsMeasuredFromEchoedPayload() {
+        var payload = heartbeat.ping();
+        long rtt = heartbeat.onPong(payload);
+        assertTrue(rtt >= 0);
+        assertThat(heartbeat.getLastRtt(), is(rtt));
+        assertThat(heartbeat.getPingsSent(), is(1L));
+        assertThat(heartbeat.getPongsReceived(), is(1L));
+
+        var histogram = heartbeat.getRttHistogram();
+        assertThat(histogram.getTotalCount(), is(1L));
+        assertThat(heartbeat.getRttHistogram().getTotalCount(), is(0L));
+    }
+
+    public void testForeignPongIsIgnored() {
+        assertThat(heartbeat.onPong(ByteBuffer.allocate(0)), is(-1L));
+        assertThat(heartbeat.onPong(ByteBuffer.allocate(Long.BYTES).putLong(0, System.nanoTime() + 1_000_000_000L)), is(-1L));
+        assertThat(heartbeat.getPongsReceived(), is(0L));
+        assertThat(heartbeat.getLastRtt(), is(-1L));
+    }
+}
@@ -0,0 +1,34 @@
+package com.pblinov.binance.futures.api;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class HmacSignerTest extends TestCase {
+    private static final String QUERY = "symbol=BTCUSDT&side=BUY&type=LIMIT&quantity=1&price=9000&timeInForce=GTC&recvWindow=5000&timestamp=1591702613943";
+    private static final String SIGNATURE = "3c661234138461fcc7a7d8746c6558c9842d4e10870d2ecbedf7777cad694af9";
+
+    private final HmacSigner signer = new HmacSigner("2b5eb11e18796d12d88f13dc27dbbd02c2cc51ff7059765ed9821957d82bb4d9");
+
+    public void testSign() {
+        assertThat(signer.sign(QUERY), is(SIGNATURE));
+        // Buffers and Mac are reused by the next call
+        assertThat(signer.sign(QUERY), is(SIGNATURE));
+    }
+
+    public void testSignBytes() {
+        var data = ("?" + QUERY).getBytes(US_ASCII);
+        var output = new byte[HmacSigner.SIGNATURE_LENGTH + 1];
+        signer.sign(data, 1, data.length - 1, output, 1);
+        assertThat(new String(output, 1, HmacSigner.SIGNATURE_LENGTH, US_ASCII), is(SIGNATURE));
+    }
+
+    public void testSignInOtherThread() throws ExecutionException, InterruptedException {
+        assertThat(CompletableFuture.supplyAsync(() -> signer.sign(QUERY)).get(), is(SIGNATURE));
+    }
+}
@@ -0,0 +1,165 @@
+package com.pblinov.binance.futures.api;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class JournalTest extends TestCase {
+    private Path directory;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("journal");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try (var files = Files.walk(directory)) {
+            for (var file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    public void testRecordsAreReadInOrder() throws IOException {
+        var journal = journal(4096);
+        journal.open();
+        journal.append(JournalRecordType.USER_STREAM, 1, "{\"e\":\"ORDER_TRADE_UPDATE\"}");
+        journal.append(JournalRecordType.REST_RESPONSE, 2, "{\"orderId\":1}".getBytes(UTF_8), 0, 13);
+        journal.append(JournalRecordType.USER_STREAM, 3, ByteBuffer.wrap("{\"e\":\"listenKeyExpired\"}".getBytes(UTF_8)));
+        journal.append(JournalRecordType.USER_STREAM, 4, "{\"s\":\"\u20ac\"}");
+        journal.close();
+
+        var records = read();
+        assertThat(records.size(), is(4));
+        assertThat(records.get(0), is("USER_STREAM 1 {\"e\":\"ORDER_TRADE_UPDATE\"}"));
+        assertThat(records.get(1), is("REST_RESPONSE 2 {\"orderId\":1}"));
+        assertThat(records.get(2), is("USER_STREAM 3 {\"e\":\"listenKeyExpired\"}"));
+        assertThat(records.get(3), is("USER_STREAM 4 {\"s\":\"\u20ac\"}"));
+    }
+
+    public void testSegmentsAreRolled() throws IOException {
+        var journal = journal(256);
+        journal.open();
+        for (int i = 0; i < 100; i++) {
+            journal.append(JournalRecordType.USER_STREAM, i, "message-" + i);
+        }
+        journal.close();
+
+        var records = read();
+        assertThat(records.size(), is(100));
+        for (int i = 0; i < 100; i++) {
+            assertThat(records.get(i), is("USER_STREAM " + i + " message-" + i));
+        }
+        var segments = new JournalReader(directory).segments();
+        assertTrue(segments.size() > 1);
+        // The prepared next segment is deleted
+        for (var segment : segments) {
+            assertTrue(JournalReader.read(segment, (type, received, timestamp, payload) -> {
+            }) > 0);
+        }
+    }
+
+    public void testNewJournalStartsWithNextSegment() throws IOException {
+        var journal = journal(4096);
+        journal.open();
+        journal.append(JournalRecordType.USER_STREAM, 1, "first");
+        journal.close();
+
+        journal = journal(4096);
+        journal.open();
+        journal.append(JournalRecordType.USER_STREAM, 2, "second");
+        journal.close();
+
+        var segments = new JournalReader(directory).segments();
+        assertThat(segments.size(), is(2));
+        assertThat(segments.get(1).getFileName().toString(), is(Journal.segmentName(2, JournalRecordType.USER_STREAM)));
+        assertThat(read(), is(List.of("USER_STREAM 1 first", "USER_STREAM 2 second")));
+    }
+
+    public void testRecordBiggerThanSegmentIsDropped() throws IOException {
+        var journal = journal(64);
+        journal.open();
+        journal.append(JournalRecordType.REST_RESPONSE, 1, new byte[64], 0, 64);
+        journal.append(JournalRecordType.USER_STREAM, 2, "fits");
+        journal.close();
+
+        assertThat(journal.getDropped(), is(1L));
+        assertThat(read(), is(List.of("USER_STREAM 2 fits")));
+    }
+
+    public void testTypesAreWrittenToOwnSegments() throws IOException {
+        var journal = journal(4096);
+        journal.open();
+        for (int i = 0; i < 10; i++) {
+            var type = i % 3 == 0 ? JournalRecordType.REST_RESPONSE : JournalRecordType.USER_STREAM;
+            journal.append(type, System.nanoTime(), "message-" + i);
+        }
+        journal.close();
+
+        var segments = new JournalReader(directory).segments();
+        assertThat(segments.size(), is(2));
+        for (var segment : segments) {
+            var type = Journal.segmentType(segment.getFileName().toString());
+            JournalReader.read(segment, (recordType, received, timestamp, payload) -> assertThat(recordType, is(type)));
+        }
+        // Types are merged back in the order of appending
+        var records = new ArrayList<String>();
+        new JournalReader(directory).read((type, received, timestamp, payload) -> records.add(UTF_8.decode(payload).toString()));
+        for (int i = 0; i < 10; i++) {
+            assertThat(records.get(i), is("message-" + i));
+        }
+    }
+
+    public void testAsciiTakesExactSpace() throws IOException {
+        var journal = journal(64);
+        journal.open();
+        var text = "x".repeat(64 - Journal.HEADER_SIZE);
+        journal.append(JournalRecordType.USER_STREAM, 1, text);
+        journal.append(JournalRecordType.USER_STREAM, 2, "\u20ac".repeat(10));
+        journal.close();
+
+        assertThat(journal.getDropped(), is(0L));
+        assertThat(read(), is(List.of("USER_STREAM 1 " + text, "USER_STREAM 2 " + "\u20ac".repeat(10))));
+        assertThat(new JournalReader(directory).segments().size(), is(2));
+    }
+
+    public void testOtherFilesAreSkipped() throws IOException {
+        Files.writeString(directory.resolve("notes" + Journal.SUFFIX), "not a segment");
+        Files.writeString(directory.resolve("9999999999999999999" + Journal.SUFFIX), "not a segment");
+        Files.writeString(directory.resolve(Journal.segmentName(9, JournalRecordType.USER_STREAM) + ".bak"), "not a segment");
+        var journal = journal(4096);
+        journal.open();
+        journal.append(JournalRecordType.USER_STREAM, 1, "first");
+        journal.close();
+
+        var segments = new JournalReader(directory).segments();
+        assertThat(segments.size(), is(1));
+        assertThat(segments.get(0).getFileName().toString(), is(Journal.segmentName(1, JournalRecordType.USER_STREAM)));
+        assertThat(read(), is(List.of("USER_STREAM 1 first")));
+    }
+
+    private Journal journal(int segmentSize) {
+        return new Journal("Test", JournalConfig.builder()
+                .directory(directory)
+                .segmentSize(segmentSize)
+                .build());
+    }
+
+    private List<String> read() throws IOException {
+        var records = new ArrayList<String>();
+        new JournalReader(directory).read((type, received, timestamp, payload) ->
+                records.add(type + " " + received + " " + UTF_8.decode(payload)));
+        return records;
+    }
+}
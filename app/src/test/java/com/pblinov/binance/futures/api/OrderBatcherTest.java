@@ -0,0 +1,157 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.BatchOrderResult;
+import com.pblinov.binance.futures.api.dto.ErrorResponse;
+import com.pblinov.binance.futures.api.dto.NewOrder;
+import com.pblinov.binance.futures.api.dto.Order;
+import com.pblinov.binance.futures.api.dto.OrderStatus;
+import com.pblinov.binance.futures.api.dto.OrderType;
+import com.pblinov.binance.futures.api.dto.Side;
+import com.pblinov.binance.futures.api.dto.TimeInForce;
+import junit.framework.TestCase;
+import org.eclipse.jetty.client.HttpClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class OrderBatcherTest extends TestCase {
+    private final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+    private final StubRest rest = new StubRest();
+
+    @Override
+    protected void setUp() {
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    protected void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    public void testFullBatchIsSentAtOnce() throws Exception {
+        var batcher = new OrderBatcher(rest, scheduler, Duration.ofMinutes(1));
+        var results = new ArrayList<CompletableFuture<Order>>();
+        for (int i = 0; i < BinanceRest.MAX_BATCH_PLACE; i++) {
+            results.add(batcher.placeOrder(order("order-" + i)));
+        }
+
+        assertThat(rest.batches.size(), is(1));
+        assertThat(rest.batches.get(0).size(), is(BinanceRest.MAX_BATCH_PLACE));
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(results.get(i).get(1, TimeUnit.SECONDS).getClientOrderId(), is("order-" + i));
+        }
+        // Window timer of the sent batch is cancelled
+        assertThat(scheduler.getQueue().size(), is(0));
+    }
+
+    public void testBatchIsSentWhenWindowIsOver() throws Exception {
+        var batcher = new OrderBatcher(rest, scheduler, Duration.ofMillis(50));
+        var first = batcher.placeOrder(order("first"));
+        var second = batcher.placeOrder(order("second"));
+        assertThat(rest.batches.size(), is(0));
+
+        assertThat(first.get(1, TimeUnit.SECONDS).getClientOrderId(), is("first"));
+        assertThat(second.get(1, TimeUnit.SECONDS).getClientOrderId(), is("second"));
+        assertThat(rest.batches.size(), is(1));
+        assertThat(rest.batches.get(0).size(), is(2));
+
+        // Single order within the window goes to the single order endpoint
+        assertThat(batcher.placeOrder(order("single")).get(1, TimeUnit.SECONDS).getClientOrderId(), is("single"));
+        assertThat(rest.singles, is(List.of("single")));
+        assertThat(rest.batches.size(), is(1));
+    }
+
+    public void testErrorsCompleteOwnOrders() throws Exception {
+        var batcher = new OrderBatcher(rest, scheduler, Duration.ofMinutes(1));
+        var results = new ArrayList<CompletableFuture<Order>>();
+        results.add(batcher.placeOrder(order("ok-1")));
+        results.add(batcher.placeOrder(order("bad-1")));
+        results.add(batcher.placeOrder(order("ok-2")));
+        results.add(batcher.placeOrder(order("bad-2")));
+        results.add(batcher.placeOrder(order("ok-3")));
+
+        assertThat(results.get(0).get(1, TimeUnit.SECONDS).getClientOrderId(), is("ok-1"));
+        assertThat(results.get(2).get(1, TimeUnit.SECONDS).getClientOrderId(), is("ok-2"));
+        assertThat(results.get(4).get(1, TimeUnit.SECONDS).getClientOrderId(), is("ok-3"));
+        assertRejected(results.get(1));
+        assertRejected(results.get(3));
+    }
+
+    private static void assertRejected(CompletableFuture<Order> result) throws Exception {
+        try {
+            result.get(1, TimeUnit.SECONDS);
+            fail("Order should be rejected");
+        } catch (ExecutionException e) {
+            assertThat(((ProcessingException) e.getCause()).getCode(), is(-2019L));
+        }
+    }
+
+    private static NewOrder order(String clientOrderId) {
+        return NewOrder.builder()
+                .symbol("BTCUSDT")
+                .clientOrderId(clientOrderId)
+                .type(OrderType.LIMIT)
+                .side(Side.BUY)
+                .qty(0.001)
+                .price(28000)
+                .tif(TimeInForce.GTC)
+                .build();
+    }
+
+    private static Order placed(String clientOrderId) {
+        var order = new Order();
+        order.setSymbol("BTCUSDT");
+        order.setClientOrderId(clientOrderId);
+        order.setStatus(OrderStatus.NEW);
+        return order;
+    }
+
+    /**
+     * Accepts orders right away, except ones with "bad" prefix which are rejected for insufficient margin.
+     */
+    private static class StubRest extends BinanceRest {
+        private final List<List<NewOrder>> batches = new CopyOnWriteArrayList<>();
+        private final List<String> singles = new CopyOnWriteArrayList<>();
+
+        StubRest() {
+            super(BinanceConfig.builder()
+                    .exchangeName("batcher")
+                    .httpUrl("http://localhost")
+                    .apiKey("key")
+                    .apiSecret("secret")
+                    .build(), new HttpClient());
+        }
+
+        @Override
+        CompletableFuture<Order> placeOrderAsync(String symbol, String clientOrderId, OrderType type, Side side, double qty, double price, TimeInForce tif) {
+            singles.add(clientOrderId);
+            return CompletableFuture.completedFuture(placed(clientOrderId));
+        }
+
+        @Override
+        CompletableFuture<List<BatchOrderResult>> placeOrdersAsync(List<NewOrder> orders) {
+            batches.add(orders);
+            var results = new ArrayList<BatchOrderResult>();
+            for (var order : orders) {
+                if (order.getClientOrderId().startsWith("bad")) {
+                    var error = new ErrorResponse();
+                    error.setCode(-2019);
+                    error.setMsg("Margin is insufficient.");
+                    results.add(new BatchOrderResult(null, error));
+                } else {
+                    results.add(new BatchOrderResult(placed(order.getClientOrderId()), null));
+                }
+            }
+            return CompletableFuture.completedFuture(results);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.pblinov.binance.futures.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pblinov.binance.futures.api.dto.DepthSnapshot;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class OrderBookTest extends TestCase {
+    private static final SymbolFilters FILTERS = new SymbolFilters(1, 1, 3, 1, 0.001, 1000, 5);
+
+    private final DepthParser parser = new DepthParser();
+    private final OrderBook book = new OrderBook("BTCUSDT", FILTERS);
+    private final List<OrderBookSync> snapshotRequests = new ArrayList<>();
+    private final List<Long> snapshotDelays = new ArrayList<>();
+    private final OrderBookSync sync = new OrderBookSync("test", book, (requested, delay) -> {
+        snapshotRequests.add(requested);
+        snapshotDelays.add(delay);
+    }, ReconnectConfig.builder()
+            .initialDelay(Duration.ofMillis(100))
+            .maxDelay(Duration.ofSeconds(30))
+            .jitter(0)
+            .build());
+
+    public void testParseCombinedStream() throws IOException {
+        var update = parser.parse("{\"stream\":\"btcusdt@depth@100ms\",\"data\":{\"e\":\"depthUpdate\",\"E\":1654987000652,\"T\":1654987000650,"
+                + "\"s\":\"BTCUSDT\",\"U\":157,\"u\":160,\"pu\":149,\"b\":[[\"28500.1\",\"1.5\"],[\"28500.0\",\"0\"]],\"a\":[[\"28501.2\",\"0.012\"]]}}");
+
+        assertThat(update.getSymbol(), is("BTCUSDT"));
+        assertThat(update.getEventTime(), is(1654987000652L));
+        assertThat(update.getFirstUpdateId(), is(157L));
+        assertThat(update.getFinalUpdateId(), is(160L));
+        assertThat(update.getPreviousUpdateId(), is(149L));
+        assertThat(update.getBids().size(), is(2));
+        assertThat(update.getBids().getPrice(0), is(28500.1));
+        assertThat(update.getBids().getQty(1), is(0.0));
+        assertThat(update.getAsks().getQty(0), is(0.012));
+    }
+
+    public void testParseSnapshot() throws IOException {
+        var snapshot = new ObjectMapper().readValue("{\"lastUpdateId\":1027024,\"E\":1589436922972,\"T\":1589436922959,"
+                + "\"bids\":[[\"4.00000000\",\"431.00000000\"]],\"asks\":[[\"4.00000200\",\"12.00000000\"]]}", DepthSnapshot.class);
+
+        assertThat(snapshot.getLastUpdateId(), is(1027024L));
+        assertThat(snapshot.getBids()[0][1], is(431.0));
+        assertThat(snapshot.getAsks()[0][0], is(4.000002));
+    }
+
+    public void testSkipOtherEvents() throws IOException {
+        assertThat(parser.parse("{\"result\":null,\"id\":1}") == null, is(true));
+    }
+
+    public void testBestLevelsAndTop() throws IOException {
+        sync.onUpdate(update(101, 105, 100, "[[\"99.5\",\"3\"]]", "[]"));
+        sync.onSnapshot(snapshot(103));
+        assertThat(book.isSynced(), is(true));
+        assertThat(book.getLastUpdateId(), is(105L));
+
+        sync.onUpdate(update(106, 107, 105, "[[\"100.1\",\"2\"],[\"100.0\",\"0\"]]", "[[\"100.5\",\"0\"]]"));
+        assertThat(book.getBestBidPrice(), is(100.1));
+        assertThat(book.getBestBidQty(), is(2.0));
+        assertThat(book.getBestAskPrice(), is(100.6));
+
+        var prices = new double[3];
+        var qtys = new double[3];
+        assertThat(book.getBids(prices, qtys), is(3));
+        assertThat(prices[0], is(100.1));
+        assertThat(prices[1], is(99.9));
+        assertThat(prices[2], is(99.5));
+        assertThat(qtys[2], is(3.0));
+        assertThat(book.getAsks(prices, qtys), is(2));
+        assertThat(prices[1], is(100.7));
+    }
+
+    public void testOutdatedUpdatesAreDropped() throws IOException {
+        sync.onUpdate(update(90, 95, 89, "[[\"50\",\"1\"]]", "[]"));
+        sync.onSnapshot(snapshot(103));
+        assertThat(book.isSynced(), is(false));
+        assertThat(book.getBestBidPrice(), is(100.0));
+
+        sync.onUpdate(update(101, 104, 95, "[]", "[]"));
+        assertThat(book.isSynced(), is(true));
+        assertThat(snapshotRequests.size(), is(1));
+    }
+
+    public void testResyncOnGap() throws IOException {
+        sync.onUpdate(update(101, 105, 100, "[]", "[]"));
+        sync.onSnapshot(snapshot(103));
+        assertThat(snapshotRequests.size(), is(1));
+
+        sync.onUpdate(update(108, 110, 107, "[]", "[]"));
+        assertThat(book.isSynced(), is(false));
+        assertThat(snapshotRequests.size(), is(2));
+
+        sync.onUpdate(update(111, 112, 110, "[]", "[]"));
+        sync.onSnapshot(snapshot(111));
+        assertThat(book.isSynced(), is(true));
+        assertThat(book.getLastUpdateId(), is(112L));
+    }
+
+    public void testSnapshotIsRetriedWithBackoff() throws IOException {
+        sync.onUpdate(update(101, 105, 100, "[]", "[]"));
+        sync.onSnapshotFailure(new IOException("Timeout"));
+        sync.onSnapshotFailure(new CompletionException(new ProcessingException(-1001, "Disconnected")));
+        assertThat(snapshotDelays, is(List.of(0L, 100_000_000L, 200_000_000L)));
+
+        // Updates are buffered while the snapshot is retried
+        sync.onUpdate(update(106, 108, 105, "[]", "[]"));
+        sync.onSnapshot(snapshot(107));
+        assertThat(book.isSynced(), is(true));
+
+        sync.onUpdate(update(120, 121, 119, "[]", "[]"));
+        sync.onSnapshotFailure(new IOException("Timeout"));
+        assertThat(snapshotDelays.get(4), is(100_000_000L));
+    }
+
+    public void testRateLimitWaitsLongest() throws IOException {
+        sync.onUpdate(update(101, 105, 100, "[]", "[]"));
+        sync.onSnapshotFailure(ProcessingException.of(ProcessingException.TOO_MANY_REQUESTS, "Too many requests"));
+        assertThat(snapshotDelays.get(1), is(30_000_000_000L));
+    }
+
+    public void testUnrecoverableErrorStopsUntilReconnect() throws IOException {
+        sync.onUpdate(update(101, 105, 100, "[]", "[]"));
+        sync.onSnapshotFailure(ProcessingException.of(ProcessingException.BAD_SYMBOL, "Invalid symbol"));
+        sync.onUpdate(update(106, 108, 105, "[]", "[]"));
+        assertThat(snapshotRequests.size(), is(1));
+
+        sync.invalidate();
+        assertThat(snapshotRequests.size(), is(2));
+        assertThat(snapshotDelays.get(1), is(0L));
+    }
+
+    private DepthUpdate update(long first, long last, long previous, String bids, String asks) throws IOException {
+        return parser.parse("{\"e\":\"depthUpdate\",\"s\":\"BTCUSDT\",\"U\":" + first + ",\"u\":" + last + ",\"pu\":" + previous
+                + ",\"b\":" + bids + ",\"a\":" + asks + "}");
+    }
+
+    private static DepthSnapshot snapshot(long lastUpdateId) {
+        var snapshot = new DepthSnapshot();
+        snapshot.setLastUpdateId(lastUpdateId);
+        snapshot.setBids(new double[][]{{100.0, 1}, {99.9, 2}});
+        snapshot.setAsks(new double[][]{{100.6, 1}, {100.5, 1}, {100.7, 4}});
+        return snapshot;
+    }
+}
@@ -0,0 +1,84 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.Order;
+import com.pblinov.binance.futures.api.dto.OrderStatus;
+import junit.framework.TestCase;
+
+import java.time.Duration;
+
+import static com.pblinov.binance.futures.api.dto.OrderStatus.CANCELED;
+import static com.pblinov.binance.futures.api.dto.OrderStatus.FILLED;
+import static com.pblinov.binance.futures.api.dto.OrderStatus.NEW;
+import static com.pblinov.binance.futures.api.dto.OrderStatus.PARTIALLY_FILLED;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+
+public class OrderCacheTest extends TestCase {
+    private static final String SYMBOL = "BTCUSDT";
+
+    private boolean streamLive = true;
+    private final OrderCache cache = new OrderCache(16, Duration.ZERO, () -> streamLive);
+
+    public void testServesStateWhileStreamIsLive() {
+        cache.update(order("1", NEW, 0));
+        assertThat(cache.get(SYMBOL, "1").getStatus(), is(NEW));
+        assertThat(cache.get("ETHUSDT", "1"), nullValue());
+
+        streamLive = false;
+        assertThat(cache.get(SYMBOL, "1"), nullValue());
+    }
+
+    public void testFinalStateIsAlwaysFresh() {
+        streamLive = false;
+        cache.update(order("1", CANCELED, 0));
+        assertThat(cache.get(SYMBOL, "1").getStatus(), is(CANCELED));
+    }
+
+    public void testInvalidate() {
+        cache.update(order("1", FILLED, 1));
+        cache.invalidate();
+        assertThat(cache.get(SYMBOL, "1"), nullValue());
+    }
+
+    public void testOutOfOrderUpdatesAreIgnored() {
+        cache.update(order("1", PARTIALLY_FILLED, 0.5));
+        cache.update(order("1", NEW, 0));
+        assertThat(cache.get(SYMBOL, "1").getStatus(), is(PARTIALLY_FILLED));
+
+        cache.update(order("1", FILLED, 1));
+        cache.update(order("1", PARTIALLY_FILLED, 0.5));
+        assertThat(cache.get(SYMBOL, "1").getStatus(), is(FILLED));
+        assertThat(cache.openOrderCount(), is(0));
+    }
+
+    public void testEvictsTerminalOrders() {
+        for (int i = 0; i < 10; i++) {
+            cache.update(order("open" + i, NEW, 0));
+        }
+        for (int i = 0; i < 1000; i++) {
+            cache.update(order("done" + i, NEW, 0));
+            cache.update(order("done" + i, FILLED, 1));
+        }
+
+        assertThat(cache.size(), is(26));
+        assertThat(cache.openOrderCount(), is(10));
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.get(SYMBOL, "open" + i).getStatus(), is(NEW));
+        }
+        for (int i = 984; i < 1000; i++) {
+            assertThat(cache.get(SYMBOL, "done" + i).getStatus(), is(FILLED));
+        }
+        assertThat(cache.get(SYMBOL, "done983"), nullValue());
+    }
+
+    private static Order order(String clientOrderId, OrderStatus status, double executedQty) {
+        var order = new Order();
+        order.setSymbol(SYMBOL);
+        order.setClientOrderId(clientOrderId);
+        order.setStatus(status);
+        order.setOrigQty(1);
+        order.setExecutedQty(executedQty);
+        return order;
+    }
+}
@@ -0,0 +1,89 @@
+package com.pblinov.binance.futures.api;
+
+import junit.framework.TestCase;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class QueryBuilderTest extends TestCase {
+    private static final String QUERY = "symbol=BTCUSDT&side=BUY&type=LIMIT&quantity=1&price=9000&timeInForce=GTC&recvWindow=5000&timestamp=1591702613943";
+
+    private final HmacSigner signer = new HmacSigner("2b5eb11e18796d12d88f13dc27dbbd02c2cc51ff7059765ed9821957d82bb4d9");
+    private final QueryBuilder builder = new QueryBuilder(16);
+
+    public void testSignedQuery() {
+        builder.add("symbol", "BTCUSDT")
+                .add("side", "BUY")
+                .add("type", "LIMIT")
+                .addDecimal("quantity", 1000, 3)
+                .addDecimal("price", 900000, 2)
+                .add("timeInForce", "GTC")
+                .add("recvWindow", 5000)
+                .add("timestamp", 1591702613943L);
+        assertThat(builder.toString(), is(QUERY));
+
+        builder.sign(signer);
+        assertThat(builder.toString(), is(QUERY + "&signature=" + signer.sign(QUERY)));
+    }
+
+    public void testDecimals() {
+        assertThat(decimal(2850120, 2), is("28501.2"));
+        assertThat(decimal(1, 8), is("0.00000001"));
+        assertThat(decimal(0, 3), is("0"));
+        assertThat(decimal(-1500, 3), is("-1.5"));
+        assertThat(decimal(Long.MAX_VALUE, 0), is(Long.toString(Long.MAX_VALUE)));
+    }
+
+    public void testEncoding() {
+        assertThat(builder.reset().add("origClientOrderIdList", "[\"a b\"]").toString(), is("origClientOrderIdList=%5B%22a%20b%22%5D"));
+    }
+
+    public void testRoundingByFilters() {
+        var filters = new SymbolFilters(2, 10, 3, 1, 0.001, 1000, 5);
+        assertThat(decimal(filters.priceUnits(28501.2345), filters.getPriceScale()), is("28501.2"));
+        assertThat(decimal(filters.qtyUnits(0.0129), filters.getQtyScale()), is("0.012"));
+        assertThat(decimal(filters.qtyUnits(0.3), filters.getQtyScale()), is("0.3"));
+    }
+
+    public void testOrderPriceOffTickIsRejected() {
+        var filters = new SymbolFilters(2, 10, 3, 1, 0.001, 1000, 5);
+        assertThat(decimal(filters.orderPriceUnits(28501.2), filters.getPriceScale()), is("28501.2"));
+        assertThat(filters.formatPrice(0.3), is("0.3"));
+        try {
+            filters.orderPriceUnits(28501.25);
+            fail("Off-tick price is sent");
+        } catch (ProcessingException e) {
+            assertThat(e.getCode(), is(ProcessingException.PRICE_NOT_INCREASED_BY_TICK_SIZE));
+        }
+        try {
+            filters.formatPrice(28501.19);
+            fail("Off-tick price is sent");
+        } catch (ProcessingException e) {
+            assertThat(e.getCode(), is(ProcessingException.PRICE_NOT_INCREASED_BY_TICK_SIZE));
+        }
+    }
+
+    public void testOrderQtyBelowStepIsRejected() {
+        var filters = new SymbolFilters(2, 10, 3, 1, 0.002, 1000, 5);
+        assertThat(decimal(filters.orderQtyUnits(0.0129), filters.getQtyScale()), is("0.012"));
+        assertThat(filters.formatQty(0.002), is("0.002"));
+        for (double qty : new double[]{0.0009, 0.0019, 0}) {
+            try {
+                filters.orderQtyUnits(qty);
+                fail("Quantity " + qty + " is sent");
+            } catch (ProcessingException e) {
+                assertThat(e.getCode(), is(ProcessingException.QTY_LESS_THAN_MIN_QTY));
+            }
+        }
+        try {
+            filters.formatQty(0.0001);
+            fail("Zero quantity is sent");
+        } catch (ProcessingException e) {
+            assertThat(e.getCode(), is(ProcessingException.QTY_LESS_THAN_MIN_QTY));
+        }
+    }
+
+    private String decimal(long units, int scale) {
+        return builder.reset().addDecimal("v", units, scale).toString().substring(2);
+    }
+}
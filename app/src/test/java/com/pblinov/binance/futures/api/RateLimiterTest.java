@@ -0,0 +1,76 @@
+package com.pblinov.binance.futures.api;
+
+import junit.framework.TestCase;
+import org.eclipse.jetty.http.HttpFields;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class RateLimiterTest extends TestCase {
+    private final RateLimiter limiter = new RateLimiter("Test", RateLimitConfig.builder()
+            .weightPerMinute(10)
+            .ordersPer10Seconds(3)
+            .maxWait(Duration.ZERO)
+            .build());
+
+    public void testWeightLimit() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.acquire(1, 0), is(0L));
+        }
+        assertRejected(1, 0);
+    }
+
+    public void testOrderLimit() {
+        limiter.acquire(0, 3);
+        assertRejected(0, 1);
+        assertThat(limiter.acquire(1, 0), is(0L));
+    }
+
+    public void testWaitsWhenAllowed() {
+        var waiting = new RateLimiter("Test", RateLimitConfig.builder()
+                .weightPerMinute(60)
+                .maxWait(Duration.ofSeconds(2))
+                .build());
+        waiting.acquire(60, 0);
+        var delay = waiting.acquire(1, 0);
+        assertTrue(delay > Duration.ofMillis(900).toNanos() && delay <= Duration.ofSeconds(1).toNanos());
+    }
+
+    public void testSyncWithUsedWeight() {
+        limiter.onResponse(200, HttpFields.build().put(RateLimiter.USED_WEIGHT_1M, "9"));
+        limiter.acquire(1, 0);
+        assertRejected(1, 0);
+    }
+
+    public void testSuspendedAfterTooManyRequests() {
+        limiter.onResponse(429, HttpFields.build().put(RateLimiter.RETRY_AFTER, "30"));
+        assertRejected(1, 0);
+    }
+
+    public void testMalformedHeadersAreIgnored() {
+        limiter.onResponse(200, HttpFields.build()
+                .put(RateLimiter.USED_WEIGHT_1M, "nine")
+                .put(RateLimiter.ORDER_COUNT_10S, "-1"));
+        // Capacity is not changed
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.acquire(1, 0), is(0L));
+        }
+        assertThat(limiter.acquire(0, 3), is(0L));
+    }
+
+    public void testRetryAfterDateFallsBackToDefault() {
+        limiter.onResponse(429, HttpFields.build().put(RateLimiter.RETRY_AFTER, "Wed, 21 Oct 2015 07:28:00 GMT"));
+        assertRejected(1, 0);
+    }
+
+    private void assertRejected(int weight, int orders) {
+        try {
+            limiter.acquire(weight, orders);
+            fail("Request should be rejected");
+        } catch (UnrecoverableProcessingException e) {
+            assertThat(e.getCode(), is(ProcessingException.TOO_MANY_REQUESTS));
+        }
+    }
+}
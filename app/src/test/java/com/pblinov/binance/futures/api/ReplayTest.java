@@ -0,0 +1,115 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.BookTickerEvent;
+import com.pblinov.binance.futures.api.dto.OrderUpdateEvent;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class ReplayTest extends TestCase {
+    private static final String ORDER_UPDATE = "{\"e\":\"ORDER_TRADE_UPDATE\",\"T\":1654959626546,\"E\":1654959626549,\"o\":{\"s\":\"BTCUSDT\"," +
+            "\"c\":\"order-1\",\"S\":\"SELL\",\"o\":\"LIMIT\",\"f\":\"GTC\",\"q\":\"0.012\",\"p\":\"28501.20\",\"ap\":\"0\",\"sp\":\"0\"," +
+            "\"x\":\"NEW\",\"X\":\"NEW\",\"i\":3046183772,\"l\":\"0\",\"z\":\"0\",\"L\":\"0\",\"T\":1654959626546,\"t\":0}}";
+    private static final String BOOK_TICKER = "{\"stream\":\"btcusdt@bookTicker\",\"data\":{\"e\":\"bookTicker\",\"u\":400900217," +
+            "\"E\":1654959626599,\"T\":1654959626598,\"s\":\"BTCUSDT\",\"b\":\"28501.10\",\"B\":\"3.210\",\"a\":\"28501.20\",\"A\":\"0.512\"}}";
+
+    private final AtomicLong orderUpdates = new AtomicLong();
+    private final AtomicLong bookTickers = new AtomicLong();
+    private Path directory;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("replay");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try (var files = Files.walk(directory)) {
+            for (var file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    public void testLinesAreReplayedInline() throws IOException {
+        var file = directory.resolve("capture.jsonl");
+        Files.writeString(file, ORDER_UPDATE + "\n\n" + BOOK_TICKER + "\n");
+        var messages = Replay.readLines(file);
+        assertThat(messages.size(), is(2));
+        assertThat(messages.get(0).getType(), is(JournalRecordType.USER_STREAM));
+        assertThat(messages.get(1).getType(), is(JournalRecordType.MARKET_DATA));
+        assertThat(messages.get(1).getTime() - messages.get(0).getTime(), is(TimeUnit.MILLISECONDS.toNanos(50)));
+
+        var result = replay(ReplayConfig.builder().repeat(1000).build(), messages);
+
+        assertThat(result.getMessages(), is(2000L));
+        assertThat(orderUpdates.get(), is(1000L));
+        assertThat(bookTickers.get(), is(1000L));
+        assertThat(result.getUserStreamLatency().getTotalCount(), is(1000L));
+        assertThat(result.getMarketDataLatency().getTotalCount(), is(1000L));
+        assertTrue(result.getMessagesPerSecond() > 0);
+    }
+
+    public void testRingDispatchIsDrained() {
+        var result = replay(ReplayConfig.builder()
+                        .dispatch(DispatchConfig.builder().mode(DispatchConfig.Mode.RING).bufferSize(64).build())
+                        .repeat(10_000)
+                        .build(),
+                List.of(new ReplayMessage(JournalRecordType.USER_STREAM, 0, ORDER_UPDATE)));
+
+        assertThat(result.getMessages(), is(10_000L));
+        assertThat(orderUpdates.get(), is(10_000L));
+        assertThat(result.getUserStreamLatency().getTotalCount(), is(10_000L));
+    }
+
+    public void testRecordedSpeed() {
+        var messages = List.of(
+                new ReplayMessage(JournalRecordType.USER_STREAM, 0, ORDER_UPDATE),
+                new ReplayMessage(JournalRecordType.MARKET_DATA, TimeUnit.MILLISECONDS.toNanos(100), BOOK_TICKER));
+
+        var result = replay(ReplayConfig.builder().speed(2).build(), messages);
+
+        assertThat(result.getMessages(), is(2L));
+        assertTrue(result.getElapsedNanos() >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    public void testJournalIsReplayed() throws IOException {
+        var journal = new Journal("Test", JournalConfig.builder().directory(directory).build());
+        journal.open();
+        journal.append(JournalRecordType.USER_STREAM, 1, ORDER_UPDATE);
+        journal.append(JournalRecordType.REST_RESPONSE, 2, "{\"orderId\":3046183772}");
+        journal.append(JournalRecordType.MARKET_DATA, 3, BOOK_TICKER);
+        journal.close();
+
+        var messages = Replay.readJournal(directory);
+        assertThat(messages.size(), is(2));
+        replay(ReplayConfig.DEFAULT, messages);
+
+        assertThat(orderUpdates.get(), is(1L));
+        assertThat(bookTickers.get(), is(1L));
+    }
+
+    private ReplayResult replay(ReplayConfig config, List<ReplayMessage> messages) {
+        return new Replay(config, this::onOrderUpdate, new MarketDataListener() {
+            @Override
+            public void onBookTicker(BookTickerEvent bookTicker) {
+                assertThat(bookTicker.getSymbol(), is("BTCUSDT"));
+                bookTickers.incrementAndGet();
+            }
+        }).replay(messages);
+    }
+
+    private void onOrderUpdate(OrderUpdateEvent event) {
+        assertThat(event.getPayload().getClientOrderId(), is("order-1"));
+        orderUpdates.incrementAndGet();
+    }
+}
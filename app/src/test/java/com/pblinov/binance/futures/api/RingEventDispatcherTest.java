@@ -0,0 +1,69 @@
+package com.pblinov.binance.futures.api;
+
+import junit.framework.TestCase;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class RingEventDispatcherTest extends TestCase {
+    private static final String MESSAGE = "{\"e\":\"ORDER_TRADE_UPDATE\",\"o\":{\"s\":\"BTCUSDT\",\"c\":\"%s\",\"X\":\"NEW\"}}";
+
+    public void testDeliversInOrder() throws InterruptedException {
+        var latch = new CountDownLatch(2);
+        List<String> ids = new CopyOnWriteArrayList<>();
+        var dispatcher = new RingEventDispatcher("Test", DispatchConfig.builder()
+                .mode(DispatchConfig.Mode.RING)
+                .bufferSize(8)
+                .build(),
+                update -> {
+                    ids.add(update.getPayload().getClientOrderId());
+                    latch.countDown();
+                });
+        dispatcher.start();
+        try {
+            dispatcher.dispatch(String.format(MESSAGE, "1"));
+            dispatcher.dispatch(ByteBuffer.wrap(String.format(MESSAGE, "2").getBytes(UTF_8)));
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertThat(ids, is(List.of("1", "2")));
+            assertThat(dispatcher.getPublished(), is(2L));
+        } finally {
+            dispatcher.stop();
+        }
+    }
+
+    public void testDropsOnOverflow() throws InterruptedException {
+        var release = new CountDownLatch(1);
+        var dispatcher = new RingEventDispatcher("Test", DispatchConfig.builder()
+                .mode(DispatchConfig.Mode.RING)
+                .bufferSize(2)
+                .overflowPolicy(DispatchConfig.OverflowPolicy.DROP)
+                .build(),
+                update -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+        dispatcher.start();
+        try {
+            for (int i = 0; i < 5; i++) {
+                dispatcher.dispatch(String.format(MESSAGE, i));
+            }
+            // One message is taken by the blocked listener, two are buffered
+            assertTrue(dispatcher.getOverflows() >= 2);
+            assertThat(dispatcher.getPublished(), is(5L));
+        } finally {
+            release.countDown();
+            dispatcher.stop();
+        }
+    }
+}
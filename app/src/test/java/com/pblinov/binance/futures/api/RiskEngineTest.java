@@ -0,0 +1,215 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.AccountUpdateEvent;
+import com.pblinov.binance.futures.api.dto.Order;
+import com.pblinov.binance.futures.api.dto.OrderStatus;
+import com.pblinov.binance.futures.api.dto.OrderType;
+import com.pblinov.binance.futures.api.dto.Side;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static com.pblinov.binance.futures.api.RiskRejectedException.Reason.CUSTOM;
+import static com.pblinov.binance.futures.api.RiskRejectedException.Reason.MAX_NOTIONAL;
+import static com.pblinov.binance.futures.api.RiskRejectedException.Reason.MAX_QTY;
+import static com.pblinov.binance.futures.api.RiskRejectedException.Reason.OPEN_ORDERS;
+import static com.pblinov.binance.futures.api.RiskRejectedException.Reason.ORDER_RATE;
+import static com.pblinov.binance.futures.api.RiskRejectedException.Reason.POSITION_LIMIT;
+import static com.pblinov.binance.futures.api.RiskRejectedException.Reason.PRICE_BAND;
+import static com.pblinov.binance.futures.api.dto.OrderType.LIMIT;
+import static com.pblinov.binance.futures.api.dto.OrderType.MARKET;
+import static com.pblinov.binance.futures.api.dto.Side.BUY;
+import static com.pblinov.binance.futures.api.dto.Side.SELL;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class RiskEngineTest extends TestCase {
+    private static final String SYMBOL = "BTCUSDT";
+
+    private final OrderCache orderCache = new OrderCache(16, Duration.ZERO, () -> true);
+    private final AccountStore accountStore = new AccountStore();
+    private final OrderBook book = new OrderBook(SYMBOL, new SymbolFilters(1, 1, 3, 1, 0.001, 1000, 5));
+    private final HdrMetrics metrics = new HdrMetrics(MetricsConfig.DEFAULT);
+    private long time;
+
+    public void testDisabledByDefault() {
+        var engine = engine(RiskConfig.DEFAULT);
+        for (int i = 0; i < 100; i++) {
+            engine.check(SYMBOL, LIMIT, BUY, 1000, 1);
+        }
+    }
+
+    public void testMaxOrderQty() {
+        var engine = engine(RiskConfig.builder().maxOrderQty(1).build());
+        engine.check(SYMBOL, LIMIT, BUY, 1, 28000);
+        assertRejected(engine, MAX_QTY, LIMIT, BUY, 1.5, 28000);
+        assertThat(metrics.getCount(Metrics.Counter.RISK_REJECTED), is(1L));
+    }
+
+    public void testMaxOrderNotional() {
+        var engine = engine(RiskConfig.builder().maxOrderNotional(10_000).build());
+        engine.check(SYMBOL, LIMIT, BUY, 0.3, 28000);
+        assertRejected(engine, MAX_NOTIONAL, LIMIT, BUY, 0.4, 28000);
+
+        // MARKET order is valued at mid price once it's known
+        engine.check(SYMBOL, MARKET, BUY, 0.4, 0);
+        syncBook(28000, 28002);
+        assertRejected(engine, MAX_NOTIONAL, MARKET, BUY, 0.4, 0);
+    }
+
+    public void testPriceBand() {
+        var engine = engine(RiskConfig.builder().priceBand(0.05).build());
+        // Not checked until the book is synced
+        engine.check(SYMBOL, LIMIT, BUY, 1, 1);
+
+        syncBook(27999, 28001);
+        engine.check(SYMBOL, LIMIT, BUY, 1, 26600);
+        engine.check(SYMBOL, LIMIT, SELL, 1, 29400);
+        engine.check(SYMBOL, MARKET, SELL, 1, 0);
+        assertRejected(engine, PRICE_BAND, LIMIT, BUY, 1, 26500);
+        assertRejected(engine, PRICE_BAND, LIMIT, SELL, 1, 29500);
+    }
+
+    public void testPositionLimit() throws IOException {
+        var engine = engine(RiskConfig.builder().maxPositions(Map.of(SYMBOL, 1.0)).build());
+        engine.check(SYMBOL, LIMIT, BUY, 1, 28000);
+        engine.check("ETHUSDT", LIMIT, BUY, 5, 1500);
+
+        position(0.8);
+        engine.check(SYMBOL, LIMIT, BUY, 0.2, 28000);
+        assertRejected(engine, POSITION_LIMIT, LIMIT, BUY, 0.3, 28000);
+        engine.check(SYMBOL, LIMIT, SELL, 1.8, 28000);
+        assertRejected(engine, POSITION_LIMIT, LIMIT, SELL, 1.9, 28000);
+
+        // Reducing an oversized position is allowed
+        position(-1.5);
+        engine.check(SYMBOL, LIMIT, BUY, 0.5, 28000);
+        assertRejected(engine, POSITION_LIMIT, LIMIT, SELL, 0.1, 28000);
+    }
+
+    public void testPositionLimitCountsOpenOrders() throws IOException {
+        var engine = engine(RiskConfig.builder().maxPositions(Map.of(SYMBOL, 1.0)).build());
+        position(0.3);
+        orderCache.update(order("1", BUY, 0.5, 0.1, OrderStatus.PARTIALLY_FILLED));
+        orderCache.update(order("2", SELL, 2, 0, OrderStatus.NEW));
+        orderCache.update(order("3", BUY, 1, 0, OrderStatus.CANCELED));
+
+        // 0.3 position + 0.4 left of the open BUY
+        engine.check(SYMBOL, LIMIT, BUY, 0.3, 28000);
+        assertRejected(engine, POSITION_LIMIT, LIMIT, BUY, 0.4, 28000);
+        // SELL orders don't reduce projected BUY position, they may be canceled
+        assertRejected(engine, POSITION_LIMIT, LIMIT, SELL, 0.1, 28000);
+
+        orderCache.update(order("2", SELL, 2, 0, OrderStatus.CANCELED));
+        engine.check(SYMBOL, LIMIT, SELL, 1.3, 28000);
+    }
+
+    public void testBatchOrdersCountTowardsLimits() {
+        var engine = engine(RiskConfig.builder().maxPositions(Map.of(SYMBOL, 1.0)).maxOpenOrders(3).build());
+        orderCache.update(order("1", SELL, 0.5, 0, OrderStatus.NEW));
+
+        engine.check(SYMBOL, LIMIT, BUY, 0.4, 28000, 0.6, 0);
+        try {
+            engine.check(SYMBOL, LIMIT, BUY, 0.4, 28000, 0.7, 0);
+            fail("Order should be rejected by position limit");
+        } catch (RiskRejectedException e) {
+            assertThat(e.getReason(), is(POSITION_LIMIT));
+        }
+
+        engine.check(SYMBOL, LIMIT, BUY, 0.1, 28000, 0, 1);
+        try {
+            engine.check(SYMBOL, LIMIT, BUY, 0.1, 28000, 0, 2);
+            fail("Order should be rejected by open order limit");
+        } catch (RiskRejectedException e) {
+            assertThat(e.getReason(), is(OPEN_ORDERS));
+        }
+    }
+
+    public void testMaxOpenOrders() {
+        var engine = engine(RiskConfig.builder().maxOpenOrders(2).build());
+        orderCache.update(order("1", OrderStatus.NEW));
+        engine.check(SYMBOL, LIMIT, BUY, 1, 28000);
+        orderCache.update(order("2", OrderStatus.PARTIALLY_FILLED));
+        assertRejected(engine, OPEN_ORDERS, LIMIT, BUY, 1, 28000);
+        orderCache.update(order("1", OrderStatus.CANCELED));
+        engine.check(SYMBOL, LIMIT, BUY, 1, 28000);
+    }
+
+    public void testOrderRate() {
+        var engine = engine(RiskConfig.builder().maxOrdersPerSecond(10).maxOrderQty(1).build());
+        // Rejected orders don't take capacity
+        for (int i = 0; i < 20; i++) {
+            assertRejected(engine, MAX_QTY, LIMIT, BUY, 2, 28000);
+        }
+        for (int i = 0; i < 10; i++) {
+            engine.check(SYMBOL, LIMIT, BUY, 1, 28000);
+        }
+        assertRejected(engine, ORDER_RATE, LIMIT, BUY, 1, 28000);
+    }
+
+    public void testCustomChecks() {
+        RiskCheck noSells = (symbol, type, side, qty, price) -> {
+            if (side == SELL) {
+                throw new RiskRejectedException(CUSTOM, "No sells");
+            }
+        };
+        var engine = engine(RiskConfig.builder().checks(List.of(noSells)).build());
+        engine.check(SYMBOL, LIMIT, BUY, 1, 28000);
+        assertRejected(engine, CUSTOM, LIMIT, SELL, 1, 28000);
+    }
+
+    public void testRejectIsUnrecoverable() {
+        var engine = engine(RiskConfig.builder().maxOrderQty(1).build());
+        try {
+            engine.check(SYMBOL, LIMIT, BUY, 2, 28000);
+            fail();
+        } catch (UnrecoverableProcessingException e) {
+            assertThat(e.getCode(), is(RiskRejectedException.RISK_REJECTED));
+        }
+    }
+
+    private RiskEngine engine(RiskConfig config) {
+        return new RiskEngine("test", config, orderCache, accountStore,
+                symbol -> symbol.equals(SYMBOL) ? book : null, metrics);
+    }
+
+    private static void assertRejected(RiskEngine engine, RiskRejectedException.Reason reason,
+                                       OrderType type, Side side, double qty, double price) {
+        try {
+            engine.check(SYMBOL, type, side, qty, price);
+            fail("Order should be rejected by " + reason);
+        } catch (RiskRejectedException e) {
+            assertThat(e.getReason(), is(reason));
+        }
+    }
+
+    private void syncBook(double bid, double ask) {
+        book.reset(1, new double[][]{{bid, 1}}, new double[][]{{ask, 1}});
+        book.setSynced(true);
+    }
+
+    private void position(double amount) throws IOException {
+        time++;
+        accountStore.apply((AccountUpdateEvent) new EventParser().parse("{\"e\":\"ACCOUNT_UPDATE\",\"E\":" + time
+                + ",\"a\":{\"m\":\"ORDER\",\"B\":[],\"P\":[{\"s\":\"" + SYMBOL + "\",\"pa\":\"" + amount + "\",\"ps\":\"BOTH\"}]}}"));
+    }
+
+    private static Order order(String clientOrderId, Side side, double qty, double executedQty, OrderStatus status) {
+        var order = order(clientOrderId, status);
+        order.setSide(side);
+        order.setOrigQty(qty);
+        order.setExecutedQty(executedQty);
+        return order;
+    }
+
+    private static Order order(String clientOrderId, OrderStatus status) {
+        var order = new Order();
+        order.setSymbol(SYMBOL);
+        order.setClientOrderId(clientOrderId);
+        order.setStatus(status);
+        return order;
+    }
+}
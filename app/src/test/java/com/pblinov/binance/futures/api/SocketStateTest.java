@@ -0,0 +1,44 @@
+package com.pblinov.binance.futures.api;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.pblinov.binance.futures.api.SocketState.Status.CLOSED;
+import static com.pblinov.binance.futures.api.SocketState.Status.CONNECTING;
+import static com.pblinov.binance.futures.api.SocketState.Status.DRAINING;
+import static com.pblinov.binance.futures.api.SocketState.Status.OPEN;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class SocketStateTest extends TestCase {
+    private final List<String> transitions = new ArrayList<>();
+    private final SocketState state = new SocketState((ignored, from, to) -> transitions.add(from + "->" + to));
+
+    public void testTransitions() {
+        assertThat(state.getStatus(), is(CONNECTING));
+        assertThat(state.transition(CONNECTING, OPEN), is(true));
+        assertThat(state.transition(CONNECTING, OPEN), is(false));
+        assertThat(state.transition(OPEN, DRAINING), is(true));
+        assertThat(state.close(), is(DRAINING));
+        assertThat(state.close(), is(CLOSED));
+        assertThat(transitions, is(List.of("CONNECTING->OPEN", "OPEN->DRAINING", "DRAINING->CLOSED")));
+    }
+
+    public void testClosedWhileConnecting() {
+        assertThat(state.close(), is(CONNECTING));
+        assertThat(state.transition(CONNECTING, OPEN), is(false));
+        assertThat(state.getStatus(), is(CLOSED));
+        assertThat(transitions, is(List.of("CONNECTING->CLOSED")));
+    }
+
+    public void testStaleState() throws InterruptedException {
+        assertThat(state.isStale(TimeUnit.SECONDS.toNanos(10)), is(false));
+        TimeUnit.MILLISECONDS.sleep(5);
+        assertThat(state.isStale(TimeUnit.MILLISECONDS.toNanos(1)), is(true));
+        state.ping();
+        assertThat(state.isStale(TimeUnit.SECONDS.toNanos(10)), is(false));
+    }
+}
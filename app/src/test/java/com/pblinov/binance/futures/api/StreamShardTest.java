@@ -0,0 +1,162 @@
+package com.pblinov.binance.futures.api;
+
+import junit.framework.TestCase;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class StreamShardTest extends TestCase {
+    private final List<URI> connects = new CopyOnWriteArrayList<>();
+    private final List<CompletableFuture<Session>> results = new CopyOnWriteArrayList<>();
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final WebSocketClient client = new WebSocketClient() {
+        @Override
+        public CompletableFuture<Session> connect(Object websocket, URI toUri) {
+            connects.add(toUri);
+            return results.isEmpty() ? new CompletableFuture<>() : results.remove(0);
+        }
+    };
+    private final StreamShard shard = new StreamShard("test", BinanceConfig.builder()
+            .exchangeName("test")
+            .wsUrl("ws://localhost")
+            .reconnect(ReconnectConfig.builder()
+                    .initialDelay(Duration.ofMillis(20))
+                    .jitter(0)
+                    .build())
+            .build(), client, scheduler, 200);
+
+    @Override
+    protected void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    public void testFailedConnectIsRetriedWithBackoff() throws InterruptedException {
+        results.add(CompletableFuture.failedFuture(new IOException("Connection refused")));
+        results.add(CompletableFuture.failedFuture(new IOException("Connection refused")));
+        shard.add(subscription("BTCUSDT"));
+        shard.connect();
+        assertThat(connects.size(), is(1));
+
+        // 20ms, then 40ms
+        awaitConnects(3);
+        assertThat(connects.size(), is(3));
+        // Adding a stream doesn't bypass the backoff while a connect is pending
+        shard.add(subscription("ETHUSDT"));
+        assertThat(connects.size(), is(3));
+    }
+
+    public void testClosedConnectionIsRestoredAfterDelay() throws InterruptedException {
+        var session = session();
+        results.add(CompletableFuture.completedFuture(session));
+        shard.add(subscription("BTCUSDT"));
+        shard.connect();
+        shard.onWebSocketConnect(session);
+
+        shard.onWebSocketClose(1006, "Disconnected");
+        assertThat(connects.size(), is(1));
+        awaitConnects(2);
+        assertThat(connects.get(1).toString(), is("ws://localhost/stream?streams=btcusdt@bookTicker"));
+    }
+
+    public void testSubscriptionsAreBatched() {
+        var session = session();
+        results.add(CompletableFuture.completedFuture(session));
+        var first = subscription("BTCUSDT");
+        shard.add(first);
+        shard.connect();
+        shard.onWebSocketConnect(session);
+        assertThat(sent.size(), is(0));
+
+        for (int i = 0; i < 30; i++) {
+            shard.add(subscription("SYM" + i + "USDT"));
+        }
+        shard.remove(first);
+        // Added and removed before the flush, never sent
+        var removed = subscription("ETHUSDT");
+        shard.add(removed);
+        shard.remove(removed);
+        shard.flush();
+
+        assertThat(sent.size(), is(2));
+        assertThat(sent.get(0), is("{\"method\":\"UNSUBSCRIBE\",\"id\":1,\"params\":[\"btcusdt@bookTicker\"]}"));
+        assertTrue(sent.get(1).startsWith("{\"method\":\"SUBSCRIBE\",\"id\":2,\"params\":[\"sym0usdt@bookTicker\",\"sym1usdt@bookTicker\","));
+        assertThat(sent.get(1).split(",").length, is(32));
+
+        shard.flush();
+        assertThat(sent.size(), is(2));
+    }
+
+    private void awaitConnects(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (connects.size() < count && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+    }
+
+    public void testMessagesAreJournaled() throws IOException {
+        var directory = Files.createTempDirectory("journal");
+        try {
+            var journal = new Journal("test", JournalConfig.builder().directory(directory).marketData(true).build());
+            journal.open();
+            var journaled = new StreamShard("test", BinanceConfig.builder().exchangeName("test").build(), client, scheduler, 200, journal);
+            var message = "{\"stream\":\"btcusdt@bookTicker\",\"data\":{\"e\":\"bookTicker\",\"s\":\"BTCUSDT\"}}";
+            journaled.onWebSocketText(message);
+            journal.close();
+
+            var records = new ArrayList<String>();
+            new JournalReader(directory).read((type, received, timestamp, payload) -> records.add(type + " " + UTF_8.decode(payload)));
+            assertThat(records, is(List.of("MARKET_DATA " + message)));
+        } finally {
+            try (var files = Files.walk(directory)) {
+                for (var file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private Subscription subscription(String symbol) {
+        return new Subscription(symbol, StreamType.BOOK_TICKER, null, null);
+    }
+
+    private Session session() {
+        var remote = (RemoteEndpoint) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{RemoteEndpoint.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("sendString")) {
+                        sent.add((String) args[0]);
+                    }
+                    return null;
+                });
+        return (Session) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Session.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isOpen":
+                            return true;
+                        case "getRemote":
+                            return remote;
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
@@ -0,0 +1,89 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.AggTradeEvent;
+import com.pblinov.binance.futures.api.dto.BookTickerEvent;
+import com.pblinov.binance.futures.api.dto.MarkPriceEvent;
+import junit.framework.TestCase;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class SubscriptionManagerTest extends TestCase {
+    private final MarketDataParser parser = new MarketDataParser();
+    private final List<Object> events = new ArrayList<>();
+    private final MarketDataListener listener = new MarketDataListener() {
+        @Override
+        public void onAggTrade(AggTradeEvent aggTrade) {
+            events.add(aggTrade.getSymbol() + " " + aggTrade.getPrice() + " " + aggTrade.getQty() + " " + aggTrade.isBuyerMaker());
+        }
+
+        @Override
+        public void onBookTicker(BookTickerEvent bookTicker) {
+            events.add(bookTicker.getSymbol() + " " + bookTicker.getBidPrice() + "/" + bookTicker.getAskPrice());
+        }
+
+        @Override
+        public void onMarkPrice(MarkPriceEvent markPrice) {
+            events.add(markPrice.getSymbol() + " " + markPrice.getMarkPrice() + " " + markPrice.getFundingRate());
+        }
+    };
+
+    public void testRouteByStream() throws IOException {
+        var streams = new ArrayList<Subscription>();
+        for (int i = 0; i < 150; i++) {
+            streams.add(new Subscription("SYM" + i + "USDT", StreamType.AGG_TRADE, listener, null));
+        }
+        streams.add(new Subscription("BNBUSDT", StreamType.BOOK_TICKER, listener, null));
+        streams.add(new Subscription("BTCUSDT", StreamType.MARK_PRICE, listener, null));
+        var table = new StreamTable(streams);
+
+        assertThat(parser.parse("{\"stream\":\"sym42usdt@aggTrade\",\"data\":{\"e\":\"aggTrade\",\"E\":123456789,\"s\":\"SYM42USDT\","
+                + "\"a\":5933014,\"p\":\"0.001\",\"q\":\"100\",\"f\":100,\"l\":105,\"T\":123456785,\"m\":true}}", table), is(true));
+        assertThat(parser.parse("{\"stream\":\"bnbusdt@bookTicker\",\"data\":{\"e\":\"bookTicker\",\"u\":400900217,\"E\":1568014460893,"
+                + "\"T\":1568014460891,\"s\":\"BNBUSDT\",\"b\":\"25.3519\",\"B\":\"31.21\",\"a\":\"25.3652\",\"A\":\"40.66\"}}", table), is(true));
+        assertThat(parser.parse("{\"stream\":\"btcusdt@markPrice@1s\",\"data\":{\"e\":\"markPriceUpdate\",\"E\":1562305380000,\"s\":\"BTCUSDT\","
+                + "\"p\":\"11794.15\",\"i\":\"11784.62659091\",\"P\":\"11784.25641265\",\"r\":\"0.00038167\",\"T\":1562306400000}}", table), is(true));
+        // Unsubscribed stream
+        assertThat(parser.parse("{\"stream\":\"ethusdt@aggTrade\",\"data\":{\"e\":\"aggTrade\",\"s\":\"ETHUSDT\"}}", table), is(true));
+
+        assertThat(events, is(List.of("SYM42USDT 0.001 100.0 true", "BNBUSDT 25.3519/25.3652", "BTCUSDT 11794.15 3.8167E-4")));
+    }
+
+    public void testSubscribeResponseIsNotData() throws IOException {
+        assertThat(parser.parse("{\"result\":null,\"id\":1}", StreamTable.EMPTY), is(false));
+    }
+
+    public void testShardByStreamLimit() {
+        var manager = new SubscriptionManager(BinanceConfig.builder()
+                .exchangeName("test")
+                .maxStreamsPerConnection(2)
+                .build(), new WebSocketClient());
+        var subscriptions = new ArrayList<Subscription>();
+        for (var symbol : List.of("BTCUSDT", "ETHUSDT", "BNBUSDT", "XRPUSDT", "ADAUSDT")) {
+            subscriptions.add(manager.subscribe(new Subscription(symbol, StreamType.BOOK_TICKER, listener, null)));
+        }
+        assertThat(manager.getConnectionCount(), is(3));
+        assertThat(subscriptions.get(4).getShard().size(), is(1));
+
+        manager.unsubscribe(subscriptions.get(0));
+        manager.subscribe(new Subscription("SOLUSDT", StreamType.BOOK_TICKER, listener, null));
+        assertThat(manager.getConnectionCount(), is(3));
+        assertThat(subscriptions.get(1).getShard().size(), is(2));
+    }
+
+    public void testDuplicateStream() {
+        var manager = new SubscriptionManager(BinanceConfig.builder().exchangeName("test").build(), new WebSocketClient());
+        manager.subscribe(new Subscription("BTCUSDT", StreamType.AGG_TRADE, listener, null));
+        try {
+            manager.subscribe(new Subscription("btcusdt", StreamType.AGG_TRADE, listener, null));
+            fail("Stream is subscribed twice");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), is("Stream is already subscribed: btcusdt@aggTrade"));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.pblinov.binance.futures.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.TreeMap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class WebSocketTradingExchangeTest extends TestCase {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HmacSigner signer = new HmacSigner("2b5eb11e18796d12d88f13dc27dbbd02c2cc51ff7059765ed9821957d82bb4d9");
+
+    public void testRequestIsSignedOverSortedParams() throws IOException {
+        var params = new TreeMap<String, String>();
+        params.put("symbol", "BTCUSDT");
+        params.put("origClientOrderId", "order-1");
+        params.put("timestamp", "1591702613943");
+        params.put("apiKey", "key");
+
+        var request = mapper.readTree(WebSocketTradingExchange.request(mapper, signer, 7, "order.status", params));
+
+        assertThat(request.get("id").asLong(), is(7L));
+        assertThat(request.get("method").asText(), is("order.status"));
+        assertThat(request.get("params").get("symbol").asText(), is("BTCUSDT"));
+        assertThat(request.get("params").get("signature").asText(),
+                is(signer.sign("apiKey=key&origClientOrderId=order-1&symbol=BTCUSDT&timestamp=1591702613943")));
+    }
+
+    public void testRawValuesAreSigned() throws IOException {
+        var params = new TreeMap<String, String>();
+        params.put("symbol", "BTCUSDT");
+        params.put("newClientOrderId", "a b/c:1&x=y");
+        params.put("timestamp", "1591702613943");
+        params.put("apiKey", "key");
+
+        var request = mapper.readTree(WebSocketTradingExchange.request(mapper, signer, 8, "order.place", params));
+
+        assertThat(request.get("params").get("newClientOrderId").asText(), is("a b/c:1&x=y"));
+        assertThat(request.get("params").get("signature").asText(),
+                is(signer.sign("apiKey=key&newClientOrderId=a b/c:1&x=y&symbol=BTCUSDT&timestamp=1591702613943")));
+    }
+}
@@ -0,0 +1,73 @@
+package com.pblinov.binance.futures.api;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User data stream message from {@code onWebSocketText} to {@link EventListener}: parsing, deduplication and dispatch.
+ * In RING mode only the WebSocket thread side is measured.
+ * Run with {@code gradle :jmh:jmh -Pbenchmark=DispatchBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+    @Param({"INLINE", "RING"})
+    private DispatchConfig.Mode mode;
+    private BinanceWebSocket webSocket;
+    private BinanceWebSocket.Connection connection;
+    private String message;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) throws Exception {
+        var config = BinanceConfig.builder()
+                .exchangeName("benchmark")
+                .httpUrl("http://localhost")
+                .wsUrl("ws://localhost")
+                .apiSecret("secret")
+                .dispatch(DispatchConfig.builder()
+                        .mode(mode)
+                        .waitStrategy(DispatchConfig.WaitStrategy.YIELDING)
+                        .build())
+                .build();
+        var rest = new BinanceRest(config, new HttpClient());
+        var orderCache = new OrderCache(config.getOrderCacheCapacity(), config.getOrderCacheTtl(), () -> true);
+        webSocket = new BinanceWebSocket(new HttpClient(), config, rest, orderCache, new AccountStore(), blackhole::consume, Metrics.NOOP, null);
+        webSocket.start();
+        connection = webSocket.new Connection(null);
+        message = EventParserBenchmark.resource("dto/orderTradeUpdateReal.json");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        webSocket.stop();
+    }
+
+    /**
+     * The same message is a duplicate after the first one, so deduplication is part of the measured path
+     * only when overlap is enabled, see {@link ReconnectConfig#isOverlap()}.
+     */
+    @Benchmark
+    public void onWebSocketText() throws IOException {
+        connection.onWebSocketText(message);
+    }
+}
@@ -0,0 +1,77 @@
+package com.pblinov.binance.futures.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pblinov.binance.futures.api.dto.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * User data stream events: {@code ObjectMapper.readValue(message, Event.class)} vs {@link EventParser}.
+ * Run with {@code gradle :jmh:jmh -Pbenchmark=EventParserBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventParserBenchmark {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final EventParser parser = new EventParser();
+    private String orderTradeUpdate;
+    private String accountUpdate;
+    private ByteBuffer orderTradeUpdateBuffer;
+
+    @Setup
+    public void setUp() throws IOException {
+        orderTradeUpdate = resource("dto/orderTradeUpdateReal.json");
+        accountUpdate = resource("dto/accountUpdate.json");
+        var bytes = orderTradeUpdate.getBytes(UTF_8);
+        orderTradeUpdateBuffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+    }
+
+    @Benchmark
+    public Event jacksonOrderTradeUpdate() throws IOException {
+        return mapper.readValue(orderTradeUpdate, Event.class);
+    }
+
+    @Benchmark
+    public Event jacksonAccountUpdate() throws IOException {
+        return mapper.readValue(accountUpdate, Event.class);
+    }
+
+    @Benchmark
+    public Event parserOrderTradeUpdate() throws IOException {
+        return parser.parse(orderTradeUpdate);
+    }
+
+    @Benchmark
+    public Event parserOrderTradeUpdateBuffer() throws IOException {
+        return parser.parse(orderTradeUpdateBuffer);
+    }
+
+    @Benchmark
+    public Event parserAccountUpdate() throws IOException {
+        return parser.parse(accountUpdate);
+    }
+
+    static String resource(String name) throws IOException {
+        try (var stream = EventParserBenchmark.class.getResourceAsStream(name)) {
+            return new String(stream.readAllBytes(), UTF_8);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.pblinov.binance.futures.api;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Cost of journaling a user data stream message on the WebSocket thread, segments roll over during the run.
+ * Compare with {@link DispatchBenchmark}. Run with {@code gradle :jmh:jmh -Pbenchmark=JournalBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+    private Path directory;
+    private Journal journal;
+    private String message;
+    private ByteBuffer buffer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-benchmark");
+        journal = new Journal("benchmark", JournalConfig.builder()
+                .directory(directory)
+                .build());
+        journal.open();
+        message = EventParserBenchmark.resource("dto/orderTradeUpdateReal.json");
+        buffer = ByteBuffer.allocateDirect(message.length()).put(message.getBytes(UTF_8)).flip();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        try (var files = Files.walk(directory)) {
+            for (var file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void appendText() {
+        journal.append(JournalRecordType.USER_STREAM, System.nanoTime(), message);
+    }
+
+    @Benchmark
+    public void appendBuffer() {
+        journal.append(JournalRecordType.USER_STREAM, System.nanoTime(), buffer);
+    }
+}
@@ -0,0 +1,55 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.OrderType;
+import com.pblinov.binance.futures.api.dto.Side;
+import com.pblinov.binance.futures.api.dto.TimeInForce;
+import org.eclipse.jetty.client.HttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signed parameters of a new order: {@link BinanceRest} query building vs string concatenation and {@link SignatureUtils}.
+ * Run with {@code gradle :jmh:jmh -Pbenchmark=QueryBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+    private static final String SECRET = "2b5eb11e18796d12d88f13dc27dbbd02c2cc51ff7059765ed9821957d82bb4d9";
+
+    private final HmacSigner signer = new HmacSigner(SECRET);
+    private final BinanceRest rest = new BinanceRest(BinanceConfig.builder()
+            .exchangeName("benchmark")
+            .httpUrl("http://localhost")
+            .apiSecret(SECRET)
+            .build(), new HttpClient());
+    private long timestamp = 1591702613943L;
+
+    @Benchmark
+    public QueryBuilder queryBuilder() {
+        return rest.withTimestamp(rest.placeOrderParams("BTCUSDT", "order-" + timestamp, OrderType.LIMIT, Side.BUY, 0.012, 28501.2, TimeInForce.GTC))
+                .sign(signer);
+    }
+
+    @Benchmark
+    public String stringConcatenation() throws NoSuchAlgorithmException, InvalidKeyException {
+        var query = "symbol=BTCUSDT&newClientOrderId=order-" + timestamp + "&side=" + Side.BUY + "&type=" + OrderType.LIMIT
+                + "&quantity=" + 0.012 + "&price=" + 28501.2 + "&timeInForce=" + TimeInForce.GTC
+                + "&recvWindow=5000&timestamp=" + timestamp++;
+        return query + "&signature=" + SignatureUtils.sign(query, SECRET);
+    }
+}
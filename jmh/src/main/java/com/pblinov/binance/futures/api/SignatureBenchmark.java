@@ -0,0 +1,52 @@
+package com.pblinov.binance.futures.api;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * {@link SignatureUtils#sign} vs {@link HmacSigner}.
+ * Run with {@code gradle :jmh:jmh -Pbenchmark=SignatureBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignatureBenchmark {
+    private static final String SECRET = "2b5eb11e18796d12d88f13dc27dbbd02c2cc51ff7059765ed9821957d82bb4d9";
+    private static final String QUERY = "symbol=BTCUSDT&side=BUY&type=LIMIT&quantity=1&price=9000&timeInForce=GTC&recvWindow=5000&timestamp=1591702613943";
+
+    private final HmacSigner signer = new HmacSigner(SECRET);
+    private final byte[] query = QUERY.getBytes(US_ASCII);
+    private final char[] signature = new char[HmacSigner.SIGNATURE_LENGTH];
+
+    @Benchmark
+    public String signatureUtils() throws NoSuchAlgorithmException, InvalidKeyException {
+        return SignatureUtils.sign(QUERY, SECRET);
+    }
+
+    @Benchmark
+    public String hmacSigner() {
+        return signer.sign(QUERY);
+    }
+
+    @Benchmark
+    public char[] hmacSignerBytes() {
+        signer.sign(query, 0, query.length, signature, 0);
+        return signature;
+    }
+}
@@ -0,0 +1,256 @@
+package com.pblinov.binance.futures.loadtest;
+
+import com.pblinov.binance.futures.api.BinanceConfig;
+import com.pblinov.binance.futures.api.BinanceExchange;
+import com.pblinov.binance.futures.api.DispatchConfig;
+import com.pblinov.binance.futures.api.Metrics;
+import com.pblinov.binance.futures.api.ProcessingException;
+import com.pblinov.binance.futures.api.RateLimitConfig;
+import com.pblinov.binance.futures.api.dto.ExecutionType;
+import com.pblinov.binance.futures.api.dto.Order;
+import com.pblinov.binance.futures.api.dto.OrderUpdateEvent;
+import com.pblinov.binance.futures.mock.MockBinanceServer;
+import com.pblinov.binance.futures.mock.MockConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.pblinov.binance.futures.api.dto.OrderType.LIMIT;
+import static com.pblinov.binance.futures.api.dto.Side.BUY;
+import static com.pblinov.binance.futures.api.dto.Side.SELL;
+import static com.pblinov.binance.futures.api.dto.TimeInForce.GTC;
+
+/**
+ * Drives {@link BinanceExchange} against {@link MockBinanceServer} at a fixed order rate and reports
+ * place-to-ack (REST response) and place-to-event (NEW over user data stream) latencies,
+ * followed by client-side phases from {@link BinanceExchange#getMetricsStats()}.
+ * <p>
+ * Orders are sent open-loop: latency is measured from the time the order was due, not from the actual send,
+ * so a stalled client doesn't hide its own queueing delay (coordinated omission).
+ * Buy and sell orders alternate at the same price, so every other order is filled and the book stays small.
+ * <p>
+ * Arguments are {@code name=value} pairs: rate (orders per second), duration, warmup, latency, jitter,
+ * invalidSymbolRate, tooManyRequestsRate, serverErrorRate, dispatch (INLINE or RING).
+ */
+@Slf4j
+public class LoadGenerator {
+    private static final String SYMBOL = "BTCUSDT";
+    private static final String ID_PREFIX = "lt-";
+    private static final long MAX_LATENCY = TimeUnit.MINUTES.toNanos(1);
+
+    private final BinanceExchange exchange;
+    private final int rate;
+    private final Duration duration;
+    private final Duration warmup;
+    private final Recorder ackLatency = new Recorder(MAX_LATENCY, 3);
+    private final Recorder eventLatency = new Recorder(MAX_LATENCY, 3);
+    private final AtomicLong acks = new AtomicLong();
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong rejects = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final Map<Long, AtomicLong> rejectCodes = new HashMap<>();
+    private final CountDownLatch probe = new CountDownLatch(1);
+    private long[] dueTimes = new long[0];
+    private int measuredFrom;
+
+    LoadGenerator(BinanceConfig.BinanceConfigBuilder config, int rate, Duration duration, Duration warmup) {
+        this.exchange = new BinanceExchange(config.build(), this::onOrderUpdate);
+        this.rate = rate;
+        this.duration = duration;
+        this.warmup = warmup;
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = new HashMap<String, String>();
+        for (var arg : args) {
+            int index = arg.indexOf('=');
+            options.put(arg.substring(0, index), arg.substring(index + 1));
+        }
+
+        var mockConfig = MockConfig.builder()
+                .latency(duration(options.getOrDefault("latency", "0ms")))
+                .latencyJitter(duration(options.getOrDefault("jitter", "0ms")))
+                .invalidSymbolRate(Double.parseDouble(options.getOrDefault("invalidSymbolRate", "0")))
+                .tooManyRequestsRate(Double.parseDouble(options.getOrDefault("tooManyRequestsRate", "0")))
+                .serverErrorRate(Double.parseDouble(options.getOrDefault("serverErrorRate", "0")))
+                .build();
+        var server = new MockBinanceServer(mockConfig);
+        server.start();
+        try {
+            var config = BinanceConfig.builder()
+                    .exchangeName("loadtest")
+                    .httpUrl(server.getHttpUrl())
+                    .wsUrl(server.getWsUrl())
+                    .apiKey(mockConfig.getApiKey())
+                    .apiSecret(mockConfig.getApiSecret())
+                    .dispatch(DispatchConfig.builder()
+                            .mode(DispatchConfig.Mode.valueOf(options.getOrDefault("dispatch", "INLINE")))
+                            .build())
+                    // Limits of the real exchange would cap the rate, the mock doesn't enforce them
+                    .rateLimit(RateLimitConfig.builder()
+                            .weightPerMinute(10_000_000)
+                            .ordersPer10Seconds(10_000_000)
+                            .ordersPerMinute(10_000_000)
+                            .build());
+            var generator = new LoadGenerator(config,
+                    Integer.parseInt(options.getOrDefault("rate", "500")),
+                    duration(options.getOrDefault("duration", "30s")),
+                    duration(options.getOrDefault("warmup", "5s")));
+            generator.run();
+            log.info("Mock server: {} order requests, {} injected errors, {} events",
+                    server.getOrderRequests(), server.getInjectedErrors(), server.getEvents());
+        } finally {
+            server.stop();
+        }
+    }
+
+    void run() throws Exception {
+        exchange.start();
+        try {
+            exchange.connect();
+            awaitStream();
+
+            long total = (warmup.toNanos() + duration.toNanos()) * rate / TimeUnit.SECONDS.toNanos(1);
+            measuredFrom = (int) (warmup.toNanos() * rate / TimeUnit.SECONDS.toNanos(1));
+            dueTimes = new long[(int) total];
+            log.info("Sending {} orders at {}/s, {} of them during warmup", total, rate, measuredFrom);
+            send();
+            awaitCompletion(total - measuredFrom);
+            report();
+        } finally {
+            exchange.stop();
+        }
+    }
+
+    /**
+     * User data stream is live once it delivers an event of a probe order.
+     */
+    private void awaitStream() throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            var clientOrderId = "probe-" + i;
+            exchange.placeOrder(SYMBOL, clientOrderId, LIMIT, BUY, 0.001, 1.0, GTC);
+            exchange.cancelOrder(SYMBOL, clientOrderId);
+            if (probe.await(200, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+        throw new IllegalStateException("User data stream doesn't deliver events");
+    }
+
+    private void send() {
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        for (int i = 0; i < dueTimes.length; i++) {
+            long due = start + i * interval;
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            dueTimes[i] = due;
+            int seq = i;
+            exchange.placeOrderAsync(SYMBOL, ID_PREFIX + i, LIMIT, i % 2 == 0 ? BUY : SELL, 0.001, 100.0, GTC)
+                    .whenComplete((order, e) -> onAck(seq, order, e));
+        }
+    }
+
+    private void onAck(int seq, Order order, Throwable e) {
+        long latency = System.nanoTime() - dueTimes[seq];
+        if (seq < measuredFrom) {
+            return;
+        }
+        if (e == null) {
+            acks.incrementAndGet();
+            ackLatency.recordValue(Math.min(latency, MAX_LATENCY));
+            return;
+        }
+        var cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof ProcessingException) {
+            rejects.incrementAndGet();
+            synchronized (rejectCodes) {
+                rejectCodes.computeIfAbsent(((ProcessingException) cause).getCode(), ignored -> new AtomicLong()).incrementAndGet();
+            }
+        } else {
+            failures.incrementAndGet();
+            log.debug("Order {} failed: {}", seq, cause.toString());
+        }
+    }
+
+    private void onOrderUpdate(OrderUpdateEvent event) {
+        var update = event.getPayload();
+        if (update.getExecutionType() != ExecutionType.NEW) {
+            return;
+        }
+        var clientOrderId = update.getClientOrderId();
+        if (!clientOrderId.startsWith(ID_PREFIX)) {
+            probe.countDown();
+            return;
+        }
+        int seq = Integer.parseInt(clientOrderId, ID_PREFIX.length(), clientOrderId.length(), 10);
+        if (seq >= measuredFrom && seq < dueTimes.length) {
+            events.incrementAndGet();
+            eventLatency.recordValue(Math.min(System.nanoTime() - dueTimes[seq], MAX_LATENCY));
+        }
+    }
+
+    private void awaitCompletion(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (acks.get() + rejects.get() + failures.get() < expected && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        // Events of accepted orders may come after their responses
+        while (events.get() < acks.get() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+
+    private void report() {
+        log.info("Accepted: {}, rejected: {} {}, failed: {}, events: {}", acks.get(), rejects.get(), rejectCodes, failures.get(), events.get());
+        log.info("Throughput: {} orders/s", acks.get() * TimeUnit.SECONDS.toNanos(1) / duration.toNanos());
+        report("Place-to-ack", ackLatency.getIntervalHistogram());
+        report("Place-to-event", eventLatency.getIntervalHistogram());
+        // Client-side breakdown, including warmup
+        var stats = exchange.getMetricsStats();
+        for (var timer : Metrics.Timer.values()) {
+            report(timer.name(), stats.getHistogram(timer));
+        }
+        for (var counter : Metrics.Counter.values()) {
+            log.info("{}: {}", counter.name(), stats.getCount(counter));
+        }
+    }
+
+    private static void report(String name, Histogram histogram) {
+        log.info("{} (us): p50={} p99={} p999={} max={} count={}", name,
+                micros(histogram.getValueAtPercentile(50)),
+                micros(histogram.getValueAtPercentile(99)),
+                micros(histogram.getValueAtPercentile(99.9)),
+                micros(histogram.getMaxValue()),
+                histogram.getTotalCount());
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    /**
+     * @param value number with unit: ms, s or m
+     */
+    static Duration duration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        } else if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        } else if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        throw new IllegalArgumentException("Unknown duration unit: " + value);
+    }
+}
@@ -0,0 +1,124 @@
+package com.pblinov.binance.futures.loadtest;
+
+import com.pblinov.binance.futures.api.DispatchConfig;
+import com.pblinov.binance.futures.api.MarketDataListener;
+import com.pblinov.binance.futures.api.Replay;
+import com.pblinov.binance.futures.api.ReplayConfig;
+import com.pblinov.binance.futures.api.ReplayMessage;
+import com.pblinov.binance.futures.api.dto.AggTradeEvent;
+import com.pblinov.binance.futures.api.dto.BookTickerEvent;
+import com.pblinov.binance.futures.api.dto.MarkPriceEvent;
+import com.pblinov.binance.futures.api.dto.OrderUpdateEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput benchmark of parsing and dispatch: replays a recording through {@link Replay} and reports
+ * messages per second and per-message latency.
+ * <p>
+ * Arguments are {@code name=value} pairs: source (journal directory or file with one JSON message per line,
+ * bundled sample by default), events (total number of messages, the recording is repeated), speed (0 for
+ * as fast as possible, 1 for recorded pace), dispatch (INLINE or RING).
+ */
+@Slf4j
+public class ReplayRunner implements MarketDataListener {
+    private static final String SAMPLE = "/replay/sample.jsonl";
+
+    private long orderUpdates;
+    private long marketData;
+    private double checksum;
+
+    public static void main(String[] args) throws Exception {
+        var options = new HashMap<String, String>();
+        for (var arg : args) {
+            int index = arg.indexOf('=');
+            options.put(arg.substring(0, index), arg.substring(index + 1));
+        }
+
+        var messages = load(options.get("source"));
+        if (messages.isEmpty()) {
+            throw new IllegalArgumentException("Recording is empty");
+        }
+        long events = Long.parseLong(options.getOrDefault("events", "1000000"));
+        var config = ReplayConfig.builder()
+                .dispatch(DispatchConfig.builder()
+                        .mode(DispatchConfig.Mode.valueOf(options.getOrDefault("dispatch", "INLINE")))
+                        .waitStrategy(DispatchConfig.WaitStrategy.YIELDING)
+                        .build())
+                .speed(Double.parseDouble(options.getOrDefault("speed", "0")))
+                .repeat((int) Math.max(1, (events + messages.size() - 1) / messages.size()))
+                .build();
+
+        var runner = new ReplayRunner();
+        log.info("Replaying {} messages {} times, {} dispatch", messages.size(), config.getRepeat(), config.getDispatch().getMode());
+        var result = new Replay(config, runner::onOrderUpdate, runner).replay(messages);
+
+        log.info("Messages: {}, order updates: {}, market data: {}, elapsed: {}ms", result.getMessages(),
+                runner.orderUpdates, runner.marketData, TimeUnit.NANOSECONDS.toMillis(result.getElapsedNanos()));
+        log.info("Throughput: {} messages/s", result.getMessagesPerSecond());
+        report("User data stream (ns)", result.getUserStreamLatency());
+        report("Market data (ns)", result.getMarketDataLatency());
+        log.debug("Checksum: {}", runner.checksum);
+    }
+
+    private static List<ReplayMessage> load(String source) throws IOException {
+        if (source == null) {
+            var file = Files.createTempFile("replay", ".jsonl");
+            try (InputStream input = Objects.requireNonNull(ReplayRunner.class.getResourceAsStream(SAMPLE))) {
+                Files.write(file, input.readAllBytes());
+                return Replay.readLines(file);
+            } finally {
+                Files.delete(file);
+            }
+        }
+        var path = Path.of(source);
+        return Files.isDirectory(path) ? Replay.readJournal(path) : Replay.readLines(path);
+    }
+
+    private static void report(String name, Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return;
+        }
+        log.info("{}: p50={} p99={} p999={} max={} count={}", name,
+                histogram.getValueAtPercentile(50),
+                histogram.getValueAtPercentile(99),
+                histogram.getValueAtPercentile(99.9),
+                histogram.getMaxValue(),
+                histogram.getTotalCount());
+    }
+
+    /**
+     * Listeners touch event values, so parsing isn't optimized away.
+     */
+    private void onOrderUpdate(OrderUpdateEvent event) {
+        orderUpdates++;
+        checksum += event.getPayload().getLastFilledQty();
+    }
+
+    @Override
+    public void onAggTrade(AggTradeEvent aggTrade) {
+        marketData++;
+        checksum += aggTrade.getPrice();
+    }
+
+    @Override
+    public void onBookTicker(BookTickerEvent bookTicker) {
+        marketData++;
+        checksum += bookTicker.getBidPrice();
+    }
+
+    @Override
+    public void onMarkPrice(MarkPriceEvent markPrice) {
+        marketData++;
+        checksum += markPrice.getMarkPrice();
+    }
+}
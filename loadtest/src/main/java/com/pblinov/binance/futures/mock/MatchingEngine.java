@@ -0,0 +1,179 @@
+package com.pblinov.binance.futures.mock;
+
+import com.pblinov.binance.futures.api.dto.ExecutionType;
+import com.pblinov.binance.futures.api.dto.OrderStatus;
+import com.pblinov.binance.futures.api.dto.OrderType;
+import com.pblinov.binance.futures.api.dto.Side;
+import com.pblinov.binance.futures.api.dto.TimeInForce;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Price-time priority matching of own orders against each other, one book per symbol.
+ * Every state change is reported to the listener while the engine is locked, so updates are published in order.
+ */
+class MatchingEngine {
+    private final Listener listener;
+    private final Map<String, Book> books = new HashMap<>();
+    private final Map<String, MockOrder> orders = new HashMap<>();
+    private long lastOrderId;
+    private long lastTradeId;
+
+    MatchingEngine(Collection<String> symbols, Listener listener) {
+        this.listener = listener;
+        for (var symbol : symbols) {
+            books.put(symbol, new Book());
+        }
+    }
+
+    synchronized MockOrder place(String symbol, String clientOrderId, Side side, OrderType type, TimeInForce timeInForce,
+                                 double price, double qty, long time) {
+        var book = book(symbol);
+        if (orders.containsKey(clientOrderId)) {
+            throw MockException.badRequest(-4116, "ClientOrderId is duplicated.");
+        }
+        if (qty <= 0) {
+            throw MockException.badRequest(-4003, "Quantity less than or equal to zero.");
+        }
+        if (type != OrderType.MARKET && price <= 0) {
+            throw MockException.badRequest(-4001, "Price less than 0.");
+        }
+        var order = new MockOrder(++lastOrderId, symbol, clientOrderId, side, type, timeInForce, price, qty, time);
+        orders.put(clientOrderId, order);
+        listener.onUpdate(order, ExecutionType.NEW, 0, 0, 0);
+
+        var opposite = side == Side.BUY ? book.asks : book.bids;
+        if (timeInForce == TimeInForce.GTX && crosses(order, opposite)) {
+            // Post only order would take liquidity
+            expire(order, time);
+        } else if (timeInForce == TimeInForce.FOK && available(order, opposite) < qty) {
+            expire(order, time);
+        } else {
+            match(order, opposite, time);
+            if (order.getLeavesQty() > 0) {
+                if (type == OrderType.MARKET || timeInForce == TimeInForce.IOC || timeInForce == TimeInForce.FOK) {
+                    expire(order, time);
+                } else {
+                    (side == Side.BUY ? book.bids : book.asks).computeIfAbsent(price, ignored -> new ArrayDeque<>()).add(order);
+                }
+            }
+        }
+        return order;
+    }
+
+    synchronized MockOrder cancel(String symbol, String clientOrderId, long time) {
+        var order = orders.get(clientOrderId);
+        if (order == null || !order.getSymbol().equals(symbol) || order.getStatus().isFinal()) {
+            throw MockException.badRequest(-2011, "Unknown order sent.");
+        }
+        var book = book(symbol);
+        var levels = order.getSide() == Side.BUY ? book.bids : book.asks;
+        var level = levels.get(order.getPrice());
+        if (level != null) {
+            level.remove(order);
+            if (level.isEmpty()) {
+                levels.remove(order.getPrice());
+            }
+        }
+        order.close(OrderStatus.CANCELED, time);
+        listener.onUpdate(order, ExecutionType.CANCELED, 0, 0, 0);
+        return order;
+    }
+
+    synchronized MockOrder query(String symbol, String clientOrderId) {
+        var order = orders.get(clientOrderId);
+        if (order == null || !order.getSymbol().equals(symbol)) {
+            throw MockException.badRequest(-2013, "Order does not exist.");
+        }
+        return order;
+    }
+
+    synchronized List<MockOrder> openOrders(String symbol) {
+        var result = new ArrayList<MockOrder>();
+        for (var order : orders.values()) {
+            if (!order.getStatus().isFinal() && (symbol == null || order.getSymbol().equals(symbol))) {
+                result.add(order);
+            }
+        }
+        return result;
+    }
+
+    private Book book(String symbol) {
+        var book = books.get(symbol);
+        if (book == null) {
+            throw MockException.badRequest(-1121, "Invalid symbol.");
+        }
+        return book;
+    }
+
+    private void match(MockOrder taker, TreeMap<Double, ArrayDeque<MockOrder>> opposite, long time) {
+        while (taker.getLeavesQty() > 0 && crosses(taker, opposite)) {
+            var best = opposite.firstEntry();
+            var level = best.getValue();
+            var maker = level.peek();
+            double qty = Math.min(taker.getLeavesQty(), maker.getLeavesQty());
+            double price = best.getKey();
+            long tradeId = ++lastTradeId;
+            maker.fill(qty, price, time);
+            taker.fill(qty, price, time);
+            if (maker.getLeavesQty() <= 0) {
+                level.poll();
+                if (level.isEmpty()) {
+                    opposite.pollFirstEntry();
+                }
+            }
+            listener.onUpdate(maker, ExecutionType.TRADE, qty, price, tradeId);
+            listener.onUpdate(taker, ExecutionType.TRADE, qty, price, tradeId);
+        }
+    }
+
+    private static boolean crosses(MockOrder order, TreeMap<Double, ArrayDeque<MockOrder>> opposite) {
+        if (opposite.isEmpty()) {
+            return false;
+        }
+        if (order.getType() == OrderType.MARKET) {
+            return true;
+        }
+        double best = opposite.firstKey();
+        return order.getSide() == Side.BUY ? order.getPrice() >= best : order.getPrice() <= best;
+    }
+
+    private static double available(MockOrder order, TreeMap<Double, ArrayDeque<MockOrder>> opposite) {
+        double qty = 0;
+        for (var level : opposite.entrySet()) {
+            boolean crosses = order.getType() == OrderType.MARKET
+                    || (order.getSide() == Side.BUY ? order.getPrice() >= level.getKey() : order.getPrice() <= level.getKey());
+            if (!crosses) {
+                break;
+            }
+            for (var maker : level.getValue()) {
+                qty += maker.getLeavesQty();
+            }
+        }
+        return qty;
+    }
+
+    private void expire(MockOrder order, long time) {
+        order.close(OrderStatus.EXPIRED, time);
+        listener.onUpdate(order, ExecutionType.EXPIRED, 0, 0, 0);
+    }
+
+    /**
+     * Levels are sorted from the best price.
+     */
+    private static class Book {
+        private final TreeMap<Double, ArrayDeque<MockOrder>> bids = new TreeMap<>(Comparator.reverseOrder());
+        private final TreeMap<Double, ArrayDeque<MockOrder>> asks = new TreeMap<>();
+    }
+
+    interface Listener {
+        void onUpdate(MockOrder order, ExecutionType executionType, double lastQty, double lastPrice, long tradeId);
+    }
+}
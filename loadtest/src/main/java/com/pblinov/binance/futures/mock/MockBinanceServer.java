@@ -0,0 +1,534 @@
+package com.pblinov.binance.futures.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pblinov.binance.futures.api.dto.ExecutionType;
+import com.pblinov.binance.futures.api.dto.OrderType;
+import com.pblinov.binance.futures.api.dto.Side;
+import com.pblinov.binance.futures.api.dto.TimeInForce;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Hex;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WebSocketListener;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.server.JettyServerUpgradeRequest;
+import org.eclipse.jetty.websocket.server.JettyServerUpgradeResponse;
+import org.eclipse.jetty.websocket.server.config.JettyWebSocketServletContainerInitializer;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Embedded stand-in for Binance futures API, enough for {@code BinanceExchange} to trade against it:
+ * <ul>
+ *     <li>GET /fapi/v1/ping, /time, /exchangeInfo</li>
+ *     <li>POST/PUT/DELETE /fapi/v1/listenKey</li>
+ *     <li>POST/GET/DELETE /fapi/v1/order and GET /fapi/v1/openOrders, signed</li>
+ *     <li>GET /fapi/v2/balance and /fapi/v2/positionRisk with a fixed balance and flat positions, signed</li>
+ *     <li>user data stream on /ws/{listenKey} with ORDER_TRADE_UPDATE events</li>
+ * </ul>
+ * Orders are matched against each other by {@link MatchingEngine}. Signature is checked over query string
+ * concatenated with request body, as Binance does. Latency and errors are injected according to {@link MockConfig},
+ * user data streams can be dropped and refused to exercise reconnects.
+ */
+@Slf4j
+public class MockBinanceServer {
+    private static final String BASE_PATH = "/fapi/v1";
+    private static final String BASE_PATH_V2 = "/fapi/v2";
+    private static final String API_KEY_HEADER = "X-MBX-APIKEY";
+    private static final String SIGNATURE = "signature=";
+
+    private final MockConfig config;
+    private final Server server;
+    private final ServerConnector connector;
+    private final MatchingEngine engine;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+    private final Set<String> listenKeys = ConcurrentHashMap.newKeySet();
+    private final Set<Session> sessions = new CopyOnWriteArraySet<>();
+    private final ThreadLocal<Mac> macs;
+    private final AtomicLong orderRequests = new AtomicLong();
+    private final AtomicLong queryRequests = new AtomicLong();
+    private final AtomicLong cancelRequests = new AtomicLong();
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile MockException failure;
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong userStreamConnects = new AtomicLong();
+    private volatile boolean userStreamAvailable = true;
+
+    public MockBinanceServer(MockConfig config) {
+        this.config = config;
+        this.engine = new MatchingEngine(config.getSymbols(), this::publish);
+        this.macs = ThreadLocal.withInitial(() -> mac(config.getApiSecret()));
+        this.server = new Server();
+        this.connector = new ServerConnector(server);
+        connector.setPort(config.getPort());
+        server.addConnector(connector);
+
+        var context = new ServletContextHandler();
+        context.setContextPath("/");
+        context.addServlet(new ServletHolder(new RestServlet()), BASE_PATH + "/*");
+        context.addServlet(new ServletHolder(new RestServlet()), BASE_PATH_V2 + "/*");
+        JettyWebSocketServletContainerInitializer.configure(context, (servletContext, container) ->
+                container.addMapping("/ws/*", this::userStream));
+        server.setHandler(context);
+    }
+
+    public void start() throws Exception {
+        server.start();
+        log.info("Mock Binance is listening on port {}", connector.getLocalPort());
+    }
+
+    public void stop() throws Exception {
+        scheduler.shutdownNow();
+        server.stop();
+    }
+
+    public String getHttpUrl() {
+        return "http://localhost:" + connector.getLocalPort();
+    }
+
+    public String getWsUrl() {
+        return "ws://localhost:" + connector.getLocalPort();
+    }
+
+    public MockConfig getConfig() {
+        return config;
+    }
+
+    public long getOrderRequests() {
+        return orderRequests.get();
+    }
+
+    public long getQueryRequests() {
+        return queryRequests.get();
+    }
+
+    public long getCancelRequests() {
+        return cancelRequests.get();
+    }
+
+    /**
+     * Next {@code count} order queries and cancels fail with the given error, in addition to random errors of {@link MockConfig}.
+     */
+    public void failNext(int count, int status, long code, String message) {
+        failure = new MockException(status, code, message);
+        failures.set(count);
+    }
+
+    public long getInjectedErrors() {
+        return injectedErrors.get();
+    }
+
+    /**
+     * @return number of ORDER_TRADE_UPDATE events sent to user data streams
+     */
+    public long getEvents() {
+        return events.get();
+    }
+
+    /**
+     * @return number of user data stream connection attempts, including refused ones
+     */
+    public long getUserStreamConnects() {
+        return userStreamConnects.get();
+    }
+
+    /**
+     * New user data stream connections are refused while not available, as during an outage.
+     */
+    public void setUserStreamAvailable(boolean available) {
+        userStreamAvailable = available;
+    }
+
+    /**
+     * Closes all user data stream sessions, events are not delivered until clients reconnect.
+     */
+    public void dropUserStreams() {
+        for (var session : sessions) {
+            session.close(StatusCode.SERVER_ERROR, "Dropped");
+        }
+    }
+
+    /**
+     * Cancels an order bypassing REST API, as if it was canceled by another client.
+     */
+    public void cancelOrder(String symbol, String clientOrderId) {
+        engine.cancel(symbol, clientOrderId, System.currentTimeMillis());
+    }
+
+    private Reply handle(String method, String path, String query, String body, String apiKey) {
+        try {
+            switch (method + " " + path) {
+                case "GET /ping":
+                    return Reply.ok("{}");
+                case "GET /time":
+                    return Reply.ok("{\"serverTime\":" + System.currentTimeMillis() + "}");
+                case "GET /exchangeInfo":
+                    return Reply.ok(exchangeInfo());
+                case "POST /listenKey":
+                    checkApiKey(apiKey);
+                    var listenKey = UUID.randomUUID().toString().replace("-", "");
+                    listenKeys.add(listenKey);
+                    return Reply.ok("{\"listenKey\":\"" + listenKey + "\"}");
+                case "PUT /listenKey":
+                case "DELETE /listenKey":
+                    checkApiKey(apiKey);
+                    return Reply.ok("{}");
+                case "POST /order":
+                    return placeOrder(signed(query, body, apiKey));
+                case "GET /order":
+                    var params = signed(query, body, apiKey);
+                    queryRequests.incrementAndGet();
+                    failIfRequested();
+                    if (config.isInjectQueryErrors()) {
+                        injectErrors();
+                    }
+                    return Reply.ok(order(engine.query(params.get("symbol"), params.get("origClientOrderId"))));
+                case "DELETE /order":
+                    params = signed(query, body, apiKey);
+                    cancelRequests.incrementAndGet();
+                    failIfRequested();
+                    injectErrors();
+                    return Reply.ok(order(engine.cancel(params.get("symbol"), params.get("origClientOrderId"), System.currentTimeMillis())));
+                case "GET /openOrders":
+                    params = signed(query, body, apiKey);
+                    var orders = mapper.createArrayNode();
+                    for (var order : engine.openOrders(params.get("symbol"))) {
+                        orders.add(orderNode(order));
+                    }
+                    return Reply.ok(orders.toString());
+                case "GET /balance":
+                    signed(query, body, apiKey);
+                    return Reply.ok(balances());
+                case "GET /positionRisk":
+                    signed(query, body, apiKey);
+                    return Reply.ok(positions());
+                default:
+                    return Reply.error(new MockException(404, -1, "Unknown endpoint: " + method + " " + path));
+            }
+        } catch (MockException e) {
+            return Reply.error(e);
+        } catch (RuntimeException e) {
+            log.debug("Bad request {} {}: {}", method, path, e.toString());
+            return Reply.error(MockException.badRequest(-1102, "Mandatory parameter was not sent, was empty/null, or malformed."));
+        }
+    }
+
+    private Reply placeOrder(Map<String, String> params) {
+        orderRequests.incrementAndGet();
+        injectErrors();
+        var type = OrderType.valueOf(params.get("type"));
+        var price = params.get("price");
+        var timeInForce = params.get("timeInForce");
+        var order = engine.place(params.get("symbol"),
+                params.getOrDefault("newClientOrderId", "mock_" + UUID.randomUUID()),
+                Side.valueOf(params.get("side")),
+                type,
+                timeInForce != null ? TimeInForce.valueOf(timeInForce) : TimeInForce.GTC,
+                price != null ? Double.parseDouble(price) : 0,
+                Double.parseDouble(params.get("quantity")),
+                System.currentTimeMillis());
+        return Reply.ok(order(order));
+    }
+
+    private void injectErrors() {
+        var random = ThreadLocalRandom.current();
+        if (random.nextDouble() < config.getInvalidSymbolRate()) {
+            injectedErrors.incrementAndGet();
+            throw MockException.badRequest(-1121, "Invalid symbol.");
+        }
+        if (random.nextDouble() < config.getTooManyRequestsRate()) {
+            injectedErrors.incrementAndGet();
+            throw new MockException(429, -1003, "Too many requests.");
+        }
+        if (random.nextDouble() < config.getServerErrorRate()) {
+            injectedErrors.incrementAndGet();
+            throw new MockException(503, -1001, "Internal error; unable to process your request. Please try your request again.");
+        }
+    }
+
+    private void failIfRequested() {
+        if (failures.getAndUpdate(count -> count > 0 ? count - 1 : 0) > 0) {
+            injectedErrors.incrementAndGet();
+            throw failure;
+        }
+    }
+
+    private void checkApiKey(String apiKey) {
+        if (!config.getApiKey().equals(apiKey)) {
+            throw new MockException(401, -2015, "Invalid API-key, IP, or permissions for action.");
+        }
+    }
+
+    /**
+     * @return parameters of the query string and the body, after API key, signature and timestamp are checked
+     */
+    private Map<String, String> signed(String query, String body, String apiKey) {
+        checkApiKey(apiKey);
+        var total = query + body;
+        int index = total.lastIndexOf(SIGNATURE);
+        if (index < 0) {
+            throw MockException.badRequest(-1102, "Mandatory parameter 'signature' was not sent, was empty/null, or malformed.");
+        }
+        // Signature is the last parameter of either the query or the body
+        var payload = total.substring(0, index > 0 && total.charAt(index - 1) == '&' ? index - 1 : index);
+        var signature = total.substring(index + SIGNATURE.length());
+        var expected = Hex.encodeHexString(macs.get().doFinal(payload.getBytes(UTF_8)));
+        if (!MessageDigest.isEqual(expected.getBytes(UTF_8), signature.getBytes(UTF_8))) {
+            throw MockException.badRequest(-1022, "Signature for this request is not valid.");
+        }
+
+        var params = new HashMap<String, String>();
+        parse(query, params);
+        parse(body, params);
+        long timestamp = Long.parseLong(params.get("timestamp"));
+        long recvWindow = Long.parseLong(params.getOrDefault("recvWindow", "5000"));
+        long now = System.currentTimeMillis();
+        if (timestamp > now + 1000 || now - timestamp > recvWindow) {
+            throw MockException.badRequest(-1021, "Timestamp for this request is outside of the recvWindow.");
+        }
+        return params;
+    }
+
+    private static void parse(String query, Map<String, String> params) {
+        if (query.isEmpty()) {
+            return;
+        }
+        for (var param : query.split("&")) {
+            int index = param.indexOf('=');
+            if (index > 0) {
+                params.put(URLDecoder.decode(param.substring(0, index), UTF_8), URLDecoder.decode(param.substring(index + 1), UTF_8));
+            }
+        }
+    }
+
+    private String exchangeInfo() {
+        var info = mapper.createObjectNode();
+        var symbols = info.putArray("symbols");
+        for (var symbol : config.getSymbols()) {
+            var filters = symbols.addObject()
+                    .put("symbol", symbol)
+                    .put("status", "TRADING")
+                    .putArray("filters");
+            filters.addObject().put("filterType", "PRICE_FILTER").put("tickSize", "0.10");
+            filters.addObject().put("filterType", "LOT_SIZE").put("stepSize", "0.001").put("minQty", "0.001").put("maxQty", "1000");
+            filters.addObject().put("filterType", "MIN_NOTIONAL").put("notional", "5");
+        }
+        return info.toString();
+    }
+
+    /**
+     * Matching engine doesn't track balances, so it's the same constant wallet.
+     */
+    private String balances() {
+        var balances = mapper.createArrayNode();
+        balances.addObject()
+                .put("asset", "USDT")
+                .put("balance", "100000")
+                .put("crossWalletBalance", "100000")
+                .put("updateTime", 0);
+        return balances.toString();
+    }
+
+    /**
+     * Matching engine doesn't track positions, so all of them are flat.
+     */
+    private String positions() {
+        var positions = mapper.createArrayNode();
+        for (var symbol : config.getSymbols()) {
+            positions.addObject()
+                    .put("symbol", symbol)
+                    .put("positionAmt", "0")
+                    .put("entryPrice", "0")
+                    .put("unRealizedProfit", "0")
+                    .put("marginType", "cross")
+                    .put("isolatedWallet", "0")
+                    .put("positionSide", "BOTH")
+                    .put("updateTime", 0);
+        }
+        return positions.toString();
+    }
+
+    private String order(MockOrder order) {
+        return orderNode(order).toString();
+    }
+
+    private ObjectNode orderNode(MockOrder order) {
+        return mapper.createObjectNode()
+                .put("orderId", order.getOrderId())
+                .put("symbol", order.getSymbol())
+                .put("status", order.getStatus().name())
+                .put("clientOrderId", order.getClientOrderId())
+                .put("price", Double.toString(order.getPrice()))
+                .put("avgPrice", Double.toString(order.getAvgPrice()))
+                .put("origQty", Double.toString(order.getOrigQty()))
+                .put("executedQty", Double.toString(order.getExecutedQty()))
+                .put("timeInForce", order.getTimeInForce().name())
+                .put("type", order.getType().name())
+                .put("side", order.getSide().name())
+                .put("time", order.getTime())
+                .put("updateTime", order.getUpdateTime());
+    }
+
+    /**
+     * Called by the matching engine under its lock, so events of an order are sent in order.
+     */
+    private void publish(MockOrder order, ExecutionType executionType, double lastQty, double lastPrice, long tradeId) {
+        var message = mapper.createObjectNode()
+                .put("e", "ORDER_TRADE_UPDATE")
+                .put("E", System.currentTimeMillis())
+                .put("T", order.getUpdateTime());
+        message.putObject("o")
+                .put("s", order.getSymbol())
+                .put("c", order.getClientOrderId())
+                .put("S", order.getSide().name())
+                .put("o", order.getType().name())
+                .put("f", order.getTimeInForce().name())
+                .put("q", Double.toString(order.getOrigQty()))
+                .put("p", Double.toString(order.getPrice()))
+                .put("ap", Double.toString(order.getAvgPrice()))
+                .put("x", executionType.name())
+                .put("X", order.getStatus().name())
+                .put("i", order.getOrderId())
+                .put("l", Double.toString(lastQty))
+                .put("z", Double.toString(order.getExecutedQty()))
+                .put("L", Double.toString(lastPrice))
+                .put("T", order.getUpdateTime())
+                .put("t", tradeId);
+        var text = message.toString();
+        for (var session : sessions) {
+            if (session.isOpen()) {
+                session.getRemote().sendString(text, WriteCallback.NOOP);
+                events.incrementAndGet();
+            }
+        }
+    }
+
+    @SneakyThrows
+    private Object userStream(JettyServerUpgradeRequest request, JettyServerUpgradeResponse response) {
+        userStreamConnects.incrementAndGet();
+        if (!userStreamAvailable) {
+            response.sendError(503, "User data stream is not available");
+            return null;
+        }
+        var listenKey = request.getRequestPath().substring("/ws/".length());
+        if (!listenKeys.contains(listenKey)) {
+            response.sendForbidden("Invalid listen key");
+            return null;
+        }
+        return new UserStream();
+    }
+
+    private long delayNanos() {
+        long latency = config.getLatency().toNanos();
+        long jitter = config.getLatencyJitter().toNanos();
+        return jitter > 0 ? latency + ThreadLocalRandom.current().nextLong(jitter) : latency;
+    }
+
+    @SneakyThrows
+    private static Mac mac(String secret) {
+        var mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(UTF_8), "HmacSHA256"));
+        return mac;
+    }
+
+    private static class Reply {
+        private final int status;
+        private final String body;
+
+        Reply(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        static Reply ok(String body) {
+            return new Reply(200, body);
+        }
+
+        static Reply error(MockException e) {
+            return new Reply(e.getStatus(), "{\"code\":" + e.getCode() + ",\"msg\":\"" + e.getMessage() + "\"}");
+        }
+    }
+
+    private class RestServlet extends HttpServlet {
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            var method = request.getMethod();
+            var path = request.getPathInfo();
+            var query = request.getQueryString() != null ? request.getQueryString() : "";
+            var body = new String(request.getInputStream().readAllBytes(), UTF_8);
+            var apiKey = request.getHeader(API_KEY_HEADER);
+
+            long delay = delayNanos();
+            if (delay <= 0) {
+                write(response, handle(method, path, query, body, apiKey));
+                return;
+            }
+            var async = request.startAsync();
+            async.setTimeout(0);
+            scheduler.schedule(() -> {
+                try {
+                    write(response, handle(method, path, query, body, apiKey));
+                } catch (IOException e) {
+                    log.debug("Cannot write response: {}", e.toString());
+                } finally {
+                    async.complete();
+                }
+            }, delay, TimeUnit.NANOSECONDS);
+        }
+
+        private void write(HttpServletResponse response, Reply reply) throws IOException {
+            response.setStatus(reply.status);
+            response.setContentType("application/json");
+            if (reply.status == 429) {
+                response.setHeader("Retry-After", Long.toString(Math.max(1, config.getRetryAfter().toSeconds())));
+            }
+            var bytes = reply.body.getBytes(UTF_8);
+            response.setContentLength(bytes.length);
+            response.getOutputStream().write(bytes);
+        }
+    }
+
+    private class UserStream implements WebSocketListener {
+        private Session session;
+
+        @Override
+        public void onWebSocketConnect(Session session) {
+            this.session = session;
+            sessions.add(session);
+        }
+
+        @Override
+        public void onWebSocketClose(int statusCode, String reason) {
+            sessions.remove(session);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.pblinov.binance.futures.mock;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Behaviour of {@link MockBinanceServer}. Error rates are probabilities of an injected error per order request.
+ */
+@Builder
+@Getter
+public class MockConfig {
+    public static final MockConfig DEFAULT = MockConfig.builder().build();
+
+    /**
+     * 0 binds a free port.
+     */
+    private final int port;
+    @Builder.Default
+    private final String apiKey = "mock-api-key";
+    @Builder.Default
+    private final String apiSecret = "mock-api-secret";
+    @Builder.Default
+    private final List<String> symbols = List.of("BTCUSDT", "ETHUSDT");
+    /**
+     * Delay before REST response, the order is matched after the delay.
+     */
+    @Builder.Default
+    private final Duration latency = Duration.ZERO;
+    /**
+     * Random part added to latency.
+     */
+    @Builder.Default
+    private final Duration latencyJitter = Duration.ZERO;
+    /**
+     * -1121 Invalid symbol.
+     */
+    private final double invalidSymbolRate;
+    /**
+     * HTTP 429 with -1003 and Retry-After.
+     */
+    private final double tooManyRequestsRate;
+    /**
+     * HTTP 503 with -1001.
+     */
+    private final double serverErrorRate;
+    /**
+     * Errors are injected into order queries as well, not only into placements and cancels.
+     */
+    private final boolean injectQueryErrors;
+    @Builder.Default
+    private final Duration retryAfter = Duration.ofSeconds(1);
+}
@@ -0,0 +1,22 @@
+package com.pblinov.binance.futures.mock;
+
+import lombok.Getter;
+
+/**
+ * Binance error response: HTTP status with error code and message in the body.
+ */
+@Getter
+class MockException extends RuntimeException {
+    private final int status;
+    private final long code;
+
+    MockException(int status, long code, String message) {
+        super(message);
+        this.status = status;
+        this.code = code;
+    }
+
+    static MockException badRequest(long code, String message) {
+        return new MockException(400, code, message);
+    }
+}
@@ -0,0 +1,62 @@
+package com.pblinov.binance.futures.mock;
+
+import com.pblinov.binance.futures.api.dto.OrderStatus;
+import com.pblinov.binance.futures.api.dto.OrderType;
+import com.pblinov.binance.futures.api.dto.Side;
+import com.pblinov.binance.futures.api.dto.TimeInForce;
+import lombok.Getter;
+
+/**
+ * Order state kept by {@link MatchingEngine}, prices and quantities are compared as doubles which is exact enough
+ * for the values produced by the client's tick and step rounding.
+ */
+@Getter
+class MockOrder {
+    private final long orderId;
+    private final String symbol;
+    private final String clientOrderId;
+    private final Side side;
+    private final OrderType type;
+    private final TimeInForce timeInForce;
+    private final double price;
+    private final double origQty;
+    private final long time;
+    private double executedQty;
+    private double cumQuote;
+    private OrderStatus status = OrderStatus.NEW;
+    private long updateTime;
+
+    MockOrder(long orderId, String symbol, String clientOrderId, Side side, OrderType type, TimeInForce timeInForce,
+              double price, double origQty, long time) {
+        this.orderId = orderId;
+        this.symbol = symbol;
+        this.clientOrderId = clientOrderId;
+        this.side = side;
+        this.type = type;
+        this.timeInForce = timeInForce;
+        this.price = price;
+        this.origQty = origQty;
+        this.time = time;
+        this.updateTime = time;
+    }
+
+    double getLeavesQty() {
+        return origQty - executedQty;
+    }
+
+    double getAvgPrice() {
+        return executedQty > 0 ? cumQuote / executedQty : 0;
+    }
+
+    void fill(double qty, double price, long time) {
+        executedQty += qty;
+        cumQuote += qty * price;
+        status = getLeavesQty() <= 0 ? OrderStatus.FILLED : OrderStatus.PARTIALLY_FILLED;
+        updateTime = time;
+    }
+
+    void close(OrderStatus status, long time) {
+        this.status = status;
+        updateTime = time;
+    }
+}
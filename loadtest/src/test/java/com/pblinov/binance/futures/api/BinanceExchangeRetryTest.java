@@ -0,0 +1,131 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.api.dto.OrderStatus;
+import com.pblinov.binance.futures.mock.MockBinanceServer;
+import com.pblinov.binance.futures.mock.MockConfig;
+import junit.framework.TestCase;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+
+import static com.pblinov.binance.futures.api.dto.OrderType.LIMIT;
+import static com.pblinov.binance.futures.api.dto.Side.BUY;
+import static com.pblinov.binance.futures.api.dto.Side.SELL;
+import static com.pblinov.binance.futures.api.dto.TimeInForce.GTC;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Retries and fallbacks of async query and cancel against {@link MockBinanceServer}.
+ * Order cache keeps open orders for no time, so their states are always requested from the server.
+ */
+public class BinanceExchangeRetryTest extends TestCase {
+    private static final String SYMBOL = "BTCUSDT";
+    private static final long OUTSIDE_RECV_WINDOW = -1021;
+    /**
+     * Max attempts of {@link BinanceExchange#RETRY_CONFIG}.
+     */
+    private static final long MAX_ATTEMPTS = 3;
+
+    private MockBinanceServer server;
+    private BinanceExchange exchange;
+
+    @Override
+    protected void setUp() throws Exception {
+        server = new MockBinanceServer(MockConfig.DEFAULT);
+        server.start();
+        exchange = new BinanceExchange(BinanceConfig.builder()
+                .exchangeName("retry")
+                .httpUrl(server.getHttpUrl())
+                .wsUrl(server.getWsUrl())
+                .apiKey(MockConfig.DEFAULT.getApiKey())
+                .apiSecret(MockConfig.DEFAULT.getApiSecret())
+                .orderCacheTtl(Duration.ZERO)
+                .build(), event -> {});
+        exchange.start();
+        exchange.placeOrder(SYMBOL, "open", LIMIT, BUY, 0.001, 100.0, GTC);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        exchange.stop();
+        server.stop();
+    }
+
+    public void testQuery() {
+        assertThat(exchange.queryOrderAsync(SYMBOL, "open").join().getStatus(), is(OrderStatus.NEW));
+        assertThat(server.getQueryRequests(), is(1L));
+        assertThat(retries(), is(0L));
+    }
+
+    public void testQueryIsRetried() {
+        server.failNext(1, 400, OUTSIDE_RECV_WINDOW, "Timestamp for this request is outside of the recvWindow.");
+
+        assertThat(exchange.queryOrderAsync(SYMBOL, "open").join().getStatus(), is(OrderStatus.NEW));
+        assertThat(server.getQueryRequests(), is(2L));
+        assertThat(retries(), is(1L));
+    }
+
+    public void testQueryFailsAfterMaxAttempts() {
+        server.failNext(10, 400, OUTSIDE_RECV_WINDOW, "Timestamp for this request is outside of the recvWindow.");
+
+        assertFailed(() -> exchange.queryOrderAsync(SYMBOL, "open").join(), OUTSIDE_RECV_WINDOW);
+        assertThat(server.getQueryRequests(), is(MAX_ATTEMPTS));
+    }
+
+    public void testUnrecoverableQueryIsNotRetried() {
+        server.failNext(10, 400, ProcessingException.BAD_SYMBOL, "Invalid symbol.");
+
+        assertFailed(() -> exchange.queryOrderAsync(SYMBOL, "open").join(), ProcessingException.BAD_SYMBOL);
+        assertThat(server.getQueryRequests(), is(1L));
+        assertThat(retries(), is(0L));
+    }
+
+    public void testCancel() {
+        assertThat(exchange.cancelOrderAsync(SYMBOL, "open").join().getStatus(), is(OrderStatus.CANCELED));
+        assertThat(server.getCancelRequests(), is(1L));
+        assertThat(server.getQueryRequests(), is(0L));
+    }
+
+    public void testCancelIsRetriedWhenOrderIsOpen() {
+        server.failNext(1, 400, OUTSIDE_RECV_WINDOW, "Timestamp for this request is outside of the recvWindow.");
+
+        assertThat(exchange.cancelOrderAsync(SYMBOL, "open").join().getStatus(), is(OrderStatus.CANCELED));
+        // Failed cancel is followed by a query which finds the order open
+        assertThat(server.getCancelRequests(), is(2L));
+        assertThat(server.getQueryRequests(), is(1L));
+        assertThat(retries(), is(1L));
+    }
+
+    public void testCancelOfFilledOrderReturnsItsState() {
+        // Buy order is filled, but only the user data stream would tell
+        exchange.placeOrder(SYMBOL, "sell", LIMIT, SELL, 0.001, 100.0, GTC);
+
+        assertThat(exchange.cancelOrderAsync(SYMBOL, "open").join().getStatus(), is(OrderStatus.FILLED));
+        assertThat(server.getCancelRequests(), is(1L));
+        assertThat(server.getQueryRequests(), is(1L));
+        assertThat(retries(), is(0L));
+    }
+
+    public void testUnrecoverableCancelIsNotRetried() {
+        server.failNext(10, 400, ProcessingException.BAD_SYMBOL, "Invalid symbol.");
+
+        assertFailed(() -> exchange.cancelOrderAsync(SYMBOL, "open").join(), ProcessingException.BAD_SYMBOL);
+        assertThat(server.getCancelRequests(), is(1L));
+        assertThat(server.getQueryRequests(), is(1L));
+        assertThat(retries(), is(0L));
+    }
+
+    private long retries() {
+        return exchange.getMetricsStats().getCount(Metrics.Counter.RETRY);
+    }
+
+    private static void assertFailed(Runnable call, long code) {
+        try {
+            call.run();
+            fail("Error " + code + " is not reported");
+        } catch (CompletionException e) {
+            assertThat(((ProcessingException) e.getCause()).getCode(), is(code));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.pblinov.binance.futures.api;
+
+import com.pblinov.binance.futures.mock.MockBinanceServer;
+import com.pblinov.binance.futures.mock.MockConfig;
+import com.pblinov.binance.futures.api.dto.OrderStatus;
+import junit.framework.TestCase;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.HttpContentResponse;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.http.HttpFields;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+
+public class BinanceRestTest extends TestCase {
+    private static final long EMISSION_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private MockBinanceServer server;
+    private HttpClient httpClient;
+    private BinanceRest rest;
+
+    @Override
+    protected void setUp() throws Exception {
+        server = new MockBinanceServer(MockConfig.DEFAULT);
+        server.start();
+        httpClient = new HttpClient();
+        httpClient.start();
+        rest = new BinanceRest(BinanceConfig.builder()
+                .exchangeName("rest")
+                .httpUrl(server.getHttpUrl())
+                .apiKey(MockConfig.DEFAULT.getApiKey())
+                .apiSecret(MockConfig.DEFAULT.getApiSecret())
+                // 100ms per unit of weight
+                .rateLimit(RateLimitConfig.builder().weightPerMinute(600).maxWait(Duration.ofSeconds(1)).build())
+                .build(), httpClient);
+        // Whole burst capacity is used
+        rest.getRateLimiter().acquire(600, 0);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        httpClient.stop();
+        server.stop();
+    }
+
+    public void testBlockingRequestWaitsForRateLimiter() {
+        long start = System.nanoTime();
+        assertThat(rest.ping(), is(true));
+        assertTrue(System.nanoTime() - start >= EMISSION_NANOS * 9 / 10);
+    }
+
+    public void testWarmUpWaitsForRateLimiter() throws Exception {
+        long start = System.nanoTime();
+        var warmUp = rest.warmUp(2);
+        // Caller is not blocked
+        assertTrue(System.nanoTime() - start < EMISSION_NANOS);
+        warmUp.get(5, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - start >= EMISSION_NANOS * 2 * 9 / 10);
+    }
+
+    public void testBatchResultsKeepOrderOfRequests() {
+        var results = rest.readBatch(response(200, "[" +
+                "{\"orderId\":1,\"symbol\":\"BTCUSDT\",\"status\":\"NEW\",\"clientOrderId\":\"first\"}," +
+                "{\"code\":-2019,\"msg\":\"Margin is insufficient.\"}," +
+                "{\"orderId\":3,\"symbol\":\"BTCUSDT\",\"status\":\"NEW\",\"clientOrderId\":\"third\"}]"), "place orders");
+
+        assertThat(results.size(), is(3));
+        assertThat(results.get(0).isSuccess(), is(true));
+        assertThat(results.get(0).getOrder().getClientOrderId(), is("first"));
+        assertThat(results.get(0).getOrder().getStatus(), is(OrderStatus.NEW));
+        assertThat(results.get(1).isSuccess(), is(false));
+        assertThat(results.get(1).getOrder(), nullValue());
+        assertThat(results.get(1).getError().getCode(), is(-2019L));
+        assertThat(results.get(2).getOrder().getClientOrderId(), is("third"));
+    }
+
+    public void testRejectedBatchIsReportedAsWhole() {
+        try {
+            rest.readBatch(response(400, "{\"code\":-1102,\"msg\":\"Mandatory parameter 'batchOrders' was not sent.\"}"), "place orders");
+            fail("Rejected batch should be reported");
+        } catch (ProcessingException e) {
+            assertThat(e.getCode(), is(-1102L));
+        }
+    }
+
+    private static HttpContentResponse response(int status, String content) {
+        var response = (Response) Proxy.newProxyInstance(BinanceRestTest.class.getClassLoader(), new Class<?>[]{Response.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getStatus":
+                            return status;
+                        case "getHeaders":
+                            return HttpFields.EMPTY;
+                        default:
+                            return null;
+                    }
+                });
+        return new HttpContentResponse(response, content.getBytes(UTF_8), "application/json", "UTF-8");
+    }
+}
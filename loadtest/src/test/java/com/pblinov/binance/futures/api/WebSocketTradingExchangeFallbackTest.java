@@ -0,0 +1,252 @@
+package com.pblinov.binance.futures.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pblinov.binance.futures.api.dto.Order;
+import com.pblinov.binance.futures.api.dto.OrderStatus;
+import com.pblinov.binance.futures.mock.MockBinanceServer;
+import com.pblinov.binance.futures.mock.MockConfig;
+import junit.framework.TestCase;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WebSocketListener;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static com.pblinov.binance.futures.api.dto.OrderType.LIMIT;
+import static com.pblinov.binance.futures.api.dto.Side.BUY;
+import static com.pblinov.binance.futures.api.dto.TimeInForce.GTC;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * WS API session is stubbed, REST fallback goes to {@link MockBinanceServer}.
+ */
+public class WebSocketTradingExchangeFallbackTest extends TestCase {
+    private static final String SYMBOL = "BTCUSDT";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<JsonNode> requests = new CopyOnWriteArrayList<>();
+    private volatile boolean writeFails;
+    private volatile WebSocketListener endpoint;
+    private MockBinanceServer server;
+    private BinanceExchange restExchange;
+    private WebSocketTradingExchange exchange;
+
+    private void start(MockConfig mockConfig) throws Exception {
+        start(mockConfig, RateLimitConfig.DEFAULT);
+    }
+
+    private void start(MockConfig mockConfig, RateLimitConfig rateLimit) throws Exception {
+        server = new MockBinanceServer(mockConfig);
+        server.start();
+        var config = BinanceConfig.builder()
+                .exchangeName("ws-api")
+                .httpUrl(server.getHttpUrl())
+                .wsUrl(server.getWsUrl())
+                .wsApiUrl("ws://localhost/ws-fapi/v1")
+                .apiKey(mockConfig.getApiKey())
+                .apiSecret(mockConfig.getApiSecret())
+                .wsApiTimeout(Duration.ofMillis(200))
+                .rateLimit(rateLimit)
+                .build();
+        var session = session();
+        var client = new WebSocketClient() {
+            @Override
+            public CompletableFuture<Session> connect(Object websocket, URI toUri) {
+                endpoint = (WebSocketListener) websocket;
+                return CompletableFuture.completedFuture(session);
+            }
+        };
+        restExchange = new BinanceExchange(config, event -> {}) {
+            @Override
+            WebSocketClient getWebSocketClient() {
+                return client;
+            }
+        };
+        exchange = new WebSocketTradingExchange(config, restExchange);
+        exchange.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (exchange != null) {
+            exchange.stop();
+        }
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    public void testResponsesAreMatchedById() throws Exception {
+        start(MockConfig.DEFAULT);
+        var first = CompletableFuture.supplyAsync(() -> exchange.queryOrder(SYMBOL, "first"));
+        var second = CompletableFuture.supplyAsync(() -> exchange.queryOrder(SYMBOL, "second"));
+        awaitRequests(2);
+
+        // Unknown ID is ignored, responses come in reverse order
+        endpoint.onWebSocketText("{\"id\":999,\"status\":200,\"result\":{}}");
+        respond(requests.get(1));
+        respond(requests.get(0));
+
+        assertThat(first.get(1, TimeUnit.SECONDS).getClientOrderId(), is("first"));
+        assertThat(second.get(1, TimeUnit.SECONDS).getClientOrderId(), is("second"));
+        assertThat(server.getOrderRequests(), is(0L));
+    }
+
+    public void testTimeoutPlacesUnknownOrderOverRest() throws Exception {
+        start(MockConfig.DEFAULT);
+        exchange.placeOrder(SYMBOL, "lost", LIMIT, BUY, 0.001, 100.0, GTC);
+
+        assertThat(requests.size(), is(1));
+        assertThat(server.getOrderRequests(), is(1L));
+        assertThat(exchange.queryOrder(SYMBOL, "lost").getStatus(), is(OrderStatus.NEW));
+    }
+
+    public void testTimeoutDoesNotPlaceKnownOrderAgain() throws Exception {
+        start(MockConfig.DEFAULT);
+        // As if the WS API request was executed and only its response is lost
+        exchange.placeOrder(SYMBOL, "live", LIMIT, BUY, 0.001, 100.0, GTC);
+        assertThat(server.getOrderRequests(), is(1L));
+
+        exchange.placeOrder(SYMBOL, "live", LIMIT, BUY, 0.001, 100.0, GTC);
+        assertThat(server.getOrderRequests(), is(1L));
+    }
+
+    public void testTimeoutWithQueryErrorIsReported() throws Exception {
+        start(MockConfig.builder().serverErrorRate(1.0).injectQueryErrors(true).build());
+        try {
+            exchange.placeOrder(SYMBOL, "unknown", LIMIT, BUY, 0.001, 100.0, GTC);
+            fail("Query error is not reported");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("Cannot query order"));
+        }
+        assertThat(server.getOrderRequests(), is(0L));
+    }
+
+    public void testNotSentOrderIsPlacedOverRest() throws Exception {
+        start(MockConfig.DEFAULT);
+        writeFails = true;
+        exchange.placeOrder(SYMBOL, "not-sent", LIMIT, BUY, 0.001, 100.0, GTC);
+
+        assertThat(server.getOrderRequests(), is(1L));
+        assertThat(exchange.queryOrder(SYMBOL, "not-sent").getStatus(), is(OrderStatus.NEW));
+    }
+
+    public void testBanIsSharedWithRest() throws Exception {
+        start(MockConfig.DEFAULT);
+        var banned = CompletableFuture.supplyAsync(() -> exchange.queryOrder(SYMBOL, "banned"));
+        awaitRequests(1);
+
+        var response = mapper.createObjectNode()
+                .put("id", requests.get(0).get("id").asLong())
+                .put("status", 418);
+        response.putObject("error")
+                .put("code", ProcessingException.TOO_MANY_REQUESTS)
+                .put("msg", "Way too many requests; IP banned until 1659606000000.")
+                .putObject("data")
+                .put("retryAfter", System.currentTimeMillis() + 60_000);
+        endpoint.onWebSocketText(mapper.writeValueAsString(response));
+        assertTooManyRequests(banned::join);
+
+        // Neither WS API nor REST API requests are sent while banned
+        assertTooManyRequests(() -> exchange.queryOrder(SYMBOL, "next"));
+        assertTooManyRequests(() -> restExchange.queryOrder(SYMBOL, "next"));
+        assertThat(requests.size(), is(1));
+        assertThat(server.getQueryRequests(), is(0L));
+    }
+
+    public void testUsageIsSyncedFromRateLimits() throws Exception {
+        start(MockConfig.DEFAULT, RateLimitConfig.builder()
+                .weightPerMinute(100)
+                .maxWait(Duration.ZERO)
+                .build());
+        var first = CompletableFuture.supplyAsync(() -> exchange.queryOrder(SYMBOL, "first"));
+        awaitRequests(1);
+
+        var response = response(requests.get(0));
+        response.putArray("rateLimits").addObject()
+                .put("rateLimitType", "REQUEST_WEIGHT")
+                .put("interval", "MINUTE")
+                .put("intervalNum", 1)
+                .put("limit", 100)
+                .put("count", 100);
+        endpoint.onWebSocketText(mapper.writeValueAsString(response));
+        assertThat(first.get(1, TimeUnit.SECONDS).getClientOrderId(), is("first"));
+
+        // Weight used over WS API is taken by the shared limiter
+        assertTooManyRequests(() -> restExchange.queryOrder(SYMBOL, "second"));
+        assertThat(server.getQueryRequests(), is(0L));
+    }
+
+    private void assertTooManyRequests(Runnable call) {
+        try {
+            call.run();
+            fail("Request is not rejected");
+        } catch (CompletionException e) {
+            assertThat(((ProcessingException) e.getCause()).getCode(), is(ProcessingException.TOO_MANY_REQUESTS));
+        } catch (ProcessingException e) {
+            assertThat(e.getCode(), is(ProcessingException.TOO_MANY_REQUESTS));
+        }
+    }
+
+    private void respond(JsonNode request) throws IOException {
+        endpoint.onWebSocketText(mapper.writeValueAsString(response(request)));
+    }
+
+    private ObjectNode response(JsonNode request) {
+        var order = new Order();
+        order.setSymbol(SYMBOL);
+        order.setClientOrderId(request.path("params").path("origClientOrderId").asText());
+        order.setStatus(OrderStatus.NEW);
+        var response = mapper.createObjectNode()
+                .put("id", request.get("id").asLong())
+                .put("status", 200);
+        response.set("result", mapper.valueToTree(order));
+        return response;
+    }
+
+    private void awaitRequests(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (requests.size() < count && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        assertThat(requests.size(), is(count));
+    }
+
+    private Session session() {
+        var remote = (RemoteEndpoint) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{RemoteEndpoint.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("sendString") && args.length == 2) {
+                        if (writeFails) {
+                            ((WriteCallback) args[1]).writeFailed(new IOException("Broken pipe"));
+                        } else {
+                            requests.add(mapper.readTree((String) args[0]));
+                        }
+                    }
+                    return null;
+                });
+        return (Session) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Session.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isOpen":
+                            return true;
+                        case "getRemote":
+                            return remote;
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
@@ -0,0 +1,138 @@
+package com.pblinov.binance.futures.mock;
+
+import com.pblinov.binance.futures.api.BinanceConfig;
+import com.pblinov.binance.futures.api.BinanceExchange;
+import com.pblinov.binance.futures.api.Metrics;
+import com.pblinov.binance.futures.api.ProcessingException;
+import com.pblinov.binance.futures.api.RiskConfig;
+import com.pblinov.binance.futures.api.RiskRejectedException;
+import com.pblinov.binance.futures.api.dto.OrderStatus;
+import junit.framework.TestCase;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.pblinov.binance.futures.api.dto.OrderType.LIMIT;
+import static com.pblinov.binance.futures.api.dto.Side.BUY;
+import static com.pblinov.binance.futures.api.dto.Side.SELL;
+import static com.pblinov.binance.futures.api.dto.TimeInForce.GTC;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class MockBinanceServerTest extends TestCase {
+    private MockBinanceServer server;
+    private BinanceExchange exchange;
+
+    private void start(MockConfig mockConfig, String apiSecret) throws Exception {
+        start(mockConfig, apiSecret, RiskConfig.DEFAULT);
+    }
+
+    private void start(MockConfig mockConfig, String apiSecret, RiskConfig risk) throws Exception {
+        server = new MockBinanceServer(mockConfig);
+        server.start();
+        exchange = new BinanceExchange(BinanceConfig.builder()
+                .exchangeName("mock")
+                .httpUrl(server.getHttpUrl())
+                .wsUrl(server.getWsUrl())
+                .apiKey(mockConfig.getApiKey())
+                .apiSecret(apiSecret)
+                .risk(risk)
+                .build(), event -> {});
+        exchange.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (exchange != null) {
+            exchange.stop();
+        }
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    public void testOrderLifecycle() throws Exception {
+        start(MockConfig.DEFAULT, MockConfig.DEFAULT.getApiSecret());
+        assertTrue(exchange.ping());
+
+        exchange.placeOrder("BTCUSDT", "buy-1", LIMIT, BUY, 0.001, 100.0, GTC);
+        assertThat(exchange.queryOrder("BTCUSDT", "buy-1").getStatus(), is(OrderStatus.NEW));
+        assertThat(exchange.cancelOrder("BTCUSDT", "buy-1").getStatus(), is(OrderStatus.CANCELED));
+
+        var stats = exchange.getMetricsStats();
+        assertTrue(stats.getHistogram(Metrics.Timer.SIGN).getTotalCount() >= 2);
+        assertTrue(stats.getHistogram(Metrics.Timer.FIRST_BYTE).getTotalCount() >= 2);
+        assertTrue(stats.getHistogram(Metrics.Timer.RESPONSE).getTotalCount() >= 2);
+        assertTrue(stats.getHistogram(Metrics.Timer.PARSE).getTotalCount() >= 1);
+    }
+
+    public void testRiskRejectedOrderIsNotSent() throws Exception {
+        start(MockConfig.DEFAULT, MockConfig.DEFAULT.getApiSecret(), RiskConfig.builder().maxOrderQty(0.01).build());
+        try {
+            exchange.placeOrder("BTCUSDT", "big-1", LIMIT, BUY, 1.0, 100.0, GTC);
+            fail();
+        } catch (RiskRejectedException e) {
+            assertThat(e.getReason(), is(RiskRejectedException.Reason.MAX_QTY));
+        }
+        try {
+            exchange.placeOrderAsync("BTCUSDT", "big-2", LIMIT, BUY, 1.0, 100.0, GTC).join();
+            fail();
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof RiskRejectedException);
+        }
+        assertThat(server.getOrderRequests(), is(0L));
+        assertThat(exchange.getMetricsStats().getCount(Metrics.Counter.RISK_REJECTED), is(2L));
+
+        exchange.placeOrder("BTCUSDT", "small-1", LIMIT, BUY, 0.001, 100.0, GTC);
+        assertThat(server.getOrderRequests(), is(1L));
+    }
+
+    public void testCrossingOrdersAreFilled() throws Exception {
+        start(MockConfig.DEFAULT, MockConfig.DEFAULT.getApiSecret());
+        exchange.connect();
+
+        exchange.placeOrder("BTCUSDT", "buy-1", LIMIT, BUY, 0.001, 100.0, GTC);
+        exchange.placeOrder("BTCUSDT", "sell-1", LIMIT, SELL, 0.001, 100.0, GTC);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (exchange.queryOrder("BTCUSDT", "buy-1").getStatus() != OrderStatus.FILLED && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        var order = exchange.queryOrder("BTCUSDT", "buy-1");
+        assertThat(order.getStatus(), is(OrderStatus.FILLED));
+        assertThat(order.getExecutedQty(), is(0.001));
+    }
+
+    public void testAccountIsLoadedOnConnect() throws Exception {
+        start(MockConfig.DEFAULT, MockConfig.DEFAULT.getApiSecret());
+        exchange.connect();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (exchange.getAccount().getBalance("USDT") == null && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertThat(exchange.getAccount().getBalance("USDT").getWalletBalance(), is(100000.0));
+        assertThat(exchange.getAccount().getPositions().isEmpty(), is(true));
+    }
+
+    public void testInvalidSignatureIsRejected() throws Exception {
+        start(MockConfig.DEFAULT, "wrong-secret");
+        try {
+            exchange.placeOrderAsync("BTCUSDT", "buy-1", LIMIT, BUY, 0.001, 100.0, GTC).join();
+            fail("Order with invalid signature is accepted");
+        } catch (CompletionException e) {
+            assertThat(((ProcessingException) e.getCause()).getCode(), is(-1022L));
+        }
+    }
+
+    public void testInjectedError() throws Exception {
+        start(MockConfig.builder().invalidSymbolRate(1.0).build(), MockConfig.DEFAULT.getApiSecret());
+        try {
+            exchange.placeOrderAsync("BTCUSDT", "buy-1", LIMIT, BUY, 0.001, 100.0, GTC).join();
+            fail("Injected error is not reported");
+        } catch (CompletionException e) {
+            assertThat(((ProcessingException) e.getCause()).getCode(), is(-1121L));
+        }
+        assertThat(server.getInjectedErrors(), is(1L));
+    }
+}
@@ -0,0 +1,111 @@
+package com.pblinov.binance.futures.mock;
+
+import com.pblinov.binance.futures.api.BinanceConfig;
+import com.pblinov.binance.futures.api.BinanceExchange;
+import com.pblinov.binance.futures.api.dto.OrderStatus;
+import com.pblinov.binance.futures.api.dto.OrderUpdateEvent;
+import junit.framework.TestCase;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static com.pblinov.binance.futures.api.dto.OrderType.LIMIT;
+import static com.pblinov.binance.futures.api.dto.Side.BUY;
+import static com.pblinov.binance.futures.api.dto.Side.SELL;
+import static com.pblinov.binance.futures.api.dto.TimeInForce.GTC;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * User data stream is dropped by {@link MockBinanceServer}, orders change while it's down,
+ * missed updates are delivered as synthetic events after reconnect.
+ */
+public class UserStreamReconnectTest extends TestCase {
+    private static final String SYMBOL = "BTCUSDT";
+
+    /**
+     * "clientOrderId x X l z" of received updates, event instances are reused.
+     */
+    private final List<String> updates = new CopyOnWriteArrayList<>();
+    private MockBinanceServer server;
+    private BinanceExchange exchange;
+
+    @Override
+    protected void setUp() throws Exception {
+        server = new MockBinanceServer(MockConfig.DEFAULT);
+        server.start();
+        exchange = new BinanceExchange(BinanceConfig.builder()
+                .exchangeName("reconnect")
+                .httpUrl(server.getHttpUrl())
+                .wsUrl(server.getWsUrl())
+                .apiKey(MockConfig.DEFAULT.getApiKey())
+                .apiSecret(MockConfig.DEFAULT.getApiSecret())
+                .build(), this::onOrderUpdate);
+        exchange.start();
+        exchange.connect();
+        // Account is loaded once the session is open
+        await(() -> exchange.getAccount().getBalance("USDT") != null);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        exchange.stop();
+        server.stop();
+    }
+
+    public void testMissedUpdatesAreReconciled() throws Exception {
+        exchange.placeOrder(SYMBOL, "resting", LIMIT, BUY, 0.001, 100.0, GTC);
+        exchange.placeOrder(SYMBOL, "maker", LIMIT, SELL, 0.002, 200.0, GTC);
+        await(() -> updates.size() == 2);
+        updates.clear();
+
+        server.setUserStreamAvailable(false);
+        server.dropUserStreams();
+        // Failed connects are retried with backoff
+        await(() -> server.getUserStreamConnects() >= 3);
+        // Maker is filled while the stream is down, the taker's state comes with the REST response
+        exchange.placeOrder(SYMBOL, "taker", LIMIT, BUY, 0.002, 200.0, GTC);
+        assertThat(updates.size(), is(0));
+
+        server.setUserStreamAvailable(true);
+        await(() -> !updates.isEmpty());
+
+        // Unchanged and already known orders produce nothing
+        assertThat(updates, is(List.of("maker TRADE FILLED 0.002 0.002")));
+        assertThat(exchange.queryOrder(SYMBOL, "maker").getStatus(), is(OrderStatus.FILLED));
+        assertThat(exchange.queryOrder(SYMBOL, "resting").getStatus(), is(OrderStatus.NEW));
+    }
+
+    public void testCanceledOrderIsReconciled() throws Exception {
+        exchange.placeOrder(SYMBOL, "canceled", LIMIT, BUY, 0.001, 100.0, GTC);
+        await(() -> updates.size() == 1);
+        updates.clear();
+
+        server.setUserStreamAvailable(false);
+        server.dropUserStreams();
+        await(() -> server.getUserStreamConnects() >= 2);
+        server.cancelOrder(SYMBOL, "canceled");
+
+        server.setUserStreamAvailable(true);
+        await(() -> !updates.isEmpty());
+
+        assertThat(updates, is(List.of("canceled CANCELED CANCELED 0.0 0.0")));
+        assertThat(exchange.queryOrder(SYMBOL, "canceled").getStatus(), is(OrderStatus.CANCELED));
+    }
+
+    private void onOrderUpdate(OrderUpdateEvent event) {
+        var order = event.getPayload();
+        updates.add(order.getClientOrderId() + " " + order.getExecutionType() + " " + order.getOrderStatus()
+                + " " + order.getLastFilledQty() + " " + order.getFilledQty());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}